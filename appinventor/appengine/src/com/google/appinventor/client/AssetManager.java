@@ -198,9 +198,30 @@ public final class AssetManager implements ProjectChangeListener {
 
   private void refreshAssets1() {
     boolean loadInProgress = false;
+    List<AssetInfo> toLoad = new ArrayList<>();
+    JsArrayString fileIds = JsArrayString.createArray().cast();
     for (AssetInfo a : assets.values()) {
       if (!a.loaded) {
         loadInProgress = true;
+        toLoad.add(a);
+        fileIds.push(a.fileId);
+      }
+    }
+    if (loadInProgress && doCanPutAssets()) {
+      ConnectProgressBar.setProgress(100 * assetTransferProgress / (2 * assets.size()),
+        MESSAGES.sendingAssetToCompanion(toLoad.get(0).fileId));
+      // The companion is handed all of the assets at once, so that it can skip
+      // those it already has and fetch the others in parallel.
+      boolean didit = doPutAssets(Long.toString(projectId), fileIds);
+      if (didit) {
+        for (AssetInfo a : toLoad) {
+          assetTransferProgress++;
+          a.loaded = true;
+        }
+      }
+    } else if (loadInProgress) {
+      // Older companions fetch one asset at a time.
+      for (AssetInfo a : toLoad) {
         ConnectProgressBar.setProgress(100 * assetTransferProgress / (2 * assets.size()),
           MESSAGES.sendingAssetToCompanion(a.fileId));
         boolean didit = doPutAsset(Long.toString(projectId), a.fileId);
@@ -315,6 +336,14 @@ public final class AssetManager implements ProjectChangeListener {
       $entry(@com.google.appinventor.client.AssetManager::getExtensionsToLoad());
   }-*/;
 
+  private static native boolean doCanPutAssets() /*-{
+    return Blockly.ReplMgr.canPutAssets();
+  }-*/;
+
+  private static native boolean doPutAssets(String projectId, JsArrayString filenames) /*-{
+    return Blockly.ReplMgr.putAssets(projectId, filenames);
+  }-*/;
+
   private static native boolean doPutAsset(String projectId, String filename) /*-{
     return Blockly.ReplMgr.putAsset(projectId, filename, null, function() { window.parent.AssetManager_markAssetTransferred(filename) });
   }-*/;
@@ -10,11 +10,13 @@ import com.google.appinventor.client.explorer.project.ComponentDatabaseChangeLis
 import com.google.appinventor.client.properties.json.ClientJsonParser;
 import com.google.appinventor.shared.properties.json.JSONArray;
 import com.google.appinventor.shared.properties.json.JSONObject;
+import com.google.appinventor.shared.properties.json.JSONParser;
 import com.google.appinventor.shared.properties.json.JSONValue;
 import com.google.appinventor.shared.simple.ComponentDatabaseInterface;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +34,16 @@ class ComponentDatabase implements ComponentDatabaseInterface {
   // Maps component names to component descriptors
   private final Map<String, ComponentDefinition> components;
 
+  // Internal components, restored when the database is reset
+  private final Map<String, ComponentDefinition> internalComponents;
+
+  // Components whose properties, events and methods haven't been decoded
+  // from their descriptors yet
+  private final Set<ComponentDefinition> undecodedComponents = new HashSet<ComponentDefinition>();
+
+  // Parser used to decode descriptors
+  private final JSONParser parser;
+
   // Components in JSON String generated from internal components
   private final String internalComponentsJSONString;
   // Components in JSON String generated from components
@@ -48,6 +60,7 @@ class ComponentDatabase implements ComponentDatabaseInterface {
    */
   ComponentDatabase(JSONArray array) {
     components = new HashMap<String, ComponentDefinition>();
+    parser = new ClientJsonParser();
     List<String> newComponents = new ArrayList<String>();
     for (JSONValue component : array.getElements()) {
       if (component.asObject().get("external").asString().getString().equals("true")) {
@@ -57,6 +70,43 @@ class ComponentDatabase implements ComponentDatabaseInterface {
         newComponents.add(component.asObject().get("name").asString().getString());
       }
     }
+    internalComponents = new HashMap<String, ComponentDefinition>(components);
+    internalComponentsJSONString = generateComponentsJSON();
+    componentsJSONString = internalComponentsJSONString;
+    fireComponentsAdded(newComponents);
+  }
+
+  /**
+   * Creates a new component database from an index of the components,
+   * decoding the descriptor of each component only when its properties,
+   * events or methods are first needed.
+   *
+   * @param componentsJSON
+   *          a JSON array of component descriptors
+   * @param index
+   *          a JSONArray with the palette fields of each component and the
+   *          "start" and "end" offsets of its descriptor in componentsJSON
+   * @param parser
+   *          the parser used to decode the descriptors
+   */
+  ComponentDatabase(String componentsJSON, JSONArray index, JSONParser parser) {
+    components = new HashMap<String, ComponentDefinition>();
+    this.parser = parser;
+    List<String> newComponents = new ArrayList<String>();
+    for (JSONValue entry : index.getElements()) {
+      Map<String, JSONValue> properties = entry.asObject().getProperties();
+      if (properties.get("external").asString().getString().equals("true")) {
+        continue;
+      }
+      String typeDescription = componentsJSON.substring(
+          Integer.parseInt(properties.get("start").asString().getString()),
+          Integer.parseInt(properties.get("end").asString().getString()));
+      ComponentDefinition component = createComponent(properties, typeDescription);
+      components.put(component.getName(), component);
+      undecodedComponents.add(component);
+      newComponents.add(component.getName());
+    }
+    internalComponents = new HashMap<String, ComponentDefinition>(components);
     internalComponentsJSONString = generateComponentsJSON();
     componentsJSONString = internalComponentsJSONString;
     fireComponentsAdded(newComponents);
@@ -106,9 +156,12 @@ class ComponentDatabase implements ComponentDatabaseInterface {
    * Resets the Component Database to include only Internal Components
    */
   public void resetDatabase() {
+    // The internal definitions are restored as they are, so those that were
+    // never used stay undecoded
     components.clear();
-    componentsJSONString = "";
-    addComponents(new ClientJsonParser().parse(internalComponentsJSONString).asArray());
+    components.putAll(internalComponents);
+    componentsJSONString = internalComponentsJSONString;
+    fireComponentsAdded(new ArrayList<String>(internalComponents.keySet()));
     fireResetDatabase();
   }
 
@@ -118,11 +171,22 @@ class ComponentDatabase implements ComponentDatabaseInterface {
   }
 
   public ComponentDefinition getComponentDefinition(String componentName) {
+    return getDecodedComponent(componentName);
+  }
+
+  /*
+   * Returns the definition of a component, decoding its properties, events
+   * and methods from its descriptor the first time they are needed.
+   */
+  private ComponentDefinition getDecodedComponent(String componentName) {
     ComponentDefinition component = components.get(componentName);
     if (component == null) {
       throw new ComponentNotFoundException(componentName);
     }
-
+    if (undecodedComponents.remove(component)) {
+      decodeMembers(component,
+          parser.parse(component.getTypeDescription()).asObject().getProperties());
+    }
     return component;
   }
 
@@ -266,52 +330,27 @@ class ComponentDatabase implements ComponentDatabaseInterface {
 
   @Override
   public List<PropertyDefinition> getPropertyDefinitions(String componentName) {
-    ComponentDefinition component = components.get(componentName);
-    if (component == null) {
-      throw new ComponentNotFoundException(componentName);
-    }
-
-    return component.getProperties();
+    return getDecodedComponent(componentName).getProperties();
   }
 
   @Override
   public List<BlockPropertyDefinition> getBlockPropertyDefinitions(String componentName) {
-    ComponentDefinition component = components.get(componentName);
-    if (component == null) {
-      throw new ComponentNotFoundException(componentName);
-    }
-
-    return component.getBlockProperties();
+    return getDecodedComponent(componentName).getBlockProperties();
   }
 
   @Override
   public List<EventDefinition> getEventDefinitions(String componentName) {
-    ComponentDefinition component = components.get(componentName);
-    if (component == null) {
-      throw new ComponentNotFoundException(componentName);
-    }
-
-    return component.getEvents();
+    return getDecodedComponent(componentName).getEvents();
   }
 
   @Override
   public List<MethodDefinition> getMethodDefinitions(String componentName) {
-    ComponentDefinition component = components.get(componentName);
-    if (component == null) {
-      throw new ComponentNotFoundException(componentName);
-    }
-
-    return component.getMethods();
+    return getDecodedComponent(componentName).getMethods();
   }
 
   @Override
   public Map<String, String> getPropertyTypesByName(String componentName) {
-    ComponentDefinition component = components.get(componentName);
-    if (component == null) {
-      throw new ComponentNotFoundException(componentName);
-    }
-
-    return component.getPropertiesTypesByName();
+    return getDecodedComponent(componentName).getPropertiesTypesByName();
   }
 
   @Override
@@ -339,7 +378,19 @@ class ComponentDatabase implements ComponentDatabaseInterface {
       // This must be a component upgrade! We remove existing entry
       components.remove(name);
     }
-    ComponentDefinition component = new ComponentDefinition(name,
+    ComponentDefinition component = createComponent(properties, componentNode.toJson());
+    decodeMembers(component, properties);
+    components.put(component.getName(), component);
+    return true;
+  }
+
+  /*
+   * Creates a component descriptor, without its properties, events and
+   * methods, from the palette fields of its JSON descriptor or index entry.
+   */
+  private ComponentDefinition createComponent(Map<String, JSONValue> properties,
+      String typeDescription) {
+    return new ComponentDefinition(properties.get("name").asString().getString(),
         Integer.parseInt(properties.get("version").asString().getString()),
         optString(properties.get("versionName"), ""),
         optString(properties.get("dateBuilt"), ""),
@@ -352,13 +403,18 @@ class ComponentDatabase implements ComponentDatabaseInterface {
         Boolean.valueOf(properties.get("nonVisible").asString().getString()),
         properties.get("iconName").asString().getString(),
         properties.containsKey("licenseName") ? properties.get("licenseName").asString().getString() : "",
-        componentNode.toJson());
+        typeDescription);
+  }
+
+  /*
+   * Enters the properties, events and methods of a JSON descriptor into the
+   * component descriptor.
+   */
+  private void decodeMembers(ComponentDefinition component, Map<String, JSONValue> properties) {
     findComponentProperties(component, properties.get("properties").asArray());
     findComponentBlockProperties(component, properties.get("blockProperties").asArray());
     findComponentEvents(component, properties.get("events").asArray());
     findComponentMethods(component, properties.get("methods").asArray());
-    components.put(component.getName(), component);
-    return true;
   }
 
   /**
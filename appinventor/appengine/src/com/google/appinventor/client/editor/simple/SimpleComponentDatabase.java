@@ -8,6 +8,7 @@ package com.google.appinventor.client.editor.simple;
 
 import com.google.appinventor.client.Ode;
 import com.google.appinventor.client.properties.json.ClientJsonParser;
+import com.google.appinventor.shared.properties.json.JSONArray;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.TextResource;
@@ -56,12 +57,28 @@ public final class SimpleComponentDatabase extends ComponentDatabase {
   public interface ComponentResource extends ClientBundle {
     @Source("com/google/appinventor/simple_components.json")
     TextResource getSimpleComponents();
+
+    @Source("com/google/appinventor/simple_components_index.json")
+    TextResource getSimpleComponentsIndex();
   }
 
   private static final ComponentResource componentResources = GWT.create(ComponentResource.class);
 
+  // The index is shared by the databases of all projects
+  private static JSONArray componentIndex;
+
+  private static JSONArray getComponentIndex() {
+    if (componentIndex == null) {
+      componentIndex = new ClientJsonParser().parse(
+          componentResources.getSimpleComponentsIndex().getText()).asArray();
+    }
+    return componentIndex;
+  }
+
   private SimpleComponentDatabase() {
-    super(new ClientJsonParser().parse(
-        componentResources.getSimpleComponents().getText()).asArray());
+    // Only the index is parsed here; each component's descriptor is parsed
+    // when its definitions are first needed.
+    super(componentResources.getSimpleComponents().getText(), getComponentIndex(),
+        new ClientJsonParser());
   }
 }
@@ -215,7 +215,7 @@ public final class YaBlocksEditor extends FileEditor
         super.onFailure(caught);
       }
     };
-    Ode.getInstance().getProjectService().load2(projectId, fileId, callback);
+    ((YaProjectEditor) projectEditor).loadSource(fileId, callback);
   }
 
   @Override
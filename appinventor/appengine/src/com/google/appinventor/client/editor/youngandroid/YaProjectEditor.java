@@ -98,6 +98,11 @@ public final class YaProjectEditor extends ProjectEditor implements ProjectChang
 
   //State variables to help determine whether we are ready to load Project
   private boolean externalComponentsLoaded = false;
+  private boolean sourcesPreloaded = false;
+
+  // Form and blocks file contents fetched in bulk when the project is opened,
+  // by file id. Each entry is removed when its editor loads it.
+  private final Map<String, ChecksumedLoadFile> preloadedSources = new HashMap<>();
 
   // Database of component type descriptions
   private final SimpleComponentDatabase COMPONENT_DATABASE;
@@ -169,9 +174,61 @@ public final class YaProjectEditor extends ProjectEditor implements ProjectChang
     resetExternalComponents();
     resetProjectWarnings();
     loadExternalComponents();
+    preloadSources();
     callLoadProject();
   }
 
+  /*
+   * Fetches the contents of all of the form and blocks files in a single
+   * call, rather than one load2 call per file once the editors are added.
+   * If the call fails, the editors fall back to loading their own files.
+   */
+  private void preloadSources() {
+    sourcesPreloaded = false;
+    preloadedSources.clear();
+    List<String> sourceFileIds = new ArrayList<String>();
+    for (ProjectNode source : projectRootNode.getAllSourceNodes()) {
+      if (source instanceof YoungAndroidFormNode || source instanceof YoungAndroidBlocksNode) {
+        sourceFileIds.add(source.getFileId());
+      }
+    }
+    if (sourceFileIds.isEmpty()) {
+      sourcesPreloaded = true;
+      return;
+    }
+    Ode.getInstance().getProjectService().loadProjectSources(projectId, sourceFileIds,
+        new AsyncCallback<Map<String, ChecksumedLoadFile>>() {
+          @Override
+          public void onSuccess(Map<String, ChecksumedLoadFile> result) {
+            preloadedSources.putAll(result);
+            sourcesPreloaded = true;
+          }
+
+          @Override
+          public void onFailure(Throwable caught) {
+            OdeLog.wlog("Unable to preload sources of project " + projectId + ": "
+                + caught.getMessage());
+            sourcesPreloaded = true;
+          }
+        });
+  }
+
+  /**
+   * Loads the content of one of the project's source files, using the
+   * content fetched when the project was opened if there is one.
+   *
+   * @param fileId  the file to load
+   * @param callback  the callback that receives the content
+   */
+  void loadSource(String fileId, AsyncCallback<ChecksumedLoadFile> callback) {
+    ChecksumedLoadFile preloaded = preloadedSources.remove(fileId);
+    if (preloaded != null) {
+      callback.onSuccess(preloaded);
+    } else {
+      Ode.getInstance().getProjectService().load2(projectId, fileId, callback);
+    }
+  }
+
   // Note: When we add the blocks editors in the loop below we do not actually
   // have them load the blocks file. Instead we trigger the load of a blocks file
   // in the callback for the loading of its associated forms file. This is important
@@ -299,6 +356,7 @@ public final class YaProjectEditor extends ProjectEditor implements ProjectChang
     // removed, calling DesignToolbar.removeScreen a second time will be a no-op.
     OdeLog.log("YaProjectEditor: got onProjectNodeRemoved for project "
             + project.getProjectId() + ", node " + node.getFileId());
+    preloadedSources.remove(node.getFileId());
     String formName = null;
     if (node instanceof YoungAndroidFormNode) {
       formName = ((YoungAndroidFormNode) node).getFormName();
@@ -495,7 +553,8 @@ public final class YaProjectEditor extends ProjectEditor implements ProjectChang
   }
 
   private boolean readyToLoadProject() {
-    return BlocklyMsg.Loader.isTranslationLoaded() && externalComponentsLoaded;
+    return BlocklyMsg.Loader.isTranslationLoaded() && externalComponentsLoaded
+        && sourcesPreloaded;
   }
 
   private void addBlocksEditor(YoungAndroidBlocksNode blocksNode) {
@@ -272,6 +272,9 @@ public final class YoungAndroidFormUpgrader {
       } else if (componentType.equals("FusiontablesControl")) {
         srcCompVersion = upgradeFusiontablesControlProperties(componentProperties, srcCompVersion);
 
+      } else if (componentType.equals("GyroscopeSensor")) {
+        srcCompVersion = upgradeGyroscopeSensorProperties(componentProperties, srcCompVersion);
+
       } else if (componentType.equals("HorizontalArrangement")) {
         srcCompVersion = upgradeHorizontalArrangementProperties(componentProperties,
             srcCompVersion);
@@ -464,6 +467,11 @@ public final class YoungAndroidFormUpgrader {
       // Adds Sensitivity dropdown block.
       srcCompVersion = 5;
     }
+    if (srcCompVersion < 6) {
+      // The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+      // No properties need to be modified to upgrade to version 6.
+      srcCompVersion = 6;
+    }
     return srcCompVersion;
   }
 
@@ -592,6 +600,11 @@ public final class YoungAndroidFormUpgrader {
       // No properties need to be modified to upgrade to version 6.
       srcCompVersion = 6;
     }
+    if (srcCompVersion < 7) {
+      // The AsyncReceive and FrameLength properties and the DataReceived event were added.
+      // No properties need to be modified to upgrade to version 7.
+      srcCompVersion = 7;
+    }
     return srcCompVersion;
   }
 
@@ -618,6 +631,11 @@ public final class YoungAndroidFormUpgrader {
       // No properties need to be modified to upgrade to version 5.
       srcCompVersion = 5;
     }
+    if (srcCompVersion < 6) {
+      // The AsyncReceive and FrameLength properties and the DataReceived event were added.
+      // No properties need to be modified to upgrade to version 6.
+      srcCompVersion = 6;
+    }
     return srcCompVersion;
   }
   private static int upgradeSliderProperties(Map<String, JSONValue> componentProperties,
@@ -787,6 +805,15 @@ public final class YoungAndroidFormUpgrader {
       // Assets helper block was added.
       srcCompVersion = 15;
     }
+    if (srcCompVersion < 16) {
+      // The BatchDrawing property and the DrawPoints and DrawPolyline methods were added.
+      srcCompVersion = 16;
+    }
+    if (srcCompVersion < 17) {
+      // The GetBackgroundPixels, SetBackgroundPixels, ApplyGrayscale, ApplyThreshold,
+      // ApplyConvolution and BackgroundHistogram methods were added.
+      srcCompVersion = 17;
+    }
     return srcCompVersion;
   }
 
@@ -812,6 +839,12 @@ public final class YoungAndroidFormUpgrader {
       // No properties need to be added to upgrade to version 4.
       srcCompVersion = 4;
     }
+    if (srcCompVersion < 5) {
+      // The TimerFixedRate, TimerCatchUp, TimerAverageLateness, TimerMaxLateness and
+      // TimerMissedTicks properties and the ResetTimerStatistics method were added.
+      // No properties need to be modified to upgrade to version 5.
+      srcCompVersion = 5;
+    }
     return srcCompVersion;
   }
 
@@ -902,6 +935,12 @@ public final class YoungAndroidFormUpgrader {
       }
       srcCompVersion = 4;
     }
+    if (srcCompVersion < 5) {
+      // The ReadLines and ReadRange methods were added.
+      // The GotLines and GotRange events were added.
+      // No properties need to be modified to upgrade to version 5.
+      srcCompVersion = 5;
+    }
     return srcCompVersion;
   }
 
@@ -1117,6 +1156,10 @@ public final class YoungAndroidFormUpgrader {
       // The DefaultFileScope property was added.
       srcCompVersion = 30;
     }
+    if (srcCompVersion < 31) {
+      // The StartProfiling, StopProfiling and SaveProfile methods were added.
+      srcCompVersion = 31;
+    }
 
     return srcCompVersion;
   }
@@ -1143,6 +1186,16 @@ public final class YoungAndroidFormUpgrader {
     return srcCompVersion;
   }
 
+  private static int upgradeGyroscopeSensorProperties(Map<String, JSONValue> componentProperties,
+      int srcCompVersion) {
+    if (srcCompVersion < 2) {
+      // The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+      // No properties need to be modified to upgrade to version 2.
+      srcCompVersion = 2;
+    }
+    return srcCompVersion;
+  }
+
   private static int upgradeHorizontalArrangementProperties(Map<String, JSONValue> componentProperties,
       int srcCompVersion) {
     if (srcCompVersion < 2) {
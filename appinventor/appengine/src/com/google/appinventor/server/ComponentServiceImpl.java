@@ -13,13 +13,10 @@ import com.google.appinventor.shared.rpc.project.youngandroid.YoungAndroidCompon
 import com.google.appinventor.shared.storage.StorageUtil;
 import com.google.appinventor.shared.rpc.BlocksTruncatedException;
 import com.google.appinventor.shared.rpc.component.ComponentService;
-import com.google.appinventor.shared.rpc.project.FileNode;
 import com.google.appinventor.shared.rpc.project.ProjectNode;
 
 import com.google.common.io.ByteStreams;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -28,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -144,16 +142,15 @@ public class ComponentServiceImpl extends OdeRemoteServiceServlet
 
   private Map<String, byte[]> extractContents(InputStream inputStream)
       throws IOException {
-    Map<String, byte[]> contents = new HashMap<String, byte[]>();
+    // Entries are kept in the order of the zip so that they are written in that order
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
 
     // assumption: the zip is non-empty
     ZipInputStream zip = new ZipInputStream(inputStream);
     ZipEntry entry;
     while ((entry = zip.getNextEntry()) != null) {
       if (entry.isDirectory())  continue;
-      ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
-      ByteStreams.copy(zip, contentStream);
-      contents.put(entry.getName(), contentStream.toByteArray());
+      contents.put(entry.getName(), ByteStreams.toByteArray(zip));
     }
     zip.close();
 
@@ -181,13 +178,15 @@ public class ComponentServiceImpl extends OdeRemoteServiceServlet
       return;
     }
 
+    // Index the descriptors by type once, for both the upgrade and the response
+    Map<String, JSONObject> componentMap = makeComponentMap(newComponents);
+
     // Upgrade old extensions, if any
     NavigableMap<String, Set<String>> existingExtensions = findExtensions(basepath, sourceFiles);
-    Set<String> oldTypes = matchExtensions(existingExtensions, getExtensionClasses(newComponents));
+    Set<String> oldTypes = matchExtensions(existingExtensions, componentMap.keySet());
     if (oldTypes.size() > 0) {
       // upgrade of one or more existing extensions
       try {
-        Map<String, JSONObject> componentMap = makeComponentMap(newComponents);
         boolean willCollide = sourceFiles.contains(basepath + nameMap.get("classes.jar"));
         Iterator<String> i = oldTypes.iterator();
         while (i.hasNext()) {
@@ -217,31 +216,36 @@ public class ComponentServiceImpl extends OdeRemoteServiceServlet
       }
     }
 
-    // Write new extension files
+    // Write new extension files, all in one storage write
+    Map<String, byte[]> files = new LinkedHashMap<>();
     List<ProjectNode> compNodes = new ArrayList<>();
     for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
       String dest = basepath + entry.getKey();
-      FileNode fileNode = new YoungAndroidComponentNode(StorageUtil.basename(entry.getKey()), dest);
-      fileImporter.importFile(userId, projectId, dest, new ByteArrayInputStream(entry.getValue()));
-      compNodes.add(fileNode);
+      files.put(dest, entry.getValue());
+      compNodes.add(new YoungAndroidComponentNode(StorageUtil.basename(entry.getKey()), dest));
     }
+    fileImporter.importFiles(userId, projectId, files);
 
     // Delete old extension files
     // NB: If an exception kills us here the project will be in an inconsistent state since Google
     // doesn't guarantee atomicity of writes to both the data store and cloud store.
+    List<String> oldFiles = new ArrayList<>();
     for (String extension : oldTypes) {
       for (String file : existingExtensions.get(extension)) {
-        if (!contents.containsKey(file.replace(basepath, ""))) {  // don't delete new files
+        if (!files.containsKey(file)) {  // don't delete new files
           storageIo.deleteFile(userId, projectId, file);
-          storageIo.removeSourceFilesFromProject(userId, projectId, false, file);
+          oldFiles.add(file);
         }
       }
     }
+    if (!oldFiles.isEmpty()) {
+      storageIo.removeSourceFilesFromProject(userId, projectId, false,
+          oldFiles.toArray(new String[oldFiles.size()]));
+    }
 
     // Extract type map to send to clients
     Map<String, String> types = new TreeMap<>();
-    for (int i = 0; i < newComponents.length(); i++) {
-      JSONObject desc = newComponents.getJSONObject(i);
+    for (JSONObject desc : componentMap.values()) {
       types.put(desc.getString("type"), desc.getString("name"));
     }
 
@@ -400,7 +404,7 @@ public class ComponentServiceImpl extends OdeRemoteServiceServlet
    * @return A mapping between the FQCN of each extension in components and its descriptor
    */
   private static Map<String, JSONObject> makeComponentMap(JSONArray components) {
-    Map<String, JSONObject> result = new HashMap<>();
+    Map<String, JSONObject> result = new LinkedHashMap<>();
     for (int i = 0; i < components.length(); i++) {
       JSONObject desc = components.getJSONObject(i);
       result.put(desc.getString("type"), desc);
@@ -416,14 +420,6 @@ public class ComponentServiceImpl extends OdeRemoteServiceServlet
     return result;
   }
 
-  private static Set<String> getExtensionClasses(JSONArray components) {
-    Set<String> types = new HashSet<>();
-    for (int i = 0; i < components.length(); i++) {
-      types.add(components.getJSONObject(i).getString("type"));
-    }
-    return types;
-  }
-
   /**
    * Match a set of strings of new types to be imported against the set of existing extensions
    * based on package names and type names. This method returns a set of old extensions that
@@ -7,6 +7,7 @@
 package com.google.appinventor.server;
 
 import com.google.appinventor.common.utils.StringUtils;
+import com.google.appinventor.server.storage.RawFileInfo;
 import com.google.appinventor.server.storage.StorageIo;
 import com.google.appinventor.server.storage.StorageIoInstanceHolder;
 import com.google.appinventor.server.util.CacheHeaders;
@@ -15,15 +16,26 @@ import com.google.appinventor.shared.rpc.ServerLayout;
 import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
 import com.google.appinventor.shared.rpc.project.RawFile;
 import com.google.appinventor.shared.storage.StorageUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * Servlet for downloading project source and output files.
@@ -39,12 +51,15 @@ public class DownloadServlet extends OdeServlet {
    *    /<baseurl>/download/all-projects-source
    *    /<baseurl>/download/file/<projectId>/<file-path>
    *    /<baseurl>/download/userfile/<file-path>
+   *    /<baseurl>/download/asset-manifest/<projectId>
+   *    /<baseurl>/download/assets/<projectId>?file=<file-path>&file=...
    */
 
   // Constants for accessing split URI
   /*
    * Download kind can be: "project-output", "project-source",
-   * "selected-projects-source", "all-projects-source", "file", or "userfile".
+   * "selected-projects-source", "all-projects-source", "file", "userfile",
+   * "asset-manifest", or "assets".
    * Constants for these are defined in ServerLayout.
    */
   private static final int DOWNLOAD_KIND_INDEX = 3;
@@ -78,6 +93,12 @@ public class DownloadServlet extends OdeServlet {
   private static final int USERFILE_PATH_INDEX = 4;
   private static final int SPLIT_LIMIT_USERFILE = 5;
 
+  // Prefix of the project files that "asset-manifest" and "assets" serve
+  private static final String ASSETS_FOLDER = "assets/";
+
+  // Query parameter naming a file to include when download kind is "assets"
+  private static final String ASSETS_FILE_PARAMETER = "file";
+
 
   // Logging support
   private static final Logger LOG = Logger.getLogger(DownloadServlet.class.getName());
@@ -96,7 +117,12 @@ public class DownloadServlet extends OdeServlet {
     CACHE_HEADERS.setNotCacheable(resp);
     resp.setContentType(CONTENT_TYPE);
 
-    RawFile downloadableFile;
+    RawFile downloadableFile = null;
+
+    // Project files are streamed from storage rather than exported as a RawFile
+    String storedFileName = null;
+    long storedFileProjectId = 0;
+    RawFileInfo storedFileInfo = null;
 
     String userId = null;
 
@@ -113,7 +139,10 @@ public class DownloadServlet extends OdeServlet {
         uriComponents = uri.split("/", SPLIT_LIMIT_PROJECT_OUTPUT);
         long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
         String target = (uriComponents.length > TARGET_INDEX) ? uriComponents[TARGET_INDEX] : null;
-        downloadableFile = fileExporter.exportProjectOutputFile(userId, projectId, target);
+        storedFileProjectId = projectId;
+        storedFileName = fileExporter.getProjectOutputFileName(userId, projectId, target);
+        storedFileInfo = StorageIoInstanceHolder.getInstance().getRawFileInfo(userId, projectId,
+            storedFileName);
 
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_PROJECT_SOURCE)) {
         // Download project source files as a zip.
@@ -209,7 +238,10 @@ public class DownloadServlet extends OdeServlet {
         long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
         String filePath = (uriComponents.length > FILE_PATH_INDEX) ?
             uriComponents[FILE_PATH_INDEX] : null;
-        downloadableFile = fileExporter.exportFile(userId, projectId, filePath);
+        storedFileProjectId = projectId;
+        storedFileName = filePath;
+        storedFileInfo = StorageIoInstanceHolder.getInstance().getRawFileInfo(userId, projectId,
+            filePath);
 
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_USERFILE)) {
         // Download a specific user file, such as android.keystore
@@ -221,6 +253,28 @@ public class DownloadServlet extends OdeServlet {
           throw new IllegalArgumentException("Missing user file path.");
         }
 
+      } else if (downloadKind.equals(ServerLayout.DOWNLOAD_ASSET_MANIFEST)) {
+        // Describe the project's assets so that the companion only fetches
+        // those that it doesn't already have.
+        long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
+        sendAssetManifest(resp, userId, projectId);
+        return;
+
+      } else if (downloadKind.equals(ServerLayout.DOWNLOAD_ASSETS)) {
+        // Download several assets at once, saving a round trip for each.
+        long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
+        String[] filePaths = req.getParameterValues(ASSETS_FILE_PARAMETER);
+        if (filePaths == null) {
+          throw new IllegalArgumentException("Missing asset file paths.");
+        }
+        for (String filePath : filePaths) {
+          if (!filePath.startsWith(ASSETS_FOLDER)) {
+            throw new IllegalArgumentException("Not an asset: " + filePath);
+          }
+        }
+        sendAssetsZip(resp, userId, projectId, filePaths);
+        return;
+
       } else {
         throw new IllegalArgumentException("Unknown download kind: " + downloadKind);
       }
@@ -239,20 +293,201 @@ public class DownloadServlet extends OdeServlet {
       return;
     }
 
+    if (storedFileName != null) {
+      sendStoredFile(req, resp, userId, storedFileProjectId, storedFileName, storedFileInfo);
+      return;
+    }
+
     String fileName = downloadableFile.getFileName();
     byte[] content = downloadableFile.getContent();
 
     // Set http response information
     resp.setStatus(HttpServletResponse.SC_OK);
+    setDownloadHeaders(req, resp, fileName);
+    resp.setContentLength(content.length);
+
+    // Attach download data
+    ServletOutputStream out = resp.getOutputStream();
+    out.write(content);
+    out.close();
+  }
+
+  private static void setDownloadHeaders(HttpServletRequest req, HttpServletResponse resp,
+      String fileName) {
     resp.setHeader(
         "content-disposition",
         req.getParameter("inline") != null ? "inline" : "attachment" + "; filename=\"" + fileName + "\"");
     resp.setContentType(StorageUtil.getContentTypeForFilePath(fileName));
-    resp.setContentLength(content.length);
+  }
 
-    // Attach download data
+  /*
+   * Sends a JSON object mapping each asset of the project to the ETag and
+   * size of its content, as also sent when downloading the asset itself.
+   */
+  private static void sendAssetManifest(HttpServletResponse resp, String userId,
+      long projectId) throws IOException {
+    StorageIo storageIo = StorageIoInstanceHolder.getInstance();
+    storageIo.assertUserHasProject(userId, projectId);
+    List<String> assets = new ArrayList<String>();
+    for (String fileName : storageIo.getProjectSourceFiles(userId, projectId)) {
+      if (fileName.startsWith(ASSETS_FOLDER)) {
+        assets.add(fileName);
+      }
+    }
+    JSONObject manifest = new JSONObject();
+    try {
+      for (Map.Entry<String, RawFileInfo> entry
+          : storageIo.getRawFileInfos(userId, projectId, assets).entrySet()) {
+        JSONObject info = new JSONObject();
+        info.put("etag", "\"" + entry.getValue().getETag() + "\"");
+        info.put("size", entry.getValue().getSize());
+        manifest.put(entry.getKey(), info);
+      }
+    } catch (JSONException e) {
+      throw CrashReport.createAndLogError(LOG, null, "user=" + userId, e);
+    }
+    byte[] content = manifest.toString().getBytes(Charsets.UTF_8);
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType("application/json; charset=utf-8");
+    resp.setContentLength(content.length);
     ServletOutputStream out = resp.getOutputStream();
     out.write(content);
     out.close();
   }
+
+  /*
+   * Sends the given assets as a zip whose entries are named by their paths
+   * in the project. The contents are streamed from storage one at a time.
+   */
+  private static void sendAssetsZip(HttpServletResponse resp, String userId, long projectId,
+      String[] filePaths) throws IOException {
+    StorageIo storageIo = StorageIoInstanceHolder.getInstance();
+    storageIo.assertUserHasProject(userId, projectId);
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType("application/zip");
+    ZipOutputStream zip = new ZipOutputStream(resp.getOutputStream());
+    // Most assets, such as images and sounds, are already compressed
+    zip.setLevel(Deflater.BEST_SPEED);
+    for (String filePath : filePaths) {
+      zip.putNextEntry(new ZipEntry(filePath));
+      InputStream in = storageIo.openRawFile(userId, projectId, filePath, 0);
+      try {
+        ByteStreams.copy(in, zip);
+      } finally {
+        in.close();
+      }
+      zip.closeEntry();
+    }
+    zip.close();
+  }
+
+  /*
+   * Sends a project file, or the requested range of it, straight from
+   * storage. The client may revalidate its cached copy with If-None-Match, in
+   * which case the content isn't read at all. There is no Last-Modified: the
+   * only date kept is the project's, which doesn't follow every save of every
+   * file, so the content ETag is the only validator.
+   */
+  private static void sendStoredFile(HttpServletRequest req, HttpServletResponse resp,
+      String userId, long projectId, String storedFileName, RawFileInfo info) throws IOException {
+    StorageIo storageIo = StorageIoInstanceHolder.getInstance();
+    String eTag = "\"" + info.getETag() + "\"";
+    long size = info.getSize();
+
+    CACHE_HEADERS.setCacheablePrivate(resp);
+    resp.setHeader("ETag", eTag);
+    resp.setHeader("Accept-Ranges", "bytes");
+    if (isNotModified(req, eTag)) {
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    long start = 0;
+    long end = size - 1;
+    String ifRange = req.getHeader("If-Range");
+    long[] range = (ifRange == null || ifRange.equals(eTag))
+        ? parseRange(req.getHeader("Range"), size) : null;
+    if (range == null) {
+      resp.setStatus(HttpServletResponse.SC_OK);
+    } else if (range[0] >= size) {
+      resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+      resp.setHeader("Content-Range", "bytes */" + size);
+      return;
+    } else {
+      start = range[0];
+      end = range[1];
+      resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      resp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+    }
+    setDownloadHeaders(req, resp, StorageUtil.basename(storedFileName));
+    long length = end - start + 1;
+    // setContentLength only takes an int
+    resp.setHeader("Content-Length", Long.toString(length));
+
+    ServletOutputStream out = resp.getOutputStream();
+    if (length > 0) {
+      InputStream in = storageIo.openRawFile(userId, projectId, storedFileName, start);
+      try {
+        ByteStreams.copy(ByteStreams.limit(in, length), out);
+      } finally {
+        in.close();
+      }
+    }
+    out.close();
+  }
+
+  private static boolean isNotModified(HttpServletRequest req, String eTag) {
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a Range header asking for a single range of bytes.
+   *
+   * @param header the value of the header, or null
+   * @param size the size of the file
+   * @return the first and last byte of the range, with a first byte of at
+   *     least {@code size} if the range can't be satisfied, or null if the
+   *     header is missing, malformed or asks for more than one range, in
+   *     which case the whole file is sent
+   */
+  @VisibleForTesting
+  static long[] parseRange(String header, long size) {
+    if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+      return null;
+    }
+    String spec = header.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        // The last N bytes
+        long suffix = Long.parseLong(last);
+        if (suffix <= 0) {
+          return new long[] { size, size - 1 };
+        }
+        return new long[] { Math.max(0, size - suffix), size - 1 };
+      }
+      long start = Long.parseLong(first);
+      long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+      if (start < 0 || end < start) {
+        return null;
+      }
+      return new long[] { start, Math.min(end, size - 1) };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 }
@@ -9,6 +9,7 @@ package com.google.appinventor.server;
 import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
 import com.google.appinventor.shared.rpc.project.RawFile;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
 
@@ -22,6 +23,19 @@ public interface FileExporter {
 
   public static final String REMIX_INFORMATION_FILE_PATH = "youngandroidproject/remix_history";
 
+  /**
+   * Finds the project output file that {@link #exportProjectOutputFile}
+   * would export, without reading its content.
+   *
+   * @param userId the userId
+   * @param projectId the project id belonging to the userId
+   * @param target the output target platform, or null
+   * @return the file ID of the output file
+   * @throws FileNotFoundException if the project has no output file
+   */
+  String getProjectOutputFileName(String userId, long projectId, @Nullable String target)
+      throws IOException;
+
   /**
    * Exports a project output file.
    *
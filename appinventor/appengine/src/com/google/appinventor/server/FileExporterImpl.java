@@ -34,6 +34,14 @@ public final class FileExporterImpl implements FileExporter {
   public RawFile exportProjectOutputFile(String userId, long projectId, @Nullable String target)
       throws IOException {
     // Download project output file.
+    String fileName = getProjectOutputFileName(userId, projectId, target);
+    byte[] content = storageIo.downloadRawFile(userId, projectId, fileName);
+    return new RawFile(StorageUtil.basename(fileName), content);
+  }
+
+  @Override
+  public String getProjectOutputFileName(String userId, long projectId, @Nullable String target)
+      throws IOException {
     List<String> files = storageIo.getProjectOutputFiles(userId, projectId);
     if (target != null) {
       // Target given - filter file list
@@ -48,8 +56,7 @@ public final class FileExporterImpl implements FileExporter {
 
     for (String fileName : files) {
       if (fileName.endsWith(".apk") || fileName.endsWith(".aab")) {
-        byte[] content = storageIo.downloadRawFile(userId, projectId, fileName);
-        return new RawFile(StorageUtil.basename(fileName), content);
+        return fileName;
       }
     }
 
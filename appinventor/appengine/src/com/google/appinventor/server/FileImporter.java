@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -69,6 +70,20 @@ public interface FileImporter {
   long importFile(String userId, long projectId, String fileName, InputStream uploadedFileStream)
       throws FileImporterException, IOException;
 
+  /**
+   * Adds several files to the project on the server and imports their
+   * content, with one storage write for all of them.
+   *
+   * @param userId the userId
+   * @param projectId project id
+   * @param contents map from file name to file content
+   * @return the modification time for the project
+   * @throws FileImporterException if any of the files is too large, in which
+   *         case none of them is imported
+   */
+  long importFiles(String userId, long projectId, Map<String, byte[]> contents)
+      throws FileImporterException;
+
   /**
    * Adds the user file on the server and imports its content.
    *
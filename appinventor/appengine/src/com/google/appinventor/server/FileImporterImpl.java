@@ -30,7 +30,10 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -160,8 +163,7 @@ public final class FileImporterImpl implements FileImporter {
   @VisibleForTesting
   public long importFile(String userId, long projectId, String fileName,
       InputStream uploadedFileStream) throws FileImporterException, IOException {
-    int maxAssetSizeBytes = (int) (maxAssetSizeMegs.get() * 1024 * 1024);
-    int maxSizeBytes = Math.min(maxAssetSizeBytes, storageIo.getMaxJobSizeBytes());
+    int maxSizeBytes = getMaxFileSizeBytes();
 
     BufferedInputStream bis = new BufferedInputStream(uploadedFileStream);
     ByteArrayOutputStream os = new ByteArrayOutputStream();
@@ -193,6 +195,38 @@ public final class FileImporterImpl implements FileImporter {
     return storageIo.uploadRawFileForce(projectId, fileName, userId, content);
   }
 
+  @Override
+  public long importFiles(String userId, long projectId, Map<String, byte[]> contents)
+      throws FileImporterException {
+    // Check all of the files before writing any of them
+    int maxSizeBytes = getMaxFileSizeBytes();
+    for (byte[] content : contents.values()) {
+      if (content.length > maxSizeBytes) {
+        throw new FileImporterException(UploadResponse.Status.FILE_TOO_LARGE);
+      }
+    }
+
+    // If a file already exists, we will overwrite the content.
+    Set<String> sourceFiles = new HashSet<String>(
+        storageIo.getProjectSourceFiles(userId, projectId));
+    List<String> newFiles = new ArrayList<String>();
+    for (String fileName : contents.keySet()) {
+      if (!sourceFiles.contains(fileName)) {
+        newFiles.add(fileName);
+      }
+    }
+    if (!newFiles.isEmpty()) {
+      storageIo.addSourceFilesToProject(userId, projectId, false,
+          newFiles.toArray(new String[newFiles.size()]));
+    }
+    return storageIo.uploadRawFilesForce(projectId, userId, contents);
+  }
+
+  private int getMaxFileSizeBytes() {
+    int maxAssetSizeBytes = (int) (maxAssetSizeMegs.get() * 1024 * 1024);
+    return Math.min(maxAssetSizeBytes, storageIo.getMaxJobSizeBytes());
+  }
+
   @Override
   public void importUserFile(String userId, String fileName, InputStream uploadedFileStream)
       throws IOException {
@@ -11,6 +11,7 @@ import java.io.Serializable;
 
 import com.google.appinventor.server.flags.Flag;
 
+import com.google.appinventor.server.storage.RequestCache;
 import com.google.appinventor.server.storage.StorageIo;
 import com.google.appinventor.server.storage.StorageIoInstanceHolder;
 
@@ -185,8 +186,11 @@ public class OdeAuthFilter implements Filter {
         cook.setPath("/");
         response.addCookie(cook);
       }
+      // Let the storage layer memoize datastore reads while serving this request
+      RequestCache.begin();
       chain.doFilter(request, response);
     } finally {
+      RequestCache.end();
       removeUser();
     }
   }
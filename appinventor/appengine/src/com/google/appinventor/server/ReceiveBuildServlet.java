@@ -69,12 +69,13 @@ public class ReceiveBuildServlet extends OdeServlet {
           break;
         }
         String fileName = zipEntry.getName();
-        byte[] fileBytes = ByteStreams.toByteArray(zipInputStream);
         if (StorageUtil.ANDROID_KEYSTORE_FILENAME.equals(fileName)) {
           LOG.info("Saving android.keystore for user: " + userId);
+          byte[] fileBytes = ByteStreams.toByteArray(zipInputStream);
           storageIo.addFilesToUser(userId, StorageUtil.ANDROID_KEYSTORE_FILENAME);
           storageIo.uploadRawUserFile(userId, fileName, fileBytes);
         } else if (fileName.equals("build.status")) {
+          byte[] fileBytes = ByteStreams.toByteArray(zipInputStream);
           int progress = Integer.parseInt((new String(fileBytes)).trim());
           LOG.info("Received a build.status file contents = " + progress);
           storageIo.storeBuildStatus(userId, projectId, progress);
@@ -82,7 +83,11 @@ public class ReceiveBuildServlet extends OdeServlet {
           String filePath = buildFileDirPath + "/" + fileName;
           LOG.info("Saving build output files: " + filePath);
           storageIo.addOutputFilesToProject(userId, projectId, filePath);
-          storageIo.uploadRawFileForce(projectId, filePath, userId, fileBytes);
+          // Stream the entry into storage rather than buffering the whole
+          // APK/AAB. ZipInputStream verifies the entry's CRC when it reaches
+          // the end of the entry, so a corrupted upload fails here before the
+          // stored copy is committed.
+          storageIo.uploadRawFileForce(projectId, filePath, userId, zipInputStream);
           storageIo.storeBuildStatus(userId, projectId, 0); // Reset for the next build
         }
       }
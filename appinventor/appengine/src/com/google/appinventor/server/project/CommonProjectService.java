@@ -24,7 +24,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The base class for classes that provide project services for a specific
@@ -213,6 +216,30 @@ public abstract class CommonProjectService {
     return retval;
   }
 
+  /**
+   * Loads the contents of several source files of a project at once. Like
+   * {@link #load2(String, long, String)}, each content comes with a checksum
+   * to validate its integrity across the network.
+   *
+   * @param userId the user id
+   * @param projectId  project root node ID
+   * @param fileIds  project nodes whose sources should be loaded
+   *
+   * @return  map from file ID to ChecksumedLoadFile object
+   */
+  public Map<String, ChecksumedLoadFile> loadProjectSources(String userId, long projectId,
+      List<String> fileIds) throws ChecksumedFileException {
+    Charset charset = Charset.forName(StorageUtil.DEFAULT_CHARSET);
+    Map<String, ChecksumedLoadFile> result = new LinkedHashMap<String, ChecksumedLoadFile>();
+    for (Map.Entry<String, byte[]> entry :
+        storageIo.downloadRawFiles(userId, projectId, fileIds).entrySet()) {
+      ChecksumedLoadFile file = new ChecksumedLoadFile();
+      file.setContent(new String(entry.getValue(), charset));
+      result.put(entry.getKey(), file);
+    }
+    return result;
+  }
+
   /**
    * Attempt to record the project Id and error message when we detect a corruption
    * while loading a project.
@@ -302,6 +329,25 @@ public abstract class CommonProjectService {
     }
   }
 
+  /**
+   * Saves the contents of several files of a project at once. Like
+   * {@link #save(String, long, String, String)}, this doesn't refuse to
+   * save trivial (empty) blocks workspaces.
+   *
+   * @param userId the user id
+   * @param projectId  project root node ID
+   * @param contents  map from file ID to the content to be saved
+   * @return modification date for project
+   */
+  public long save(String userId, long projectId, Map<String, String> contents) {
+    Charset charset = Charset.forName(StorageUtil.DEFAULT_CHARSET);
+    Map<String, byte[]> rawContents = new LinkedHashMap<String, byte[]>();
+    for (Map.Entry<String, String> entry : contents.entrySet()) {
+      rawContents.put(entry.getKey(), entry.getValue().getBytes(charset));
+    }
+    return storageIo.uploadRawFilesForce(projectId, userId, rawContents);
+  }
+
   /**
    * Saves a screenshot of a current blocks editor. This is called from the client side
    * whenever the user leaves a blocks editor. The data is shipped to us in base64 encoding
@@ -0,0 +1,269 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.project.youngandroid;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the buildserver of a pool that a build is sent to.
+ *
+ * Each buildserver is ranked for a build by hashing its host together with
+ * a routing key for the project, so builds of projects using the same
+ * extensions keep going to the same buildserver, whose caches already hold
+ * them. Adding or removing a buildserver only moves the keys that ranked it
+ * first. The first ranked buildserver that is healthy and not much busier
+ * than the least loaded one gets the build.
+ *
+ * Health and load are read from each buildserver's /buildserver/vars page,
+ * whose state must be UP, and kept for a few seconds. Buildservers too old
+ * to report their state are checked through /buildserver/health instead.
+ * Polling happens on the calling thread, one buildserver after another, so
+ * choosing a host with no fresh status may wait for a timeout per
+ * buildserver that doesn't answer. A pool of one buildserver is never
+ * polled.
+ */
+class BuildServerRouter {
+
+  private static final Logger LOG = Logger.getLogger(BuildServerRouter.class.getName());
+
+  // How long the status read from a buildserver is trusted
+  private static final long STATUS_TTL_MILLIS = 10000;
+
+  // Timeout for reading the status of a buildserver
+  private static final int STATUS_TIMEOUT_MILLIS = 2000;
+
+  // How much busier than the least loaded buildserver the preferred one may
+  // be, as a fraction of its capacity, before the build goes elsewhere
+  private static final double LOAD_SLACK = 0.25;
+
+  // Matches one "<b>name</b> value<br>" line of the /vars page
+  private static final Pattern VAR_PATTERN = Pattern.compile("<b>([^<]*)</b> ([^<]*)<br>");
+
+  /**
+   * The last known status of a buildserver.
+   */
+  @VisibleForTesting
+  static final class Status {
+    final boolean healthy;
+    final long timestamp;
+    // Builds started here since the status was read
+    int startedBuilds;
+    final int activeBuilds;
+    final int capacity;
+
+    Status(boolean healthy, int activeBuilds, int capacity, long timestamp) {
+      this.healthy = healthy;
+      this.activeBuilds = activeBuilds;
+      this.capacity = capacity;
+      this.timestamp = timestamp;
+    }
+
+    synchronized double getLoad() {
+      return (double) (activeBuilds + startedBuilds) / capacity;
+    }
+  }
+
+  private final List<String> hosts;
+  private final Map<String, Status> statuses = new ConcurrentHashMap<String, Status>();
+
+  /**
+   * Creates a router for the given pool of buildservers.
+   *
+   * @param hostList  a comma separated list of host[:port] of the buildservers
+   */
+  BuildServerRouter(String hostList) {
+    List<String> hosts = new ArrayList<String>();
+    for (String host : Splitter.on(',').trimResults().omitEmptyStrings().split(hostList)) {
+      hosts.add(host);
+    }
+    this.hosts = Collections.unmodifiableList(hosts);
+  }
+
+  List<String> getHosts() {
+    return hosts;
+  }
+
+  /**
+   * Returns the host[:port] of the buildserver that should build a project.
+   *
+   * @param routingKey  a key shared by projects that benefit from the same
+   *                    buildserver caches
+   * @return the chosen host, or null if the pool is empty
+   */
+  String chooseHost(String routingKey) {
+    if (hosts.size() <= 1) {
+      return hosts.isEmpty() ? null : hosts.get(0);
+    }
+    List<String> ranked = rank(routingKey);
+    Map<String, Status> current = new HashMap<String, Status>();
+    double minLoad = Double.MAX_VALUE;
+    for (String host : ranked) {
+      Status status = getStatus(host);
+      if (status.healthy) {
+        current.put(host, status);
+        minLoad = Math.min(minLoad, status.getLoad());
+      }
+    }
+    for (String host : ranked) {
+      Status status = current.get(host);
+      if (status != null && status.getLoad() <= minLoad + LOAD_SLACK) {
+        synchronized (status) {
+          status.startedBuilds++;
+        }
+        return host;
+      }
+    }
+    // None is known to be healthy; let the preferred one report the error.
+    LOG.warning("No healthy buildserver among " + hosts);
+    return ranked.get(0);
+  }
+
+  /**
+   * Notes that a buildserver could not be reached, so that it isn't chosen
+   * again until its status is read anew.
+   */
+  void markUnavailable(String host) {
+    statuses.put(host, new Status(false, 0, 1, System.currentTimeMillis()));
+  }
+
+  /**
+   * Marks a buildserver that refused a build as unavailable and returns the
+   * host that should get the build instead.
+   *
+   * @return another host, or null if there is none to retry on
+   */
+  String chooseAnotherHost(String routingKey, String failedHost) {
+    markUnavailable(failedHost);
+    String host = chooseHost(routingKey);
+    return failedHost.equals(host) ? null : host;
+  }
+
+  /*
+   * Orders the hosts by the hash of each host with the routing key
+   * (rendezvous hashing).
+   */
+  private List<String> rank(final String routingKey) {
+    final Map<String, Long> weights = new HashMap<String, Long>();
+    for (String host : hosts) {
+      weights.put(host, Hashing.murmur3_128().newHasher()
+          .putString(routingKey, Charsets.UTF_8)
+          .putString(host, Charsets.UTF_8)
+          .hash().asLong());
+    }
+    List<String> ranked = new ArrayList<String>(hosts);
+    Collections.sort(ranked, new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return weights.get(b).compareTo(weights.get(a));
+      }
+    });
+    return ranked;
+  }
+
+  private Status getStatus(String host) {
+    long now = System.currentTimeMillis();
+    Status status = statuses.get(host);
+    if (status == null || now - status.timestamp >= STATUS_TTL_MILLIS) {
+      status = readStatus(host, now);
+      statuses.put(host, status);
+    }
+    return status;
+  }
+
+  /*
+   * Reads the health and load of a buildserver. A buildserver that can't be
+   * reached or whose state isn't UP is unhealthy.
+   */
+  private Status readStatus(String host, long now) {
+    String base = "http://" + host + "/buildserver/";
+    try {
+      String varsPage = fetch(base + "vars");
+      if (varsPage == null) {
+        return new Status(false, 0, 1, now);
+      }
+      Map<String, String> vars = parseVars(varsPage);
+      String state = vars.get("state");
+      boolean up = state == null ? fetch(base + "health") != null : state.trim().equals("UP");
+      if (!up) {
+        return new Status(false, 0, 1, now);
+      }
+      int active = parseInt(vars.get("active-build-tasks"), 0);
+      int capacity = parseInt(vars.get("maximum-simultaneous-build-tasks-allowed"),
+          parseInt(vars.get("num-processors"), 1));
+      return new Status(true, active, Math.max(capacity, 1), now);
+    } catch (IOException e) {
+      LOG.warning("Unable to read the status of buildserver " + host + ": " + e.getMessage());
+      return new Status(false, 0, 1, now);
+    }
+  }
+
+  /**
+   * Returns the content of the given URL, or null if the response isn't OK.
+   */
+  @VisibleForTesting
+  String fetch(String urlString) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(urlString).openConnection();
+    connection.setConnectTimeout(STATUS_TIMEOUT_MILLIS);
+    connection.setReadTimeout(STATUS_TIMEOUT_MILLIS);
+    if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+      InputStream error = connection.getErrorStream();
+      if (error != null) {
+        error.close();
+      }
+      return null;
+    }
+    InputStreamReader reader =
+        new InputStreamReader(connection.getInputStream(), Charsets.UTF_8);
+    try {
+      return CharStreams.toString(reader);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Extracts the variables from the /vars page of a buildserver.
+   */
+  @VisibleForTesting
+  static Map<String, String> parseVars(String html) {
+    Map<String, String> vars = new HashMap<String, String>();
+    if (html != null) {
+      Matcher matcher = VAR_PATTERN.matcher(html);
+      while (matcher.find()) {
+        vars.put(matcher.group(1), matcher.group(2));
+      }
+    }
+    return vars;
+  }
+
+  private static int parseInt(String value, int defaultValue) {
+    try {
+      return value == null ? defaultValue : Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+}
@@ -54,8 +54,13 @@ import com.google.appinventor.shared.settings.SettingsConstants;
 import com.google.appinventor.shared.storage.StorageUtil;
 import com.google.appinventor.shared.youngandroid.YoungAndroidSourceAnalyzer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import java.util.Locale;
 import org.json.JSONException;
@@ -78,8 +83,11 @@ import java.net.URLEncoder;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Provides support for Young Android projects.
@@ -125,14 +133,26 @@ public final class YoungAndroidProjectService extends CommonProjectService {
   // Build folder path
   private static final String BUILD_FOLDER = "build";
 
+  // Output file recording the fingerprint of the sources a build was made from
+  private static final String BUILD_FINGERPRINT_FILE = "build.fingerprint";
+
+  // Whether an unchanged project may reuse the output of its last successful build
+  private static final Flag<Boolean> reuseBuildOutput =
+      Flag.createFlag("build.reuse.output", true);
+
   public static final String PROJECT_KEYSTORE_LOCATION = "android.keystore";
 
-  // host[:port] to use for connecting to the build server
+  // host[:port] to use for connecting to the build server, or a comma
+  // separated list of them to spread builds over
   private static final Flag<String> buildServerHost =
       Flag.createFlag("build.server.host", "localhost:9990");
-  // host[:port] to use for connecting to the second build server
+  // host[:port] to use for connecting to the second build server, or a list
   private static final Flag<String> buildServerHost2 =
       Flag.createFlag("build2.server.host", "");
+
+  // Routers are created on first use so that flags can be set before
+  private static BuildServerRouter buildServerRouter;
+  private static BuildServerRouter buildServerRouter2;
   // host[:port] to tell build server app host url
   private static final Flag<String> appengineHost =
       Flag.createFlag("appengine.host", "");
@@ -486,31 +506,33 @@ public final class YoungAndroidProjectService extends CommonProjectService {
 
     storageIo.storeNonce(nonce, userId, projectId);
 
-    // Delete the existing build output files, if any, so that future attempts to get it won't get
-    // old versions.
-    List<String> buildOutputFiles = storageIo.getProjectOutputFiles(userId, projectId);
-    for (String buildOutputFile : buildOutputFiles) {
-      storageIo.deleteFile(userId, projectId, buildOutputFile);
-    }
     URL buildServerUrl = null;
     ProjectSourceZip zipFile = null;
     try {
-      buildServerUrl = new URL(getBuildServerUrlStr(
-          user.getUserEmail(),
-          userId,
-          projectId,
-          secondBuildserver,
-          outputFileDir,
-          isAab));
-      HttpURLConnection connection = (HttpURLConnection) buildServerUrl.openConnection();
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-
-      BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(connection.getOutputStream());
       FileExporter fileExporter = new FileExporterImpl();
       zipFile = fileExporter.exportProjectSourceZip(userId, projectId, false,
           /* includeAndroidKeystore */ true,
         projectName + ".aia", true, false, true, false);
+
+      // If nothing that goes into the build has changed since the last
+      // successful build, leave its output in place and skip the buildserver.
+      // The client will pick up the existing build.out via getBuildResult.
+      String fingerprint = computeBuildFingerprint(zipFile.getContent(), target,
+          secondBuildserver, isAab);
+      String fingerprintFileName = outputFileDir + '/' + BUILD_FINGERPRINT_FILE;
+      if (reuseBuildOutput.get()
+          && hasReusableBuildOutput(userId, projectId, outputFileDir, fingerprint, isAab)) {
+        LOG.info("Reusing build output for user " + userId + ", project " + projectId);
+        return new RpcResult(true, "Building " + projectName, "");
+      }
+
+      // Delete the existing build output files, if any, so that future attempts to get it won't
+      // get old versions.
+      List<String> buildOutputFiles = storageIo.getProjectOutputFiles(userId, projectId);
+      for (String buildOutputFile : buildOutputFiles) {
+        storageIo.deleteFile(userId, projectId, buildOutputFile);
+      }
+
       // The code below tests the size of the compressed project before
       // we send it off to the buildserver. When using URLFetch we know that
       // this size is limited to 10MB based on Google's documentation.
@@ -522,12 +544,67 @@ public final class YoungAndroidProjectService extends CommonProjectService {
       if (zipFile.getContent().length > MAX_PROJECT_SIZE.get() * MB) {
         return fileTooBigResult(zipFile.getContent().length);
       }
-      bufferedOutputStream.write(zipFile.getContent());
-      bufferedOutputStream.flush();
-      bufferedOutputStream.close();
 
-      int responseCode = 0;
-      responseCode = connection.getResponseCode();
+      // Record what this build is made from, so an identical rebuild can
+      // reuse its output once the buildserver has sent it back.
+      if (reuseBuildOutput.get()) {
+        storageIo.addOutputFilesToProject(userId, projectId, fingerprintFileName);
+        storageIo.uploadFileForce(projectId, fingerprintFileName, userId, fingerprint, "UTF-8");
+      }
+
+      BuildServerRouter router = getBuildServerRouter(secondBuildserver);
+      String routingKey = getRoutingKey(userId, projectId);
+      String buildServer = router.chooseHost(routingKey);
+      HttpURLConnection connection;
+      int responseCode;
+      // A buildserver that refuses the connection or is at capacity (503) is
+      // avoided for a while, and the build is retried once on the next one.
+      boolean retried = false;
+      while (true) {
+        buildServerUrl = new URL(getBuildServerUrlStr(
+            user.getUserEmail(),
+            userId,
+            projectId,
+            buildServer,
+            outputFileDir,
+            isAab));
+        connection = (HttpURLConnection) buildServerUrl.openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+
+        BufferedOutputStream bufferedOutputStream;
+        try {
+          bufferedOutputStream = new BufferedOutputStream(connection.getOutputStream());
+        } catch (ConnectException e) {
+          String nextServer = retried ? null : router.chooseAnotherHost(routingKey, buildServer);
+          if (nextServer == null) {
+            router.markUnavailable(buildServer);
+            throw e;
+          }
+          LOG.info("Buildserver " + buildServer + " refused the connection, trying " + nextServer);
+          buildServer = nextServer;
+          retried = true;
+          continue;
+        }
+        bufferedOutputStream.write(zipFile.getContent());
+        bufferedOutputStream.flush();
+        bufferedOutputStream.close();
+
+        responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_UNAVAILABLE && !retried) {
+          String nextServer = router.chooseAnotherHost(routingKey, buildServer);
+          if (nextServer != null) {
+            LOG.info("Buildserver " + buildServer + " is unavailable, trying " + nextServer);
+            readContent(connection.getErrorStream());
+            buildServer = nextServer;
+            retried = true;
+            continue;
+          }
+        } else if (responseCode == HttpURLConnection.HTTP_UNAVAILABLE) {
+          router.markUnavailable(buildServer);
+        }
+        break;
+      }
       if (responseCode != HttpURLConnection.HTTP_OK) {
         // Put the HTTP response code into the RpcResult so the client code in BuildCommand.java
         // can provide an appropriate error message to the user.
@@ -745,16 +822,47 @@ public final class YoungAndroidProjectService extends CommonProjectService {
       + (buildURL != null ? buildURL.toString().length() : "n/a") + "]";
   }
 
-  // Note that this is a function rather than just a constant because we assume it will get
-  // a little more complicated when we want to get the URL from an App Engine config file or
-  // command line argument.
+  private static synchronized BuildServerRouter getBuildServerRouter(boolean secondBuildserver) {
+    if (secondBuildserver) {
+      if (buildServerRouter2 == null) {
+        buildServerRouter2 = new BuildServerRouter(buildServerHost2.get());
+      }
+      return buildServerRouter2;
+    } else {
+      if (buildServerRouter == null) {
+        buildServerRouter = new BuildServerRouter(buildServerHost.get());
+      }
+      return buildServerRouter;
+    }
+  }
+
+  /*
+   * Returns the key used to route a build to a buildserver. Projects using
+   * the same extensions share a key, so they are built where those
+   * extensions are already cached. Other projects are spread by project.
+   */
+  private String getRoutingKey(String userId, long projectId) {
+    TreeSet<String> extensions = new TreeSet<String>();
+    for (String sourceFile : storageIo.getProjectSourceFiles(userId, projectId)) {
+      if (sourceFile.startsWith(EXTERNAL_COMPS_FOLDER + '/')) {
+        int start = EXTERNAL_COMPS_FOLDER.length() + 1;
+        int end = sourceFile.indexOf('/', start);
+        if (end > start) {
+          extensions.add(sourceFile.substring(start, end));
+        }
+      }
+    }
+    if (extensions.isEmpty()) {
+      return "project:" + projectId;
+    }
+    return "extensions:" + extensions;
+  }
+
   private String getBuildServerUrlStr(String userName, String userId,
-    long projectId, boolean secondBuildserver, String fileName, boolean isAab)
+    long projectId, String buildServer, String fileName, boolean isAab)
       throws EncryptionException {
     UriBuilder uriBuilder = new UriBuilder(
-        "http://"
-            + (secondBuildserver ? buildServerHost2.get() : buildServerHost.get())
-            + "/buildserver/build-all-from-zip-async")
+        "http://" + buildServer + "/buildserver/build-all-from-zip-async")
         .add("uname", userName)
         .add("callback", "http://" + getCurrentHost() + ServerLayout.ODE_BASEURL_NOAUTH +
             ServerLayout.RECEIVE_BUILD_SERVLET + "/" +
@@ -767,6 +875,79 @@ public final class YoungAndroidProjectService extends CommonProjectService {
     return uriBuilder.build();
   }
 
+  /**
+   * Computes a fingerprint of everything that determines the output of a
+   * build: the content of each file in the project source zip (including the
+   * keystore used for signing), the App Inventor version the buildserver is
+   * expected to run, the build target, the buildserver pool (the second
+   * buildserver targets a different SDK) and the kind of package requested.
+   * The zip itself is not hashed directly because its entries carry the time
+   * they were exported.
+   */
+  @VisibleForTesting
+  static String computeBuildFingerprint(byte[] sourceZip, String target,
+      boolean secondBuildserver, boolean isAab) throws IOException {
+    // Sort the entries so the fingerprint does not depend on export order
+    Map<String, HashCode> entryHashes = new TreeMap<String, HashCode>();
+    ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(sourceZip));
+    try {
+      ZipEntry zipEntry;
+      while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+        entryHashes.put(zipEntry.getName(),
+            Hashing.sha256().hashBytes(ByteStreams.toByteArray(zipInputStream)));
+      }
+    } finally {
+      zipInputStream.close();
+    }
+    Hasher hasher = Hashing.sha256().newHasher()
+        .putString(GitBuildId.getVersion(), Charsets.UTF_8)
+        .putString(Strings.nullToEmpty(target), Charsets.UTF_8)
+        .putBoolean(secondBuildserver)
+        .putBoolean(isAab);
+    for (Map.Entry<String, HashCode> entry : entryHashes.entrySet()) {
+      hasher.putString(entry.getKey(), Charsets.UTF_8)
+          .putBytes(entry.getValue().asBytes());
+    }
+    return hasher.hash().toString();
+  }
+
+  /*
+   * Returns true if the outputs in outputFileDir come from a successful build
+   * with the given fingerprint and still include the package itself.
+   */
+  private boolean hasReusableBuildOutput(String userId, long projectId, String outputFileDir,
+      String fingerprint, boolean isAab) {
+    String fingerprintFileName = outputFileDir + '/' + BUILD_FINGERPRINT_FILE;
+    String buildOutputFileName = outputFileDir + '/' + "build.out";
+    String packageExtension = isAab ? ".aab" : ".apk";
+    boolean hasFingerprint = false;
+    boolean hasBuildOutput = false;
+    boolean hasPackage = false;
+    for (String outputFile : storageIo.getProjectOutputFiles(userId, projectId)) {
+      if (outputFile.equals(fingerprintFileName)) {
+        hasFingerprint = true;
+      } else if (outputFile.equals(buildOutputFileName)) {
+        hasBuildOutput = true;
+      } else if (outputFile.startsWith(outputFileDir + '/')
+          && outputFile.endsWith(packageExtension)) {
+        hasPackage = true;
+      }
+    }
+    if (!hasFingerprint || !hasBuildOutput || !hasPackage) {
+      return false;
+    }
+    if (!fingerprint.equals(
+        storageIo.downloadFile(userId, projectId, fingerprintFileName, "UTF-8"))) {
+      return false;
+    }
+    try {
+      String outputStr = storageIo.downloadFile(userId, projectId, buildOutputFileName, "UTF-8");
+      return new JSONObject(outputStr).getInt("result") == 0;
+    } catch (JSONException e) {
+      return false;
+    }
+  }
+
   private String getCurrentHost() {
     if (Server.isProductionServer()) {
       if (StringUtils.isNullOrEmpty(appengineHost.get())) {
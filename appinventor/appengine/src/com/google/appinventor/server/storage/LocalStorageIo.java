@@ -0,0 +1,1827 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.storage;
+
+import com.google.appinventor.server.CrashReport;
+import com.google.appinventor.server.FileExporter;
+import com.google.appinventor.server.flags.Flag;
+import com.google.appinventor.server.properties.json.ServerJsonParser;
+import com.google.appinventor.server.storage.StoredData.FileData;
+import com.google.appinventor.server.storage.StoredData.PWData;
+import com.google.appinventor.shared.properties.json.JSONArray;
+import com.google.appinventor.shared.properties.json.JSONParser;
+import com.google.appinventor.shared.properties.json.JSONValue;
+import com.google.appinventor.shared.rpc.AdminInterfaceException;
+import com.google.appinventor.shared.rpc.BlocksTruncatedException;
+import com.google.appinventor.shared.rpc.Motd;
+import com.google.appinventor.shared.rpc.Nonce;
+import com.google.appinventor.shared.rpc.admin.AdminUser;
+import com.google.appinventor.shared.rpc.project.Project;
+import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
+import com.google.appinventor.shared.rpc.project.RawFile;
+import com.google.appinventor.shared.rpc.project.TextFile;
+import com.google.appinventor.shared.rpc.project.UserProject;
+import com.google.appinventor.shared.rpc.project.youngandroid.YoungAndroidProjectNode;
+import com.google.appinventor.shared.rpc.user.SplashConfig;
+import com.google.appinventor.shared.rpc.user.User;
+import com.google.appinventor.shared.storage.StorageUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.json.JSONObject;
+
+/**
+ * Implements the StorageIo interface on the local file system, for
+ * self-hosted deployments that would otherwise have to run the App Engine
+ * dev server (and its emulated datastore, memcache and GCS) in production.
+ *
+ * Users, projects and the handful of singleton records (MOTD, splash
+ * screen, nonces, ...) are kept in memory and written through to one small
+ * serialized file each, so reads never touch the disk and a write rewrites
+ * only the record that changed. File contents are stored as content
+ * addressed blobs under blobs/, named by their SHA-1 hash and reference
+ * counted, so identical files (the same asset in several projects, an
+ * unchanged copy of a project) are only stored once.
+ *
+ * Every record is written to a temporary file and then renamed into place,
+ * so a crash leaves either the old or the new version of a record behind.
+ *
+ * Select this implementation by setting the storage.backend system property
+ * to "local" in appengine-web.xml. storage.local.dir names the directory
+ * where the data is kept (appinventor-storage in the home directory if it
+ * is empty).
+ *
+ */
+public class LocalStorageIo implements StorageIo {
+  static final Flag<String> storageDir = Flag.createFlag("storage.local.dir", "");
+
+  // Same system property as ObjectifyStorageIo.requireTos. We don't refer to
+  // that one because it would pull in ObjectifyStorageIo (and App Engine).
+  private static final Flag<Boolean> requireTos = Flag.createFlag("require.tos", false);
+
+  private static final Logger LOG = Logger.getLogger(LocalStorageIo.class.getName());
+
+  private static final String DEFAULT_ENCODING = "UTF-8";
+
+  private static final String TEMP_PREFIX = "__TEMP__/";
+
+  private static final long NONCE_LIFETIME = 3600*3*1000L; // 3 hours
+  private static final long PWDATA_LIFETIME = 3600*24*1000L; // 24 hours
+
+  private static final int DEFAULT_BUILD_STATUS = 50;
+
+  private static final JSONParser JSON_PARSER = new ServerJsonParser();
+
+  private final File root;
+  private final File usersDir;
+  private final File projectsDir;
+  private final File blobsDir;
+  private final File tempDir;
+
+  // All of the state below is guarded by "this"
+  private final Map<String, UserRecord> users = new HashMap<String, UserRecord>();
+  private final Map<Long, ProjectRecord> projects = new HashMap<Long, ProjectRecord>();
+  private final Map<String, Integer> blobRefs = new HashMap<String, Integer>();
+  private final Map<String, Integer> buildStatus = new HashMap<String, Integer>();
+  private MiscRecord misc;
+
+  private final AtomicLong nextProjectId = new AtomicLong(1);
+
+  /*
+   * A user (UserData and its UserFileData children in ObjectifyStorageIo).
+   * The ids of the user's projects stand in for UserProjectData.
+   */
+  private static class UserRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String id;
+    String email;
+    String emaillower;
+    String name;
+    String settings = "";
+    String sessionId;
+    String password;
+    boolean tosAccepted;
+    boolean isAdmin;
+    Date visited;
+    final Map<String, String> files = new LinkedHashMap<String, String>(); // name -> blob hash
+    final Set<Long> projects = new LinkedHashSet<Long>();
+  }
+
+  /*
+   * A project (ProjectData and its FileData children).
+   */
+  private static class ProjectRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    long id;
+    String name;
+    String type;
+    String settings;
+    String history;
+    long dateCreated;
+    long dateModified;
+    boolean movedToTrash;
+    final Map<String, FileRecord> files = new LinkedHashMap<String, FileRecord>();
+  }
+
+  private static class FileRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    FileData.RoleEnum role;
+    String userId;
+    String hash;                // null until content has been uploaded
+  }
+
+  /*
+   * Everything that isn't attached to a user or a project.
+   */
+  private static class MiscRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String motdCaption = "Hello!";
+    String motdContent = "Welcome to the experimental App Inventor system from MIT. " +
+        "This is still a prototype.  It would be a good idea to frequently back up " +
+        "your projects to local storage.";
+    int splashVersion = 0;
+    int splashWidth = 350;
+    int splashHeight = 100;
+    String splashContent = "<b>Welcome to MIT App Inventor</b>";
+    String allowedTutorialUrls =
+        "[\"http://appinventor.mit.edu/\",\"https://appinventor.mit.edu/\",\"http://appinv.us/\"]";
+    final Map<String, Nonce> nonces = new HashMap<String, Nonce>();
+    final Map<String, PWRecord> pwData = new HashMap<String, PWRecord>();
+    final Map<String, String> rendezvous = new HashMap<String, String>();
+    final Map<String, String> backpacks = new HashMap<String, String>();
+  }
+
+  // StoredData.PWData isn't Serializable
+  private static class PWRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String id;
+    String email;
+    Date timestamp;
+  }
+
+  LocalStorageIo() {
+    this(Strings.isNullOrEmpty(storageDir.get())
+        ? new File(System.getProperty("user.home"), "appinventor-storage")
+        : new File(storageDir.get()));
+  }
+
+  @VisibleForTesting
+  LocalStorageIo(File root) {
+    this.root = root;
+    usersDir = new File(root, "users");
+    projectsDir = new File(root, "projects");
+    blobsDir = new File(root, "blobs");
+    tempDir = new File(root, "temp");
+    try {
+      for (File dir : new File[] { usersDir, projectsDir, blobsDir, tempDir }) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+          throw new IOException("Unable to create " + dir);
+        }
+      }
+      load();
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Opening local storage in " + root, e);
+    }
+  }
+
+  /*
+   * Reads all of the records back into memory and recomputes the blob
+   * reference counts from them.
+   */
+  private void load() throws IOException {
+    long maxProjectId = 0;
+    for (File file : listRecords(usersDir)) {
+      UserRecord user = (UserRecord) readRecord(file);
+      users.put(user.id, user);
+      for (String hash : user.files.values()) {
+        retainBlob(hash);
+      }
+    }
+    for (File file : listRecords(projectsDir)) {
+      ProjectRecord project = (ProjectRecord) readRecord(file);
+      projects.put(project.id, project);
+      maxProjectId = Math.max(maxProjectId, project.id);
+      for (FileRecord fr : project.files.values()) {
+        retainBlob(fr.hash);
+      }
+    }
+    nextProjectId.set(maxProjectId + 1);
+    File miscFile = new File(root, "misc.ser");
+    misc = miscFile.exists() ? (MiscRecord) readRecord(miscFile) : new MiscRecord();
+    LOG.info("Loaded " + users.size() + " users and " + projects.size() +
+        " projects from " + root);
+  }
+
+  private static File[] listRecords(File dir) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return new File[0];
+    }
+    List<File> records = new ArrayList<File>();
+    for (File file : files) {
+      if (file.getName().endsWith(".ser")) {
+        records.add(file);
+      }
+    }
+    return records.toArray(new File[records.size()]);
+  }
+
+  @Override
+  public User getUser(String userId) {
+    return getUser(userId, null);
+  }
+
+  @Override
+  public synchronized User getUser(final String userId, final String email) {
+    User user = new User(userId, email, false, false, null);
+    UserRecord userData = users.get(userId);
+    if (userData == null) {
+      if (email != null) {
+        userData = findUserRecordByEmail(email);
+        if (userData != null && !userData.id.equals(userId)) {
+          user.setUserId(userData.id);
+        }
+      }
+      if (userData == null) {
+        userData = createUser(userId, email);
+      }
+    } else if (email != null && !email.equals(userData.email)) {
+      userData.email = email;
+      userData.emaillower = email.toLowerCase();
+      saveUser(userData);
+    }
+    user.setUserEmail(userData.email);
+    user.setUserTosAccepted(userData.tosAccepted || !requireTos.get());
+    user.setIsAdmin(userData.isAdmin);
+    user.setSessionId(userData.sessionId);
+    user.setPassword(userData.password);
+    return user;
+  }
+
+  @Override
+  public synchronized User getUserFromEmail(String email) {
+    UserRecord userData = findUserRecordByEmail(email);
+    if (userData == null) {
+      userData = createUser(UUID.randomUUID().toString(), email);
+    }
+    User retUser = new User(userData.id, email, userData.tosAccepted, false, userData.sessionId);
+    retUser.setPassword(userData.password);
+    return retUser;
+  }
+
+  /*
+   * Finds a user by their email address, first as given and then in
+   * lower case, the same way ObjectifyStorageIo queries for them.
+   */
+  private UserRecord findUserRecordByEmail(String email) {
+    String emaillower = email.toLowerCase();
+    UserRecord byLowerCase = null;
+    for (UserRecord userData : users.values()) {
+      if (email.equals(userData.email)) {
+        return userData;
+      } else if (byLowerCase == null && emaillower.equals(userData.emaillower)) {
+        byLowerCase = userData;
+      }
+    }
+    return byLowerCase;
+  }
+
+  private UserRecord createUser(String userId, String email) {
+    UserRecord userData = new UserRecord();
+    userData.id = userId;
+    userData.email = email == null ? "" : email;
+    userData.emaillower = email == null ? "" : email.toLowerCase();
+    users.put(userId, userData);
+    saveUser(userData);
+    return userData;
+  }
+
+  @Override
+  public synchronized void setTosAccepted(final String userId) {
+    UserRecord userData = users.get(userId);
+    if (userData != null) {
+      userData.tosAccepted = true;
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public synchronized void setUserEmail(final String userId, String inputemail) {
+    UserRecord userData = users.get(userId);
+    if (userData != null) {
+      userData.email = inputemail.toLowerCase();
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public synchronized void setUserSessionId(final String userId, final String sessionId) {
+    UserRecord userData = users.get(userId);
+    if (userData != null) {
+      userData.sessionId = sessionId;
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public synchronized void setUserPassword(final String userId, final String password) {
+    UserRecord userData = users.get(userId);
+    if (userData != null) {
+      userData.password = password;
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public synchronized String loadSettings(final String userId) {
+    UserRecord userData = users.get(userId);
+    return userData == null ? "" : userData.settings;
+  }
+
+  @Override
+  public synchronized void storeSettings(final String userId, final String settings) {
+    UserRecord userData = users.get(userId);
+    if (userData != null) {
+      userData.settings = settings;
+      userData.visited = new Date(); // Indicate that this person was active now
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public long createProject(final String userId, final Project project,
+      final String projectSettings) {
+    long date = System.currentTimeMillis();
+    ProjectRecord pd = new ProjectRecord();
+    pd.id = nextProjectId.getAndIncrement();
+    pd.dateCreated = date;
+    pd.dateModified = date;
+    pd.history = project.getProjectHistory();
+    pd.name = project.getProjectName();
+    pd.settings = projectSettings;
+    pd.type = project.getProjectType();
+    Map<String, StagedBlob> staged = new LinkedHashMap<String, StagedBlob>();
+    try {
+      for (TextFile file : project.getSourceFiles()) {
+        stageProjectFile(staged, file.getFileName(),
+            file.getContent().getBytes(DEFAULT_ENCODING));
+      }
+      for (RawFile file : project.getRawSourceFiles()) {
+        stageProjectFile(staged, file.getFileName(), file.getContent());
+      }
+      synchronized (this) {
+        List<String> addedBlobs = new ArrayList<String>();
+        try {
+          for (Map.Entry<String, StagedBlob> entry : staged.entrySet()) {
+            addedBlobs.add(addProjectFile(pd, userId, entry.getKey(), entry.getValue()));
+          }
+        } catch (IOException e) {
+          for (String hash : addedBlobs) {
+            releaseBlob(hash);
+          }
+          throw e;
+        }
+        UserRecord userData = users.get(userId);
+        if (userData == null) {
+          userData = createUser(userId, null);
+        }
+        projects.put(pd.id, pd);
+        saveProject(pd);
+        userData.projects.add(pd.id);
+        saveUser(userData);
+      }
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, pd.id), e);
+    } finally {
+      for (StagedBlob blob : staged.values()) {
+        blob.discard();
+      }
+    }
+    return pd.id;
+  }
+
+  private void stageProjectFile(Map<String, StagedBlob> staged, String fileName,
+      byte[] content) throws IOException {
+    StagedBlob previous = staged.put(fileName, stageBlob(content));
+    if (previous != null) {
+      previous.discard();       // A later file of the same name replaces it
+    }
+  }
+
+  private String addProjectFile(ProjectRecord pd, String userId, String fileName,
+      StagedBlob content) throws IOException {
+    FileRecord fr = new FileRecord();
+    fr.role = FileData.RoleEnum.SOURCE;
+    fr.userId = userId;
+    fr.hash = storeBlob(content);
+    pd.files.put(fileName, fr);
+    return fr.hash;
+  }
+
+  @Override
+  public synchronized void deleteProject(final String userId, final long projectId) {
+    UserRecord userData = users.get(userId);
+    if (userData != null && userData.projects.remove(projectId)) {
+      saveUser(userData);
+    }
+    ProjectRecord pd = projects.remove(projectId);
+    if (pd != null) {
+      deleteRecord(projectFile(projectId));
+      for (FileRecord fr : pd.files.values()) {
+        releaseBlob(fr.hash);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void setMoveToTrashFlag(final String userId, final long projectId,
+      final boolean flag) {
+    ProjectRecord pd = projects.get(projectId);
+    if (pd != null) {
+      pd.movedToTrash = flag;
+      saveProject(pd);
+    }
+  }
+
+  @Override
+  public synchronized List<Long> getProjects(final String userId) {
+    UserRecord userData = users.get(userId);
+    if (userData == null) {
+      return new ArrayList<Long>();
+    }
+    return new ArrayList<Long>(userData.projects);
+  }
+
+  @Override
+  public synchronized String loadProjectSettings(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? "" : pd.settings;
+  }
+
+  @Override
+  public synchronized void storeProjectSettings(final String userId, final long projectId,
+      final String settings) {
+    ProjectRecord pd = projects.get(projectId);
+    if (pd != null) {
+      pd.settings = settings;
+      saveProject(pd);
+    }
+  }
+
+  @Override
+  public String getProjectType(final String userId, final long projectId) {
+    // We only have one project type, no need to ask about it
+    return YoungAndroidProjectNode.YOUNG_ANDROID_PROJECT_TYPE;
+  }
+
+  @Override
+  public synchronized UserProject getUserProject(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? null : makeUserProject(pd);
+  }
+
+  @Override
+  public synchronized List<UserProject> getUserProjects(final String userId,
+      final List<Long> projectIds) {
+    List<UserProject> uProjects = new ArrayList<UserProject>(projectIds.size());
+    for (Long projectId : projectIds) {
+      ProjectRecord pd = projects.get(projectId);
+      if (pd != null) {
+        uProjects.add(makeUserProject(pd));
+      }
+    }
+    return uProjects;
+  }
+
+  private static UserProject makeUserProject(ProjectRecord pd) {
+    return new UserProject(pd.id, pd.name, pd.type, pd.dateCreated, pd.dateModified,
+        pd.movedToTrash);
+  }
+
+  @Override
+  public synchronized String getProjectName(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? "" : pd.name;
+  }
+
+  @Override
+  public synchronized long getProjectDateModified(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? 0 : pd.dateModified;
+  }
+
+  @Override
+  public synchronized String getProjectHistory(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? "" : pd.history;
+  }
+
+  @Override
+  public synchronized long getProjectDateCreated(final String userId, final long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    return pd == null ? 0 : pd.dateCreated;
+  }
+
+  @Override
+  public synchronized void addFilesToUser(final String userId, final String... fileNames) {
+    UserRecord userData = getOrCreateUser(userId);
+    boolean changed = false;
+    for (String fileName : fileNames) {
+      if (!userData.files.containsKey(fileName)) {
+        userData.files.put(fileName, null);
+        changed = true;
+      }
+    }
+    if (changed) {
+      saveUser(userData);
+    }
+  }
+
+  private UserRecord getOrCreateUser(String userId) {
+    UserRecord userData = users.get(userId);
+    return userData == null ? createUser(userId, null) : userData;
+  }
+
+  @Override
+  public synchronized List<String> getUserFiles(final String userId) {
+    UserRecord userData = users.get(userId);
+    if (userData == null) {
+      return new ArrayList<String>();
+    }
+    return new ArrayList<String>(userData.files.keySet());
+  }
+
+  @Override
+  public void uploadUserFile(final String userId, final String fileName,
+      final String content, final String encoding) {
+    byte[] bytes;
+    try {
+      bytes = content.getBytes(encoding);
+    } catch (UnsupportedEncodingException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding, "
+          + collectUserErrorInfo(userId, fileName), e);
+    }
+    uploadRawUserFile(userId, fileName, bytes);
+  }
+
+  /*
+   * As in ObjectifyStorageIo, storing an empty backpack ("[]") deletes the
+   * backpack file, since "[]" is what we return when there isn't one.
+   */
+  @Override
+  public void uploadRawUserFile(final String userId, final String fileName,
+      final byte[] content) {
+    if (fileName.equals(StorageUtil.USER_BACKPACK_FILENAME) &&
+        Arrays.equals("[]".getBytes(Charsets.UTF_8), content)) {
+      synchronized (this) {
+        UserRecord userData = getOrCreateUser(userId);
+        if (userData.files.containsKey(fileName)) {
+          String oldHash = userData.files.remove(fileName);
+          saveUser(userData);
+          releaseBlob(oldHash);
+        }
+      }
+      return;
+    }
+    StagedBlob blob = null;
+    try {
+      blob = stageBlob(content);
+      synchronized (this) {
+        UserRecord userData = getOrCreateUser(userId);
+        String oldHash = userData.files.put(fileName, storeBlob(blob));
+        saveUser(userData);
+        releaseBlob(oldHash);
+      }
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, collectUserErrorInfo(userId, fileName), e);
+    } finally {
+      if (blob != null) {
+        blob.discard();
+      }
+    }
+  }
+
+  @Override
+  public String downloadUserFile(final String userId, final String fileName,
+      final String encoding) {
+    try {
+      return new String(downloadRawUserFile(userId, fileName), encoding);
+    } catch (UnsupportedEncodingException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding, " +
+          collectUserErrorInfo(userId, fileName), e);
+    }
+  }
+
+  @Override
+  public byte[] downloadRawUserFile(final String userId, final String fileName) {
+    String hash;
+    synchronized (this) {
+      UserRecord userData = users.get(userId);
+      if (userData == null || !userData.files.containsKey(fileName)) {
+        throw CrashReport.createAndLogError(LOG, null, collectUserErrorInfo(userId, fileName),
+            new FileNotFoundException(fileName));
+      }
+      hash = userData.files.get(fileName);
+      retainBlob(hash);
+    }
+    try {
+      return readBlob(hash);
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, collectUserErrorInfo(userId, fileName), e);
+    } finally {
+      unpinBlob(hash);
+    }
+  }
+
+  @Override
+  public synchronized void deleteUserFile(final String userId, final String fileName) {
+    UserRecord userData = users.get(userId);
+    if (userData != null && userData.files.containsKey(fileName)) {
+      String hash = userData.files.remove(fileName);
+      saveUser(userData);
+      releaseBlob(hash);
+    }
+  }
+
+  @Override
+  public int getMaxJobSizeBytes() {
+    return 5 * 1024 * 1024;
+  }
+
+  @Override
+  public synchronized void addSourceFilesToProject(final String userId, final long projectId,
+      final boolean changeModDate, final String... fileNames) {
+    addFilesToProject(projectId, FileData.RoleEnum.SOURCE, changeModDate, userId, fileNames);
+  }
+
+  @Override
+  public synchronized void addOutputFilesToProject(final String userId, final long projectId,
+      final String... fileNames) {
+    addFilesToProject(projectId, FileData.RoleEnum.TARGET, false, userId, fileNames);
+  }
+
+  private void addFilesToProject(long projectId, FileData.RoleEnum role,
+      boolean changeModDate, String userId, String... fileNames) {
+    ProjectRecord pd = getProjectRecord(userId, projectId);
+    for (String fileName : fileNames) {
+      FileRecord fr = pd.files.get(fileName);
+      if (fr == null) {
+        fr = new FileRecord();
+        fr.role = role;
+        fr.userId = userId;
+        pd.files.put(fileName, fr);
+      } else if (!fr.role.equals(role)) {
+        throw CrashReport.createAndLogError(LOG, null,
+            collectProjectErrorInfo(null, projectId, fileName),
+            new IllegalStateException("File role change is not supported"));
+      }
+    }
+    if (changeModDate) {
+      touchProject(pd);
+    }
+    saveProject(pd);
+  }
+
+  @Override
+  public synchronized void removeSourceFilesFromProject(final String userId, final long projectId,
+      final boolean changeModDate, final String... fileNames) {
+    removeFilesFromProject(userId, projectId, FileData.RoleEnum.SOURCE, changeModDate, fileNames);
+  }
+
+  @Override
+  public synchronized void removeOutputFilesFromProject(final String userId, final long projectId,
+      final String... fileNames) {
+    removeFilesFromProject(userId, projectId, FileData.RoleEnum.TARGET, false, fileNames);
+  }
+
+  private void removeFilesFromProject(String userId, long projectId, FileData.RoleEnum role,
+      boolean changeModDate, String... fileNames) {
+    ProjectRecord pd = getProjectRecord(userId, projectId);
+    // Check all of the roles before removing anything
+    for (String fileName : fileNames) {
+      FileRecord fr = pd.files.get(fileName);
+      if (fr != null && !fr.role.equals(role)) {
+        throw CrashReport.createAndLogError(LOG, null,
+            collectProjectErrorInfo(null, projectId, fileName),
+            new IllegalStateException("File role change is not supported"));
+      }
+    }
+    List<String> released = new ArrayList<String>();
+    for (String fileName : fileNames) {
+      FileRecord fr = pd.files.remove(fileName);
+      if (fr != null) {
+        released.add(fr.hash);
+      }
+    }
+    if (changeModDate) {
+      touchProject(pd);
+    }
+    saveProject(pd);
+    for (String hash : released) {
+      releaseBlob(hash);
+    }
+  }
+
+  @Override
+  public synchronized List<String> getProjectSourceFiles(final String userId,
+      final long projectId) {
+    return getProjectFiles(projectId, FileData.RoleEnum.SOURCE);
+  }
+
+  @Override
+  public synchronized List<String> getProjectOutputFiles(final String userId,
+      final long projectId) {
+    return getProjectFiles(projectId, FileData.RoleEnum.TARGET);
+  }
+
+  private List<String> getProjectFiles(long projectId, FileData.RoleEnum role) {
+    List<String> fileList = new ArrayList<String>();
+    ProjectRecord pd = projects.get(projectId);
+    if (pd != null) {
+      for (Map.Entry<String, FileRecord> entry : pd.files.entrySet()) {
+        if (entry.getValue().role.equals(role)) {
+          fileList.add(entry.getKey());
+        }
+      }
+    }
+    return fileList;
+  }
+
+  @Override
+  public long uploadFile(final long projectId, final String fileName, final String userId,
+      final String content, final String encoding) throws BlocksTruncatedException {
+    try {
+      return uploadRawFile(projectId, fileName, userId, false, content.getBytes(encoding));
+    } catch (UnsupportedEncodingException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding,"
+          + collectProjectErrorInfo(null, projectId, fileName), e);
+    }
+  }
+
+  @Override
+  public long uploadFileForce(final long projectId, final String fileName, final String userId,
+      final String content, final String encoding) {
+    try {
+      return uploadRawFileForce(projectId, fileName, userId, content.getBytes(encoding));
+    } catch (UnsupportedEncodingException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding,"
+          + collectProjectErrorInfo(null, projectId, fileName), e);
+    }
+  }
+
+  @Override
+  public long uploadRawFileForce(final long projectId, final String fileName, final String userId,
+      final byte[] content) {
+    try {
+      return uploadRawFile(projectId, fileName, userId, true, content);
+    } catch (BlocksTruncatedException e) {
+      // Won't get here, exception isn't thrown when force is true
+      return 0;
+    }
+  }
+
+  @Override
+  public long uploadRawFileForce(final long projectId, final String fileName,
+      final String userId, final InputStream content) throws IOException {
+    // Stream the content to a temporary file and only take the lock to move
+    // it into place.
+    StagedBlob blob = stageBlob(content);
+    try {
+      synchronized (this) {
+        ProjectRecord pd = getProjectRecord(userId, projectId);
+        FileRecord fr = pd.files.get(fileName);
+        Preconditions.checkState(fr != null);
+        checkFileOwner(fr, userId, projectId);
+        return replaceContent(pd, fr, userId, storeBlob(blob));
+      }
+    } finally {
+      blob.discard();
+    }
+  }
+
+  @Override
+  public long uploadRawFile(final long projectId, final String fileName,
+      final String userId, final boolean force, final byte[] content)
+      throws BlocksTruncatedException {
+    StagedBlob blob;
+    try {
+      blob = stageBlob(content);
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName), e);
+    }
+    try {
+      synchronized (this) {
+        ProjectRecord pd = getProjectRecord(userId, projectId);
+        FileRecord fr = pd.files.get(fileName);
+        // <Screen>.yail files are missing when user converts AI1 project to AI2
+        // instead of blowing up, just create a <Screen>.yail file
+        if (fr == null && (fileName.endsWith(".yail") || fileName.endsWith(".png"))) {
+          fr = new FileRecord();
+          fr.role = FileData.RoleEnum.SOURCE;
+          fr.userId = userId;
+          pd.files.put(fileName, fr);
+        }
+        Preconditions.checkState(fr != null);
+        checkFileOwner(fr, userId, projectId);
+        if ((content.length < 125) && fileName.endsWith(".bky") && !force) {
+          // Likely this is an empty blocks workspace. Refuse to overwrite a
+          // non-trivial one with it unless we are forced to.
+          if (fr.hash != null && blobFile(fr.hash).length() > 120) {
+            throw new BlocksTruncatedException();
+          }
+        }
+        String hash;
+        try {
+          hash = storeBlob(blob);
+        } catch (IOException e) {
+          throw CrashReport.createAndLogError(LOG, null,
+              collectProjectErrorInfo(userId, projectId, fileName), e);
+        }
+        return replaceContent(pd, fr, userId, hash);
+      }
+    } finally {
+      blob.discard();
+    }
+  }
+
+  @Override
+  public long uploadRawFilesForce(final long projectId, final String userId,
+      final Map<String, byte[]> contents) {
+    Map<String, StagedBlob> staged = new HashMap<String, StagedBlob>();
+    try {
+      for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+        try {
+          staged.put(entry.getKey(), stageBlob(entry.getValue()));
+        } catch (IOException e) {
+          throw CrashReport.createAndLogError(LOG, null,
+              collectProjectErrorInfo(userId, projectId, entry.getKey()), e);
+        }
+      }
+      synchronized (this) {
+        return replaceContents(projectId, userId, staged);
+      }
+    } finally {
+      for (StagedBlob blob : staged.values()) {
+        blob.discard();
+      }
+    }
+  }
+
+  /*
+   * Points the project's files at the staged blobs for uploadRawFilesForce.
+   * Called with the lock held.
+   */
+  private long replaceContents(long projectId, String userId, Map<String, StagedBlob> staged) {
+    ProjectRecord pd = getProjectRecord(userId, projectId);
+    for (String fileName : staged.keySet()) {
+      FileRecord fr = pd.files.get(fileName);
+      if (fr == null) {
+        Preconditions.checkState(fileName.endsWith(".yail") || fileName.endsWith(".png"));
+      } else {
+        checkFileOwner(fr, userId, projectId);
+      }
+    }
+    // Store every blob before changing any record, so that a failed move
+    // leaves the project and the reference counts as they were.
+    Map<String, String> hashes = new HashMap<String, String>();
+    for (Map.Entry<String, StagedBlob> entry : staged.entrySet()) {
+      try {
+        hashes.put(entry.getKey(), storeBlob(entry.getValue()));
+      } catch (IOException e) {
+        for (String hash : hashes.values()) {
+          releaseBlob(hash);
+        }
+        throw CrashReport.createAndLogError(LOG, null,
+            collectProjectErrorInfo(userId, projectId, entry.getKey()), e);
+      }
+    }
+    List<String> released = new ArrayList<String>();
+    for (Map.Entry<String, String> entry : hashes.entrySet()) {
+      FileRecord fr = pd.files.get(entry.getKey());
+      if (fr == null) {
+        fr = new FileRecord();
+        fr.role = FileData.RoleEnum.SOURCE;
+        pd.files.put(entry.getKey(), fr);
+      }
+      released.add(fr.hash);
+      fr.hash = entry.getValue();
+      if (Strings.isNullOrEmpty(fr.userId)) {
+        fr.userId = userId;
+      }
+    }
+    touchProject(pd);
+    saveProject(pd);
+    for (String hash : released) {
+      releaseBlob(hash);
+    }
+    return pd.dateModified;
+  }
+
+  /*
+   * Points fr at the (already retained) blob hash, releases the previous
+   * content and updates the project's modification date. Returns the
+   * modification date.
+   */
+  private long replaceContent(ProjectRecord pd, FileRecord fr, String userId, String hash) {
+    String oldHash = fr.hash;
+    fr.hash = hash;
+    // Old file not marked with ownership, mark it now
+    if (Strings.isNullOrEmpty(fr.userId)) {
+      fr.userId = userId;
+    }
+    touchProject(pd);
+    saveProject(pd);
+    releaseBlob(oldHash);
+    return pd.dateModified;
+  }
+
+  private void checkFileOwner(FileRecord fr, String userId, long projectId) {
+    if (!Strings.isNullOrEmpty(fr.userId) && !fr.userId.equals(userId)) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, projectId),
+          new UnauthorizedAccessException(userId, projectId, null));
+    }
+  }
+
+  /*
+   * Only moves the modification date forward if it is more than a minute in
+   * the future, to match ObjectifyStorageIo.updateProjectModDate. The caller
+   * saves the project.
+   */
+  private static void touchProject(ProjectRecord pd) {
+    long modDate = System.currentTimeMillis();
+    if (modDate > (pd.dateModified + 1000*60)) {
+      pd.dateModified = modDate;
+    }
+  }
+
+  private ProjectRecord getProjectRecord(String userId, long projectId) {
+    ProjectRecord pd = projects.get(projectId);
+    if (pd == null) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, projectId),
+          new IllegalArgumentException("project " + projectId + " doesn't exist"));
+    }
+    return pd;
+  }
+
+  @Override
+  public synchronized long deleteFile(final String userId, final long projectId,
+      final String fileName) {
+    ProjectRecord pd = projects.get(projectId);
+    if (pd == null) {
+      return 0;
+    }
+    FileRecord fr = pd.files.get(fileName);
+    if (fr != null) {
+      checkFileOwner(fr, userId, projectId);
+      pd.files.remove(fileName);
+    }
+    touchProject(pd);
+    saveProject(pd);
+    if (fr != null) {
+      releaseBlob(fr.hash);
+    }
+    return pd.dateModified;
+  }
+
+  @Override
+  public String downloadFile(final String userId, final long projectId, final String fileName,
+      final String encoding) {
+    try {
+      return new String(downloadRawFile(userId, projectId, fileName), encoding);
+    } catch (UnsupportedEncodingException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding, "
+          + collectProjectErrorInfo(userId, projectId, fileName), e);
+    }
+  }
+
+  @Override
+  public synchronized void recordCorruption(String userId, long projectId, String fileId,
+      String message) {
+    JSONObject record = new JSONObject();
+    record.put("timestamp", new Date().toString());
+    record.put("userId", userId);
+    record.put("projectId", projectId);
+    record.put("fileId", fileId);
+    record.put("message", message);
+    appendLog("corruption.log", record);
+  }
+
+  @Override
+  public byte[] downloadRawFile(final String userId, final long projectId,
+      final String fileName) {
+    String hash = pinFile(userId, projectId, fileName);
+    try {
+      return readBlob(hash);
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName), e);
+    } finally {
+      unpinBlob(hash);
+    }
+  }
+
+  @Override
+  public synchronized RawFileInfo getRawFileInfo(final String userId, final long projectId,
+      final String fileName) {
+    FileRecord fr = getReadableFile(userId, projectId, fileName);
+    if (fr.hash == null) {
+      return new RawFileInfo("empty", 0);
+    }
+    // Blobs are stored by the hash of their content
+    return new RawFileInfo(fr.hash, blobFile(fr.hash).length());
+  }
+
+  @Override
+  public synchronized Map<String, RawFileInfo> getRawFileInfos(final String userId,
+      final long projectId, final List<String> fileNames) {
+    Map<String, RawFileInfo> infos = new LinkedHashMap<String, RawFileInfo>();
+    for (String fileName : fileNames) {
+      infos.put(fileName, getRawFileInfo(userId, projectId, fileName));
+    }
+    return infos;
+  }
+
+  @Override
+  public InputStream openRawFile(final String userId, final long projectId,
+      final String fileName, long offset) throws IOException {
+    String hash = pinFile(userId, projectId, fileName);
+    if (hash == null) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    // Blobs are never modified in place, so replacing the file while it is
+    // being read doesn't change what the stream returns. Once it is open the
+    // stream keeps reading the blob even if it is deleted, so it only needs
+    // the pin until then.
+    try {
+      InputStream in = new FileInputStream(blobFile(hash));
+      ByteStreams.skipFully(in, offset);
+      return in;
+    } finally {
+      unpinBlob(hash);
+    }
+  }
+
+  /*
+   * Returns the hash of the file's content, having taken a reference to the
+   * blob so that it can be read without the lock. The caller drops it with
+   * unpinBlob.
+   */
+  private synchronized String pinFile(String userId, long projectId, String fileName) {
+    String hash = getReadableFile(userId, projectId, fileName).hash;
+    retainBlob(hash);
+    return hash;
+  }
+
+  private FileRecord getReadableFile(String userId, long projectId, String fileName) {
+    ProjectRecord pd = projects.get(projectId);
+    FileRecord fr = pd == null ? null : pd.files.get(fileName);
+    if (fr == null) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName),
+          new FileNotFoundException("No data for " + fileName));
+    }
+    checkFileOwner(fr, userId, projectId);
+    return fr;
+  }
+
+  @Override
+  public Map<String, byte[]> downloadRawFiles(final String userId,
+      final long projectId, final List<String> fileNames) {
+    // Pin every file at once, so that we return the files as they were at
+    // one moment even if some are replaced while we read them.
+    List<String> hashes = new ArrayList<String>();
+    try {
+      synchronized (this) {
+        for (String fileName : fileNames) {
+          hashes.add(pinFile(userId, projectId, fileName));
+        }
+      }
+      Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+      for (int i = 0; i < fileNames.size(); i++) {
+        try {
+          contents.put(fileNames.get(i), readBlob(hashes.get(i)));
+        } catch (IOException e) {
+          throw CrashReport.createAndLogError(LOG, null,
+              collectProjectErrorInfo(userId, projectId, fileNames.get(i)), e);
+        }
+      }
+      return contents;
+    } finally {
+      for (String hash : hashes) {
+        unpinBlob(hash);
+      }
+    }
+  }
+
+  @Override
+  public String uploadTempFile(byte[] content) throws IOException {
+    String fileName = TEMP_PREFIX + UUID.randomUUID().toString();
+    File tempFile = tempFile(fileName);
+    writeAtomically(tempFile, content);
+    return fileName;
+  }
+
+  @Override
+  public InputStream openTempFile(String fileName) throws IOException {
+    if (!fileName.startsWith(TEMP_PREFIX)) {
+      throw new RuntimeException("openTempFile (" + fileName + ") Invalid File Name");
+    }
+    return new ByteArrayInputStream(Files.readAllBytes(tempFile(fileName).toPath()));
+  }
+
+  @Override
+  public void deleteTempFile(String fileName) throws IOException {
+    if (!fileName.startsWith(TEMP_PREFIX)) {
+      throw new RuntimeException("deleteTempFile (" + fileName + ") Invalid File Name");
+    }
+    Files.deleteIfExists(tempFile(fileName).toPath());
+  }
+
+  private File tempFile(String fileName) {
+    String name = fileName.substring(TEMP_PREFIX.length());
+    if (name.contains("/") || name.contains(File.separator) || name.startsWith(".")) {
+      throw new RuntimeException("Invalid temporary file name " + fileName);
+    }
+    return new File(tempDir, name);
+  }
+
+  @Override
+  public synchronized Motd getCurrentMotd() {
+    return new Motd(1, misc.motdCaption, misc.motdContent);
+  }
+
+  @Override
+  public ProjectSourceZip exportProjectSourceZip(final String userId,
+      final long projectId, final boolean includeProjectHistory,
+      final boolean includeAndroidKeystore, @Nullable String zipName,
+      final boolean includeYail, final boolean includeScreenShots,
+      final boolean forGallery, final boolean fatalError) throws IOException {
+    final boolean forBuildserver = includeAndroidKeystore && includeYail;
+    // Pick the files and pin their blobs under the lock, then read them and
+    // build the zip without it.
+    Map<String, String> entries = new LinkedHashMap<String, String>(); // name -> blob hash
+    String keystoreHash = null;
+    try {
+      String projectName;
+      String history;
+      synchronized (this) {
+        ProjectRecord pd = projects.get(projectId);
+        if (pd == null) {
+          throw new IllegalArgumentException("No files to download");
+        }
+
+        // Count the parts (.scm, .bky, .yail) of each screen, so that we can
+        // leave incomplete screens out of builds.
+        Map<String, Integer> screens = new HashMap<String, Integer>();
+        for (String fileName : pd.files.keySet()) {
+          if (isScreenFile(fileName)) {
+            String fileNameNoExt = fileName.substring(0, fileName.lastIndexOf("."));
+            Integer count = screens.get(fileNameNoExt);
+            screens.put(fileNameNoExt, count == null ? 1 : count + 1);
+          }
+        }
+
+        List<String> incompleteYail = new ArrayList<String>();
+        for (Map.Entry<String, FileRecord> entry : pd.files.entrySet()) {
+          String fileName = entry.getKey();
+          FileRecord fr = entry.getValue();
+          if (fileName.startsWith("assets/external_comps") && forGallery) {
+            throw new IOException("FATAL Error, external component in gallery app");
+          }
+          if (!fr.role.equals(FileData.RoleEnum.SOURCE)) {
+            continue;
+          } else if (fileName.equals(FileExporter.REMIX_INFORMATION_FILE_PATH) ||
+              (fileName.startsWith("screenshots") && !includeScreenShots) ||
+              (fileName.startsWith("src/") && fileName.endsWith(".yail") && !includeYail)) {
+            // See ObjectifyStorageIo.exportProjectSourceZip for why these are left out
+            continue;
+          } else if (forBuildserver && isScreenFile(fileName)) {
+            String fileNameNoExt = fileName.substring(0, fileName.lastIndexOf("."));
+            if (screens.get(fileNameNoExt) < 3) {
+              LOG.log(Level.INFO, "Not adding file to build " + fileName);
+              if (fileName.endsWith(".yail")) {
+                incompleteYail.add(fileName);
+              }
+              continue;
+            }
+          }
+          retainBlob(fr.hash);
+          entries.put(fileName, fr.hash);
+        }
+        for (String fileName : incompleteYail) {
+          deleteFile(userId, projectId, fileName);
+        }
+        if (entries.isEmpty()) {
+          throw new IllegalArgumentException("No files to download");
+        }
+        projectName = pd.name;
+        history = pd.history;
+        if (includeAndroidKeystore) {
+          UserRecord userData = users.get(userId);
+          if (userData != null) {
+            keystoreHash = userData.files.get(StorageUtil.ANDROID_KEYSTORE_FILENAME);
+            retainBlob(keystoreHash);
+          }
+        }
+      }
+
+      ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
+      ZipOutputStream out = new ZipOutputStream(zipFile);
+      out.setComment("Built with MIT App Inventor");
+      int fileCount = 0;
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        byte[] data = readBlob(entry.getValue());
+        out.putNextEntry(new ZipEntry(entry.getKey()));
+        out.write(data, 0, data.length);
+        out.closeEntry();
+        fileCount++;
+      }
+      if (includeProjectHistory && !Strings.isNullOrEmpty(history)) {
+        byte[] data = history.getBytes(StorageUtil.DEFAULT_CHARSET);
+        out.putNextEntry(new ZipEntry(FileExporter.REMIX_INFORMATION_FILE_PATH));
+        out.write(data, 0, data.length);
+        out.closeEntry();
+        fileCount++;
+      }
+      if (keystoreHash != null) {
+        byte[] data = readBlob(keystoreHash);
+        if (data.length > 0) {
+          out.putNextEntry(new ZipEntry(StorageUtil.ANDROID_KEYSTORE_FILENAME));
+          out.write(data, 0, data.length);
+          out.closeEntry();
+          fileCount++;
+        }
+      }
+      out.close();
+
+      if (zipName == null) {
+        zipName = projectName + ".aia";
+      }
+      ProjectSourceZip projectSourceZip =
+          new ProjectSourceZip(zipName, zipFile.toByteArray(), fileCount);
+      projectSourceZip.setMetadata(projectName);
+      return projectSourceZip;
+    } finally {
+      synchronized (this) {
+        for (String hash : entries.values()) {
+          releaseBlob(hash);
+        }
+        releaseBlob(keystoreHash);
+      }
+    }
+  }
+
+  private static boolean isScreenFile(String fileName) {
+    return fileName.startsWith("src/") && (fileName.endsWith(".scm") ||
+        fileName.endsWith(".bky") || fileName.endsWith(".yail"));
+  }
+
+  @Override
+  public synchronized String findUserByEmail(String inputemail) throws NoSuchElementException {
+    UserRecord userData = null;
+    String email = inputemail.toLowerCase();
+    for (UserRecord candidate : users.values()) {
+      if (inputemail.equals(candidate.email)) {
+        userData = candidate;
+        break;
+      } else if (userData == null && email.equals(candidate.email)) {
+        userData = candidate;
+      }
+    }
+    if (userData == null) {
+      throw new NoSuchElementException("Couldn't find a user with email " + inputemail);
+    }
+    return userData.id;
+  }
+
+  @Override
+  public synchronized String findIpAddressByKey(final String key) {
+    return misc.rendezvous.get(key);
+  }
+
+  @Override
+  public synchronized void storeIpAddressByKey(final String key, final String ipAddress) {
+    misc.rendezvous.put(key, ipAddress);
+    saveMisc();
+  }
+
+  /*
+   * The whitelist is a plain text file, whitelist.txt in the storage
+   * directory, with one email address per line.
+   */
+  @Override
+  public boolean checkWhiteList(String email) {
+    File whitelist = new File(root, "whitelist.txt");
+    if (!whitelist.exists()) {
+      return false;
+    }
+    try {
+      for (String line : Files.readAllLines(whitelist.toPath(), Charsets.UTF_8)) {
+        if (line.trim().equalsIgnoreCase(email)) {
+          return true;
+        }
+      }
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Reading " + whitelist, e);
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized void storeFeedback(final String notes, final String foundIn,
+      final String faultData, final String comments, final String datestamp, final String email,
+      final String projectId) {
+    JSONObject record = new JSONObject();
+    record.put("notes", notes);
+    record.put("foundIn", foundIn);
+    record.put("faultData", faultData);
+    record.put("comments", comments);
+    record.put("datestamp", datestamp);
+    record.put("email", email);
+    record.put("projectId", projectId);
+    appendLog("feedback.log", record);
+  }
+
+  @Override
+  public synchronized Nonce getNoncebyValue(String nonceValue) {
+    return misc.nonces.get(nonceValue);
+  }
+
+  @Override
+  public synchronized void storeNonce(final String nonceValue, final String userId,
+      final long projectId) {
+    misc.nonces.put(nonceValue, new Nonce(nonceValue, userId, projectId, new Date()));
+    saveMisc();
+  }
+
+  @Override
+  public synchronized void cleanupNonces() {
+    long expired = System.currentTimeMillis() - NONCE_LIFETIME;
+    boolean changed = false;
+    for (Iterator<Nonce> it = misc.nonces.values().iterator(); it.hasNext(); ) {
+      if (it.next().getTimeStamp().getTime() < expired) {
+        it.remove();
+        changed = true;
+      }
+    }
+    if (changed) {
+      saveMisc();
+    }
+  }
+
+  @Override
+  public void checkUpgrade(String userId) {
+    // Nothing to upgrade, there is no blobstore to convert from
+  }
+
+  @Override
+  public void doUpgrade(String userId) {
+  }
+
+  @Override
+  public synchronized SplashConfig getSplashConfig() {
+    return new SplashConfig(misc.splashVersion, misc.splashWidth, misc.splashHeight,
+        misc.splashContent);
+  }
+
+  @Override
+  public synchronized PWData createPWData(final String email) {
+    PWRecord record = new PWRecord();
+    record.id = UUID.randomUUID().toString();
+    record.email = email;
+    record.timestamp = new Date();
+    misc.pwData.put(record.id, record);
+    saveMisc();
+    return makePWData(record);
+  }
+
+  @Override
+  public synchronized PWData findPWData(final String uid) {
+    PWRecord record = misc.pwData.get(uid);
+    return record == null ? null : makePWData(record);
+  }
+
+  private static PWData makePWData(PWRecord record) {
+    PWData pwData = new PWData();
+    pwData.id = record.id;
+    pwData.email = record.email;
+    pwData.timestamp = record.timestamp;
+    return pwData;
+  }
+
+  @Override
+  public synchronized void cleanuppwdata() {
+    long expired = System.currentTimeMillis() - PWDATA_LIFETIME;
+    boolean changed = false;
+    for (Iterator<PWRecord> it = misc.pwData.values().iterator(); it.hasNext(); ) {
+      if (it.next().timestamp.getTime() < expired) {
+        it.remove();
+        changed = true;
+      }
+    }
+    if (changed) {
+      saveMisc();
+    }
+  }
+
+  @Override
+  public synchronized List<AdminUser> searchUsers(final String partialEmail) {
+    TreeMap<String, UserRecord> byEmail = new TreeMap<String, UserRecord>();
+    for (UserRecord user : users.values()) {
+      if (user.email != null && user.email.compareTo(partialEmail) >= 0) {
+        byEmail.put(user.email + "|" + user.id, user);
+      }
+    }
+    List<AdminUser> retval = new ArrayList<AdminUser>();
+    for (UserRecord user : byEmail.values()) {
+      retval.add(new AdminUser(user.id, user.name, user.email, user.tosAccepted,
+          user.isAdmin, user.visited));
+      if (retval.size() > 20) {
+        break;
+      }
+    }
+    return retval;
+  }
+
+  @Override
+  public synchronized void storeUser(final AdminUser user) throws AdminInterfaceException {
+    UserRecord userData = user.getId() == null ? null : users.get(user.getId());
+    if (userData != null) {
+      userData.email = user.getEmail();
+      userData.emaillower = userData.email.toLowerCase();
+      String password = user.getPassword();
+      if (password != null && !password.equals("")) {
+        userData.password = password;
+      }
+      userData.isAdmin = user.getIsAdmin();
+      saveUser(userData);
+    } else {            // New User
+      String emaillower = user.getEmail().toLowerCase();
+      for (UserRecord other : users.values()) {
+        if (emaillower.equals(other.email)) {
+          throw new AdminInterfaceException("User Already exists = " + user.getEmail());
+        }
+      }
+      userData = createUser(UUID.randomUUID().toString(), user.getEmail());
+      if (!user.getPassword().equals("")) {
+        userData.password = user.getPassword();
+      }
+      userData.isAdmin = user.getIsAdmin();
+      saveUser(userData);
+    }
+  }
+
+  @Override
+  public synchronized String downloadBackpack(final String backPackId) {
+    String content = misc.backpacks.get(backPackId);
+    return content == null ? "[]" : content; // No shared backpack, return an empty backpack
+  }
+
+  @Override
+  public synchronized void uploadBackpack(String backPackId, String content) {
+    misc.backpacks.put(backPackId, content);
+    saveMisc();
+  }
+
+  @Override
+  public synchronized void storeBuildStatus(String userId, long projectId, int progress) {
+    buildStatus.put(userId + "|" + projectId, progress);
+  }
+
+  @Override
+  public synchronized int getBuildStatus(String userId, long projectId) {
+    Integer ival = buildStatus.get(userId + "|" + projectId);
+    return ival == null ? DEFAULT_BUILD_STATUS : ival;
+  }
+
+  @Override
+  public synchronized void assertUserHasProject(final String userId, final long projectId) {
+    UserRecord userData = users.get(userId);
+    if (userData == null || !userData.projects.contains(projectId)) {
+      // User doesn't have the corresponding project.
+      throw new SecurityException("Unauthorized access");
+    }
+  }
+
+  @Override
+  public synchronized List<String> getTutorialsUrlAllowed() {
+    JSONArray parsedUrls = (JSONArray) JSON_PARSER.parse(misc.allowedTutorialUrls);
+    List<String> returnValue = new ArrayList<String>();
+    for (JSONValue v : parsedUrls.getElements()) {
+      returnValue.add(v.asString().getString());
+    }
+    return returnValue;
+  }
+
+  @Override
+  public synchronized boolean deleteAccount(final String userId) {
+    UserRecord userData = users.get(userId);
+    if (userData == null) {
+      return true;
+    }
+    // Don't remove anything if there is a live project left
+    for (long projectId : userData.projects) {
+      ProjectRecord pd = projects.get(projectId);
+      if (pd != null && !pd.movedToTrash) {
+        return false;
+      }
+    }
+    for (long projectId : new ArrayList<Long>(userData.projects)) {
+      deleteProject(userId, projectId);
+    }
+    users.remove(userId);
+    deleteRecord(userFile(userId));
+    for (String hash : userData.files.values()) {
+      releaseBlob(hash);
+    }
+    return true;
+  }
+
+  // ********* Blobs *********
+  //
+  // Blob contents are written and read without holding the lock. New content
+  // is staged in a temporary file first and only renamed into place under
+  // the lock. Readers take a reference on the blobs they read (and drop it
+  // with unpinBlob when they are done), so that a blob isn't deleted while
+  // it is being read. Blobs are never modified in place.
+
+  /*
+   * Content written to a temporary file by stageBlob, waiting to be stored.
+   */
+  private static class StagedBlob {
+    final String hash;
+    final File file;
+
+    StagedBlob(String hash, File file) {
+      this.hash = hash;
+      this.file = file;
+    }
+
+    // Deletes the temporary file, unless storeBlob has moved it into place
+    void discard() {
+      if (file.exists() && !file.delete()) {
+        LOG.warning("Unable to delete " + file);
+      }
+    }
+  }
+
+  private StagedBlob stageBlob(byte[] content) throws IOException {
+    return stageBlob(new ByteArrayInputStream(content));
+  }
+
+  /*
+   * Copies content to a temporary file, hashing it on the way. Doesn't need
+   * the lock.
+   */
+  private StagedBlob stageBlob(InputStream content) throws IOException {
+    File tempFile = File.createTempFile("upload", ".tmp", tempDir);
+    StagedBlob blob = null;
+    try {
+      HashingInputStream hashingStream = new HashingInputStream(Hashing.sha1(), content);
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+      try {
+        ByteStreams.copy(hashingStream, out);
+      } finally {
+        out.close();
+      }
+      blob = new StagedBlob(hashingStream.hash().toString(), tempFile);
+      return blob;
+    } finally {
+      if (blob == null && !tempFile.delete()) {
+        LOG.warning("Unable to delete " + tempFile);
+      }
+    }
+  }
+
+  /*
+   * Moves a staged blob into place, if an identical blob isn't already
+   * stored, and adds a reference to it. Returns the blob's hash. Called with
+   * the lock held.
+   */
+  private String storeBlob(StagedBlob blob) throws IOException {
+    if (!blobRefs.containsKey(blob.hash)) {
+      moveIntoPlace(blob.file, blobFile(blob.hash));
+    }
+    retainBlob(blob.hash);
+    return blob.hash;
+  }
+
+  private void retainBlob(String hash) {
+    if (hash != null) {
+      Integer count = blobRefs.get(hash);
+      blobRefs.put(hash, count == null ? 1 : count + 1);
+    }
+  }
+
+  /*
+   * Drops a reference to a blob, deleting the blob once nothing refers to it.
+   */
+  private void releaseBlob(String hash) {
+    if (hash == null) {
+      return;
+    }
+    Integer count = blobRefs.get(hash);
+    if (count == null || count <= 1) {
+      blobRefs.remove(hash);
+      File blob = blobFile(hash);
+      if (blob.exists() && !blob.delete()) {
+        LOG.warning("Unable to delete blob " + blob);
+      }
+    } else {
+      blobRefs.put(hash, count - 1);
+    }
+  }
+
+  /*
+   * Drops the reference a reader took to read a blob outside the lock.
+   */
+  private synchronized void unpinBlob(String hash) {
+    releaseBlob(hash);
+  }
+
+  private byte[] readBlob(String hash) throws IOException {
+    if (hash == null) {
+      return new byte[0];       // File was added but its content never uploaded
+    }
+    return Files.readAllBytes(blobFile(hash).toPath());
+  }
+
+  private File blobFile(String hash) {
+    return new File(new File(blobsDir, hash.substring(0, 2)), hash);
+  }
+
+  // ********* Records *********
+
+  private File userFile(String userId) {
+    try {
+      return new File(usersDir, URLEncoder.encode(userId, DEFAULT_ENCODING) + ".ser");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e); // UTF-8 is always supported
+    }
+  }
+
+  private File projectFile(long projectId) {
+    return new File(projectsDir, projectId + ".ser");
+  }
+
+  private void saveUser(UserRecord userData) {
+    writeRecord(userFile(userData.id), userData);
+  }
+
+  private void saveProject(ProjectRecord pd) {
+    writeRecord(projectFile(pd.id), pd);
+  }
+
+  private void saveMisc() {
+    writeRecord(new File(root, "misc.ser"), misc);
+  }
+
+  private void writeRecord(File file, Serializable record) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(record);
+      out.close();
+      writeAtomically(file, bytes.toByteArray());
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Writing " + file, e);
+    }
+  }
+
+  private static Object readRecord(File file) throws IOException {
+    ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      return in.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Unreadable record " + file, e);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void deleteRecord(File file) {
+    if (file.exists() && !file.delete()) {
+      LOG.warning("Unable to delete " + file);
+    }
+  }
+
+  private void appendLog(String logName, JSONObject record) {
+    File log = new File(root, logName);
+    try {
+      Writer out = new FileWriter(log, true);
+      try {
+        out.write(record.toString());
+        out.write('\n');
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null, "Writing " + log, e);
+    }
+  }
+
+  /*
+   * Writes content next to file and then renames it into place, so readers
+   * (and a restart after a crash) never see a partially written file.
+   */
+  private void writeAtomically(File file, byte[] content) throws IOException {
+    File dir = file.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+    File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+    try {
+      OutputStream out = new FileOutputStream(tempFile);
+      try {
+        out.write(content);
+      } finally {
+        out.close();
+      }
+      moveIntoPlace(tempFile, file);
+    } finally {
+      if (tempFile.exists() && !tempFile.delete()) {
+        LOG.warning("Unable to delete " + tempFile);
+      }
+    }
+  }
+
+  private static void moveIntoPlace(File source, File target) throws IOException {
+    File dir = target.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Unable to create " + dir);
+    }
+    try {
+      Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static String collectUserErrorInfo(final String userId, String fileName) {
+    return "user=" + userId + ", file=" + fileName;
+  }
+
+  private static String collectProjectErrorInfo(final String userId, final long projectId,
+      final String fileName) {
+    return "user=" + userId + ", project=" + projectId + ", file=" + fileName;
+  }
+
+  private static String collectUserProjectErrorInfo(final String userId, final long projectId) {
+    return "user=" + userId + ", project=" + projectId;
+  }
+}
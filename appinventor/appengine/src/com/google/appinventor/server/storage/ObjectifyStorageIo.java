@@ -6,9 +6,12 @@
 
 package com.google.appinventor.server.storage;
 
+import com.google.appengine.api.ThreadManager;
 import com.google.appengine.api.appidentity.AppIdentityService;
 import com.google.appengine.api.appidentity.AppIdentityServiceFactory;
 import com.google.appengine.api.appidentity.AppIdentityServiceFailureException;
+import com.google.appengine.api.blobstore.BlobInfo;
+import com.google.appengine.api.blobstore.BlobInfoFactory;
 import com.google.appengine.api.blobstore.BlobKey;
 import com.google.appengine.api.blobstore.BlobstoreInputStream;
 import com.google.appengine.api.blobstore.BlobstoreServiceFactory;
@@ -61,7 +64,9 @@ import com.google.appinventor.shared.storage.StorageUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 
@@ -74,6 +79,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 
 // GCS imports
+import com.google.appengine.tools.cloudstorage.GcsFileMetadata;
 import com.google.appengine.tools.cloudstorage.GcsFileOptions;
 import com.google.appengine.tools.cloudstorage.GcsFilename;
 import com.google.appengine.tools.cloudstorage.GcsInputChannel;
@@ -85,8 +91,10 @@ import com.google.appengine.tools.cloudstorage.RetryParams;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -94,7 +102,15 @@ import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -127,6 +143,16 @@ public class ObjectifyStorageIo implements  StorageIo {
   // TODO(user): need a way to modify this. Also, what is really a good value?
   private static final int MAX_JOB_RETRIES = 10;
 
+  // Maximum number of GCS writes uploadRawFilesForce issues at once
+  private static final int MAX_PARALLEL_GCS_WRITES = 8;
+
+  // Maximum number of GCS and blobstore reads issued at once when reading or
+  // describing several files
+  private static final int MAX_PARALLEL_GCS_READS = 8;
+
+  // Size of the prefetch buffer used when streaming a file from GCS
+  private static final int GCS_READ_BUFFER_SIZE = 1024 * 1024;
+
   private final MemcacheService memcache = MemcacheServiceFactory.getMemcacheService();
 
   private final GcsService gcsService;
@@ -626,6 +652,7 @@ public class ObjectifyStorageIo implements  StorageIo {
           // delete the UserProjectData object
           Key<UserData> userKey = userKey(userId);
           datastore.delete(userProjectKey(userKey, projectId));
+          RequestCache.invalidate(userProjectCacheKey(userId, projectId));
           // delete any FileData objects associated with this project
         }
       }, true);
@@ -646,6 +673,7 @@ public class ObjectifyStorageIo implements  StorageIo {
           datastore.delete(fdq);
           // finally, delete the ProjectData object
           datastore.delete(projectKey);
+          invalidateCachedProject(projectId);
         }
       }, true);
       // have to delete the blobs outside of the user and project jobs
@@ -676,6 +704,7 @@ public class ObjectifyStorageIo implements  StorageIo {
           if (projectData != null) {
             projectData.projectMovedToTrashFlag = flag;
             datastore.put(projectData);
+            RequestCache.invalidate(projectCacheKey(projectId));
           }
         }
       }, true);
@@ -711,7 +740,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       runJobWithRetries(new JobRetryHelper() {
         @Override
         public void run(Objectify datastore) {
-          ProjectData pd = datastore.find(projectKey(projectId));
+          ProjectData pd = findProject(datastore, projectId);
           if (pd != null) {
             settings.t = pd.settings;
           } else {
@@ -737,6 +766,7 @@ public class ObjectifyStorageIo implements  StorageIo {
           if (pd != null) {
             pd.settings = settings;
             datastore.put(pd);
+            RequestCache.invalidate(projectCacheKey(projectId));
           }
         }
       }, false);
@@ -789,7 +819,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       runJobWithRetries(new JobRetryHelper() {
         @Override
         public void run(Objectify datastore) {
-          ProjectData pd = datastore.find(projectKey(projectId));
+          ProjectData pd = findProject(datastore, projectId);
           if (pd != null) {
             projectData.t = pd;
           } else {
@@ -851,7 +881,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       runJobWithRetries(new JobRetryHelper() {
         @Override
         public void run(Objectify datastore) {
-          ProjectData pd = datastore.find(projectKey(projectId));
+          ProjectData pd = findProject(datastore, projectId);
           if (pd != null) {
             projectName.t = pd.name;
           } else {
@@ -873,7 +903,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       runJobWithRetries(new JobRetryHelper() {
         @Override
         public void run(Objectify datastore) {
-          ProjectData pd = datastore.find(projectKey(projectId));
+          ProjectData pd = findProject(datastore, projectId);
           if (pd != null) {
             modDate.t = pd.dateModified;
           } else {
@@ -1178,6 +1208,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       }
     }
     datastore.put(addedFiles); // batch put
+    RequestCache.invalidate(projectFilesCacheKey(projectId, role));
     if (changeModDate) {
       updateProjectModDate(datastore, projectId, false);
     }
@@ -1251,6 +1282,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       }
     }
     datastore.delete(filesToRemove);  // batch delete
+    RequestCache.invalidate(projectFilesCacheKey(projectId, role));
     if (changeModDate) {
       updateProjectModDate(datastore, projectId, false);
     }
@@ -1292,6 +1324,11 @@ public class ObjectifyStorageIo implements  StorageIo {
 
   private List<String> getProjectFiles(Objectify datastore, long projectId,
                                        FileData.RoleEnum role) {
+    String cacheKey = projectFilesCacheKey(projectId, role);
+    List<String> cachedList = RequestCache.get(cacheKey);
+    if (cachedList != null) {
+      return new ArrayList<String>(cachedList);
+    }
     Key<ProjectData> projectKey = projectKey(projectId);
     List<String> fileList = new ArrayList<String>();
     for (FileData fd : datastore.query(FileData.class).ancestor(projectKey)) {
@@ -1299,6 +1336,7 @@ public class ObjectifyStorageIo implements  StorageIo {
         fileList.add(fd.fileName);
       }
     }
+    RequestCache.put(cacheKey, new ArrayList<String>(fileList));
     return fileList;
   }
 
@@ -1335,6 +1373,7 @@ public class ObjectifyStorageIo implements  StorageIo {
       if ((modDate > (pd.dateModified + 1000*60)) && !doingConversion) {
         pd.dateModified = modDate;
         datastore.put(pd);
+        RequestCache.invalidate(projectCacheKey(projectId));
       } else {
         // return the (old) dateModified
         modDate = pd.dateModified;
@@ -1357,6 +1396,255 @@ public class ObjectifyStorageIo implements  StorageIo {
     }
   }
 
+  @Override
+  public long uploadRawFileForce(final long projectId, final String fileName,
+      final String userId, final InputStream content) throws IOException {
+    // Files that would not go to GCS regardless of their size end up in the
+    // datastore, so there is nothing to gain by streaming them.
+    if (!useGCSforFile(fileName, 0)) {
+      return uploadRawFileForce(projectId, fileName, userId, ByteStreams.toByteArray(content));
+    }
+    validateGCS();
+    // Check the file before overwriting its GCS object. The job below checks
+    // again in case the file changed hands in the meantime.
+    FileData existing = ObjectifyService.begin().find(
+        projectFileKey(projectKey(projectId), fileName));
+    Preconditions.checkState(existing != null);
+    checkFileOwner(existing, userId, projectId);
+    final String gcsName = makeGCSfileName(fileName, projectId);
+    // Copy the content straight into GCS outside of any job. Closing the
+    // channel commits the object, so it is only closed once the whole
+    // content has been copied. If the copy fails, GCS discards the partial
+    // object and the previous version of the file stays intact.
+    GcsOutputChannel outputChannel =
+      gcsService.createOrReplace(new GcsFilename(GCS_BUCKET_NAME, gcsName), GcsFileOptions.getDefaultInstance());
+    OutputStream outputStream = Channels.newOutputStream(outputChannel);
+    boolean copied = false;
+    try {
+      ByteStreams.copy(content, outputStream);
+      copied = true;
+    } finally {
+      if (copied) {
+        outputStream.close();   // Closes (and commits) the channel as well
+      }
+    }
+
+    final Result<Long> modTime = new Result<Long>();
+    final Result<String> oldBlobstoreKey = new Result<String>();
+    try {
+      runJobWithRetries(new JobRetryHelper() {
+        @Override
+        public void run(Objectify datastore) {
+          Key<FileData> key = projectFileKey(projectKey(projectId), fileName);
+          FileData fd = datastore.find(key);
+          Preconditions.checkState(fd != null);
+          checkFileOwner(fd, userId, projectId);
+          if (fd.isBlob) {
+            oldBlobstoreKey.t = fd.blobKey;
+          }
+          fd.isGCS = true;
+          fd.gcsName = gcsName;
+          fd.content = null;
+          fd.isBlob = false;
+          fd.blobstorePath = null;
+          if (fd.userId == null || fd.userId.equals("")) {
+            fd.userId = userId;
+          }
+          datastore.put(fd);
+          memcache.put(key.getString(), fd); // Store the updated data in memcache
+          modTime.t = updateProjectModDate(datastore, projectId, false);
+        }
+      }, false);
+      if (oldBlobstoreKey.t != null) {
+        deleteBlobstoreFile(oldBlobstoreKey.t);
+      }
+    } catch (ObjectifyException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName), e);
+    }
+    return modTime.t;
+  }
+
+  @Override
+  public long uploadRawFilesForce(final long projectId, final String userId,
+      final Map<String, byte[]> contents) {
+    validateGCS();
+    final Key<ProjectData> projectKey = projectKey(projectId);
+    final List<Key<FileData>> keys = new ArrayList<Key<FileData>>();
+    for (String fileName : contents.keySet()) {
+      keys.add(projectFileKey(projectKey, fileName));
+    }
+
+    // Check ownership and write everything that goes to GCS (including the
+    // daily backups that are due) up front, in parallel and outside of the
+    // job. As in uploadRawFile, the GCS objects are written in place under
+    // their final names.
+    Map<Key<FileData>, FileData> existing = ObjectifyService.begin().get(keys);
+    final long now = System.currentTimeMillis();
+    final Set<String> backedUp = new HashSet<String>();
+    Map<String, byte[]> gcsWrites = new HashMap<String, byte[]>();
+    for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+      String fileName = entry.getKey();
+      byte[] content = entry.getValue();
+      FileData fd = existing.get(projectFileKey(projectKey, fileName));
+      if (fd == null) {
+        Preconditions.checkState(fileName.endsWith(".yail") || fileName.endsWith(".png"));
+      } else {
+        checkFileOwner(fd, userId, projectId);
+        if (isBackedUpFile(fileName) && (fd.lastBackup + TWENTYFOURHOURS) < now) {
+          gcsWrites.put(makeGCSfileName(fileName + "." + formattedTime() + ".backup", projectId),
+              content);
+          backedUp.add(fileName);
+        }
+      }
+      if (useGCSforFile(fileName, content.length)) {
+        gcsWrites.put(makeGCSfileName(fileName, projectId), content);
+      }
+    }
+    try {
+      writeGcsFiles(gcsWrites);
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, projectId), e);
+    }
+
+    // Now update all of the FileData entities, and the project modification
+    // date, in a single transaction on the project's entity group.
+    final Result<Long> modTime = new Result<Long>();
+    final List<String> oldBlobstoreKeys = new ArrayList<String>();
+    final List<String> oldGcsNames = new ArrayList<String>();
+    final Map<String, Object> cachedFiles = new HashMap<String, Object>();
+    try {
+      runJobWithRetries(new JobRetryHelper() {
+        @Override
+        public void run(Objectify datastore) {
+          oldBlobstoreKeys.clear();
+          oldGcsNames.clear();
+          cachedFiles.clear();
+          Map<Key<FileData>, FileData> current = datastore.get(keys);
+          List<FileData> updated = new ArrayList<FileData>();
+          boolean createdFiles = false;
+          for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            String fileName = entry.getKey();
+            byte[] content = entry.getValue();
+            Key<FileData> key = projectFileKey(projectKey, fileName);
+            FileData fd = current.get(key);
+            // See uploadRawFile for why these are created on demand
+            if (fd == null && (fileName.endsWith(".yail") || fileName.endsWith(".png"))) {
+              fd = createProjectFile(datastore, projectKey, FileData.RoleEnum.SOURCE, fileName);
+              fd.userId = userId;
+              createdFiles = true;
+            }
+            Preconditions.checkState(fd != null);
+            checkFileOwner(fd, userId, projectId);
+            if (fd.isBlob) {
+              oldBlobstoreKeys.add(fd.blobKey);
+            }
+            if (useGCSforFile(fileName, content.length)) {
+              fd.isGCS = true;
+              fd.gcsName = makeGCSfileName(fileName, projectId);
+              fd.content = null;
+            } else {
+              if (isTrue(fd.isGCS)) {   // Was a GCS file, must have gotten smaller
+                oldGcsNames.add(fd.gcsName);
+                fd.isGCS = false;
+                fd.gcsName = null;
+              }
+              fd.content = content;
+            }
+            fd.isBlob = false;
+            fd.blobstorePath = null;
+            if (backedUp.contains(fileName)) {
+              fd.lastBackup = now;
+            }
+            // Old file not marked with ownership, mark it now
+            if (fd.userId == null || fd.userId.equals("")) {
+              fd.userId = userId;
+            }
+            updated.add(fd);
+            cachedFiles.put(key.getString(), fd);
+          }
+          datastore.put(updated);  // batch put
+          if (createdFiles) {
+            RequestCache.invalidate(projectFilesCacheKey(projectId, FileData.RoleEnum.SOURCE));
+          }
+          modTime.t = updateProjectModDate(datastore, projectId, false);
+        }
+      }, true);
+    } catch (ObjectifyException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, projectId), e);
+    }
+    memcache.putAll(cachedFiles); // Store the updated data in memcache
+    for (String blobKey : oldBlobstoreKeys) {
+      deleteBlobstoreFile(blobKey);
+    }
+    for (String gcsName : oldGcsNames) {
+      try {
+        gcsService.delete(new GcsFilename(GCS_BUCKET_NAME, gcsName));
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "Unable to delete " + gcsName + " from GCS.", e);
+      }
+    }
+    return modTime.t;
+  }
+
+  private void checkFileOwner(FileData fd, String userId, long projectId) {
+    if (fd.userId != null && !fd.userId.equals("") && !fd.userId.equals(userId)) {
+      throw CrashReport.createAndLogError(LOG, null,
+        collectUserProjectErrorInfo(userId, projectId),
+        new UnauthorizedAccessException(userId, projectId, null));
+    }
+  }
+
+  /*
+   * Writes files (GCS name -> content) to GCS. When there is more than one
+   * they are written in parallel, on request threads so that they are
+   * allowed to make API calls.
+   */
+  private void writeGcsFiles(Map<String, byte[]> files) throws IOException {
+    if (files.size() <= 1) {
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        setGcsFileContent(entry.getKey(), entry.getValue());
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(files.size(), MAX_PARALLEL_GCS_WRITES), ThreadManager.currentRequestThreadFactory());
+    try {
+      List<Future<Void>> writes = new ArrayList<Future<Void>>();
+      for (final Map.Entry<String, byte[]> entry : files.entrySet()) {
+        writes.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            setGcsFileContent(entry.getKey(), entry.getValue());
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> write : writes) {
+        try {
+          write.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while writing to GCS", e);
+        } catch (ExecutionException e) {
+          Throwables.propagateIfPossible(e.getCause(), IOException.class);
+          throw new IOException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // Sources that we keep a daily backup of in GCS
+  private boolean isBackedUpFile(String fileName) {
+    return useGcs && fileName.contains("src/") && (fileName.endsWith(".blk") // AI1 Blocks Files
+        || fileName.endsWith(".bky")  // Blockly files
+        || fileName.endsWith(".scm")); // Form Definitions
+  }
+
   @Override
   public long uploadRawFile(final long projectId, final String fileName, final String userId,
       final boolean force, final byte[] content) throws BlocksTruncatedException {
@@ -1369,10 +1657,7 @@ public class ObjectifyStorageIo implements  StorageIo {
     final Result<Long> modTime = new Result<Long>();
     final boolean useGCS = useGCSforFile(fileName, content.length);
     final Result<String> oldBlobstoreKey = new Result<String>();
-    final boolean considerBackup = (useGcs?((fileName.contains("src/") && fileName.endsWith(".blk")) // AI1 Blocks Files
-        || (fileName.contains("src/") && fileName.endsWith(".bky")) // Blockly files
-        || (fileName.contains("src/") && fileName.endsWith(".scm"))) // Form Definitions
-      :false);
+    final boolean considerBackup = isBackedUpFile(fileName);
 
     try {
       runJobWithRetries(new JobRetryHelper() {
@@ -1395,6 +1680,7 @@ public class ObjectifyStorageIo implements  StorageIo {
           if (fd == null && (fileName.endsWith(".yail") || (fileName.endsWith(".png")))){
             fd = createProjectFile(datastore, projectKey(projectId), FileData.RoleEnum.SOURCE, fileName);
             fd.userId = userId;
+            RequestCache.invalidate(projectFilesCacheKey(projectId, FileData.RoleEnum.SOURCE));
           }
 
           Preconditions.checkState(fd != null);
@@ -1563,6 +1849,7 @@ public class ObjectifyStorageIo implements  StorageIo {
             }
           }
           datastore.delete(fileKey);
+          invalidateCachedFileLists(projectId);
           modTime.t = updateProjectModDate(datastore, projectId, false);
         }
       }, true);
@@ -1622,7 +1909,117 @@ public class ObjectifyStorageIo implements  StorageIo {
   @Override
   public byte[] downloadRawFile(final String userId, final long projectId, final String fileName) {
     validateGCS();
-    final Result<byte[]> result = new Result<byte[]>();
+    // read the blob/GCS File outside of the job
+    return readFileData(userId, projectId, fileName, getFileData(userId, projectId, fileName));
+  }
+
+  @Override
+  public RawFileInfo getRawFileInfo(final String userId, final long projectId,
+      final String fileName) {
+    validateGCS();
+    return describeFileData(userId, projectId, fileName,
+        getReadableFileData(userId, projectId, fileName));
+  }
+
+  @Override
+  public Map<String, RawFileInfo> getRawFileInfos(final String userId, final long projectId,
+      final List<String> fileNames) {
+    validateGCS();
+    final Map<String, FileData> found = getFileDatas(userId, projectId, fileNames);
+    // Only files in GCS or the blobstore need an API call to be described
+    Map<String, RawFileInfo> infos = new LinkedHashMap<String, RawFileInfo>();
+    List<String> remoteFiles = new ArrayList<String>();
+    for (String fileName : fileNames) {
+      FileData fileData = checkReadable(userId, projectId, fileName, found.get(fileName));
+      if (isTrue(fileData.isGCS) || fileData.isBlob) {
+        remoteFiles.add(fileName);
+        infos.put(fileName, null);  // keeps the order of fileNames
+      } else {
+        infos.put(fileName, describeFileData(userId, projectId, fileName, fileData));
+      }
+    }
+    infos.putAll(mapInParallel(userId, projectId, remoteFiles, new FileFunction<RawFileInfo>() {
+      @Override
+      public RawFileInfo apply(String fileName) {
+        return describeFileData(userId, projectId, fileName, found.get(fileName));
+      }
+    }));
+    return infos;
+  }
+
+  private RawFileInfo describeFileData(String userId, long projectId, String fileName,
+      FileData fileData) {
+    try {
+      if (isTrue(fileData.isGCS)) {
+        // Only the metadata is read, not the content
+        GcsFileMetadata metadata =
+            gcsService.getMetadata(new GcsFilename(GCS_BUCKET_NAME, fileData.gcsName));
+        if (metadata == null) {   // Zero length objects may be missing, see readFileData
+          return new RawFileInfo("gcs-empty", 0);
+        }
+        return new RawFileInfo("gcs-" + metadata.getEtag(), metadata.getLength());
+      } else if (fileData.isBlob) {
+        if (fileData.blobKey == null) {
+          throw new BlobReadException("blobKey is null");
+        }
+        // Blob keys are never reused for other content
+        BlobInfo blobInfo = new BlobInfoFactory().loadBlobInfo(new BlobKey(fileData.blobKey));
+        if (blobInfo == null) {
+          throw new BlobReadException("Could not find BlobInfo for " + fileData.blobKey);
+        }
+        return new RawFileInfo("blob-" + fileData.blobKey, blobInfo.getSize());
+      } else {
+        byte[] content = fileData.content == null ? new byte[0] : fileData.content;
+        return new RawFileInfo("md5-" + Hashing.md5().hashBytes(content), content.length);
+      }
+    } catch (IOException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName), e);
+    }
+  }
+
+  @Override
+  public InputStream openRawFile(final String userId, final long projectId,
+      final String fileName, long offset) throws IOException {
+    validateGCS();
+    FileData fileData = getReadableFileData(userId, projectId, fileName);
+    InputStream in;
+    if (isTrue(fileData.isGCS)) {
+      in = Channels.newInputStream(gcsService.openPrefetchingReadChannel(
+          new GcsFilename(GCS_BUCKET_NAME, fileData.gcsName), offset, GCS_READ_BUFFER_SIZE));
+    } else if (fileData.isBlob && fileData.blobKey != null) {
+      in = new BlobstoreInputStream(new BlobKey(fileData.blobKey), offset);
+    } else {
+      in = new ByteArrayInputStream(readFileData(userId, projectId, fileName, fileData));
+      ByteStreams.skipFully(in, offset);
+    }
+    return in;
+  }
+
+  /*
+   * Returns the FileData of a file after checking that the user may read it.
+   */
+  private FileData getReadableFileData(String userId, long projectId, String fileName) {
+    return checkReadable(userId, projectId, fileName, getFileData(userId, projectId, fileName));
+  }
+
+  private FileData checkReadable(String userId, long projectId, String fileName,
+      FileData fileData) {
+    if (fileData == null) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName),
+          new FileNotFoundException("No data for " + fileName));
+    }
+    checkFileOwner(fileData, userId, projectId);
+    return fileData;
+  }
+
+  /*
+   * Returns the FileData of a file, from memcache if possible, or null if the
+   * file doesn't exist.
+   */
+  private FileData getFileData(final String userId, final long projectId,
+      final String fileName) {
     final Result<FileData> fd = new Result<FileData>();
     try {
       runJobWithRetries(new JobRetryHelper() {
@@ -1639,8 +2036,139 @@ public class ObjectifyStorageIo implements  StorageIo {
       throw CrashReport.createAndLogError(LOG, null,
           collectProjectErrorInfo(userId, projectId, fileName), e);
     }
-    // read the blob/GCS File outside of the job
-    FileData fileData = fd.t;
+    return fd.t;
+  }
+
+  @Override
+  public Map<String, byte[]> downloadRawFiles(final String userId, final long projectId,
+      final List<String> fileNames) {
+    validateGCS();
+    final Map<String, FileData> found = getFileDatas(userId, projectId, fileNames);
+
+    // As in downloadRawFile, the contents are read outside of the job, and
+    // files in GCS or the blobstore are read in parallel.
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    List<String> remoteFiles = new ArrayList<String>();
+    for (String fileName : fileNames) {
+      FileData fileData = found.get(fileName);
+      if (fileData != null && (isTrue(fileData.isGCS) || fileData.isBlob)) {
+        remoteFiles.add(fileName);
+        contents.put(fileName, null);  // keeps the order of fileNames
+      } else {
+        contents.put(fileName, readFileData(userId, projectId, fileName, fileData));
+      }
+    }
+    contents.putAll(mapInParallel(userId, projectId, remoteFiles, new FileFunction<byte[]>() {
+      @Override
+      public byte[] apply(String fileName) {
+        return readFileData(userId, projectId, fileName, found.get(fileName));
+      }
+    }));
+    return contents;
+  }
+
+  /*
+   * Looks up the FileData of several files of a project with one memcache
+   * and one datastore call. Files that don't exist are left out.
+   */
+  private Map<String, FileData> getFileDatas(final String userId, final long projectId,
+      final List<String> fileNames) {
+    final Key<ProjectData> projectKey = projectKey(projectId);
+    final Map<String, FileData> found = new HashMap<String, FileData>();
+    try {
+      runJobWithRetries(new JobRetryHelper() {
+        @Override
+        public void run(Objectify datastore) {
+          found.clear();
+          List<String> cacheKeys = new ArrayList<String>();
+          for (String fileName : fileNames) {
+            cacheKeys.add(projectFileKey(projectKey, fileName).getString());
+          }
+          Map<String, Object> cached = memcache.getAll(cacheKeys);
+          List<Key<FileData>> missing = new ArrayList<Key<FileData>>();
+          for (String fileName : fileNames) {
+            Key<FileData> fileKey = projectFileKey(projectKey, fileName);
+            FileData fileData = (FileData) cached.get(fileKey.getString());
+            if (fileData == null) {
+              missing.add(fileKey);
+            } else {
+              found.put(fileName, fileData);
+            }
+          }
+          if (!missing.isEmpty()) {
+            for (FileData fileData : datastore.get(missing).values()) {  // batch get
+              found.put(fileData.fileName, fileData);
+            }
+          }
+        }
+      }, false); // Transaction not needed
+    } catch (ObjectifyException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectUserProjectErrorInfo(userId, projectId), e);
+    }
+    return found;
+  }
+
+  /*
+   * A function of a file name that may make API calls.
+   */
+  private interface FileFunction<T> {
+    T apply(String fileName);
+  }
+
+  /*
+   * Applies a function to each of the given files. When there is more than
+   * one they are processed in parallel, on request threads so that they are
+   * allowed to make API calls.
+   */
+  private <T> Map<String, T> mapInParallel(String userId, long projectId,
+      List<String> fileNames, final FileFunction<T> function) {
+    Map<String, T> results = new HashMap<String, T>();
+    if (fileNames.size() <= 1) {
+      for (String fileName : fileNames) {
+        results.put(fileName, function.apply(fileName));
+      }
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(fileNames.size(), MAX_PARALLEL_GCS_READS),
+        ThreadManager.currentRequestThreadFactory());
+    try {
+      Map<String, Future<T>> calls = new HashMap<String, Future<T>>();
+      for (final String fileName : fileNames) {
+        calls.put(fileName, executor.submit(new Callable<T>() {
+          @Override
+          public T call() {
+            return function.apply(fileName);
+          }
+        }));
+      }
+      for (Map.Entry<String, Future<T>> call : calls.entrySet()) {
+        try {
+          results.put(call.getKey(), call.getValue().get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw CrashReport.createAndLogError(LOG, null,
+              collectProjectErrorInfo(userId, projectId, call.getKey()), e);
+        } catch (ExecutionException e) {
+          // The function has already logged the failure
+          Throwables.propagateIfPossible(e.getCause());
+          throw new RuntimeException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /*
+   * Returns the content of a file given its FileData, which is null if the
+   * file doesn't exist.
+   */
+  private byte[] readFileData(final String userId, final long projectId, final String fileName,
+      FileData fileData) {
+    final Result<byte[]> result = new Result<byte[]>();
     if (fileData != null) {
       if (fileData.userId != null && !fileData.userId.equals("")) {
         if (!fileData.userId.equals(userId)) {
@@ -2340,6 +2868,46 @@ public class ObjectifyStorageIo implements  StorageIo {
     return new Key<FileData>(projectKey, FileData.class, fileName);
   }
 
+  // Keys for entries in the RequestCache
+
+  private static String projectCacheKey(long projectId) {
+    return "ProjectData|" + projectId;
+  }
+
+  private static String userProjectCacheKey(String userId, long projectId) {
+    return "UserProjectData|" + userId + "|" + projectId;
+  }
+
+  private static String projectFilesCacheKey(long projectId, FileData.RoleEnum role) {
+    return "ProjectFiles|" + projectId + "|" + role;
+  }
+
+  /*
+   * Finds the ProjectData for projectId, reusing the copy read earlier in this
+   * request if there is one. Only use this for reads: jobs that modify the
+   * ProjectData must find it through their own datastore (transaction).
+   */
+  private ProjectData findProject(Objectify datastore, long projectId) {
+    String cacheKey = projectCacheKey(projectId);
+    if (RequestCache.contains(cacheKey)) {
+      return RequestCache.get(cacheKey);
+    }
+    ProjectData pd = datastore.find(projectKey(projectId));
+    RequestCache.put(cacheKey, pd);
+    return pd;
+  }
+
+  private static void invalidateCachedFileLists(long projectId) {
+    for (FileData.RoleEnum role : FileData.RoleEnum.values()) {
+      RequestCache.invalidate(projectFilesCacheKey(projectId, role));
+    }
+  }
+
+  private static void invalidateCachedProject(long projectId) {
+    RequestCache.invalidate(projectCacheKey(projectId));
+    invalidateCachedFileLists(projectId);
+  }
+
   /**
    * Call job.run() if we get a {@link java.util.ConcurrentModificationException}
    * or {@link com.google.appinventor.server.storage.ObjectifyException}
@@ -2784,12 +3352,17 @@ public class ObjectifyStorageIo implements  StorageIo {
         @SuppressWarnings("RedundantThrows")
         @Override
         public void run(Objectify datastore) throws ObjectifyException, IOException {
+          String cacheKey = userProjectCacheKey(userId, projectId);
+          if (RequestCache.contains(cacheKey)) {
+            return;             // Already checked during this request
+          }
           Key<UserData> userKey = userKey(userId);
           Key<UserProjectData> userProjectKey = userProjectKey(userKey, projectId);
           UserProjectData data = datastore.find(userProjectKey);
           if (data == null) {  // User doesn't have the corresponding project.
             throw new SecurityException("Unauthorized access");
           }
+          RequestCache.put(cacheKey, data);
           // User has data for project, so everything checks out.
         }
       }, false);
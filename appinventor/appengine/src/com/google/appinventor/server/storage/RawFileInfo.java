@@ -0,0 +1,34 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.storage;
+
+/**
+ * Describes the stored content of a file without holding the content itself.
+ *
+ */
+public final class RawFileInfo {
+  private final String eTag;
+  private final long size;
+
+  /**
+   * Creates a new file description.
+   *
+   * @param eTag  a tag that changes whenever the content of the file changes
+   * @param size  the size of the content in bytes
+   */
+  public RawFileInfo(String eTag, long size) {
+    this.eTag = eTag;
+    this.size = size;
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  public long getSize() {
+    return size;
+  }
+}
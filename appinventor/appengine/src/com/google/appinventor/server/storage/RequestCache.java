@@ -0,0 +1,79 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memoizes datastore reads for the duration of a single request.
+ *
+ * A single RPC (opening a project, for instance) tends to look up the same
+ * ProjectData and UserProjectData entities and the same file listings many
+ * times over. The storage layer records what it read here so that repeated
+ * lookups within the request don't go back to the datastore. Anything the
+ * request writes is invalidated as it is written.
+ *
+ * Nothing is remembered unless a scope has been opened with {@link #begin()},
+ * which OdeAuthFilter does around every authenticated request. Because the
+ * cache never outlives the request, entries can't go stale because of writes
+ * made by other requests or other App Engine instances.
+ *
+ */
+public final class RequestCache {
+  private static final ThreadLocal<Map<String, Object>> CACHE =
+      new ThreadLocal<Map<String, Object>>();
+
+  private RequestCache() {} // not to be instantiated
+
+  /**
+   * Starts caching for the current request (thread).
+   */
+  public static void begin() {
+    CACHE.set(new HashMap<String, Object>());
+  }
+
+  /**
+   * Ends caching for the current request (thread) and drops everything cached.
+   */
+  public static void end() {
+    CACHE.remove();
+  }
+
+  static boolean isActive() {
+    return CACHE.get() != null;
+  }
+
+  /**
+   * Returns whether a value, possibly null, has been cached for key.
+   */
+  static boolean contains(String key) {
+    Map<String, Object> cache = CACHE.get();
+    return cache != null && cache.containsKey(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> T get(String key) {
+    Map<String, Object> cache = CACHE.get();
+    return cache == null ? null : (T) cache.get(key);
+  }
+
+  static void put(String key, Object value) {
+    Map<String, Object> cache = CACHE.get();
+    if (cache != null) {
+      cache.put(key, value);
+    }
+  }
+
+  static void invalidate(String... keys) {
+    Map<String, Object> cache = CACHE.get();
+    if (cache != null) {
+      for (String key : keys) {
+        cache.remove(key);
+      }
+    }
+  }
+}
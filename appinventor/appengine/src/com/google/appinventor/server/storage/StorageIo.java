@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import javax.annotation.Nullable;
@@ -423,6 +424,37 @@ public interface StorageIo {
    */
   long uploadRawFileForce(long projectId, String fileId, String userId, byte[] content);
 
+  /**
+   * Uploads a file from a stream. -- forces the save even with trivial workspace
+   *
+   * Files that always live in the blob store (build outputs and assets) are
+   * copied there as the stream is read, so large files such as APKs are never
+   * held in memory as a whole. The stream is read to its end but not closed.
+   *
+   * @param projectId  project ID
+   * @param fileId  file ID
+   * @param userId the user who owns the file
+   * @param content  stream supplying the file content
+   * @return modification date for project
+   * @throws IOException if reading the content fails
+   */
+  long uploadRawFileForce(long projectId, String fileId, String userId, InputStream content)
+      throws IOException;
+
+  /**
+   * Uploads several files of one project at once. -- forces the save even
+   * with trivial workspaces
+   *
+   * All of the files are written together and the project modification
+   * date is updated once, rather than once per file.
+   *
+   * @param projectId  project ID
+   * @param userId the user who owns the files
+   * @param contents  map from file ID to file content
+   * @return modification date for project
+   */
+  long uploadRawFilesForce(long projectId, String userId, Map<String, byte[]> contents);
+
   /**
    * Deletes a file.
    * @param userId a user Id (the request is made on behalf of this user)
@@ -464,6 +496,57 @@ public interface StorageIo {
    */
   byte[] downloadRawFile(String userId, long projectId, String fileId);
 
+  /**
+   * Describes the stored content of a file without reading the content.
+   *
+   * @param userId a user Id (the request is made on behalf of this user)
+   * @param projectId  project ID
+   * @param fileId  file ID
+   *
+   * @return  the file's ETag and size
+   */
+  RawFileInfo getRawFileInfo(String userId, long projectId, String fileId);
+
+  /**
+   * Describes the stored content of several files of one project at once.
+   *
+   * @param userId a user Id (the request is made on behalf of this user)
+   * @param projectId  project ID
+   * @param fileIds  file IDs
+   *
+   * @return  map from file ID to the file's ETag and size, in the order of
+   *          fileIds
+   */
+  Map<String, RawFileInfo> getRawFileInfos(String userId, long projectId, List<String> fileIds);
+
+  /**
+   * Opens a file so that its content can be streamed instead of read into
+   * memory at once.
+   *
+   * @param userId a user Id (the request is made on behalf of this user)
+   * @param projectId  project ID
+   * @param fileId  file ID
+   * @param offset  the number of bytes to skip at the start of the file
+   *
+   * @return  a stream of the file content, which the caller must close
+   */
+  InputStream openRawFile(String userId, long projectId, String fileId, long offset)
+      throws IOException;
+
+  /**
+   * Downloads the raw data of several files of one project at once.
+   *
+   * The files are looked up together and their contents are read in
+   * parallel where the storage allows it, rather than one at a time.
+   *
+   * @param userId a user Id (the request is made on behalf of this user)
+   * @param projectId  project ID
+   * @param fileIds  file IDs
+   *
+   * @return  map from file ID to file content, in the order of fileIds
+   */
+  Map<String, byte[]> downloadRawFiles(String userId, long projectId, List<String> fileIds);
+
   /**
    * Creates a temporary file with the given content and returns
    * its file name, which will always begin with __TEMP__
@@ -6,6 +6,7 @@
 
 package com.google.appinventor.server.storage;
 
+import com.google.appinventor.server.flags.Flag;
 import com.google.common.annotations.VisibleForTesting;
 
 /**
@@ -17,13 +18,21 @@ import com.google.common.annotations.VisibleForTesting;
  *
  */
 public class StorageIoInstanceHolder {
+  // "objectify" (App Engine datastore and GCS) or "local" (LocalStorageIo)
+  private static final Flag<String> storageBackend =
+      Flag.createFlag("storage.backend", "objectify");
+
   private static StorageIo INSTANCE;
   
   private StorageIoInstanceHolder() {} // not to be instantiated
 
-  public static StorageIo getInstance() {
+  public static synchronized StorageIo getInstance() {
     if (INSTANCE == null) {
-      INSTANCE = new ObjectifyStorageIo();
+      if ("local".equals(storageBackend.get())) {
+        INSTANCE = new LocalStorageIo();
+      } else {
+        INSTANCE = new ObjectifyStorageIo();
+      }
     }
     return INSTANCE;
   }
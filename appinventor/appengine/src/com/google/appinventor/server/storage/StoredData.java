@@ -102,6 +102,8 @@ public class StoredData {
   }
 
   // Project properties specific to the user
+  // Cached because assertUserHasProject looks these up on most project RPCs
+  @Cached
   @Unindexed
   static final class UserProjectData {
     enum StateEnum {
@@ -118,6 +118,18 @@ public class ServerLayout {
    */
   public static final String DOWNLOAD_USERFILE = "userfile";
 
+  /**
+   * Relative path within {@link com.google.appinventor.server.DownloadServlet}
+   * for downloading the ETags and sizes of a project's assets
+   */
+  public static final String DOWNLOAD_ASSET_MANIFEST = "asset-manifest";
+
+  /**
+   * Relative path within {@link com.google.appinventor.server.DownloadServlet}
+   * for downloading several of a project's assets as a zip
+   */
+  public static final String DOWNLOAD_ASSETS = "assets";
+
   /**
    * Relative path of the {@link com.google.appinventor.server.UploadServlet}
    * within the ODE GWT module.
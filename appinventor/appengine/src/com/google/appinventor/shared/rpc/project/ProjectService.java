@@ -17,6 +17,7 @@ import com.google.gwt.user.client.rpc.RemoteServiceRelativePath;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for the service providing project information.
@@ -211,6 +212,19 @@ public interface ProjectService extends RemoteService {
    */
   ChecksumedLoadFile load2(long projectId, String fileId) throws ChecksumedFileException;
 
+  /**
+   * Loads the sources of several nodes in the project tree in a single
+   * call, e.g., all of the form and blocks files when a project is opened.
+   * Like {@link #load2(long, String)}, each content comes with a checksum.
+   *
+   * @param projectId  project ID
+   * @param fileIds  project nodes whose sources should be loaded
+   *
+   * @return  map from file ID to checksummed file object
+   */
+  Map<String, ChecksumedLoadFile> loadProjectSources(long projectId, List<String> fileIds)
+      throws ChecksumedFileException;
+
   /**
    * Attempt to record the project Id and error message when we detect a corruption
    * while loading a project.
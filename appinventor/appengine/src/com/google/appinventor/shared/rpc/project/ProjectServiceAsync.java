@@ -11,6 +11,7 @@ import com.google.appinventor.shared.rpc.project.ChecksumedLoadFile;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for the service providing project information. All declarations
@@ -125,6 +126,12 @@ public interface ProjectServiceAsync {
    */
   void load2(long projectId, String fileId, AsyncCallback<ChecksumedLoadFile> callback);
 
+  /**
+   * @see ProjectService#loadProjectSources(long, List)
+   */
+  void loadProjectSources(long projectId, List<String> fileIds,
+      AsyncCallback<Map<String, ChecksumedLoadFile>> callback);
+
   /**
    * @see ProjectService#recordCorruption(long, String, String)
    */
@@ -27,6 +27,8 @@ public class ComponentDatabaseTest extends TestCase {
 
   private static final String COMPONENT_DESCRIPTOR_FILE =
       "/build/components/simple_components.json";
+  private static final String COMPONENT_INDEX_FILE =
+      "/build/components/simple_components_index.json";
 
   /**
    * Checks whether the component database was correctly initialized.
@@ -53,6 +55,44 @@ public class ComponentDatabaseTest extends TestCase {
     assertEquals("string", find(properties, "Hint").getEditorType());
   }
 
+  /**
+   * Checks that a database built from the component index decodes the same definitions as one
+   * built from the parsed descriptor file.
+   */
+  public void testComponentDatabaseFromIndex() throws IOException {
+    String componentDescriptorSource = Files.toString(
+        new File(TestUtils.APP_INVENTOR_ROOT_DIR + COMPONENT_DESCRIPTOR_FILE),
+        Charset.forName("UTF8"));
+    String componentIndexSource = Files.toString(
+        new File(TestUtils.APP_INVENTOR_ROOT_DIR + COMPONENT_INDEX_FILE),
+        Charset.forName("UTF8"));
+
+    ServerJsonParser parser = new ServerJsonParser();
+    final ComponentDatabase expected = new ComponentDatabase(
+        parser.parse(componentDescriptorSource).asArray());
+    final ComponentDatabase componentDatabase = new ComponentDatabase(componentDescriptorSource,
+        parser.parse(componentIndexSource).asArray(), parser);
+    assertEquals(expected.getComponentNames(), componentDatabase.getComponentNames());
+
+    // Palette information is available without decoding the components
+    assertEquals(expected.getCategoryString("Button"),
+        componentDatabase.getCategoryString("Button"));
+    assertEquals(expected.getComponentVersion("Button"),
+        componentDatabase.getComponentVersion("Button"));
+
+    List<PropertyDefinition> properties = componentDatabase.getPropertyDefinitions("TextBox");
+    assertEquals(expected.getPropertyDefinitions("TextBox").size(), properties.size());
+    assertEquals("boolean", find(properties, "Enabled").getEditorType());
+    assertEquals("non_negative_float", find(properties, "FontSize").getEditorType());
+    assertEquals("string", find(properties, "Hint").getEditorType());
+
+    // The type description is the component's own text from the descriptor file
+    String typeDescription = componentDatabase.getTypeDescription("TextBox");
+    assertTrue(componentDescriptorSource.contains(typeDescription));
+    assertEquals("TextBox",
+        parser.parse(typeDescription).asObject().get("name").asString().getString());
+  }
+
   /*
    * Finds the property definition for the property with the given name.
    */
@@ -6,12 +6,14 @@
 
 package com.google.appinventor.server;
 
+import com.google.appinventor.server.storage.RawFileInfo;
 import com.google.appinventor.server.storage.StorageIo;
 import com.google.appinventor.server.storage.StorageIoInstanceHolder;
 import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
-import com.google.appinventor.shared.rpc.project.RawFile;
+import com.google.common.io.ByteStreams;
 import com.riq.MockHttpServletRequest;
 import com.riq.MockHttpServletResponse;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,10 +22,17 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.easymock.EasyMock.expect;
 
@@ -40,16 +49,20 @@ public class DownloadServletTest {
   private static final String FORM1_QUALIFIED_NAME = "com/yourdomain/" + FORM1_NAME;
   private static final String USER_ID = "1";
   private static final long PROJECT_ID = 1234L;
-  private static final String DUMMY_FILENAME = "filename123";
   private static final String DUMMY_APK_FILENAME = "filename123.apk";
+  private static final String APK_FILE_PATH = "build/Android/" + DUMMY_APK_FILENAME;
   private static final String DUMMY_ZIP_FILENAME = "filename123.aia";
   private static final String DUMMY_ZIP_FILENAME_WITH_TITLE = "MyProjectTitle123.aia";
   private static final String DOWNLOAD_URL = "http://localhost/baseUrl/download/";
+  private static final byte[] FILE_CONTENT = { (byte) 0, (byte) 1, (byte) 32, (byte) 255 };
+  private static final String FILE_ETAG = "md5-1234";
+  private static final long PROJECT_DATE_MODIFIED = 1500000000000L;
+  private static final String ASSET_PATH = "assets/kitty.png";
 
   private ProjectSourceZip dummyZip;
   private ProjectSourceZip dummyZipWithTitle;
-  private RawFile dummyApk;
-  private RawFile dummyFile;
+  private RawFileInfo dummyApkInfo;
+  private RawFileInfo dummyFileInfo;
 
   private FileExporterImpl exporterMock;
   private LocalUser localUserMock;
@@ -69,8 +82,8 @@ public class DownloadServletTest {
 
     dummyZip = new ProjectSourceZip(DUMMY_ZIP_FILENAME, new byte[] {}, 2);
     dummyZipWithTitle = new ProjectSourceZip(DUMMY_ZIP_FILENAME_WITH_TITLE, new byte[] {}, 2);
-    dummyApk = new RawFile(DUMMY_APK_FILENAME, new byte[] {});
-    dummyFile = new RawFile(DUMMY_FILENAME, new byte[] {});
+    dummyApkInfo = new RawFileInfo("gcs-apk", 0);
+    dummyFileInfo = new RawFileInfo(FILE_ETAG, FILE_CONTENT.length);
   }
 
   private void checkResponseHeader(MockHttpServletResponse response, String header) {
@@ -131,8 +144,10 @@ public class DownloadServletTest {
   public void testDownloadProjectOutputFileWithoutTarget() throws IOException {
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-output/1234");
-    expect(exporterMock.exportProjectOutputFile(USER_ID, PROJECT_ID, null))
-        .andReturn(dummyApk);
+    expect(exporterMock.getProjectOutputFileName(USER_ID, PROJECT_ID, null))
+        .andReturn(APK_FILE_PATH);
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, APK_FILE_PATH))
+        .andReturn(dummyApkInfo);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
     MockHttpServletResponse response = new MockHttpServletResponse();
@@ -147,8 +162,10 @@ public class DownloadServletTest {
   public void testDownloadProjectOutputFileWithTarget() throws IOException {
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-output/1234/target1");
-    expect(exporterMock.exportProjectOutputFile(USER_ID, PROJECT_ID, "target1"))
-        .andReturn(dummyApk);
+    expect(exporterMock.getProjectOutputFileName(USER_ID, PROJECT_ID, "target1"))
+        .andReturn(APK_FILE_PATH);
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, APK_FILE_PATH))
+        .andReturn(dummyApkInfo);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
     MockHttpServletResponse response = new MockHttpServletResponse();
@@ -164,7 +181,7 @@ public class DownloadServletTest {
     IllegalArgumentException expectedException = new IllegalArgumentException();
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-output/12345");
-    expect(exporterMock.exportProjectOutputFile(USER_ID, 12345L, null))
+    expect(exporterMock.getProjectOutputFileName(USER_ID, 12345L, null))
         .andThrow(expectedException);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -182,7 +199,7 @@ public class DownloadServletTest {
     IllegalArgumentException expectedException = new IllegalArgumentException();
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-output/1234/target3");
-    expect(exporterMock.exportProjectOutputFile(USER_ID, PROJECT_ID, "target3"))
+    expect(exporterMock.getProjectOutputFileName(USER_ID, PROJECT_ID, "target3"))
         .andThrow(expectedException);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -199,13 +216,17 @@ public class DownloadServletTest {
   public void testDownloadFile() throws IOException {
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "file/1234/" + FORM1_QUALIFIED_NAME);
-    expect(exporterMock.exportFile(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME))
-        .andReturn(dummyFile);
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME))
+        .andReturn(dummyFileInfo);
+    expect(storageIoMock.openRawFile(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME, 0))
+        .andReturn(new ByteArrayInputStream(FILE_CONTENT));
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
     MockHttpServletResponse response = new MockHttpServletResponse();
     download.doGet(request, response);
-    checkResponseHeader(response, "attachment; filename=\"filename123\"");
+    checkResponseHeader(response, "attachment; filename=\"Form1\"");
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertTrue(Arrays.equals(FILE_CONTENT, response.getContentAsByteArray()));
     assertEquals("text/plain; charset=utf-8", response.getContentType());
     PowerMock.verifyAll();
   }
@@ -215,7 +236,7 @@ public class DownloadServletTest {
     IllegalArgumentException expectedException = new IllegalArgumentException();
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "file/12345/" + FORM1_QUALIFIED_NAME);
-    expect(exporterMock.exportFile(USER_ID, 12345L, FORM1_QUALIFIED_NAME))
+    expect(storageIoMock.getRawFileInfo(USER_ID, 12345L, FORM1_QUALIFIED_NAME))
         .andThrow(expectedException);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -234,7 +255,7 @@ public class DownloadServletTest {
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "file/1234/" + FORM1_QUALIFIED_NAME + "1");
     String nonExistentFile = FORM1_QUALIFIED_NAME + "1";
-    expect(exporterMock.exportFile(USER_ID, PROJECT_ID, nonExistentFile))
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, nonExistentFile))
         .andThrow(expectedException);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -247,6 +268,143 @@ public class DownloadServletTest {
     PowerMock.verifyAll();
     }
 
+  @Test
+  public void testDownloadFileNotModified() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
+        "file/1234/" + FORM1_QUALIFIED_NAME);
+    request.setHeader("If-None-Match", "\"other\", \"" + FILE_ETAG + "\"");
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME))
+        .andReturn(dummyFileInfo);
+    // The content must not be read
+    PowerMock.replayAll();
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    download.doGet(request, response);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+    assertEquals("\"" + FILE_ETAG + "\"", response.getHeaders("ETag").get(0));
+    assertEquals(0, response.getContentAsByteArray().length);
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testDownloadFileIgnoresIfModifiedSince() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
+        "file/1234/" + FORM1_QUALIFIED_NAME);
+    // The project date doesn't track every save, so only the ETag revalidates
+    request.setDateHeader("If-Modified-Since", PROJECT_DATE_MODIFIED);
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME))
+        .andReturn(dummyFileInfo);
+    expect(storageIoMock.openRawFile(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME, 0))
+        .andReturn(new ByteArrayInputStream(FILE_CONTENT));
+    PowerMock.replayAll();
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    download.doGet(request, response);
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertTrue(response.getHeaders("Last-Modified").isEmpty());
+    assertTrue(Arrays.equals(FILE_CONTENT, response.getContentAsByteArray()));
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testDownloadFileRange() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
+        "file/1234/" + FORM1_QUALIFIED_NAME);
+    request.setHeader("Range", "bytes=1-");
+    expect(storageIoMock.getRawFileInfo(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME))
+        .andReturn(dummyFileInfo);
+    expect(storageIoMock.openRawFile(USER_ID, PROJECT_ID, FORM1_QUALIFIED_NAME, 1))
+        .andReturn(new ByteArrayInputStream(FILE_CONTENT, 1, FILE_CONTENT.length - 1));
+    PowerMock.replayAll();
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    download.doGet(request, response);
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+    assertEquals("bytes 1-3/4", response.getHeaders("Content-Range").get(0));
+    assertTrue(Arrays.equals(Arrays.copyOfRange(FILE_CONTENT, 1, FILE_CONTENT.length),
+        response.getContentAsByteArray()));
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testParseRange() {
+    assertTrue(Arrays.equals(new long[] { 0, 99 }, DownloadServlet.parseRange("bytes=0-", 100)));
+    assertTrue(Arrays.equals(new long[] { 10, 19 },
+        DownloadServlet.parseRange("bytes=10-19", 100)));
+    assertTrue(Arrays.equals(new long[] { 90, 99 },
+        DownloadServlet.parseRange("bytes=90-1000", 100)));
+    assertTrue(Arrays.equals(new long[] { 80, 99 }, DownloadServlet.parseRange("bytes=-20", 100)));
+    assertEquals(100, DownloadServlet.parseRange("bytes=100-", 100)[0]);
+    assertNull(DownloadServlet.parseRange(null, 100));
+    assertNull(DownloadServlet.parseRange("bytes=0-1,5-6", 100));
+    assertNull(DownloadServlet.parseRange("bytes=5-1", 100));
+    assertNull(DownloadServlet.parseRange("items=0-1", 100));
+  }
+
+  @Test
+  public void testDownloadAssetManifest() throws Exception {
+    List<String> assets = Arrays.asList(ASSET_PATH);
+    expect(storageIoMock.getProjectSourceFiles(USER_ID, PROJECT_ID))
+        .andReturn(Arrays.asList(FORM1_QUALIFIED_NAME + ".scm", ASSET_PATH));
+    expect(storageIoMock.getRawFileInfos(USER_ID, PROJECT_ID, assets))
+        .andReturn(Collections.singletonMap(ASSET_PATH, dummyFileInfo));
+    PowerMock.replayAll();
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
+        "asset-manifest/1234");
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    download.doGet(request, response);
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    JSONObject manifest = new JSONObject(new String(response.getContentAsByteArray(), "UTF-8"));
+    assertEquals(1, manifest.length());
+    JSONObject info = manifest.getJSONObject(ASSET_PATH);
+    assertEquals("\"" + FILE_ETAG + "\"", info.getString("etag"));
+    assertEquals(FILE_CONTENT.length, info.getLong("size"));
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testDownloadAssets() throws IOException {
+    String otherAsset = "assets/sound.mp3";
+    expect(storageIoMock.openRawFile(USER_ID, PROJECT_ID, ASSET_PATH, 0))
+        .andReturn(new ByteArrayInputStream(FILE_CONTENT));
+    expect(storageIoMock.openRawFile(USER_ID, PROJECT_ID, otherAsset, 0))
+        .andReturn(new ByteArrayInputStream(new byte[0]));
+    PowerMock.replayAll();
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL + "assets/1234");
+    request.setParameter("file", ASSET_PATH, otherAsset);
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    download.doGet(request, response);
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertEquals("application/zip", response.getContentType());
+    ZipInputStream zip = new ZipInputStream(
+        new ByteArrayInputStream(response.getContentAsByteArray()));
+    ZipEntry entry = zip.getNextEntry();
+    assertEquals(ASSET_PATH, entry.getName());
+    assertTrue(Arrays.equals(FILE_CONTENT, ByteStreams.toByteArray(zip)));
+    entry = zip.getNextEntry();
+    assertEquals(otherAsset, entry.getName());
+    assertEquals(0, ByteStreams.toByteArray(zip).length);
+    assertNull(zip.getNextEntry());
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testDownloadAssetsRejectsOtherFiles() throws IOException {
+    PowerMock.replayAll();
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL + "assets/1234");
+    request.setParameter("file", ASSET_PATH, FORM1_QUALIFIED_NAME + ".scm");
+    DownloadServlet download = new DownloadServlet();
+    try {
+      download.doGet(request, new MockHttpServletResponse());
+      fail();
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+    PowerMock.verifyAll();
+  }
+
   // TODO(user): Add testDownloadAllProjectsSource* to test
   // downloading all projects.
 }
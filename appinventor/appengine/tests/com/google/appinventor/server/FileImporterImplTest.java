@@ -17,7 +17,10 @@ import junitx.framework.ListAssert;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test FileImporterImpl.
@@ -170,6 +173,35 @@ public class FileImporterImplTest extends LocalDatastoreTestCase {
         "src/appinventor/ai_joeuser/" + projectName + "/Screen1.yail");
   }
 
+  public void testImportFiles() throws Exception {
+    long projectId = importProjectArchive("Project1.zip", PROJECT_NAME_1).getProjectId();
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put("assets/external_comps/com.example/components.json", "[]".getBytes("UTF-8"));
+    contents.put("assets/external_comps/com.example/files/AndroidRuntime.jar", new byte[] { 1, 2 });
+    fileImporter.importFiles(USER_ID, projectId, contents);
+    List<String> projectSourceFiles = storageIo.getProjectSourceFiles(USER_ID, projectId);
+    for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+      ListAssert.assertContains(projectSourceFiles, entry.getKey());
+      assertTrue(Arrays.equals(entry.getValue(),
+          storageIo.downloadRawFile(USER_ID, projectId, entry.getKey())));
+    }
+  }
+
+  public void testImportFilesTooLarge() throws Exception {
+    long projectId = importProjectArchive("Project1.zip", PROJECT_NAME_1).getProjectId();
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put("assets/small.txt", new byte[] { 1 });
+    contents.put("assets/large.bin", new byte[storageIo.getMaxJobSizeBytes() + 1]);
+    try {
+      fileImporter.importFiles(USER_ID, projectId, contents);
+      fail();
+    } catch (FileImporterException e) {
+      assertEquals(UploadResponse.Status.FILE_TOO_LARGE, e.uploadResponse.getStatus());
+    }
+    // None of the files is imported
+    assertFalse(storageIo.getProjectSourceFiles(USER_ID, projectId).contains("assets/small.txt"));
+  }
+
   public void testEmptyZip() throws Exception {
     try {
       UserProject userProject = importProjectArchive("EmptyZip.zip", PROJECT_NAME_1);
@@ -0,0 +1,169 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.project.youngandroid;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link BuildServerRouter}, with buildservers simulated by the
+ * pages they would serve.
+ *
+ */
+public class BuildServerRouterTest extends TestCase {
+
+  private static final String HOSTS = "bs1:9990, bs2:9990,bs3:9990";
+
+  // Pages served by the simulated buildservers, by URL
+  private Map<String, String> pages;
+  private Set<String> fetched;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    pages = new HashMap<String, String>();
+    fetched = new HashSet<String>();
+    for (String host : new String[] { "bs1:9990", "bs2:9990", "bs3:9990" }) {
+      setBuildServer(host, true, 0, 4);
+    }
+  }
+
+  private void setBuildServer(String host, boolean healthy, int active, int max) {
+    String base = "http://" + host + "/buildserver/";
+    if (healthy) {
+      pages.put(base + "health", "ok");
+    } else {
+      pages.remove(base + "health");
+    }
+    pages.put(base + "vars", "<html><body><tt><b>state</b> " + (healthy ? "UP" : "DRAINING")
+        + "<br>"
+        + "<b>maximum-simultaneous-build-tasks-allowed</b> " + max + "<br>"
+        + "<b>active-build-tasks</b> " + active + "<br></tt></body></html>");
+  }
+
+  private BuildServerRouter newRouter(String hosts) {
+    return new BuildServerRouter(hosts) {
+      @Override
+      String fetch(String urlString) throws IOException {
+        fetched.add(urlString);
+        return pages.get(urlString);
+      }
+    };
+  }
+
+  public void testSingleHostIsNotPolled() {
+    BuildServerRouter router = newRouter("localhost:9990");
+    assertEquals("localhost:9990", router.chooseHost("project:1"));
+    assertTrue(fetched.isEmpty());
+  }
+
+  public void testSameKeyGoesToSameHost() {
+    BuildServerRouter router = newRouter(HOSTS);
+    assertEquals(3, router.getHosts().size());
+    String host = newRouter(HOSTS).chooseHost("extensions:[com.example.Foo]");
+    assertEquals(host, router.chooseHost("extensions:[com.example.Foo]"));
+  }
+
+  public void testKeysAreSpread() {
+    Set<String> chosen = new HashSet<String>();
+    for (int i = 0; i < 30; i++) {
+      chosen.add(newRouter(HOSTS).chooseHost("project:" + i));
+    }
+    assertEquals(3, chosen.size());
+  }
+
+  public void testUnhealthyHostIsAvoided() {
+    String key = "extensions:[com.example.Foo]";
+    String preferred = newRouter(HOSTS).chooseHost(key);
+    setBuildServer(preferred, false, 0, 4);
+    String host = newRouter(HOSTS).chooseHost(key);
+    assertFalse(preferred.equals(host));
+  }
+
+  public void testLoadedHostIsAvoided() {
+    String key = "extensions:[com.example.Foo]";
+    String preferred = newRouter(HOSTS).chooseHost(key);
+    setBuildServer(preferred, true, 3, 4);
+    String host = newRouter(HOSTS).chooseHost(key);
+    assertFalse(preferred.equals(host));
+
+    // A little more load than the others is acceptable
+    setBuildServer(preferred, true, 1, 4);
+    assertEquals(preferred, newRouter(HOSTS).chooseHost(key));
+  }
+
+  public void testStartedBuildsCountAsLoad() {
+    BuildServerRouter router = newRouter(HOSTS);
+    String key = "extensions:[com.example.Foo]";
+    Set<String> chosen = new HashSet<String>();
+    for (int i = 0; i < 3; i++) {
+      chosen.add(router.chooseHost(key));
+    }
+    assertTrue(chosen.size() > 1);
+  }
+
+  public void testUnavailableHostIsAvoided() {
+    BuildServerRouter router = newRouter(HOSTS);
+    String key = "project:42";
+    String preferred = router.chooseHost(key);
+    router.markUnavailable(preferred);
+    assertFalse(preferred.equals(router.chooseHost(key)));
+  }
+
+  public void testStateIsChecked() {
+    String key = "extensions:[com.example.Foo]";
+    String preferred = newRouter(HOSTS).chooseHost(key);
+    // A buildserver that is draining still answers /vars
+    String base = "http://" + preferred + "/buildserver/";
+    pages.put(base + "vars", pages.get(base + "vars").replace("UP", "DRAINING"));
+    fetched.clear();
+    assertFalse(preferred.equals(newRouter(HOSTS).chooseHost(key)));
+    // The state makes the health check unnecessary
+    for (String url : fetched) {
+      assertFalse(url.endsWith("/health"));
+    }
+  }
+
+  public void testHealthIsCheckedWithoutState() {
+    String key = "extensions:[com.example.Foo]";
+    String preferred = newRouter(HOSTS).chooseHost(key);
+    String base = "http://" + preferred + "/buildserver/";
+    pages.put(base + "vars", "<html><body><tt><b>active-build-tasks</b> 0<br></tt></body></html>");
+    assertEquals(preferred, newRouter(HOSTS).chooseHost(key));
+    pages.remove(base + "health");
+    assertFalse(preferred.equals(newRouter(HOSTS).chooseHost(key)));
+  }
+
+  public void testChooseAnotherHost() {
+    BuildServerRouter router = newRouter(HOSTS);
+    String key = "project:42";
+    String preferred = router.chooseHost(key);
+    String other = router.chooseAnotherHost(key, preferred);
+    assertNotNull(other);
+    assertFalse(preferred.equals(other));
+    assertNull(newRouter("localhost:9990").chooseAnotherHost(key, "localhost:9990"));
+  }
+
+  public void testNoHealthyHost() {
+    for (String host : new String[] { "bs1:9990", "bs2:9990", "bs3:9990" }) {
+      setBuildServer(host, false, 0, 4);
+    }
+    assertNotNull(newRouter(HOSTS).chooseHost("project:1"));
+  }
+
+  public void testParseVars() {
+    Map<String, String> vars = BuildServerRouter.parseVars(
+        "<html><body><tt><b>state</b> UP<br><b>active-build-tasks</b> 2<br></tt></body></html>");
+    assertEquals("UP", vars.get("state"));
+    assertEquals("2", vars.get("active-build-tasks"));
+    assertTrue(BuildServerRouter.parseVars(null).isEmpty());
+  }
+}
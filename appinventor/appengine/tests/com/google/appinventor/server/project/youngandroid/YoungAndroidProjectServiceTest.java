@@ -5,6 +5,11 @@
 
 package com.google.appinventor.server.project.youngandroid;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import junit.framework.TestCase;
 import org.junit.Test;
 
@@ -16,4 +21,46 @@ public class YoungAndroidProjectServiceTest extends TestCase {
     YoungAndroidProjectService obj = new YoungAndroidProjectService(null);
     obj.buildErrorMsg("TestException", null, "userID", 0); 
   }
+
+  /* The build fingerprint depends on file contents, not on when they were zipped */
+  @Test
+  public void testBuildFingerprint() throws IOException {
+    byte[] zip1 = makeZip(1000L, "src/Screen1.scm", "scm", "src/Screen1.bky", "bky");
+    byte[] zip2 = makeZip(2000L, "src/Screen1.bky", "bky", "src/Screen1.scm", "scm");
+    byte[] zip3 = makeZip(1000L, "src/Screen1.scm", "scm", "src/Screen1.bky", "changed");
+    String fingerprint = fingerprint(zip1, false, false);
+    assertEquals(fingerprint, fingerprint(zip2, false, false));
+    assertFalse(fingerprint.equals(fingerprint(zip3, false, false)));
+    assertFalse(fingerprint.equals(fingerprint(zip1, false, true)));
+  }
+
+  /* Builds for the second buildserver target a different SDK, so they are never reused */
+  @Test
+  public void testBuildFingerprintDependsOnBuildserver() throws IOException {
+    byte[] zip = makeZip(1000L, "src/Screen1.scm", "scm", "src/Screen1.bky", "bky");
+    assertFalse(fingerprint(zip, false, false).equals(fingerprint(zip, true, false)));
+    assertFalse(fingerprint(zip, false, true).equals(fingerprint(zip, true, true)));
+    assertFalse(YoungAndroidProjectService.computeBuildFingerprint(zip, "Android", false, false)
+        .equals(YoungAndroidProjectService.computeBuildFingerprint(zip, "iOS", false, false)));
+  }
+
+  private static String fingerprint(byte[] zip, boolean secondBuildserver, boolean isAab)
+      throws IOException {
+    return YoungAndroidProjectService.computeBuildFingerprint(zip, "Android",
+        secondBuildserver, isAab);
+  }
+
+  private static byte[] makeZip(long time, String... namesAndContents) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ZipOutputStream out = new ZipOutputStream(bytes);
+    for (int i = 0; i < namesAndContents.length; i += 2) {
+      ZipEntry entry = new ZipEntry(namesAndContents[i]);
+      entry.setTime(time);
+      out.putNextEntry(entry);
+      out.write(namesAndContents[i + 1].getBytes("UTF-8"));
+      out.closeEntry();
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
 }
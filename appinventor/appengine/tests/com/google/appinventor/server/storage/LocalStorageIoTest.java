@@ -0,0 +1,344 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.storage;
+
+import com.google.appinventor.shared.rpc.BlocksTruncatedException;
+import com.google.appinventor.shared.rpc.project.Project;
+import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
+import com.google.appinventor.shared.rpc.project.RawFile;
+import com.google.appinventor.shared.rpc.project.TextFile;
+import com.google.appinventor.shared.rpc.project.UserProject;
+import com.google.appinventor.shared.rpc.user.User;
+import com.google.appinventor.shared.storage.StorageUtil;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LocalStorageIo}.
+ *
+ */
+public class LocalStorageIoTest extends TestCase {
+
+  private static final String USER_ID = "100";
+  private static final String USER_EMAIL = "user100@test.com";
+  private static final String SETTINGS = "{settings: \"none\"}";
+  private static final String PROJECT_NAME = "Project1";
+  private static final String SCM_FILE_NAME = "src/com/yourdomain/Screen1.scm";
+  private static final String BKY_FILE_NAME = "src/com/yourdomain/Screen1.bky";
+  private static final String YAIL_FILE_NAME = "src/com/yourdomain/Screen1.yail";
+  private static final String ASSET_FILE_NAME = "assets/kitty.jpg";
+  private static final String APK_FILE_NAME = "build/Android/Project1.apk";
+  private static final String FILE_CONTENT = "The quick onyx goblin jumps over the lazy dwarf";
+  private static final byte[] RAW_CONTENT = { (byte) 0, (byte) 1, (byte) 32, (byte) 255 };
+
+  private File root;
+  private LocalStorageIo storage;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDirectory("localstorage").toFile();
+    storage = new LocalStorageIo(root);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(root);
+    super.tearDown();
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private long createProject() {
+    Project project = new Project(PROJECT_NAME);
+    project.addTextFile(new TextFile(SCM_FILE_NAME, FILE_CONTENT));
+    project.addRawFile(new RawFile(ASSET_FILE_NAME, RAW_CONTENT));
+    return storage.createProject(USER_ID, project, SETTINGS);
+  }
+
+  public void testGetUser() {
+    User user = storage.getUser(USER_ID, USER_EMAIL);
+    assertEquals(USER_ID, user.getUserId());
+    assertEquals(USER_EMAIL, user.getUserEmail());
+    assertEquals(USER_ID, storage.findUserByEmail(USER_EMAIL));
+    storage.storeSettings(USER_ID, SETTINGS);
+    assertEquals(SETTINGS, storage.loadSettings(USER_ID));
+  }
+
+  public void testCreateProject() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    assertEquals(Arrays.asList(projectId), storage.getProjects(USER_ID));
+    UserProject userProject = storage.getUserProject(USER_ID, projectId);
+    assertEquals(PROJECT_NAME, userProject.getProjectName());
+    assertEquals(SETTINGS, storage.loadProjectSettings(USER_ID, projectId));
+    assertTrue(storage.getProjectSourceFiles(USER_ID, projectId).contains(SCM_FILE_NAME));
+    assertEquals(FILE_CONTENT, storage.downloadFile(USER_ID, projectId, SCM_FILE_NAME,
+        StorageUtil.DEFAULT_CHARSET));
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, ASSET_FILE_NAME)));
+    storage.assertUserHasProject(USER_ID, projectId);
+    try {
+      storage.assertUserHasProject("other", projectId);
+      fail();
+    } catch (SecurityException expected) {
+      // other doesn't own the project
+    }
+  }
+
+  public void testUploadBeforeAdd() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    try {
+      storage.uploadRawFile(projectId, "File1.src", USER_ID, true, RAW_CONTENT);
+      fail("Allowed upload before add");
+    } catch (IllegalStateException expected) {
+      // File upload should be preceded by add
+    }
+  }
+
+  public void testMultiRoleFile() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    try {
+      storage.addOutputFilesToProject(USER_ID, projectId, SCM_FILE_NAME);
+      fail("File role changed");
+    } catch (IllegalStateException expected) {
+      // File role change is not allowed
+    }
+  }
+
+  public void testBlocksTruncation() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    storage.addSourceFilesToProject(USER_ID, projectId, false, BKY_FILE_NAME);
+    storage.uploadFile(projectId, BKY_FILE_NAME, USER_ID, FILE_CONTENT + FILE_CONTENT +
+        FILE_CONTENT, StorageUtil.DEFAULT_CHARSET);
+    try {
+      storage.uploadFile(projectId, BKY_FILE_NAME, USER_ID, "<xml/>",
+          StorageUtil.DEFAULT_CHARSET);
+      fail("Allowed truncated blocks");
+    } catch (BlocksTruncatedException expected) {
+      // Only allowed with force
+    }
+    storage.uploadFileForce(projectId, BKY_FILE_NAME, USER_ID, "<xml/>",
+        StorageUtil.DEFAULT_CHARSET);
+    assertEquals("<xml/>", storage.downloadFile(USER_ID, projectId, BKY_FILE_NAME,
+        StorageUtil.DEFAULT_CHARSET));
+  }
+
+  public void testWrongUserThrowsException() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    try {
+      storage.downloadRawFile("other", projectId, ASSET_FILE_NAME);
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof UnauthorizedAccessException);
+    }
+  }
+
+  public void testStreamingUpload() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    storage.addOutputFilesToProject(USER_ID, projectId, APK_FILE_NAME);
+    storage.uploadRawFileForce(projectId, APK_FILE_NAME, USER_ID,
+        new ByteArrayInputStream(RAW_CONTENT));
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, APK_FILE_NAME)));
+    assertEquals(Arrays.asList(APK_FILE_NAME), storage.getProjectOutputFiles(USER_ID, projectId));
+  }
+
+  public void testUploadRawFilesForce() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put(SCM_FILE_NAME, "{}".getBytes(Charsets.UTF_8));
+    contents.put(YAIL_FILE_NAME, RAW_CONTENT); // created on demand
+    long modDate = storage.uploadRawFilesForce(projectId, USER_ID, contents);
+    assertEquals(modDate, storage.getProjectDateModified(USER_ID, projectId));
+    assertEquals("{}", storage.downloadFile(USER_ID, projectId, SCM_FILE_NAME,
+        StorageUtil.DEFAULT_CHARSET));
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, YAIL_FILE_NAME)));
+  }
+
+  public void testFailedUploadRawFilesForceChangesNothing() throws IOException {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    byte[] unwritable = "unwritable".getBytes(Charsets.UTF_8);
+    // A plain file in place of its blob directory makes storing the blob fail
+    String hash = Hashing.sha1().hashBytes(unwritable).toString();
+    Files.write(new File(new File(root, "blobs"), hash.substring(0, 2)).toPath(),
+        new byte[0]);
+    int blobCount = countFiles(new File(root, "blobs"));
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put(SCM_FILE_NAME, "{}".getBytes(Charsets.UTF_8));
+    contents.put(ASSET_FILE_NAME, unwritable);
+    try {
+      storage.uploadRawFilesForce(projectId, USER_ID, contents);
+      fail();
+    } catch (RuntimeException e) {
+      // expected
+    }
+    assertEquals(FILE_CONTENT, storage.downloadFile(USER_ID, projectId, SCM_FILE_NAME,
+        StorageUtil.DEFAULT_CHARSET));
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, ASSET_FILE_NAME)));
+    assertEquals(blobCount, countFiles(new File(root, "blobs")));
+  }
+
+  public void testDownloadRawFiles() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    Map<String, byte[]> downloaded = storage.downloadRawFiles(USER_ID, projectId,
+        Arrays.asList(ASSET_FILE_NAME, SCM_FILE_NAME));
+    assertEquals(Arrays.asList(ASSET_FILE_NAME, SCM_FILE_NAME),
+        new ArrayList<String>(downloaded.keySet()));
+    assertEquals(FILE_CONTENT, new String(downloaded.get(SCM_FILE_NAME), Charsets.UTF_8));
+    assertTrue(Arrays.equals(RAW_CONTENT, downloaded.get(ASSET_FILE_NAME)));
+  }
+
+  public void testRawFileInfoAndStreaming() throws IOException {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    RawFileInfo info = storage.getRawFileInfo(USER_ID, projectId, ASSET_FILE_NAME);
+    assertEquals(RAW_CONTENT.length, info.getSize());
+    InputStream in = storage.openRawFile(USER_ID, projectId, ASSET_FILE_NAME, 1);
+    try {
+      assertTrue(Arrays.equals(Arrays.copyOfRange(RAW_CONTENT, 1, RAW_CONTENT.length),
+          ByteStreams.toByteArray(in)));
+    } finally {
+      in.close();
+    }
+    storage.uploadRawFileForce(projectId, ASSET_FILE_NAME, USER_ID, new byte[] { (byte) 7 });
+    assertFalse(info.getETag().equals(
+        storage.getRawFileInfo(USER_ID, projectId, ASSET_FILE_NAME).getETag()));
+  }
+
+  public void testSharedBlobsAreReferenceCounted() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId1 = createProject();
+    long projectId2 = createProject();
+    storage.deleteProject(USER_ID, projectId1);
+    // The second project still refers to the same content
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId2, ASSET_FILE_NAME)));
+    storage.deleteProject(USER_ID, projectId2);
+    assertEquals(0, countFiles(new File(root, "blobs")));
+  }
+
+  public void testReadsAndWritesLeaveNothingBehind() throws IOException {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    storage.addOutputFilesToProject(USER_ID, projectId, APK_FILE_NAME);
+    storage.uploadRawFileForce(projectId, APK_FILE_NAME, USER_ID,
+        new ByteArrayInputStream(RAW_CONTENT));
+    storage.uploadRawFileForce(projectId, SCM_FILE_NAME, USER_ID, RAW_CONTENT);
+    try {
+      storage.uploadRawFileForce(projectId, ASSET_FILE_NAME, "other", new byte[] { (byte) 7 });
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof UnauthorizedAccessException);
+    }
+    // Readers pin the blobs they read, and must let go of them afterwards
+    storage.downloadRawFile(USER_ID, projectId, ASSET_FILE_NAME);
+    storage.downloadRawFiles(USER_ID, projectId, Arrays.asList(SCM_FILE_NAME, APK_FILE_NAME));
+    storage.openRawFile(USER_ID, projectId, APK_FILE_NAME, 0).close();
+    storage.exportProjectSourceZip(USER_ID, projectId, false, false, null, false, false,
+        false, false);
+    assertEquals(0, countFiles(new File(root, "temp")));
+    storage.deleteProject(USER_ID, projectId);
+    assertEquals(0, countFiles(new File(root, "blobs")));
+  }
+
+  private static int countFiles(File dir) {
+    int count = 0;
+    for (File child : dir.listFiles()) {
+      count += child.isDirectory() ? countFiles(child) : 1;
+    }
+    return count;
+  }
+
+  public void testExportProjectZip() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    storage.addSourceFilesToProject(USER_ID, projectId, false, BKY_FILE_NAME, YAIL_FILE_NAME);
+    storage.uploadFile(projectId, BKY_FILE_NAME, USER_ID, FILE_CONTENT,
+        StorageUtil.DEFAULT_CHARSET);
+    storage.uploadFile(projectId, YAIL_FILE_NAME, USER_ID, FILE_CONTENT,
+        StorageUtil.DEFAULT_CHARSET);
+    ProjectSourceZip zipFile = storage.exportProjectSourceZip(USER_ID, projectId, false,
+        false, null, false, false, false, false);
+    assertEquals(3, zipFile.getFileCount()); // .scm, .bky and the asset, but no .yail
+  }
+
+  public void testUserFiles() {
+    storage.getUser(USER_ID, USER_EMAIL);
+    storage.uploadRawUserFile(USER_ID, StorageUtil.ANDROID_KEYSTORE_FILENAME, RAW_CONTENT);
+    assertTrue(storage.getUserFiles(USER_ID).contains(StorageUtil.ANDROID_KEYSTORE_FILENAME));
+    assertTrue(Arrays.equals(RAW_CONTENT,
+        storage.downloadRawUserFile(USER_ID, StorageUtil.ANDROID_KEYSTORE_FILENAME)));
+    storage.deleteUserFile(USER_ID, StorageUtil.ANDROID_KEYSTORE_FILENAME);
+    assertFalse(storage.getUserFiles(USER_ID).contains(StorageUtil.ANDROID_KEYSTORE_FILENAME));
+  }
+
+  public void testTempFiles() throws IOException {
+    String fileName = storage.uploadTempFile("test\n".getBytes(Charsets.UTF_8));
+    assertEquals("test\n",
+        new String(ByteStreams.toByteArray(storage.openTempFile(fileName)), Charsets.UTF_8));
+    storage.deleteTempFile(fileName);
+    try {
+      storage.deleteTempFile("frob"); // Should fail because doesn't start with __TEMP__
+      fail();
+    } catch (RuntimeException expected) {
+      // Not a temp file
+    }
+  }
+
+  public void testReopen() throws Exception {
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject();
+    storage.uploadBackpack("shared", "[1]");
+
+    LocalStorageIo reopened = new LocalStorageIo(root);
+    assertEquals(Arrays.asList(projectId), reopened.getProjects(USER_ID));
+    assertEquals(USER_EMAIL, reopened.getUser(USER_ID).getUserEmail());
+    assertEquals(FILE_CONTENT, reopened.downloadFile(USER_ID, projectId, SCM_FILE_NAME,
+        StorageUtil.DEFAULT_CHARSET));
+    assertEquals("[1]", reopened.downloadBackpack("shared"));
+    // New projects don't reuse existing ids
+    assertTrue(createProjectIn(reopened) > projectId);
+  }
+
+  private static long createProjectIn(StorageIo storage) {
+    Project project = new Project(PROJECT_NAME);
+    project.addTextFile(new TextFile(SCM_FILE_NAME, FILE_CONTENT));
+    return storage.createProject(USER_ID, project, SETTINGS);
+  }
+}
@@ -23,6 +23,7 @@ import com.google.appinventor.shared.storage.StorageUtil;
 import com.google.common.base.Charsets;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -31,7 +32,9 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.json.JSONObject;
 
@@ -333,6 +336,115 @@ public class ObjectifyStorageIoTest extends LocalDatastoreTestCase {
     assertFalse(storage.getProjectOutputFiles(USER_ID, projectId).contains(FILE_NAME_OUTPUT));
   }
 
+  public void testUploadRawFileForceFromStream() throws IOException {
+    final String USER_ID = "1210";
+    final String USER_EMAIL = "newuser1210@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addOutputFilesToProject(USER_ID, projectId, APK_FILE_NAME1);
+    storage.uploadRawFileForce(projectId, APK_FILE_NAME1, USER_ID,
+        new ByteArrayInputStream(APK_FILE_CONTENT));
+    assertTrue(storage.isGcsFile(projectId, APK_FILE_NAME1));
+    assertTrue(Arrays.equals(APK_FILE_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, APK_FILE_NAME1)));
+
+    // Files kept in the datastore are buffered and take the regular path
+    storage.addSourceFilesToProject(USER_ID, projectId, false, FILE_NAME1);
+    storage.uploadRawFileForce(projectId, FILE_NAME1, USER_ID,
+        new ByteArrayInputStream(FILE_CONTENT1.getBytes(StorageUtil.DEFAULT_CHARSET)));
+    assertFalse(storage.isGcsFile(projectId, FILE_NAME1));
+    assertEquals(FILE_CONTENT1, storage.downloadFile(USER_ID, projectId, FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+  }
+
+  public void testUploadRawFilesForce() {
+    final String USER_ID = "1215";
+    final String USER_EMAIL = "newuser1215@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, FILE_NAME1, ASSET_FILE_NAME1);
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put(FILE_NAME1, FILE_CONTENT1.getBytes(Charsets.UTF_8));
+    contents.put(ASSET_FILE_NAME1, ASSET_FILE_CONTENT1);
+    contents.put(YAIL_FILE_NAME1, FILE_CONTENT2.getBytes(Charsets.UTF_8)); // created on demand
+    long modDate = storage.uploadRawFilesForce(projectId, USER_ID, contents);
+    assertEquals(modDate, storage.getProjectDateModified(USER_ID, projectId));
+    assertEquals(FILE_CONTENT1, storage.downloadFile(USER_ID, projectId, FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+    assertTrue(Arrays.equals(ASSET_FILE_CONTENT1,
+        storage.downloadRawFile(USER_ID, projectId, ASSET_FILE_NAME1)));
+    assertTrue(storage.isGcsFile(projectId, ASSET_FILE_NAME1));
+    assertTrue(storage.getProjectSourceFiles(USER_ID, projectId).contains(YAIL_FILE_NAME1));
+    assertEquals(FILE_CONTENT2, storage.downloadFile(USER_ID, projectId, YAIL_FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+  }
+
+  public void testDownloadRawFiles() {
+    final String USER_ID = "1216";
+    final String USER_EMAIL = "newuser1216@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, FILE_NAME1, ASSET_FILE_NAME1,
+        RAW_FILE_NAME1);
+    Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+    contents.put(FILE_NAME1, FILE_CONTENT1.getBytes(Charsets.UTF_8));
+    contents.put(ASSET_FILE_NAME1, ASSET_FILE_CONTENT1);
+    contents.put(RAW_FILE_NAME1, RAW_FILE_CONTENT3);
+    storage.uploadRawFilesForce(projectId, USER_ID, contents);
+    // Read the GCS files in parallel, and the inline one directly
+    Map<String, byte[]> downloaded = storage.downloadRawFiles(USER_ID, projectId,
+        Arrays.asList(RAW_FILE_NAME1, FILE_NAME1, ASSET_FILE_NAME1));
+    assertEquals(Arrays.asList(RAW_FILE_NAME1, FILE_NAME1, ASSET_FILE_NAME1),
+        new ArrayList<String>(downloaded.keySet()));
+    assertEquals(FILE_CONTENT1, new String(downloaded.get(FILE_NAME1), Charsets.UTF_8));
+    assertTrue(Arrays.equals(ASSET_FILE_CONTENT1, downloaded.get(ASSET_FILE_NAME1)));
+    assertTrue(Arrays.equals(RAW_FILE_CONTENT3, downloaded.get(RAW_FILE_NAME1)));
+    try {
+      storage.downloadRawFiles("other", projectId, Arrays.asList(FILE_NAME1));
+      fail();
+    } catch (Exception e) {
+      assertTrue(e instanceof UnauthorizedAccessException
+                 || e.getCause() instanceof UnauthorizedAccessException);
+    }
+  }
+
+  public void testRequestCacheSeesWrites() throws BlocksTruncatedException {
+    final String USER_ID = "1220";
+    final String USER_EMAIL = "newuser1220@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    RequestCache.begin();
+    try {
+      storage.assertUserHasProject(USER_ID, projectId);
+      assertEquals(PROJECT_NAME, storage.getProjectName(USER_ID, projectId));
+      assertFalse(storage.getProjectSourceFiles(USER_ID, projectId).contains(FILE_NAME1));
+      assertTrue(storage.getProjectOutputFiles(USER_ID, projectId).isEmpty());
+
+      storage.addSourceFilesToProject(USER_ID, projectId, false, FILE_NAME1);
+      storage.uploadFile(projectId, FILE_NAME1, USER_ID, FILE_CONTENT1, StorageUtil.DEFAULT_CHARSET);
+      storage.addOutputFilesToProject(USER_ID, projectId, FILE_NAME_OUTPUT);
+      assertTrue(storage.getProjectSourceFiles(USER_ID, projectId).contains(FILE_NAME1));
+      assertTrue(storage.getProjectOutputFiles(USER_ID, projectId).contains(FILE_NAME_OUTPUT));
+
+      storage.deleteFile(USER_ID, projectId, FILE_NAME1);
+      assertFalse(storage.getProjectSourceFiles(USER_ID, projectId).contains(FILE_NAME1));
+
+      storage.storeProjectSettings(USER_ID, projectId, SETTINGS);
+      assertEquals(SETTINGS, storage.loadProjectSettings(USER_ID, projectId));
+
+      storage.deleteProject(USER_ID, projectId);
+      try {
+        storage.assertUserHasProject(USER_ID, projectId);
+        fail();
+      } catch (SecurityException e) {
+        // expected
+      }
+      assertNull(storage.getUserProject(USER_ID, projectId));
+    } finally {
+      RequestCache.end();
+    }
+  }
+
   public void testAddRemoveUserFile() {
     // Note that neither FILE_NAME1 nor FILE_NAME_OUTPUT should exist
     // at the start of this test
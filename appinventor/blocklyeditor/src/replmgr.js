@@ -79,6 +79,7 @@ Blockly.ReplStateObj.prototype = {
     'dialog' : null,                    // The Dialog Box with the code and QR Code
     'count' : 0,                        // Count of number of reads from rendezvous server
     'didversioncheck' : false,
+    'companionVersion' : null,  // VersionName of the connected Companion, when known
     'isUSB' : false,            // True if using a USB connection
     'rendezvous2' : 'https://rendezvous.appinventor.mit.edu/rendezvous2/',
     'iceservers' : { 'iceServers' : [ { 'urls' : ['turn:turn.appinventor.mit.edu:3478'],
@@ -1073,6 +1074,9 @@ Blockly.ReplMgr.processRetvals = function(responses) {
             rs.state = Blockly.ReplMgr.rsState.CONNECTED;
             Blockly.mainWorkspace.fireChangeListener(new AI.Events.CompanionConnect());
             break;
+        case "profile":
+            Blockly.ReplMgr.processProfile(r.value);
+            break;
         case "error":
             console.log("processRetVals: Error value = " + r.value);
             runtimeerr(escapeHTML(r.value) + Blockly.Msg.REPL_NO_ERROR_FIVE_SECONDS);
@@ -1082,6 +1086,59 @@ Blockly.ReplMgr.processRetvals = function(responses) {
     handler && handler.checkAllBlocksForWarningsAndErrors();
 };
 
+// The number of event handlers and method calls highlighted by processProfile
+Blockly.ReplMgr.PROFILE_HOT_BLOCKS = 5;
+
+/**
+ * Highlights the event handlers and component method calls that took the most time, according
+ * to the profile sent by the Companion while Screen.StartProfiling is in effect.
+ *
+ * @param {string} value JSON array of {name, count, totalMs, maxMs, allocations}, where name is
+ *     "Component.Event" or "Component.Method", sorted by decreasing totalMs
+ */
+Blockly.ReplMgr.processProfile = function(value) {
+    var stats;
+    try {
+        stats = JSON.parse(value);
+    } catch (e) {
+        console.log("processProfile: Unable to parse profile " + value);
+        return;
+    }
+    var hot = {};
+    for (var i = 0; i < stats.length && i < Blockly.ReplMgr.PROFILE_HOT_BLOCKS; i++) {
+        hot[stats[i].name] = stats[i];
+    }
+    var blocks = Blockly.mainWorkspace.getAllBlocks();
+    for (var j = 0; j < blocks.length; j++) {
+        var block = blocks[j];
+        var name = null;
+        if (block.type == 'component_event') {
+            name = block.instanceName + '.' + block.eventName;
+        } else if (block.type == 'component_method' && !block.isGeneric) {
+            name = block.instanceName + '.' + block.methodName;
+        }
+        if (name === null || !block.rendered) {
+            continue;
+        }
+        var stat = hot[name];
+        if (stat) {
+            if (!block.profiled) {
+                block.unprofiledTooltip = block.tooltip;
+            }
+            Blockly.utils.addClass(block.svgGroup_, 'blocklyHotBlock');
+            block.setTooltip(name + ': ' + stat.count + ' calls, ' +
+                             stat.totalMs.toFixed(1) + ' ms total, ' +
+                             stat.maxMs.toFixed(1) + ' ms max, ' +
+                             stat.allocations + ' allocations');
+            block.profiled = true;
+        } else if (block.profiled) {
+            Blockly.utils.removeClass(block.svgGroup_, 'blocklyHotBlock');
+            block.setTooltip(block.unprofiledTooltip);
+            block.profiled = false;
+        }
+    }
+};
+
 Blockly.ReplMgr.setDoitResult = function(block, value) {
     var oldPatt = /Do It Result:.*?\n---\n/m;
     var patt = new RegExp(Blockly.Msg.DO_IT_RESULT + '.*?\n---\n');
@@ -1264,6 +1321,11 @@ Blockly.ReplMgr.startAdbDevice = function(rs, usb) {
                     if (this.readyState == 4) {
                         if (this.status == 200) {
                             pc = 4; // We got a response!
+                            try {
+                                rs.companionVersion = goog.json.parse(this.response).version;
+                            } catch (e) {
+                                rs.companionVersion = null;
+                            }
                             return;
                         } else {
                             ubercounter += 1;
@@ -1327,6 +1389,7 @@ Blockly.ReplMgr.startRepl = function(already, chromebook, emulator, usb) {
     var rs = top.ReplState;
     var me = this;
     rs.didversioncheck = false; // Re-check
+    rs.companionVersion = null;
     rs.isUSB = usb;
     var RefreshAssets = top.AssetManager_refreshAssets;
     if (rs.phoneState) {
@@ -1429,6 +1492,7 @@ Blockly.ReplMgr.getFromRendezvous = function() {
                 rs.versionurl = 'http://' + json.ipaddr + ':8001/_getversion';
                 rs.baseurl = 'http://' + json.ipaddr + ':8001/';
                 rs.android = (json.os || 'Android').toLowerCase() !== 'ios';
+                rs.companionVersion = json.version || null;
                 rs.didversioncheck = true; // We are checking it here, so don't check it later
                                            // via HTTP because we may be using webrtc and there is no
                                            // HTTP
@@ -1656,6 +1720,47 @@ Blockly.ReplMgr.getCookie = function() {
     return cookie;
 };
 
+// The first Companion version with AssetFetcher:fetchAllAssets
+Blockly.ReplMgr.FETCH_ALL_ASSETS_VERSION = '2.63';
+
+// Returns true if the connected Companion can fetch several assets in
+// one putAssets call. Older Companions, and those whose version isn't
+// known, are sent one putAsset call per asset instead.
+Blockly.ReplMgr.canPutAssets = function() {
+    var rs = top.ReplState;
+    if (rs === undefined || !rs.android || !rs.companionVersion)
+        return false;
+    var have = String(rs.companionVersion).match(/^(\d+)\.(\d+)/);
+    var need = Blockly.ReplMgr.FETCH_ALL_ASSETS_VERSION.match(/^(\d+)\.(\d+)/);
+    if (!have)
+        return false;
+    var major = parseInt(have[1], 10), needMajor = parseInt(need[1], 10);
+    return major > needMajor ||
+        (major == needMajor && parseInt(have[2], 10) >= parseInt(need[2], 10));
+};
+
+// Ask the Companion to fetch several assets from the server. The
+// Companion compares them with the server's asset manifest, fetches
+// only those that changed since it last fetched them and reports each
+// asset as transferred, as for putAsset. Only call this when
+// canPutAssets() is true.
+Blockly.ReplMgr.putAssets = function(projectid, filenames) {
+    if (top.ReplState === undefined)
+        return false;
+    if (top.ReplState.state != this.rsState.ASSET && top.ReplState.state != this.rsState.CONNECTED)
+        return false;           // We didn't really do anything
+    var uri = window.location.origin;
+    var cookie = this.getCookie();
+    var assetsJson = Blockly.Yail.quotifyForREPL(JSON.stringify(filenames));
+    var yail = "(AssetFetcher:fetchAllAssets \"" + cookie + "\" \"" + projectid +
+        "\" \"" + uri + "\" " + assetsJson + ")";
+    console.log("Yail for putAssets = " + yail);
+    this.putYail();             // This sets up the internal context variable
+                                // inside of the Closure for putYail and friends
+    this.putYail.putAsset(yail);
+    return true;
+};
+
 Blockly.ReplMgr.putAsset = function(projectid, filename, blob, success, fail, force) {
     if (top.ReplState === undefined)
         return false;
@@ -1455,7 +1455,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // Adds Sensitivity dropdown block.
     5: Blockly.Versioning.makeSetterUseDropdown(
-          'AccelerometerSensor', 'Sensitivity', 'Sensitivity')
+          'AccelerometerSensor', 'Sensitivity', 'Sensitivity'),
+
+    // The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+    // No blocks need to be modified to upgrade to version 6.
+    6: "noUpgrade"
 
   }, // End Accelerometer upgraders
 
@@ -1565,7 +1569,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // The BluetoothClient.DisconnectOnError property was added.
     // No blocks need to be modified to upgrade to version 5.
-    6: "noUpgrade"
+    6: "noUpgrade",
+
+    // The AsyncReceive and FrameLength properties and the DataReceived event were added.
+    // No blocks need to be modified to upgrade to version 7.
+    7: "noUpgrade"
 
   }, // End BluetoothClient upgraders
 
@@ -1591,7 +1599,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // The BluetoothServer.Secure property was added.
     // No blocks need to be modified to upgrade to version 5.
-    5: "noUpgrade"
+    5: "noUpgrade",
+
+    // The AsyncReceive and FrameLength properties and the DataReceived event were added.
+    // No blocks need to be modified to upgrade to version 6.
+    6: "noUpgrade"
 
   }, // End BluetoothServer upgraders
 
@@ -1722,7 +1734,17 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // Assets helper block was added.
     15: Blockly.Versioning.makeSetterUseHelper(
-        'Canvas', 'BackgroundImage', Blockly.Versioning.tryReplaceBlockWithAssets)
+        'Canvas', 'BackgroundImage', Blockly.Versioning.tryReplaceBlockWithAssets),
+
+    // The BatchDrawing property was added.
+    // The DrawPoints and DrawPolyline methods were added.
+    // No blocks need to be modified to upgrade to version 16.
+    16: "noUpgrade",
+
+    // The GetBackgroundPixels, SetBackgroundPixels, ApplyGrayscale, ApplyThreshold,
+    // ApplyConvolution and BackgroundHistogram methods were added.
+    // No blocks need to be modified to upgrade to version 17.
+    17: "noUpgrade"
 
   }, // End Canvas upgraders
 
@@ -1757,7 +1779,11 @@ Blockly.Versioning.AllUpgradeMaps =
     3: "noUpgrade",
 
     // MakeDate, MakeTime, MakeInstantFromParts methods added
-    4: "noUpgrade"
+    4: "noUpgrade",
+
+    // The TimerFixedRate, TimerCatchUp, TimerAverageLateness, TimerMaxLateness and
+    // TimerMissedTicks properties and the ResetTimerStatistics method were added.
+    5: "noUpgrade"
 
   }, // End Clock upgraders
 
@@ -1855,7 +1881,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // AI2: The LegacyMode property was deprecated.
     // AI2: The DefaultScope and Scope properties were added.
-    4: "noUpgrade"
+    4: "noUpgrade",
+
+    // AI2: The ReadLines and ReadRange methods were added.
+    // AI2: The GotLines and GotRange events were added.
+    5: "noUpgrade"
 
   }, // End File upgraders
 
@@ -1898,7 +1928,11 @@ Blockly.Versioning.AllUpgradeMaps =
   "GyroscopeSensor": {
 
     // This is initial version. Placeholder for future upgrades
-    1: "noUpgrade"
+    1: "noUpgrade",
+
+    // The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+    // No blocks need to be modified to upgrade to version 2.
+    2: "noUpgrade"
 
   }, // End GyroscopeSensor upgraders
 
@@ -2856,7 +2890,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // For FORM_COMPONENT_VERSION 30:
     // - DefaultFileScope designer property was added
-    30: "noUpgrade"
+    30: "noUpgrade",
+
+    // For FORM_COMPONENT_VERSION 31:
+    // - The StartProfiling, StopProfiling and SaveProfile methods were added
+    31: "noUpgrade"
 
   }, // End Screen
 
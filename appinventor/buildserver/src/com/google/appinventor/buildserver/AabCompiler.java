@@ -81,6 +81,19 @@ public class AabCompiler implements Callable<Boolean> {
       "**.[xX][mM][fF]"
   };
 
+  /**
+   * Returns the extensions of the files that are stored uncompressed, such
+   * as ".png".
+   */
+  static List<String> getNoncompressibleExtensions() {
+    List<String> extensions = new ArrayList<>();
+    for (String glob : NONCOMPRESSIBLE_EXTS) {
+      // "**.[pP][nN][gG]" becomes ".png"
+      extensions.add(glob.substring(2).replaceAll("\\[(.).\\]", "$1"));
+    }
+    return extensions;
+  }
+
   private PrintStream out;
   private File buildDir;
   private int mx;
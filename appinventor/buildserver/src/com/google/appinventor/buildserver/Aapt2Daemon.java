@@ -0,0 +1,191 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.base.Joiner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A resident aapt2 process running in daemon mode, which runs aapt2
+ * commands without paying for a new process each time.
+ *
+ * <p>In daemon mode, aapt2 prints "Ready" on its standard output once it
+ * has started. It then reads one command at a time from its standard input,
+ * with each argument on its own line and an empty line after the last one.
+ * It reports on its standard error, ending each command with "Done",
+ * preceded by "Error" if the command failed.
+ *
+ * <p>Daemons are pooled per aapt2 binary. A build takes one with
+ * {@link #acquire(String)} and gives it back with {@link #release()}.
+ */
+final class Aapt2Daemon {
+
+  private static final Logger LOG = Logger.getLogger(Aapt2Daemon.class.getName());
+  private static final Joiner joiner = Joiner.on(" ");
+
+  // Most idle daemons kept for each aapt2 binary
+  private static final int MAX_IDLE_DAEMONS = Runtime.getRuntime().availableProcessors();
+
+  private static final Map<String, Deque<Aapt2Daemon>> idleDaemons =
+      new HashMap<String, Deque<Aapt2Daemon>>();
+
+  private final String tool;
+  private final Process process;
+  private final BufferedWriter input;
+  private final BufferedReader errors;
+  private boolean broken;
+
+  private Aapt2Daemon(String tool) throws IOException {
+    this.tool = tool;
+    LOG.info("Starting aapt2 daemon " + tool);
+    process = new ProcessBuilder(tool, "daemon").start();
+    input = new BufferedWriter(
+        new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+    errors = new BufferedReader(
+        new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
+    BufferedReader output = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    String line;
+    while ((line = output.readLine()) != null && !line.equals("Ready")) {
+      LOG.info("aapt2: " + line);
+    }
+    if (line == null) {
+      process.destroy();
+      throw new IOException("aapt2 daemon " + tool + " exited before it was ready");
+    }
+    drain(output);
+  }
+
+  /**
+   * Returns an idle daemon for the given aapt2 binary, starting a new one if
+   * there is none.
+   *
+   * @throws IOException if a daemon cannot be started
+   */
+  static Aapt2Daemon acquire(String tool) throws IOException {
+    synchronized (idleDaemons) {
+      Deque<Aapt2Daemon> idle = idleDaemons.get(tool);
+      while (idle != null && !idle.isEmpty()) {
+        Aapt2Daemon daemon = idle.pop();
+        if (daemon.isAlive()) {
+          return daemon;
+        }
+        daemon.destroy();
+      }
+    }
+    return new Aapt2Daemon(tool);
+  }
+
+  /**
+   * Returns this daemon to the pool, or stops it if it is no longer usable
+   * or the pool is full.
+   */
+  void release() {
+    if (!broken && isAlive()) {
+      synchronized (idleDaemons) {
+        Deque<Aapt2Daemon> idle = idleDaemons.get(tool);
+        if (idle == null) {
+          idle = new ArrayDeque<Aapt2Daemon>();
+          idleDaemons.put(tool, idle);
+        }
+        if (idle.size() < MAX_IDLE_DAEMONS) {
+          idle.push(this);
+          return;
+        }
+      }
+    }
+    destroy();
+  }
+
+  /**
+   * Runs an aapt2 command, such as "compile" or "link", with its arguments.
+   *
+   * @param args  the command followed by its arguments
+   * @param log  where the messages of aapt2 are written
+   * @return true if the command succeeded
+   */
+  boolean execute(List<String> args, PrintStream log) {
+    LOG.log(Level.INFO, "____Executing (aapt2 daemon) " + joiner.join(args));
+    try {
+      for (String arg : args) {
+        input.write(arg);
+        input.newLine();
+      }
+      input.newLine();
+      input.flush();
+      boolean failed = false;
+      String line;
+      while ((line = errors.readLine()) != null) {
+        if (line.equals("Done")) {
+          return !failed;
+        } else if (line.equals("Error")) {
+          failed = true;
+        } else {
+          log.println(line);
+        }
+      }
+      throw new IOException("aapt2 daemon exited");
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "____aapt2 daemon failure: ", e);
+      broken = true;
+      return false;
+    }
+  }
+
+  private boolean isAlive() {
+    try {
+      process.exitValue();
+      return false;
+    } catch (IllegalThreadStateException e) {
+      return true;
+    }
+  }
+
+  private void destroy() {
+    try {
+      input.close();
+    } catch (IOException e) {
+      // The process is destroyed anyway
+    }
+    process.destroy();
+  }
+
+  /*
+   * Logs anything else aapt2 writes to its standard output, so that it
+   * never blocks on a full pipe.
+   */
+  private static void drain(final BufferedReader output) {
+    Thread thread = new Thread("aapt2-output") {
+      @Override
+      public void run() {
+        try {
+          String line;
+          while ((line = output.readLine()) != null) {
+            LOG.info("aapt2: " + line);
+          }
+        } catch (IOException e) {
+          // The daemon has exited
+        }
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
@@ -634,6 +634,10 @@ public class BuildServer {
               connection.addRequestProperty("Content-Type","application/zip; charset=utf-8");
               connection.setConnectTimeout(60000);
               connection.setReadTimeout(60000);
+              // Without a fixed length HttpURLConnection buffers the entire
+              // request body in memory before sending it. Stream the zip
+              // straight from disk instead.
+              connection.setFixedLengthStreamingMode(outputZip.length());
               BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(connection.getOutputStream());
               try {
                 BufferedInputStream bufferedInputStream = new BufferedInputStream(
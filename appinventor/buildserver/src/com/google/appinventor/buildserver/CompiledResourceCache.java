@@ -0,0 +1,166 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Compiles resources with aapt2 one file at a time, keeping each compiled
+ * (.flat) file in a cache directory under the hash of its source, so that
+ * resources shared by many projects, such as the default icons, component
+ * drawables and theme values, are compiled only once per buildserver.
+ *
+ * <p>The compiled files are collected into a zip, which aapt2 link accepts
+ * in the same way as the output of "aapt2 compile --dir".
+ */
+final class CompiledResourceCache {
+
+  private static final Logger LOG = Logger.getLogger(CompiledResourceCache.class.getName());
+
+  // Hashes of the aapt2 binaries, by path, so that a new aapt2 doesn't use
+  // files compiled by an older one
+  private static final Map<String, String> toolHashes = new HashMap<String, String>();
+
+  private final File cacheDir;
+  private final String toolHash;
+
+  /**
+   * Creates a cache in the given directory for files compiled by the given
+   * aapt2 binary.
+   */
+  CompiledResourceCache(File cacheDir, String tool) throws IOException {
+    this.cacheDir = cacheDir;
+    this.toolHash = getToolHash(tool);
+    cacheDir.mkdirs();
+  }
+
+  /**
+   * Compiles the resources in resDir into outputZip, reusing the compiled
+   * files in the cache and compiling only the others.
+   *
+   * @param daemon  the aapt2 daemon that compiles the missing files
+   * @param resDir  the merged resource directory, with one directory per
+   *                resource type and configuration
+   * @param outputZip  the zip of compiled files to write
+   * @param workDir  a scratch directory for this build
+   * @param log  where the messages of aapt2 are written
+   * @return true if all resources were compiled. Every resource is compiled
+   *         even after a failure, so that all errors are reported.
+   */
+  boolean compile(Aapt2Daemon daemon, File resDir, File outputZip, File workDir, PrintStream log)
+      throws IOException {
+    int hits = 0;
+    int misses = 0;
+    int failures = 0;
+    File[] typeDirs = resDir.listFiles();
+    if (typeDirs == null) {
+      throw new IOException("Cannot list " + resDir);
+    }
+    Arrays.sort(typeDirs);
+    ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(outputZip));
+    try {
+      for (File typeDir : typeDirs) {
+        File[] resources = typeDir.listFiles();
+        if (resources == null) {
+          continue;
+        }
+        Arrays.sort(resources);
+        for (File resource : resources) {
+          if (!resource.isFile()) {
+            continue;
+          }
+          String key = getKey(typeDir.getName(), resource);
+          File entryDir = new File(cacheDir, key);
+          File flat = getFlatFile(entryDir);
+          if (flat != null) {
+            hits++;
+          } else {
+            misses++;
+            flat = compileFile(daemon, resource, new File(workDir, key), entryDir, log);
+            if (flat == null) {
+              failures++;
+              continue;
+            }
+          }
+          zip.putNextEntry(new ZipEntry(flat.getName()));
+          Files.copy(flat, zip);
+          zip.closeEntry();
+        }
+      }
+    } finally {
+      zip.close();
+    }
+    LOG.info("Compiled resources: " + hits + " cached, " + (misses - failures) + " compiled, "
+        + failures + " failed");
+    return failures == 0;
+  }
+
+  /*
+   * Compiles one resource into outDir and moves the result into the cache.
+   * Returns the compiled file, or null if aapt2 failed.
+   */
+  private File compileFile(Aapt2Daemon daemon, File resource, File outDir, File entryDir,
+      PrintStream log) throws IOException {
+    FileUtils.deleteQuietly(outDir);
+    outDir.mkdirs();
+    if (!daemon.execute(Arrays.asList("compile", "--no-crunch", "-o", outDir.getAbsolutePath(),
+        resource.getAbsolutePath()), log)) {
+      return null;
+    }
+    File flat = getFlatFile(outDir);
+    if (flat == null) {
+      throw new IOException("aapt2 compiled no output for " + resource);
+    }
+    // Another build may have cached the same file meanwhile; either copy will do.
+    if (outDir.renameTo(entryDir)) {
+      return new File(entryDir, flat.getName());
+    }
+    return flat;
+  }
+
+  /*
+   * Returns the only file in dir, or null if there isn't exactly one.
+   */
+  private static File getFlatFile(File dir) {
+    File[] files = dir.listFiles();
+    return files != null && files.length == 1 ? files[0] : null;
+  }
+
+  private String getKey(String typeDirName, File resource) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher()
+        .putString(toolHash, Charsets.UTF_8)
+        .putString(typeDirName + "/" + resource.getName(), Charsets.UTF_8)
+        .putBytes(Files.toByteArray(resource));
+    return hasher.hash().toString();
+  }
+
+  private static String getToolHash(String tool) throws IOException {
+    synchronized (toolHashes) {
+      String hash = toolHashes.get(tool);
+      if (hash == null) {
+        hash = Files.hash(new File(tool), Hashing.sha256()).toString();
+        toolHashes.put(tool, hash);
+      }
+      return hash;
+    }
+  }
+}
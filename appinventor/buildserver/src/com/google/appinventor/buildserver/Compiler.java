@@ -8,6 +8,7 @@ package com.google.appinventor.buildserver;
 
 import com.android.ide.common.internal.AaptCruncher;
 import com.android.ide.common.internal.PngCruncher;
+import com.android.apksig.ApkSigner;
 import com.android.sdklib.build.ApkBuilder;
 import com.google.appinventor.buildserver.stats.StatReporter;
 import com.google.appinventor.buildserver.util.AARLibraries;
@@ -21,11 +22,6 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.RoundRectangle2D;
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
@@ -37,12 +33,17 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -63,7 +64,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import javax.imageio.ImageIO;
 
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
@@ -110,6 +110,10 @@ public final class Compiler {
   private static final String X86_64_DIR_NAME = "x86_64";
 
   private static final String ASSET_DIR_NAME = "assets";
+  // Subdirectory of the dex cache where compiled resources are kept
+  private static final String AAPT2_CACHE_DIR_NAME = "aapt2";
+  // Subdirectory of the dex cache where the launcher icon renditions are kept
+  private static final String ICON_CACHE_DIR_NAME = "icons";
   private static final String EXT_COMPS_DIR_NAME = "external_comps";
 
   private static final String DEFAULT_ICON = RUNTIME_FILES_DIR + "ya.png";
@@ -132,8 +136,10 @@ public final class Compiler {
       RUNTIME_FILES_DIR + "kawa.jar";
   private static final String SIMPLE_ANDROID_RUNTIME_JAR =
       RUNTIME_FILES_DIR + "AndroidRuntime.jar";
-  private static final String APKSIGNER_JAR =
-      RUNTIME_TOOLS_DIR + "apksigner.jar";
+
+  // The key in the project keystore that apps are signed with
+  private static final String KEY_ALIAS = "AndroidKey";
+  private static final char[] KEYSTORE_PASSWORD = "android".toCharArray();
 
   /*
    * Note for future updates: This list can be obtained from an Android Studio project running the
@@ -181,18 +187,12 @@ public final class Compiler {
 
   private static final String LINUX_AAPT_TOOL =
       RUNTIME_TOOLS_DIR + "linux/aapt";
-  private static final String LINUX_ZIPALIGN_TOOL =
-      RUNTIME_TOOLS_DIR + "linux/zipalign";
   private static final String MAC_AAPT_TOOL =
       RUNTIME_TOOLS_DIR + "mac/aapt";
-  private static final String MAC_ZIPALIGN_TOOL =
-      RUNTIME_TOOLS_DIR + "mac/zipalign";
   private static final String WINDOWS_AAPT_TOOL =
       RUNTIME_TOOLS_DIR + "windows/aapt";
   private static final String WINDOWS_PTHEAD_DLL =
       RUNTIME_TOOLS_DIR + "windows/libwinpthread-1.dll";
-  private static final String WINDOWS_ZIPALIGN_TOOL =
-      RUNTIME_TOOLS_DIR + "windows/zipalign";
 
   private static final String LINUX_AAPT2_TOOL =
       RUNTIME_TOOLS_DIR + "linux/aapt2";
@@ -1657,22 +1657,17 @@ public final class Compiler {
           fileName = project.getProjectName() + ".apk";
         }
         String apkAbsolutePath = deployDir.getAbsolutePath() + SLASH + fileName;
-        if (!compiler.runApkBuilder(apkAbsolutePath, tmpPackageName, dexedClassesDir)) {
+        String unsignedApkPath = tmpDir.getAbsolutePath() + SLASH + "unsigned.apk";
+        if (!compiler.runApkBuilder(unsignedApkPath, tmpPackageName, dexedClassesDir)) {
           return false;
         }
         if (reporter != null) {
           reporter.report(95);
         }
 
-        // ZipAlign the apk file
-        out.println("________ZipAligning the apk file");
-        if (!compiler.runZipAlign(apkAbsolutePath, tmpDir)) {
-          return false;
-        }
-
-        // Sign the apk file
+        // Align and sign the apk file, writing it to its final location
         out.println("________Signing the apk file");
-        if (!compiler.runApkSigner(apkAbsolutePath, keystoreFilePath)) {
+        if (!compiler.runApkSigner(unsignedApkPath, apkAbsolutePath, keystoreFilePath)) {
           return false;
         }
       }
@@ -1979,77 +1974,35 @@ public final class Compiler {
     return true;
   }
 
-  private boolean runZipAlign(String apkAbsolutePath, File tmpDir) {
-    // TODO(user): add zipalign tool appinventor->lib->android->tools->linux and windows
-    // Need to make sure assets directory exists otherwise zipalign will fail.
-    createDir(project.getAssetsDirectory());
-    String zipAlignTool;
-    String osName = System.getProperty("os.name");
-    if (osName.equals("Mac OS X")) {
-      zipAlignTool = MAC_ZIPALIGN_TOOL;
-    } else if (osName.equals("Linux")) {
-      zipAlignTool = LINUX_ZIPALIGN_TOOL;
-    } else if (osName.startsWith("Windows")) {
-      zipAlignTool = WINDOWS_ZIPALIGN_TOOL;
-    } else {
-      LOG.warning("YAIL compiler - cannot run ZIPALIGN on OS " + osName);
-      err.println("YAIL compiler - cannot run ZIPALIGN on OS " + osName);
-      userErrors.print(String.format(ERROR_IN_STAGE, "ZIPALIGN"));
-      return false;
-    }
-    // TODO: create tmp file for zipaling result
-    String zipAlignedPath = tmpDir.getAbsolutePath() + SLASH + "zipaligned.apk";
-    // zipalign -f 4 infile.zip outfile.zip
-    String[] zipAlignCommandLine = {
-        getResource(zipAlignTool),
-        "-f",
-        "4",
-        apkAbsolutePath,
-        zipAlignedPath
-    };
-    long startZipAlign = System.currentTimeMillis();
-    // Using System.err and System.out on purpose. Don't want to pollute build messages with
-    // tools output
-    if (!Execution.execute(null, zipAlignCommandLine, System.out, System.err)) {
-      LOG.warning("YAIL compiler - ZIPALIGN execution failed.");
-      err.println("YAIL compiler - ZIPALIGN execution failed.");
-      userErrors.print(String.format(ERROR_IN_STAGE, "ZIPALIGN"));
-      return false;
-    }
-    if (!copyFile(zipAlignedPath, apkAbsolutePath)) {
-      LOG.warning("YAIL compiler - ZIPALIGN file copy failed.");
-      err.println("YAIL compiler - ZIPALIGN file copy failed.");
-      userErrors.print(String.format(ERROR_IN_STAGE, "ZIPALIGN"));
-      return false;
-    }
-    String zipALignTimeMessage = "ZIPALIGN time: " +
-        ((System.currentTimeMillis() - startZipAlign) / 1000.0) + " seconds";
-    out.println(zipALignTimeMessage);
-    LOG.info(zipALignTimeMessage);
-    return true;
-  }
-
-  private boolean runApkSigner(String apkAbsolutePath, String keystoreAbsolutePath) {
-    int mx = childProcessRamMb - 200;
-    /*
-      apksigner sign\
-      --ks <keystore file>\
-      --ks-key-alias AndroidKey\
-      --ks-pass pass:android\
-      <APK>
-    */
-    String[] apksignerCommandLine = {
-      System.getProperty("java.home") + "/bin/java", "-jar",
-      "-mx" + mx + "M",
-      getResource(APKSIGNER_JAR), "sign",
-      "-ks", keystoreAbsolutePath,
-      "-ks-key-alias", "AndroidKey",
-      "-ks-pass", "pass:android",
-      apkAbsolutePath
-    };
-
+  /*
+   * Signs the apk in-process with the apksig library, using the v1 and v2
+   * (and, where supported, v3) signature schemes. The signer also aligns the
+   * uncompressed entries, as zipalign would, while it writes the signed apk,
+   * so the apk is only rewritten once.
+   */
+  private boolean runApkSigner(String unsignedApkPath, String apkAbsolutePath,
+      String keystoreAbsolutePath) {
     long startApkSigner = System.currentTimeMillis();
-    if (!Execution.execute(null, apksignerCommandLine, System.out, System.err)) {
+    try {
+      KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+      try (InputStream in = new FileInputStream(keystoreAbsolutePath)) {
+        keyStore.load(in, KEYSTORE_PASSWORD);
+      }
+      PrivateKey key = (PrivateKey) keyStore.getKey(KEY_ALIAS, KEYSTORE_PASSWORD);
+      List<X509Certificate> certificates = new ArrayList<>();
+      for (Certificate certificate : keyStore.getCertificateChain(KEY_ALIAS)) {
+        certificates.add((X509Certificate) certificate);
+      }
+      // apksigner names the v1 signature files after the key alias
+      ApkSigner.SignerConfig signerConfig =
+          new ApkSigner.SignerConfig.Builder("ANDROIDK", key, certificates).build();
+      new ApkSigner.Builder(Collections.singletonList(signerConfig))
+          .setInputApk(new File(unsignedApkPath))
+          .setOutputApk(new File(apkAbsolutePath))
+          .build()
+          .sign();
+    } catch (Exception e) {
+      e.printStackTrace();
       LOG.warning("YAIL compiler - apksigner execution failed.");
       err.println("YAIL compiler - apksigner execution failed.");
       userErrors.print(String.format(ERROR_IN_STAGE, "APKSIGNER"));
@@ -2061,119 +2014,32 @@ public final class Compiler {
     return true;
   }
 
-  /*
-   * Returns a resized image given a new width and height
-   */
-  private BufferedImage resizeImage(BufferedImage icon, int height, int width) {
-    Image tmp = icon.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-    BufferedImage finalResized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g2 = finalResized.createGraphics();
-    g2.drawImage(tmp, 0, 0, null);
-    return finalResized;
-  }
-
-  /*
-   * Creates the circle image of an icon
-   */
-  private BufferedImage produceRoundIcon(BufferedImage icon) {
-    int imageWidth = icon.getWidth();
-    // Ratio of icon size to png image size for round icon is 0.80
-    double iconWidth = imageWidth * 0.80;
-    // Round iconWidth value to even int for a centered png
-    int intIconWidth = ((int)Math.round(iconWidth / 2) * 2);
-    Image tmp = icon.getScaledInstance(intIconWidth, intIconWidth, Image.SCALE_SMOOTH);
-    int marginWidth = ((imageWidth - intIconWidth) / 2);
-    BufferedImage roundIcon = new BufferedImage(imageWidth, imageWidth, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g2 = roundIcon.createGraphics();
-    g2.setClip(new Ellipse2D.Float(marginWidth, marginWidth, intIconWidth, intIconWidth));
-    g2.drawImage(tmp, marginWidth, marginWidth, null);
-    return roundIcon;
-  }
-
-  /*
-   * Creates the image of an icon with rounded corners
-   */
-  private BufferedImage produceRoundedCornerIcon(BufferedImage icon) {
-    int imageWidth = icon.getWidth();
-    // Ratio of icon size to png image size for roundRect icon is 0.93
-    double iconWidth = imageWidth * 0.93;
-    // Round iconWidth value to even int for a centered png
-    int intIconWidth = ((int)Math.round(iconWidth / 2) * 2);
-    Image tmp = icon.getScaledInstance(intIconWidth, intIconWidth, Image.SCALE_SMOOTH);
-    int marginWidth = ((imageWidth - intIconWidth) / 2);
-    // Corner radius of roundedCornerIcon needs to be 1/12 of width according to Android material guidelines
-    float cornerRadius = intIconWidth / 12;
-    BufferedImage roundedCornerIcon = new BufferedImage(imageWidth, imageWidth, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g2 = roundedCornerIcon.createGraphics();
-    g2.setClip(new RoundRectangle2D.Float(marginWidth, marginWidth, intIconWidth, intIconWidth, cornerRadius, cornerRadius));
-    g2.drawImage(tmp, marginWidth, marginWidth, null);
-    return roundedCornerIcon;
-  }
-
-  /*
-   * Creates the foreground image of an icon
-   */
-  private BufferedImage produceForegroundImageIcon(BufferedImage icon) {
-    int imageWidth = icon.getWidth();
-    // According to the adaptive icon documentation, both layers are 108x108dp but only the inner
-    // 72x72dp appears in the masked viewport, so we shrink down the size of the image accordingly.
-    double iconWidth = imageWidth * 72.0 / 108.0;
-    // Round iconWidth value to even int for a centered png
-    int intIconWidth = ((int)Math.round(iconWidth / 2) * 2);
-    Image tmp = icon.getScaledInstance(intIconWidth, intIconWidth, Image.SCALE_SMOOTH);
-    int marginWidth = ((imageWidth - intIconWidth) / 2);
-    BufferedImage foregroundImageIcon = new BufferedImage(imageWidth, imageWidth, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g2 = foregroundImageIcon.createGraphics();
-    g2.drawImage(tmp, marginWidth, marginWidth, null);
-    return foregroundImageIcon;
-  }
-
   /*
    * Loads the icon for the application, either a user provided one or the default one.
    */
   private boolean prepareApplicationIcon(File outputPngFile, List<File> mipmapDirectories, List<Integer> standardICSizes, List<Integer> foregroundICSizes) {
     String userSpecifiedIcon = Strings.nullToEmpty(project.getIcon());
     try {
-      BufferedImage icon;
+      byte[] iconBytes;
       if (!userSpecifiedIcon.isEmpty()) {
-        File iconFile = new File(project.getAssetsDirectory(), userSpecifiedIcon);
-        icon = ImageIO.read(iconFile);
-        if (icon == null) {
-          // This can happen if the iconFile isn't an image file.
-          // For example, icon is null if the file is a .wav file.
-          // TODO(lizlooney) - This happens if the user specifies a .ico file. We should
-          // fix that.
-          userErrors.print(String.format(ICON_ERROR, userSpecifiedIcon));
-          return false;
-        }
+        iconBytes = Files.toByteArray(new File(project.getAssetsDirectory(), userSpecifiedIcon));
       } else {
         // Load the default image.
-        icon = ImageIO.read(Compiler.class.getResource(DEFAULT_ICON));
-      }
-
-      BufferedImage roundIcon = produceRoundIcon(icon);
-      BufferedImage roundRectIcon = produceRoundedCornerIcon(icon);
-      BufferedImage foregroundIcon = produceForegroundImageIcon(icon);
-
-      // For each mipmap directory, create all types of ic_launcher photos with respective mipmap sizes
-      for(int i=0; i < mipmapDirectories.size(); i++){
-        File mipmapDirectory = mipmapDirectories.get(i);
-        Integer standardSize = standardICSizes.get(i);
-        Integer foregroundSize = foregroundICSizes.get(i);
-
-        BufferedImage round = resizeImage(roundIcon,standardSize,standardSize);
-        BufferedImage roundRect = resizeImage(roundRectIcon,standardSize,standardSize);
-        BufferedImage foreground = resizeImage(foregroundIcon,foregroundSize,foregroundSize);
-
-        File roundIconPng = new File(mipmapDirectory,"ic_launcher_round.png");
-        File roundRectIconPng = new File(mipmapDirectory,"ic_launcher.png");
-        File foregroundPng = new File(mipmapDirectory,"ic_launcher_foreground.png");
-
-        ImageIO.write(round, "png", roundIconPng);
-        ImageIO.write(roundRect, "png", roundRectIconPng);
-        ImageIO.write(foreground, "png", foregroundPng);
+        iconBytes = Resources.toByteArray(Compiler.class.getResource(DEFAULT_ICON));
+      }
+
+      // Create all types of ic_launcher photos in each mipmap directory with respective sizes
+      IconRenditions renditions = new IconRenditions(
+          dexCacheDir == null ? null : new File(dexCacheDir, ICON_CACHE_DIR_NAME));
+      if (!renditions.render(iconBytes, outputPngFile, mipmapDirectories, standardICSizes,
+          foregroundICSizes)) {
+        // render returns false if the iconFile can't be decoded as an image,
+        // e.g., if it is a .wav file.
+        // TODO(lizlooney) - This happens if the user specifies a .ico file. We should
+        // fix that.
+        userErrors.print(String.format(ICON_ERROR, userSpecifiedIcon));
+        return false;
       }
-      ImageIO.write(icon, "png", outputPngFile);
     } catch (Exception e) {
       e.printStackTrace();
       // If the user specified the icon, this is fatal.
@@ -2394,6 +2260,12 @@ public final class Compiler {
     aaptPackageCommandLineArgs.add("package");
     aaptPackageCommandLineArgs.add("-v");
     aaptPackageCommandLineArgs.add("-f");
+    // Store media that is already compressed, as the app bundle does, so
+    // that it can be read from the apk in place
+    for (String extension : AabCompiler.getNoncompressibleExtensions()) {
+      aaptPackageCommandLineArgs.add("-0");
+      aaptPackageCommandLineArgs.add(extension);
+    }
     aaptPackageCommandLineArgs.add("-M");
     aaptPackageCommandLineArgs.add(manifestFile.getAbsolutePath());
     aaptPackageCommandLineArgs.add("-S");
@@ -2468,7 +2340,6 @@ public final class Compiler {
     libSetup();                 // Setup /tmp/lib64 on Linux
 
     List<String> aapt2CommandLine = new ArrayList<>();
-    aapt2CommandLine.add(getResource(aapt2Tool));
     aapt2CommandLine.add("compile");
     aapt2CommandLine.add("--dir");
     aapt2CommandLine.add(mergedResDir.getAbsolutePath());
@@ -2476,10 +2347,9 @@ public final class Compiler {
     aapt2CommandLine.add(resourcesZip.getAbsolutePath());
     aapt2CommandLine.add("--no-crunch");
     aapt2CommandLine.add("-v");
-    String[] aapt2CompileCommandLine = aapt2CommandLine.toArray(new String[0]);
 
     long startAapt2 = System.currentTimeMillis();
-    if (!Execution.execute(null, aapt2CompileCommandLine, System.out, System.err)) {
+    if (!compileResources(getResource(aapt2Tool), aapt2CommandLine, resDir)) {
       LOG.warning("YAIL compiler - AAPT2 compile execution failed.");
       err.println("YAIL compiler - AAPT2 compile execution failed.");
       userErrors.print(String.format(ERROR_IN_STAGE, "AAPT2 compile"));
@@ -2510,7 +2380,6 @@ public final class Compiler {
     appRTxt = new File(symbolOutputDir, "R.txt");
 
     List<String> aapt2CommandLine = new ArrayList<>();
-    aapt2CommandLine.add(getResource(aapt2Tool));
     aapt2CommandLine.add("link");
     aapt2CommandLine.add("--proto-format");
     aapt2CommandLine.add("-o");
@@ -2531,10 +2400,9 @@ public final class Compiler {
     aapt2CommandLine.add("--no-version-transitions");
     aapt2CommandLine.add("--no-resource-deduping");
     aapt2CommandLine.add("-v");
-    String[] aapt2LinkCommandLine = aapt2CommandLine.toArray(new String[0]);
 
     long startAapt2 = System.currentTimeMillis();
-    if (!Execution.execute(null, aapt2LinkCommandLine, System.out, System.err)) {
+    if (!runAapt2(getResource(aapt2Tool), aapt2CommandLine)) {
       LOG.warning("YAIL compiler - AAPT2 link execution failed.");
       err.println("YAIL compiler - AAPT2 link execution failed.");
       userErrors.print(String.format(ERROR_IN_STAGE, "AAPT2 link"));
@@ -2547,6 +2415,58 @@ public final class Compiler {
     return true;
   }
 
+  /*
+   * Runs an aapt2 command on a resident aapt2 daemon. If no daemon can be
+   * started, aapt2 is run as a separate process as before.
+   */
+  private boolean runAapt2(String aapt2Tool, List<String> args) {
+    Aapt2Daemon daemon;
+    try {
+      daemon = Aapt2Daemon.acquire(aapt2Tool);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to start aapt2 daemon", e);
+      List<String> commandLine = new ArrayList<>();
+      commandLine.add(aapt2Tool);
+      commandLine.addAll(args);
+      return Execution.execute(null, commandLine.toArray(new String[0]), System.out, System.err);
+    }
+    try {
+      return daemon.execute(args, System.err);
+    } finally {
+      daemon.release();
+    }
+  }
+
+  /*
+   * Compiles the merged resources into resourcesZip. When there is a cache
+   * directory, each resource is compiled on its own and files compiled by
+   * earlier builds are reused; otherwise the given "compile --dir" command
+   * is run.
+   */
+  private boolean compileResources(String aapt2Tool, List<String> args, File resDir) {
+    if (dexCacheDir == null) {
+      return runAapt2(aapt2Tool, args);
+    }
+    Aapt2Daemon daemon;
+    try {
+      daemon = Aapt2Daemon.acquire(aapt2Tool);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to start aapt2 daemon", e);
+      return runAapt2(aapt2Tool, args);
+    }
+    try {
+      CompiledResourceCache cache =
+          new CompiledResourceCache(new File(dexCacheDir, AAPT2_CACHE_DIR_NAME), aapt2Tool);
+      return cache.compile(daemon, mergedResDir, resourcesZip, createDir(resDir, "compiled"),
+          System.err);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to compile resources", e);
+      return false;
+    } finally {
+      daemon.release();
+    }
+  }
+
   private boolean bundleTool(File buildDir, String tmpPackageName,
                              String outputFileName, File deployDir, String keystoreFilePath, String dexedClassesDir) {
     try {
@@ -2915,32 +2835,6 @@ public final class Compiler {
     }
   }
 
-  /**
-   * Copy one file to another. If destination file does not exist, it is created.
-   *
-   * @param srcPath absolute path to source file
-   * @param dstPath absolute path to destination file
-   * @return  {@code true} if the copy succeeds, {@code false} otherwise
-   */
-  private static Boolean copyFile(String srcPath, String dstPath) {
-    try {
-      FileInputStream in = new FileInputStream(srcPath);
-      FileOutputStream out = new FileOutputStream(dstPath);
-      byte[] buf = new byte[1024];
-      int len;
-      while ((len = in.read(buf)) > 0) {
-        out.write(buf, 0, len);
-      }
-      in.close();
-      out.close();
-    }
-    catch (IOException e) {
-      e.printStackTrace();
-      return false;
-    }
-    return true;
-  }
-
   /**
    * Creates a new directory (if it doesn't exist already).
    *
@@ -0,0 +1,355 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Renders the launcher icons of an app, at every mipmap density, from its
+ * icon image.
+ *
+ * <p>The round, rounded corner and adaptive foreground shapes are drawn once
+ * and then scaled to each density, with the densities rendered and encoded
+ * in parallel. Scaling halves the image with bilinear filtering until it
+ * reaches the target size, which looks like area averaging but costs a
+ * fraction of it.
+ *
+ * <p>When there is a cache directory, the rendered files are kept there
+ * under the hash of the icon, so that rebuilding a project, or building any
+ * project with the default icon, only copies them.
+ */
+final class IconRenditions {
+
+  private static final Logger LOG = Logger.getLogger(IconRenditions.class.getName());
+
+  // Change this whenever the rendering changes, so that older renditions
+  // are no longer used
+  private static final int RENDITION_VERSION = 1;
+
+  private static final String ROUND_ICON = "ic_launcher_round.png";
+  private static final String ROUND_RECT_ICON = "ic_launcher.png";
+  private static final String FOREGROUND_ICON = "ic_launcher_foreground.png";
+
+  private static final ExecutorService RENDER_EXECUTOR = Executors.newFixedThreadPool(
+      Runtime.getRuntime().availableProcessors(),
+      new ThreadFactoryBuilder().setNameFormat("icon-%d").setDaemon(true).build());
+
+  private final File cacheDir;
+
+  /**
+   * Creates a renderer that keeps its renditions in the given directory,
+   * or doesn't keep them if it is null.
+   */
+  IconRenditions(File cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * Writes the icon and its launcher renditions.
+   *
+   * @param iconBytes  the content of the icon image
+   * @param outputPngFile  where the icon is written as png
+   * @param mipmapDirectories  the mipmap directory of each density
+   * @param standardSizes  the size of the round and rounded corner icons
+   *                       for each density
+   * @param foregroundSizes  the size of the foreground icon for each density
+   * @return false if iconBytes isn't an image
+   */
+  boolean render(byte[] iconBytes, File outputPngFile, List<File> mipmapDirectories,
+      List<Integer> standardSizes, List<Integer> foregroundSizes) throws IOException {
+    File entryDir = null;
+    if (cacheDir != null) {
+      Hasher hasher = Hashing.sha256().newHasher()
+          .putInt(RENDITION_VERSION)
+          .putBytes(iconBytes);
+      for (int i = 0; i < mipmapDirectories.size(); i++) {
+        hasher.putString(mipmapDirectories.get(i).getName(), Charsets.UTF_8)
+            .putInt(standardSizes.get(i))
+            .putInt(foregroundSizes.get(i));
+      }
+      entryDir = new File(cacheDir, hasher.hash().toString());
+      if (copyFromCache(entryDir, outputPngFile, mipmapDirectories)) {
+        LOG.info("Using cached icon renditions " + entryDir.getName());
+        return true;
+      }
+    }
+
+    BufferedImage icon = ImageIO.read(new ByteArrayInputStream(iconBytes));
+    if (icon == null) {
+      return false;
+    }
+    renderAll(icon, outputPngFile, mipmapDirectories, standardSizes, foregroundSizes);
+    if (entryDir != null) {
+      addToCache(entryDir, outputPngFile, mipmapDirectories);
+    }
+    return true;
+  }
+
+  private void renderAll(final BufferedImage icon, final File outputPngFile,
+      List<File> mipmapDirectories, List<Integer> standardSizes, List<Integer> foregroundSizes)
+      throws IOException {
+    // The shapes are drawn at twice the largest rendition at most, which
+    // loses nothing once they are scaled down
+    int maxSize = 0;
+    for (int i = 0; i < mipmapDirectories.size(); i++) {
+      maxSize = Math.max(maxSize, Math.max(standardSizes.get(i), foregroundSizes.get(i)));
+    }
+    final int workingWidth = Math.min(icon.getWidth(), 2 * maxSize);
+
+    List<Callable<BufferedImage>> shapeTasks = new ArrayList<Callable<BufferedImage>>();
+    shapeTasks.add(new Callable<BufferedImage>() {
+      @Override
+      public BufferedImage call() {
+        return produceRoundIcon(icon, workingWidth);
+      }
+    });
+    shapeTasks.add(new Callable<BufferedImage>() {
+      @Override
+      public BufferedImage call() {
+        return produceRoundedCornerIcon(icon, workingWidth);
+      }
+    });
+    shapeTasks.add(new Callable<BufferedImage>() {
+      @Override
+      public BufferedImage call() {
+        return produceForegroundImageIcon(icon, workingWidth);
+      }
+    });
+    List<BufferedImage> shapes = invokeAll(shapeTasks);
+    BufferedImage roundIcon = shapes.get(0);
+    BufferedImage roundRectIcon = shapes.get(1);
+    BufferedImage foregroundIcon = shapes.get(2);
+
+    List<Callable<Void>> writeTasks = new ArrayList<Callable<Void>>();
+    writeTasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        ImageIO.write(icon, "png", outputPngFile);
+        return null;
+      }
+    });
+    for (int i = 0; i < mipmapDirectories.size(); i++) {
+      File mipmapDirectory = mipmapDirectories.get(i);
+      int standardSize = standardSizes.get(i);
+      int foregroundSize = foregroundSizes.get(i);
+      writeTasks.add(newWriteTask(roundIcon, standardSize,
+          new File(mipmapDirectory, ROUND_ICON)));
+      writeTasks.add(newWriteTask(roundRectIcon, standardSize,
+          new File(mipmapDirectory, ROUND_RECT_ICON)));
+      writeTasks.add(newWriteTask(foregroundIcon, foregroundSize,
+          new File(mipmapDirectory, FOREGROUND_ICON)));
+    }
+    invokeAll(writeTasks);
+  }
+
+  private static Callable<Void> newWriteTask(final BufferedImage image, final int size,
+      final File output) {
+    return new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        ImageIO.write(scale(image, size, size), "png", output);
+        return null;
+      }
+    };
+  }
+
+  private static <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<T>();
+    try {
+      for (Future<T> future : RENDER_EXECUTOR.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while rendering icons", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Unable to render icons", e.getCause());
+    }
+    return results;
+  }
+
+  /*
+   * Copies the cached renditions to their destinations. Returns false if the
+   * cache doesn't have all of them.
+   */
+  private static boolean copyFromCache(File entryDir, File outputPngFile,
+      List<File> mipmapDirectories) throws IOException {
+    if (!entryDir.isDirectory()) {
+      return false;
+    }
+    List<File> sources = new ArrayList<File>();
+    List<File> targets = new ArrayList<File>();
+    sources.add(new File(entryDir, outputPngFile.getName()));
+    targets.add(outputPngFile);
+    for (File mipmapDirectory : mipmapDirectories) {
+      File cachedDirectory = new File(entryDir, mipmapDirectory.getName());
+      for (String name : new String[] { ROUND_ICON, ROUND_RECT_ICON, FOREGROUND_ICON }) {
+        sources.add(new File(cachedDirectory, name));
+        targets.add(new File(mipmapDirectory, name));
+      }
+    }
+    for (File source : sources) {
+      if (!source.isFile()) {
+        return false;
+      }
+    }
+    for (int i = 0; i < sources.size(); i++) {
+      Files.copy(sources.get(i), targets.get(i));
+    }
+    return true;
+  }
+
+  /*
+   * Copies the renditions of a build into the cache. They are gathered in a
+   * scratch directory that is then renamed, so that other builds never see
+   * a partial entry.
+   */
+  private void addToCache(File entryDir, File outputPngFile, List<File> mipmapDirectories) {
+    File tmpDir = null;
+    try {
+      cacheDir.mkdirs();
+      tmpDir = File.createTempFile(entryDir.getName(), ".tmp", cacheDir);
+      if (!tmpDir.delete() || !tmpDir.mkdir()) {
+        throw new IOException("Cannot create " + tmpDir);
+      }
+      Files.copy(outputPngFile, new File(tmpDir, outputPngFile.getName()));
+      for (File mipmapDirectory : mipmapDirectories) {
+        File cachedDirectory = new File(tmpDir, mipmapDirectory.getName());
+        cachedDirectory.mkdir();
+        for (String name : new String[] { ROUND_ICON, ROUND_RECT_ICON, FOREGROUND_ICON }) {
+          Files.copy(new File(mipmapDirectory, name), new File(cachedDirectory, name));
+        }
+      }
+      // Another build may have cached the same icon meanwhile; either copy will do.
+      if (tmpDir.renameTo(entryDir)) {
+        tmpDir = null;
+      }
+    } catch (IOException e) {
+      LOG.warning("Unable to cache icon renditions: " + e.getMessage());
+    } finally {
+      if (tmpDir != null) {
+        FileUtils.deleteQuietly(tmpDir);
+      }
+    }
+  }
+
+  /**
+   * Returns the image scaled to the given size. Downscaling halves the image
+   * until it is less than twice the target size, so that bilinear filtering
+   * still takes every source pixel into account.
+   */
+  @VisibleForTesting
+  static BufferedImage scale(BufferedImage image, int width, int height) {
+    BufferedImage current = image;
+    int currentWidth = image.getWidth();
+    int currentHeight = image.getHeight();
+    do {
+      currentWidth = currentWidth >= 2 * width ? currentWidth / 2 : width;
+      currentHeight = currentHeight >= 2 * height ? currentHeight / 2 : height;
+      BufferedImage scaled =
+          new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g2 = scaled.createGraphics();
+      g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+          RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g2.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+      g2.dispose();
+      current = scaled;
+    } while (currentWidth != width || currentHeight != height);
+    return current;
+  }
+
+  /*
+   * Creates the circle image of an icon
+   */
+  @VisibleForTesting
+  static BufferedImage produceRoundIcon(BufferedImage icon, int imageWidth) {
+    // Ratio of icon size to png image size for round icon is 0.80
+    int intIconWidth = evenWidth(imageWidth * 0.80);
+    int marginWidth = ((imageWidth - intIconWidth) / 2);
+    return drawCentered(icon, imageWidth, intIconWidth,
+        new Ellipse2D.Float(marginWidth, marginWidth, intIconWidth, intIconWidth));
+  }
+
+  /*
+   * Creates the image of an icon with rounded corners
+   */
+  @VisibleForTesting
+  static BufferedImage produceRoundedCornerIcon(BufferedImage icon, int imageWidth) {
+    // Ratio of icon size to png image size for roundRect icon is 0.93
+    int intIconWidth = evenWidth(imageWidth * 0.93);
+    int marginWidth = ((imageWidth - intIconWidth) / 2);
+    // Corner radius of roundedCornerIcon needs to be 1/12 of width according to Android material
+    // guidelines
+    float cornerRadius = intIconWidth / 12;
+    return drawCentered(icon, imageWidth, intIconWidth, new RoundRectangle2D.Float(marginWidth,
+        marginWidth, intIconWidth, intIconWidth, cornerRadius, cornerRadius));
+  }
+
+  /*
+   * Creates the foreground image of an icon
+   */
+  @VisibleForTesting
+  static BufferedImage produceForegroundImageIcon(BufferedImage icon, int imageWidth) {
+    // According to the adaptive icon documentation, both layers are 108x108dp but only the inner
+    // 72x72dp appears in the masked viewport, so we shrink down the size of the image accordingly.
+    return drawCentered(icon, imageWidth, evenWidth(imageWidth * 72.0 / 108.0), null);
+  }
+
+  /*
+   * Rounds a width to an even int, for a centered png
+   */
+  private static int evenWidth(double width) {
+    return (int) Math.round(width / 2) * 2;
+  }
+
+  /*
+   * Draws the icon scaled to iconWidth in the middle of an imageWidth square,
+   * inside the given clip if there is one.
+   */
+  private static BufferedImage drawCentered(BufferedImage icon, int imageWidth, int iconWidth,
+      Shape clip) {
+    BufferedImage scaled = scale(icon, iconWidth, iconWidth);
+    int marginWidth = ((imageWidth - iconWidth) / 2);
+    BufferedImage result = new BufferedImage(imageWidth, imageWidth, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2 = result.createGraphics();
+    if (clip != null) {
+      g2.setClip(clip);
+    }
+    g2.drawImage(scaled, marginWidth, marginWidth, null);
+    g2.dispose();
+    return result;
+  }
+}
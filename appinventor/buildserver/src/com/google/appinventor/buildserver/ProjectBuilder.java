@@ -14,9 +14,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
-import com.google.common.io.InputSupplier;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
@@ -24,19 +25,27 @@ import org.codehaus.jettison.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -74,12 +83,22 @@ public final class ProjectBuilder {
       YoungAndroidConstants.FORM_PROPERTIES_EXTENSION;
   private static final String YAIL_EXTENSION = YoungAndroidConstants.YAIL_EXTENSION;
 
-  private static final String CODEBLOCKS_SOURCE_EXTENSION =
-      YoungAndroidConstants.CODEBLOCKS_SOURCE_EXTENSION;
+  private static final String BLOCKLY_SOURCE_EXTENSION =
+      YoungAndroidConstants.BLOCKLY_SOURCE_EXTENSION;
 
   private static final String ALL_COMPONENT_TYPES =
       Compiler.RUNTIME_FILES_DIR + "simple_components.txt";
 
+  // Threads that write the extracted project files, shared by all builds
+  private static final ExecutorService EXTRACT_EXECUTOR = Executors.newFixedThreadPool(
+      Math.min(4, Runtime.getRuntime().availableProcessors()),
+      new ThreadFactoryBuilder().setNameFormat("extract-%d").setDaemon(true).build());
+
+  // The types of all built-in components, and their name-type map, which
+  // are the same for every build
+  private static Set<String> allComponentTypes;
+  private static Map<String, String> simpleNameTypeMap;
+
   public File getOutputApk() {
     return outputApk;
   }
@@ -134,9 +153,9 @@ public final class ProjectBuilder {
       File projectRoot = createNewTempDir();
       LOG.info("temporary project root: " + projectRoot.getAbsolutePath());
       try {
-        List<String> sourceFiles;
+        ProjectSources sources;
         try {
-          sourceFiles = extractProjectFiles(inputZip, projectRoot);
+          sources = extractProjectFiles(inputZip, projectRoot);
         } catch (IOException e) {
           LOG.severe("unexpected problem extracting project file from zip");
           return Result.createFailingResult("", "Problems processing zip file.");
@@ -161,7 +180,7 @@ public final class ProjectBuilder {
         ByteArrayOutputStream errors = new ByteArrayOutputStream();
         PrintStream userErrors = new PrintStream(errors);
 
-        Set<String> componentTypes = getComponentTypes(sourceFiles, project.getAssetsDirectory());
+        Set<String> componentTypes = getComponentTypes(sources, project.getAssetsDirectory());
         if (isForCompanion) {
           componentTypes.addAll(getAllComponentTypes());
         }
@@ -169,7 +188,7 @@ public final class ProjectBuilder {
           System.err.println("Including extension: " + Arrays.toString(extraExtensions));
           Collections.addAll(componentTypes, extraExtensions);
         }
-        Map<String, Set<String>> componentBlocks = getComponentBlocks(sourceFiles);
+        Map<String, Set<String>> componentBlocks = getComponentBlocks(sources);
 
         // Invoke YoungAndroid compiler
         boolean success =
@@ -218,51 +237,104 @@ public final class ProjectBuilder {
     }
   }
 
-  private static Set<String> getAllComponentTypes() throws IOException {
-    Set<String> compSet = Sets.newHashSet();
-    String[] components = Resources.toString(
-        ProjectBuilder.class.getResource(ALL_COMPONENT_TYPES), Charsets.UTF_8).split("\n");
-    for (String component : components) {
-      compSet.add(component);
+  private static synchronized Set<String> getAllComponentTypes() throws IOException {
+    if (allComponentTypes == null) {
+      Set<String> compSet = Sets.newHashSet();
+      String[] components = Resources.toString(
+          ProjectBuilder.class.getResource(ALL_COMPONENT_TYPES), Charsets.UTF_8).split("\n");
+      for (String component : components) {
+        compSet.add(component);
+      }
+      allComponentTypes = Collections.unmodifiableSet(compSet);
     }
-    return compSet;
+    return allComponentTypes;
+  }
+
+  /**
+   * The content of the form (.scm) and blocks (.bky) files of a project, by
+   * path. It is kept in memory as the files are extracted so that they don't
+   * have to be read back to find the components and blocks the project uses.
+   */
+  @VisibleForTesting
+  static final class ProjectSources {
+    final Map<String, String> formSources = new LinkedHashMap<>();
+    final Map<String, String> blocksSources = new LinkedHashMap<>();
   }
 
-  private ArrayList<String> extractProjectFiles(ZipFile inputZip, File projectRoot)
+  /**
+   * Extracts the project files from the zip into projectRoot in a single
+   * pass. Form and blocks files are read into memory on the way; all other
+   * files are streamed straight to disk on the extraction threads, so the
+   * memory used doesn't depend on the size of the assets.
+   */
+  @VisibleForTesting
+  static ProjectSources extractProjectFiles(final ZipFile inputZip, File projectRoot)
       throws IOException {
-    ArrayList<String> projectFileNames = Lists.newArrayList();
-    Enumeration<? extends ZipEntry> inputZipEnumeration = inputZip.entries();
-    while (inputZipEnumeration.hasMoreElements()) {
-      ZipEntry zipEntry = inputZipEnumeration.nextElement();
-      final InputStream extractedInputStream = inputZip.getInputStream(zipEntry);
-      File extractedFile = new File(projectRoot, zipEntry.getName());
-      LOG.info("extracting " + extractedFile.getAbsolutePath() + " from input zip");
-      Files.createParentDirs(extractedFile); // Do I need this?
-      Files.copy(
-          new InputSupplier<InputStream>() {
-            public InputStream getInput() throws IOException {
-              return extractedInputStream;
+    ProjectSources sources = new ProjectSources();
+    List<Future<?>> writes = Lists.newArrayList();
+    try {
+      Enumeration<? extends ZipEntry> inputZipEnumeration = inputZip.entries();
+      while (inputZipEnumeration.hasMoreElements()) {
+        final ZipEntry zipEntry = inputZipEnumeration.nextElement();
+        final File extractedFile = new File(projectRoot, zipEntry.getName());
+        String fileName = extractedFile.getPath();
+        LOG.info("extracting " + extractedFile.getAbsolutePath() + " from input zip");
+        Files.createParentDirs(extractedFile);
+        if (fileName.endsWith(FORM_PROPERTIES_EXTENSION)
+            || fileName.endsWith(BLOCKLY_SOURCE_EXTENSION)) {
+          byte[] content;
+          try (InputStream in = inputZip.getInputStream(zipEntry)) {
+            content = ByteStreams.toByteArray(in);
+          }
+          Files.write(content, extractedFile);
+          String text = new String(content, StandardCharsets.UTF_8);
+          if (fileName.endsWith(FORM_PROPERTIES_EXTENSION)) {
+            sources.formSources.put(fileName, text);
+          } else {
+            sources.blocksSources.put(fileName, text);
+          }
+        } else {
+          writes.add(EXTRACT_EXECUTOR.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+              try (InputStream in = inputZip.getInputStream(zipEntry);
+                   OutputStream out = new FileOutputStream(extractedFile)) {
+                ByteStreams.copy(in, out);
+              }
+              return null;
             }
-          },
-          extractedFile);
-      projectFileNames.add(extractedFile.getPath());
+          }));
+        }
+      }
+    } finally {
+      // Wait for every write, even after a failure, so none outlives the zip
+      IOException error = null;
+      for (Future<?> write : writes) {
+        try {
+          write.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          error = new InterruptedIOException("Interrupted while extracting project files");
+        } catch (ExecutionException e) {
+          error = e.getCause() instanceof IOException ? (IOException) e.getCause()
+              : new IOException(e.getCause());
+        }
+      }
+      if (error != null) {
+        throw error;
+      }
     }
-    return projectFileNames;
+    return sources;
   }
 
-  private static Set<String> getComponentTypes(List<String> files, File assetsDir)
+  private static Set<String> getComponentTypes(ProjectSources sources, File assetsDir)
       throws IOException, JSONException {
     Map<String, String> nameTypeMap = createNameTypeMap(assetsDir);
 
     Set<String> componentTypes = Sets.newHashSet();
-    for (String f : files) {
-      if (f.endsWith(".scm")) {
-        File scmFile = new File(f);
-        String scmContent = new String(Files.toByteArray(scmFile),
-            PathUtil.DEFAULT_CHARSET);
-        for (String compName : getTypesFromScm(scmContent)) {
-          componentTypes.add(nameTypeMap.get(compName));
-        }
+    for (String scmContent : sources.formSources.values()) {
+      for (String compName : getTypesFromScm(scmContent)) {
+        componentTypes.add(nameTypeMap.get(compName));
       }
     }
     return componentTypes;
@@ -273,43 +345,34 @@ public final class ProjectBuilder {
    * the project files. Properties specified in the designer are considered
    * blocks for the purposes of this operation.
    *
-   * @param files A list of files contained in the project.
+   * @param sources The sources of the project.
    * @return A mapping of component type names to sets of block names used in
    * the project
-   * @throws IOException if any of the files named in {@code files} cannot be
-   * read
    */
-  private static Map<String, Set<String>> getComponentBlocks(List<String> files)
-      throws IOException {
+  private static Map<String, Set<String>> getComponentBlocks(ProjectSources sources) {
     Map<String, Set<String>> result = new HashMap<>();
-    for (String f : files) {
-      if (f.endsWith(".bky")) {
-        File bkyFile = new File(f);
-        String bkyContent = Files.toString(bkyFile, StandardCharsets.UTF_8);
-        for (Map.Entry<String, Set<String>> entry :
-            FormPropertiesAnalyzer.getComponentBlocksFromBlocksFile(bkyContent).entrySet()) {
-          if (result.containsKey(entry.getKey())) {
-            result.get(entry.getKey()).addAll(entry.getValue());
-          } else {
-            result.put(entry.getKey(), entry.getValue());
-          }
-        }
-      } else if (f.endsWith(".scm")) {
-        File scmFile = new File(f);
-        String scmContent = Files.toString(scmFile, StandardCharsets.UTF_8);
-        for (Map.Entry<String, Set<String>> entry :
-            FormPropertiesAnalyzer.getComponentBlocksFromSchemeFile(scmContent).entrySet()) {
-          if (result.containsKey(entry.getKey())) {
-            result.get(entry.getKey()).addAll(entry.getValue());
-          } else {
-            result.put(entry.getKey(), entry.getValue());
-          }
-        }
-      }
+    for (String bkyContent : sources.blocksSources.values()) {
+      addComponentBlocks(result,
+          FormPropertiesAnalyzer.getComponentBlocksFromBlocksFile(bkyContent));
+    }
+    for (String scmContent : sources.formSources.values()) {
+      addComponentBlocks(result,
+          FormPropertiesAnalyzer.getComponentBlocksFromSchemeFile(scmContent));
     }
     return result;
   }
 
+  private static void addComponentBlocks(Map<String, Set<String>> result,
+      Map<String, Set<String>> blocks) {
+    for (Map.Entry<String, Set<String>> entry : blocks.entrySet()) {
+      if (result.containsKey(entry.getKey())) {
+        result.get(entry.getKey()).addAll(entry.getValue());
+      } else {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   /**
    * In ode code, component names are used to identify a component though the
    * variables storing component names appear to be "type". While there's no
@@ -320,15 +383,7 @@ public final class ProjectBuilder {
    */
   private static Map<String, String> createNameTypeMap(File assetsDir)
       throws IOException, JSONException {
-    Map<String, String> nameTypeMap = Maps.newHashMap();
-
-    JSONArray simpleCompsJson = new JSONArray(Resources.toString(ProjectBuilder.
-        class.getResource("/files/simple_components.json"), Charsets.UTF_8));
-    for (int i = 0; i < simpleCompsJson.length(); ++i) {
-      JSONObject simpleCompJson = simpleCompsJson.getJSONObject(i);
-      nameTypeMap.put(simpleCompJson.getString("name"),
-          simpleCompJson.getString("type"));
-    }
+    Map<String, String> nameTypeMap = Maps.newHashMap(getSimpleNameTypeMap());
 
     File extCompsDir = new File(assetsDir, "external_comps");
     if (!extCompsDir.exists()) {
@@ -363,6 +418,26 @@ public final class ProjectBuilder {
     return nameTypeMap;
   }
 
+  /*
+   * Returns the name-type map of the built-in components, which is read from
+   * simple_components.json once and shared by all builds.
+   */
+  private static synchronized Map<String, String> getSimpleNameTypeMap()
+      throws IOException, JSONException {
+    if (simpleNameTypeMap == null) {
+      Map<String, String> nameTypeMap = Maps.newHashMap();
+      JSONArray simpleCompsJson = new JSONArray(Resources.toString(ProjectBuilder.
+          class.getResource("/files/simple_components.json"), Charsets.UTF_8));
+      for (int i = 0; i < simpleCompsJson.length(); ++i) {
+        JSONObject simpleCompJson = simpleCompsJson.getJSONObject(i);
+        nameTypeMap.put(simpleCompJson.getString("name"),
+            simpleCompJson.getString("type"));
+      }
+      simpleNameTypeMap = Collections.unmodifiableMap(nameTypeMap);
+    }
+    return simpleNameTypeMap;
+  }
+
   static String createKeyStore(String userName, File projectRoot, String keystoreFileName)
       throws IOException {
     File keyStoreFile = new File(projectRoot.getPath(), keystoreFileName);
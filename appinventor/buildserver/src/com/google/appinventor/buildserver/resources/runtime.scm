@@ -104,6 +104,7 @@
 
 (define-alias SimpleForm <com.google.appinventor.components.runtime.Form>)
 (define-alias TypeUtil <com.google.appinventor.components.runtime.util.TypeUtil>)
+(define-alias FrameMonitor <com.google.appinventor.components.runtime.util.FrameMonitor>)
 
 (define (call-Initialize-of-components . component-names)
   ;; Do any inherent/implied initializations
@@ -194,6 +195,7 @@
 ;;; Note: see also %set-expanded-property below
 (define (set-and-coerce-property! component prop-sym property-value property-type)
   (let ((component (coerce-to-component-and-verify component)))
+    (FrameMonitor:propertyChanged component prop-sym)
     (%set-and-coerce-property! component prop-sym property-value property-type)))
 
 ;;; (get-property 'Label1 'Text)
@@ -228,7 +230,9 @@
                  comp-type
                  (*:getSimpleName (*:getClass possible-component)))
          "Problem with application")
-        (%set-and-coerce-property! component prop-sym property-value property-type))))
+        (begin
+          (FrameMonitor:propertyChanged component prop-sym)
+          (%set-and-coerce-property! component prop-sym property-value property-type)))))
 
 ;;; Global variables
 
@@ -981,6 +985,7 @@
 (define-alias Pattern <java.util.regex.Pattern>)
 (define-alias ContinuationUtil <com.google.appinventor.components.runtime.util.ContinuationUtil>)
 (define-alias CsvUtil <com.google.appinventor.components.runtime.util.CsvUtil>)
+(define-alias Profiler <com.google.appinventor.components.runtime.util.Profiler>)
 (define-alias PermissionException <com.google.appinventor.components.runtime.errors.PermissionException>)
 (define-alias StopBlocksExecution <com.google.appinventor.components.runtime.errors.StopBlocksExecution>)
 (define-alias YailRuntimeError <com.google.appinventor.components.runtime.errors.YailRuntimeError>)
@@ -1056,13 +1061,16 @@
         (component (lookup-in-current-form-environment component-name)))
     (let ((result
            (if (all-coercible? coerced-args)
-               (try-catch
-                (apply invoke
-                       `(,component
-                         ,method-name
-                         ,@coerced-args))
-                (exception PermissionException
-                           (*:dispatchPermissionDeniedEvent (SimpleForm:getActiveForm) component method-name exception)))
+               (let ((token (Profiler:enter component-name method-name)))
+                 (try-finally
+                  (try-catch
+                   (apply invoke
+                          `(,component
+                            ,method-name
+                            ,@coerced-args))
+                   (exception PermissionException
+                              (*:dispatchPermissionDeniedEvent (SimpleForm:getActiveForm) component method-name exception)))
+                  (Profiler:exit token)))
                (generate-runtime-type-error method-name arglist))))
       ;; TODO(markf): this should probably be generalized but for now this is OK, I think
       (sanitize-return-value component method-name result))))
@@ -0,0 +1,225 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Tests for {@link Aapt2Daemon} and {@link CompiledResourceCache}, run
+ * against a shell script that speaks the aapt2 daemon protocol.
+ *
+ * <p>The script compiles a resource by copying it, fails on resources
+ * containing "bad" and exits on the "crash" command. It appends a line to
+ * compiles.log for every compile command.
+ *
+ */
+public class Aapt2DaemonTest extends TestCase {
+
+  private static final String STUB_AAPT2 = "#!/bin/sh\n"
+      + "echo Ready\n"
+      + "while true; do\n"
+      + "  set --\n"
+      + "  eof=1\n"
+      + "  while IFS= read -r line; do\n"
+      + "    if [ -z \"$line\" ]; then eof=0; break; fi\n"
+      + "    set -- \"$@\" \"$line\"\n"
+      + "  done\n"
+      + "  [ $eof = 1 ] && exit 0\n"
+      + "  case \"$1\" in\n"
+      + "    crash) exit 1 ;;\n"
+      + "    compile)\n"
+      + "      out=\"$4\"; res=\"$5\"\n"
+      + "      echo \"$res\" >> \"$(dirname \"$0\")/compiles.log\"\n"
+      + "      if grep -q bad \"$res\"; then\n"
+      + "        echo \"$res: error: bad resource\" >&2\n"
+      + "        echo Error >&2\n"
+      + "      else\n"
+      + "        type=$(basename \"$(dirname \"$res\")\")\n"
+      + "        cp \"$res\" \"$out/${type}_$(basename \"$res\").flat\"\n"
+      + "      fi\n"
+      + "      echo Done >&2 ;;\n"
+      + "    *) echo Done >&2 ;;\n"
+      + "  esac\n"
+      + "done\n";
+
+  private File tempDir;
+  private String tool;
+  private ByteArrayOutputStream messages;
+  private PrintStream log;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    tempDir = Files.createTempDir();
+    File script = new File(tempDir, "aapt2");
+    Files.write(STUB_AAPT2, script, StandardCharsets.UTF_8);
+    script.setExecutable(true);
+    tool = script.getAbsolutePath();
+    messages = new ByteArrayOutputStream();
+    log = new PrintStream(messages, true, "UTF-8");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(tempDir);
+    super.tearDown();
+  }
+
+  private static boolean canRunScripts() {
+    return File.separatorChar == '/';
+  }
+
+  public void testExecute() throws IOException {
+    if (!canRunScripts()) {
+      return;
+    }
+    File good = writeResource("values/strings.xml", "<resources/>");
+    File bad = writeResource("values/colors.xml", "bad");
+    File out = new File(tempDir, "out");
+    out.mkdirs();
+    Aapt2Daemon daemon = Aapt2Daemon.acquire(tool);
+    try {
+      assertTrue(daemon.execute(compile(out, good), log));
+      assertTrue(new File(out, "values_strings.xml.flat").isFile());
+      assertFalse(daemon.execute(compile(out, bad), log));
+      assertTrue(getMessages().contains("colors.xml: error: bad resource"));
+      // The daemon is still usable after a failed command
+      assertTrue(daemon.execute(Arrays.asList("version"), log));
+    } finally {
+      daemon.release();
+    }
+  }
+
+  public void testDaemonIsReused() throws IOException {
+    if (!canRunScripts()) {
+      return;
+    }
+    Aapt2Daemon daemon = Aapt2Daemon.acquire(tool);
+    daemon.release();
+    Aapt2Daemon again = Aapt2Daemon.acquire(tool);
+    assertSame(daemon, again);
+    again.release();
+  }
+
+  public void testBrokenDaemonIsDropped() throws IOException {
+    if (!canRunScripts()) {
+      return;
+    }
+    Aapt2Daemon daemon = Aapt2Daemon.acquire(tool);
+    assertFalse(daemon.execute(Arrays.asList("crash"), log));
+    daemon.release();
+    Aapt2Daemon replacement = Aapt2Daemon.acquire(tool);
+    try {
+      assertNotSame(daemon, replacement);
+      assertTrue(replacement.execute(Arrays.asList("version"), log));
+    } finally {
+      replacement.release();
+    }
+  }
+
+  public void testCachedFilesAreReused() throws IOException {
+    if (!canRunScripts()) {
+      return;
+    }
+    File resDir = new File(tempDir, "res");
+    writeResource("res/values/strings.xml", "<resources/>");
+    File icon = writeResource("res/drawable/icon.png", "png");
+    File cacheDir = new File(tempDir, "cache");
+
+    assertTrue(compileAll(resDir, cacheDir, "first"));
+    assertEquals(2, countCompiles());
+    List<String> entries = listZip(new File(tempDir, "first.zip"));
+    assertEquals(Arrays.asList("drawable_icon.png.flat", "values_strings.xml.flat"), entries);
+
+    // Nothing changed, so nothing is compiled again
+    assertTrue(compileAll(resDir, cacheDir, "second"));
+    assertEquals(2, countCompiles());
+    assertEquals(entries, listZip(new File(tempDir, "second.zip")));
+
+    // Only the changed resource is compiled again
+    Files.write("new png", icon, StandardCharsets.UTF_8);
+    assertTrue(compileAll(resDir, cacheDir, "third"));
+    assertEquals(3, countCompiles());
+  }
+
+  public void testCompileReportsEveryFailure() throws IOException {
+    if (!canRunScripts()) {
+      return;
+    }
+    File resDir = new File(tempDir, "res");
+    writeResource("res/values/colors.xml", "bad");
+    writeResource("res/values/strings.xml", "<resources/>");
+    writeResource("res/values/styles.xml", "bad");
+
+    assertFalse(compileAll(resDir, new File(tempDir, "cache"), "build"));
+    assertEquals(3, countCompiles());
+    assertTrue(getMessages().contains("colors.xml: error: bad resource"));
+    assertTrue(getMessages().contains("styles.xml: error: bad resource"));
+  }
+
+  private boolean compileAll(File resDir, File cacheDir, String build) throws IOException {
+    File workDir = new File(tempDir, build);
+    workDir.mkdirs();
+    CompiledResourceCache cache = new CompiledResourceCache(cacheDir, tool);
+    Aapt2Daemon daemon = Aapt2Daemon.acquire(tool);
+    try {
+      return cache.compile(daemon, resDir, new File(tempDir, build + ".zip"), workDir, log);
+    } finally {
+      daemon.release();
+    }
+  }
+
+  private File writeResource(String path, String content) throws IOException {
+    File file = new File(tempDir, path);
+    file.getParentFile().mkdirs();
+    Files.write(content, file, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private static List<String> compile(File out, File resource) {
+    return Arrays.asList("compile", "--no-crunch", "-o", out.getAbsolutePath(),
+        resource.getAbsolutePath());
+  }
+
+  private int countCompiles() throws IOException {
+    File compiles = new File(tempDir, "compiles.log");
+    return compiles.exists() ? Files.readLines(compiles, StandardCharsets.UTF_8).size() : 0;
+  }
+
+  private String getMessages() throws IOException {
+    return messages.toString("UTF-8");
+  }
+
+  private static List<String> listZip(File zip) throws IOException {
+    List<String> names = new ArrayList<String>();
+    ZipFile zipFile = new ZipFile(zip);
+    try {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        names.add(entries.nextElement().getName());
+      }
+    } finally {
+      zipFile.close();
+    }
+    return names;
+  }
+}
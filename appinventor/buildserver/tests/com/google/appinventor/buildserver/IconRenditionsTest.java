@@ -0,0 +1,136 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * Tests for {@link IconRenditions}.
+ *
+ */
+public class IconRenditionsTest extends TestCase {
+
+  private static final List<Integer> STANDARD_SIZES = Arrays.asList(48, 96);
+  private static final List<Integer> FOREGROUND_SIZES = Arrays.asList(108, 216);
+
+  private File tempDir;
+  private File cacheDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    tempDir = Files.createTempDir();
+    cacheDir = new File(tempDir, "icons");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(tempDir);
+    super.tearDown();
+  }
+
+  public void testScale() {
+    BufferedImage image = newIcon(1000);
+    assertSize(48, IconRenditions.scale(image, 48, 48));
+    assertSize(300, IconRenditions.scale(newIcon(100), 300, 300));
+    // A solid image stays solid
+    assertEquals(Color.RED.getRGB(), IconRenditions.scale(image, 48, 48).getRGB(24, 24));
+  }
+
+  public void testShapes() {
+    BufferedImage icon = newIcon(200);
+    BufferedImage round = IconRenditions.produceRoundIcon(icon, 200);
+    assertSize(200, round);
+    assertEquals(0, round.getRGB(25, 25));
+    assertEquals(Color.RED.getRGB(), round.getRGB(100, 100));
+    BufferedImage roundRect = IconRenditions.produceRoundedCornerIcon(icon, 200);
+    assertEquals(0, roundRect.getRGB(2, 2));
+    assertEquals(Color.RED.getRGB(), roundRect.getRGB(30, 30));
+    BufferedImage foreground = IconRenditions.produceForegroundImageIcon(icon, 200);
+    assertEquals(0, foreground.getRGB(20, 20));
+    assertEquals(Color.RED.getRGB(), foreground.getRGB(100, 100));
+  }
+
+  public void testRenderUsesCache() throws IOException {
+    byte[] iconBytes = toPng(newIcon(512));
+    List<File> firstDirs = newMipmapDirs("first");
+    File firstPng = new File(tempDir, "first/ya.png");
+    assertTrue(new IconRenditions(cacheDir).render(iconBytes, firstPng, firstDirs,
+        STANDARD_SIZES, FOREGROUND_SIZES));
+    assertSize(48, ImageIO.read(new File(firstDirs.get(0), "ic_launcher.png")));
+    assertSize(216, ImageIO.read(new File(firstDirs.get(1), "ic_launcher_foreground.png")));
+    assertEquals(1, cacheDir.list().length);
+
+    // The second build copies the cached files
+    List<File> secondDirs = newMipmapDirs("second");
+    File secondPng = new File(tempDir, "second/ya.png");
+    assertTrue(new IconRenditions(cacheDir).render(iconBytes, secondPng, secondDirs,
+        STANDARD_SIZES, FOREGROUND_SIZES));
+    assertEquals(1, cacheDir.list().length);
+    assertTrue(Arrays.equals(Files.toByteArray(firstPng), Files.toByteArray(secondPng)));
+    for (int i = 0; i < firstDirs.size(); i++) {
+      for (String name : firstDirs.get(i).list()) {
+        assertTrue(Arrays.equals(Files.toByteArray(new File(firstDirs.get(i), name)),
+            Files.toByteArray(new File(secondDirs.get(i), name))));
+      }
+    }
+  }
+
+  public void testRenderWithoutCache() throws IOException {
+    List<File> dirs = newMipmapDirs("build");
+    assertTrue(new IconRenditions(null).render(toPng(newIcon(64)),
+        new File(tempDir, "build/ya.png"), dirs, STANDARD_SIZES, FOREGROUND_SIZES));
+    assertEquals(3, dirs.get(1).list().length);
+    assertFalse(cacheDir.exists());
+  }
+
+  public void testRenderNotAnImage() throws IOException {
+    assertFalse(new IconRenditions(cacheDir).render("RIFF".getBytes("UTF-8"),
+        new File(tempDir, "ya.png"), newMipmapDirs("build"), STANDARD_SIZES, FOREGROUND_SIZES));
+  }
+
+  private List<File> newMipmapDirs(String build) {
+    File mdpi = new File(tempDir, build + "/mipmap-mdpi");
+    File xhdpi = new File(tempDir, build + "/mipmap-xhdpi");
+    mdpi.mkdirs();
+    xhdpi.mkdirs();
+    return Arrays.asList(mdpi, xhdpi);
+  }
+
+  private static BufferedImage newIcon(int size) {
+    BufferedImage icon = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2 = icon.createGraphics();
+    g2.setColor(Color.RED);
+    g2.fillRect(0, 0, size, size);
+    g2.dispose();
+    return icon;
+  }
+
+  private static byte[] toPng(BufferedImage image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+
+  private static void assertSize(int size, BufferedImage image) {
+    assertEquals(size, image.getWidth());
+    assertEquals(size, image.getHeight());
+  }
+}
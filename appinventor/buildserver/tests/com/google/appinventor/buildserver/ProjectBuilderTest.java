@@ -0,0 +1,85 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests for {@link ProjectBuilder}.
+ *
+ */
+public class ProjectBuilderTest extends TestCase {
+
+  private File tempDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(tempDir);
+    super.tearDown();
+  }
+
+  public void testExtractProjectFiles() throws IOException {
+    byte[] asset = new byte[256 * 1024];
+    Arrays.fill(asset, (byte) 7);
+    File zip = new File(tempDir, "project.zip");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+    try {
+      addEntry(out, "src/com/example/Test/Screen1.scm", "#|\n$JSON\n{}\n|#".getBytes("UTF-8"));
+      addEntry(out, "src/com/example/Test/Screen1.bky", "<xml></xml>".getBytes("UTF-8"));
+      addEntry(out, "src/com/example/Test/Screen1.yail", "(yail)".getBytes("UTF-8"));
+      addEntry(out, "assets/kitty.png", asset);
+    } finally {
+      out.close();
+    }
+
+    File projectRoot = new File(tempDir, "root");
+    ZipFile zipFile = new ZipFile(zip);
+    ProjectBuilder.ProjectSources sources;
+    try {
+      sources = ProjectBuilder.extractProjectFiles(zipFile, projectRoot);
+    } finally {
+      zipFile.close();
+    }
+
+    // Every file is on disk, and only the sources are kept in memory
+    File scm = new File(projectRoot, "src/com/example/Test/Screen1.scm");
+    File bky = new File(projectRoot, "src/com/example/Test/Screen1.bky");
+    assertEquals("(yail)", Files.toString(
+        new File(projectRoot, "src/com/example/Test/Screen1.yail"), StandardCharsets.UTF_8));
+    assertTrue(Arrays.equals(asset, Files.toByteArray(new File(projectRoot, "assets/kitty.png"))));
+    assertEquals(Files.toString(scm, StandardCharsets.UTF_8),
+        sources.formSources.get(scm.getPath()));
+    assertEquals("<xml></xml>", sources.blocksSources.get(bky.getPath()));
+    assertEquals(1, sources.formSources.size());
+    assertEquals(1, sources.blocksSources.size());
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, byte[] content)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content);
+    out.closeEntry();
+  }
+}
@@ -551,7 +551,23 @@ public class YaVersion {
   // - LISTVIEW_COMPONENT_VERSION was incremented to 6
   // For YOUNG_ANDROID_VERSION 214:
   // - FILE_COMPONENT_VERSION was incremented to 4
-  public static final int YOUNG_ANDROID_VERSION = 213;
+  // For YOUNG_ANDROID_VERSION 215:
+  // - BLUETOOTHCLIENT_COMPONENT_VERSION was incremented to 7.
+  // - BLUETOOTHSERVER_COMPONENT_VERSION was incremented to 6.
+  // For YOUNG_ANDROID_VERSION 216:
+  // - ACCELEROMETERSENSOR_COMPONENT_VERSION was incremented to 6.
+  // - GYROSCOPESENSOR_COMPONENT_VERSION was incremented to 2.
+  // For YOUNG_ANDROID_VERSION 217:
+  // - FILE_COMPONENT_VERSION was incremented to 5.
+  // For YOUNG_ANDROID_VERSION 218:
+  // - CLOCK_COMPONENT_VERSION was incremented to 5.
+  // For YOUNG_ANDROID_VERSION 219:
+  // - CANVAS_COMPONENT_VERSION was incremented to 16.
+  // For YOUNG_ANDROID_VERSION 220:
+  // - CANVAS_COMPONENT_VERSION was incremented to 17.
+  // For YOUNG_ANDROID_VERSION 221:
+  // - FORM_COMPONENT_VERSION was incremented to 31.
+  public static final int YOUNG_ANDROID_VERSION = 221;
 
   // ............................... Blocks Language Version Number ...............................
 
@@ -691,7 +707,10 @@ public class YaVersion {
   // - Added the LegacyMode property.
   // For ACCELEROMERTERSENSOR_COMPONENT_VERSION 5:
   // - Adds Sensitivity dropdown block.
-  public static final int ACCELEROMETERSENSOR_COMPONENT_VERSION = 5;
+  // For ACCELEROMETERSENSOR_COMPONENT_VERSION 6:
+  // - The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+  // - AccelerationChanged is raised at most once per frame.
+  public static final int ACCELEROMETERSENSOR_COMPONENT_VERSION = 6;
 
   // For ACTIVITYSTARTER_COMPONENT_VERSION 2:
   // - The ActivityStarter.DataType, ActivityStarter.ResultType, and ActivityStarter.ResultUri
@@ -740,7 +759,9 @@ public class YaVersion {
   // - The BluetoothClient.Secure property was added.
   // For BLUETOOTHCLIENT_COMPONENT_VERSION 6:
   // - The BluetoothClient.DisconnectOnError property was added.
-  public static final int BLUETOOTHCLIENT_COMPONENT_VERSION = 6;
+  // For BLUETOOTHCLIENT_COMPONENT_VERSION 7:
+  // - The AsyncReceive and FrameLength properties and the DataReceived event were added.
+  public static final int BLUETOOTHCLIENT_COMPONENT_VERSION = 7;
 
   // For BLUETOOTHSERVER_COMPONENT_VERSION 2:
   // - The BluetoothServer.Enabled property was added.
@@ -750,7 +771,9 @@ public class YaVersion {
   // - The BluetoothServer.DelimiterByte property was added.
   // For BLUETOOTHSERVER_COMPONENT_VERSION 5:
   // - The BluetoothServer.Secure property was added.
-  public static final int BLUETOOTHSERVER_COMPONENT_VERSION = 5;
+  // For BLUETOOTHSERVER_COMPONENT_VERSION 6:
+  // - The AsyncReceive and FrameLength properties and the DataReceived event were added.
+  public static final int BLUETOOTHSERVER_COMPONENT_VERSION = 6;
 
   // For BUTTON_COMPONENT_VERSION 2:
   // - The Alignment property was renamed to TextAlignment.
@@ -811,7 +834,13 @@ public class YaVersion {
   // -TapThreshold was added
   // For CANVAS_COMPONENT_VERSION 15
   // - Assets helper block was added.
-  public static final int CANVAS_COMPONENT_VERSION = 15;
+  // For CANVAS_COMPONENT_VERSION 16
+  // - The BatchDrawing property was added.
+  // - The DrawPoints and DrawPolyline methods were added.
+  // For CANVAS_COMPONENT_VERSION 17
+  // - The GetBackgroundPixels, SetBackgroundPixels, ApplyGrayscale, ApplyThreshold,
+  //   ApplyConvolution and BackgroundHistogram methods were added.
+  public static final int CANVAS_COMPONENT_VERSION = 17;
 
   // For CHECKBOX_COMPONENT_VERSION 2:
   // - The Value property was renamed to Checked.
@@ -830,7 +859,11 @@ public class YaVersion {
   // - Duration Support was added
   // For CLOCK_COMPONENT_VERSION 4:
   // - MakeTime, MakeDate, MakeInstantFromParts methods were added
-  public static final int CLOCK_COMPONENT_VERSION = 4;
+  // For CLOCK_COMPONENT_VERSION 5:
+  // - The TimerFixedRate, TimerCatchUp, TimerAverageLateness, TimerMaxLateness and
+  //   TimerMissedTicks properties were added
+  // - The ResetTimerStatistics method was added
+  public static final int CLOCK_COMPONENT_VERSION = 5;
 
   // For CONTACTPICKER_COMPONENT_VERSION 2:
   // - The Alignment property was renamed to TextAlignment.
@@ -881,7 +914,10 @@ public class YaVersion {
   // - The ReadPermission property was added.
   // - The WritePermission property was added.
   // - The LegacyMode property was removed. Use DefaultScope instead.
-  public static final int FILE_COMPONENT_VERSION = 4;
+  // For FILE_COMPONENT_VERSION 5:
+  // - The ReadLines and ReadRange methods were added.
+  // - The GotLines and GotRange events were added.
+  public static final int FILE_COMPONENT_VERSION = 5;
 
   // For FORM_COMPONENT_VERSION 2:
   // - The Screen.Scrollable property was added.
@@ -955,7 +991,9 @@ public class YaVersion {
   // - Adds Permission dropdown block.
   // For FORM_COMPONENT_VERSION 30:
   // - Add DefaultFileScope designer property.
-  public static final int FORM_COMPONENT_VERSION = 30;
+  // For FORM_COMPONENT_VERSION 31:
+  // - The StartProfiling, StopProfiling and SaveProfile methods were added.
+  public static final int FORM_COMPONENT_VERSION = 31;
 
   // For FUSIONTABLESCONTROL_COMPONENT_VERSION 2:
   // - The Fusiontables API was migrated from SQL to V1
@@ -970,7 +1008,10 @@ public class YaVersion {
 
   public static final int GAMECLIENT_COMPONENT_VERSION = 1;
 
-  public static final int GYROSCOPESENSOR_COMPONENT_VERSION = 1;
+  // For GYROSCOPESENSOR_COMPONENT_VERSION 2:
+  // - The SampleRate and ReportLatency properties and the SamplesReceived event were added.
+  // - GyroscopeChanged is raised at most once per frame.
+  public static final int GYROSCOPESENSOR_COMPONENT_VERSION = 2;
 
   // For HORIZONTALARRANGEMENT_COMPONENT_VERSION 2:
   // - The AlignHorizontal property was added
@@ -1531,11 +1572,11 @@ public class YaVersion {
 
   public static final String ACCEPTABLE_COMPANION_PACKAGE = "edu.mit.appinventor.aicompanion3";
 
-  public static final String PREFERRED_COMPANION = "2.62";
+  public static final String PREFERRED_COMPANION = "2.63";
   public static final String COMPANION_UPDATE_URL = "";
   public static final String COMPANION_UPDATE_URL1 = "";
   public static final String COMPANION_UPDATE_EMULATOR_URL = "";
-  public static final String [] ACCEPTABLE_COMPANIONS = { "2.62", "2.62u" };
+  public static final String [] ACCEPTABLE_COMPANIONS = { "2.63", "2.63u" };
 
   // Splash Screen Values
   public static final int SPLASH_SURVEY = 1;
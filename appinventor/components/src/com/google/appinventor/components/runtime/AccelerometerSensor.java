@@ -32,6 +32,8 @@ import com.google.appinventor.components.common.Sensitivity;
 import com.google.appinventor.components.common.YaVersion;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.SdkLevel;
+import com.google.appinventor.components.runtime.util.SensorPipeline;
+import com.google.appinventor.components.runtime.util.YailList;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -91,7 +93,8 @@ import java.util.Queue;
     iconName = "images/accelerometersensor.png")
 @SimpleObject
 public class AccelerometerSensor extends AndroidNonvisibleComponent
-    implements OnPauseListener, OnResumeListener, SensorComponent, SensorEventListener, Deleteable {
+    implements OnPauseListener, OnResumeListener, SensorComponent, SensorEventListener, Deleteable,
+    SensorPipeline.Callback {
 
   // Logging and Debugging
   private final static String LOG_TAG = "AccelerometerSensor";
@@ -133,6 +136,9 @@ public class AccelerometerSensor extends AndroidNonvisibleComponent
 
   private Sensor accelerometerSensor;
 
+  // Coalesces samples into at most one AccelerationChanged event per frame
+  private final SensorPipeline pipeline;
+
   // Set to true to disable landscape mode tablet fix
   private boolean legacyMode = false;
 
@@ -155,6 +161,8 @@ public class AccelerometerSensor extends AndroidNonvisibleComponent
     sensorManager = (SensorManager) container.$context().getSystemService(Context.SENSOR_SERVICE);
     accelerometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
     androidUIHandler = new Handler();
+    pipeline = new SensorPipeline(sensorManager, accelerometerSensor, this,
+        SensorManager.SENSOR_DELAY_GAME, this);
     startListening();
     MinimumInterval(400);
     SensitivityAbstract(Sensitivity.Moderate);
@@ -246,7 +254,55 @@ public class AccelerometerSensor extends AndroidNonvisibleComponent
   }
 
   /**
-   * Indicates the acceleration changed in the X, Y, and/or Z dimensions.
+   * Returns the number of samples per second requested from the accelerometer, or 0 for the
+   * default rate.
+   */
+  @SimpleProperty(
+      category = PropertyCategory.BEHAVIOR)
+  public int SampleRate() {
+    return pipeline.getSampleRate();
+  }
+
+  /**
+   * Specifies the number of samples per second to request from the accelerometer, or 0 for the
+   * default rate. The device may deliver samples faster or slower than requested.
+   *
+   * @param sampleRate  the requested number of samples per second
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void SampleRate(int sampleRate) {
+    pipeline.setSampleRate(sampleRate);
+  }
+
+  /**
+   * Returns how long, in milliseconds, samples may be held before they are reported.
+   */
+  @SimpleProperty(
+      category = PropertyCategory.BEHAVIOR)
+  public int ReportLatency() {
+    return pipeline.getReportLatency();
+  }
+
+  /**
+   * Specifies how long, in milliseconds, samples may be held before they are reported. If
+   * greater than 0, every sample is delivered through the {@link #SamplesReceived} event and, on
+   * devices that support it, the sensor collects samples in hardware while the processor sleeps,
+   * which saves battery.
+   *
+   * @param reportLatency  the longest time in ms to hold a sample
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void ReportLatency(int reportLatency) {
+    pipeline.setReportLatency(reportLatency);
+  }
+
+  /**
+   * Indicates the acceleration changed in the X, Y, and/or Z dimensions. The event is raised at
+   * most once per screen refresh, with the latest acceleration.
    */
   @SimpleEvent
   public void AccelerationChanged(float xAccel, float yAccel, float zAccel) {
@@ -254,6 +310,25 @@ public class AccelerometerSensor extends AndroidNonvisibleComponent
     this.yAccel = yAccel;
     this.zAccel = zAccel;
 
+    EventDispatcher.dispatchEvent(this, "AccelerationChanged", xAccel, yAccel, zAccel);
+  }
+
+  /**
+   * Indicates that accelerometer samples have been received while
+   * {@link #ReportLatency(int)} is greater than 0. Each parameter is a list with one entry per
+   * sample, oldest first: the acceleration in the X, Y and Z dimensions, and the times in
+   * nanoseconds at which the samples were taken.
+   */
+  @SimpleEvent
+  public void SamplesReceived(YailList xAccels, YailList yAccels, YailList zAccels,
+      YailList timestamps) {
+    EventDispatcher.dispatchEvent(this, "SamplesReceived", xAccels, yAccels, zAccels, timestamps);
+  }
+
+  /*
+   * Checks every sample for shaking, including those that don't raise AccelerationChanged.
+   */
+  private void detectShaking(float xAccel, float yAccel, float zAccel) {
     addToSensorCache(X_CACHE, xAccel);
     addToSensorCache(Y_CACHE, yAccel);
     addToSensorCache(Z_CACHE, zAccel);
@@ -267,8 +342,6 @@ public class AccelerometerSensor extends AndroidNonvisibleComponent
       timeLastShook = currentTime;
       Shaking();
     }
-
-    EventDispatcher.dispatchEvent(this, "AccelerationChanged", xAccel, yAccel, zAccel);
   }
 
 public int getDeviceDefaultOrientation() {
@@ -345,12 +418,12 @@ public int getDeviceDefaultOrientation() {
         }
       }, 32);                   // Wait 32ms for the UI to settle down
 
-    sensorManager.registerListener(this, accelerometerSensor, SensorManager.SENSOR_DELAY_GAME);
+    pipeline.start();
   }
 
   // Assumes that sensorManager has been initialized, which happens in constructor
   private void stopListening() {
-    sensorManager.unregisterListener(this);
+    pipeline.stop();
   }
 
   /**
@@ -488,7 +561,8 @@ public int getDeviceDefaultOrientation() {
       }
       zAccel = values[2];
       accuracy = sensorEvent.accuracy;
-      AccelerationChanged(xAccel, yAccel, zAccel);
+      detectShaking(xAccel, yAccel, zAccel);
+      pipeline.add(xAccel, yAccel, zAccel, sensorEvent.timestamp);
     }
   }
 
@@ -497,6 +571,17 @@ public int getDeviceDefaultOrientation() {
     // TODO(markf): Figure out if we actually need to do something here.
   }
 
+  // SensorPipeline.Callback implementation
+
+  @Override
+  public void flush(SensorPipeline pipeline) {
+    if (pipeline.size() > 0) {
+      SamplesReceived(pipeline.xValues(), pipeline.yValues(), pipeline.zValues(),
+          pipeline.timestamps());
+    }
+    AccelerationChanged(pipeline.lastX(), pipeline.lastY(), pipeline.lastZ());
+  }
+
   // OnResumeListener implementation
 
   @Override
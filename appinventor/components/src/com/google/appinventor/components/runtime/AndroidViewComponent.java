@@ -13,10 +13,19 @@ import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.annotations.SimplePropertyCopier;
 import com.google.appinventor.components.common.ComponentConstants;
 import com.google.appinventor.components.common.PropertyTypeConstants;
+import com.google.appinventor.components.runtime.util.AsyncCallbackPair;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
+import com.google.appinventor.components.runtime.util.MediaUtil;
 
+import android.graphics.drawable.BitmapDrawable;
 import android.view.View;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Underlying base class for all components with views; not accessible to Simple programmers.
  * <p>
@@ -36,6 +45,10 @@ public abstract class AndroidViewComponent extends VisibleComponent {
   private int column = ComponentConstants.DEFAULT_ROW_COLUMN;
   private int row = ComponentConstants.DEFAULT_ROW_COLUMN;
 
+  // Work deferred until this component is shown, keyed by component and property so that only
+  // the latest value of a property set while hidden is materialized.
+  private Map<List<Object>, Runnable> deferredUntilShown;
+
   /**
    * Creates a new AndroidViewComponent.
    *
@@ -74,6 +87,61 @@ public abstract class AndroidViewComponent extends VisibleComponent {
     // The principle of least astonishment suggests we not offer the
     // Android option INVISIBLE.
     getView().setVisibility(visibility ? View.VISIBLE : View.GONE);
+    if (visibility && deferredUntilShown != null) {
+      Collection<Runnable> deferred = deferredUntilShown.values();
+      deferredUntilShown = null;
+      for (Runnable action : deferred) {
+        action.run();
+      }
+    }
+  }
+
+  /**
+   * Loads the image for a property of this component, as
+   * {@link MediaUtil#loadBitmapDrawable(Form, String, AsyncCallbackPair)} does. While this
+   * component or one of the arrangements containing it is hidden, the image is only loaded once
+   * they are all shown, so that hidden panels of a screen cost neither time nor memory until
+   * they are used. Only the image of the latest value of the property is loaded.
+   *
+   * @param property the name of the property
+   * @param path the path of the image
+   * @param continuation receives the image
+   */
+  protected void loadImageWhenShown(String property, final String path,
+      final AsyncCallbackPair<BitmapDrawable> continuation) {
+    runWhenShown(property, new Runnable() {
+      @Override
+      public void run() {
+        MediaUtil.loadBitmapDrawable(container.$form(), path, continuation);
+      }
+    });
+  }
+
+  private void runWhenShown(final String property, final Runnable action) {
+    AndroidViewComponent hidden = null;
+    for (Object c = this; c instanceof AndroidViewComponent;
+        c = ((AndroidViewComponent) c).container) {
+      if (((AndroidViewComponent) c).getView().getVisibility() != View.VISIBLE) {
+        hidden = (AndroidViewComponent) c;
+        break;
+      }
+    }
+    if (hidden == null) {
+      action.run();
+      return;
+    }
+    if (hidden.deferredUntilShown == null) {
+      hidden.deferredUntilShown = new LinkedHashMap<List<Object>, Runnable>();
+    }
+    List<Object> key = Arrays.<Object>asList(this, property);
+    hidden.deferredUntilShown.remove(key);
+    hidden.deferredUntilShown.put(key, new Runnable() {
+      @Override
+      public void run() {
+        // Another container may still be hidden.
+        runWhenShown(property, action);
+      }
+    });
   }
 
   /**
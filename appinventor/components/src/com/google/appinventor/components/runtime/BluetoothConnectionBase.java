@@ -14,10 +14,12 @@ import com.google.appinventor.components.annotations.SimpleObject;
 import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.runtime.util.BluetoothReflection;
+import com.google.appinventor.components.runtime.util.ByteRingBuffer;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import com.google.appinventor.components.runtime.util.YailList;
 
+import android.os.Handler;
 import android.util.Log;
 
 import java.io.BufferedInputStream;
@@ -25,11 +27,13 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An abstract base class for the BluetoothClient and BluetoothServer
@@ -41,6 +45,12 @@ import java.util.List;
 public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
     implements Component, OnDestroyListener, Deleteable {
 
+  // Size of the buffer between the receive thread and the UI thread. At 115200 baud this holds
+  // several seconds of data, so a busy UI thread doesn't stall the link.
+  private static final int RECEIVE_BUFFER_SIZE = 64 * 1024;
+  // Longest frame delivered by the DataReceived event.
+  static final int MAX_FRAME_LENGTH = RECEIVE_BUFFER_SIZE;
+
   protected final String logTag;
   private final List<BluetoothConnectionListener> bluetoothConnectionListeners =
       new ArrayList<BluetoothConnectionListener>();
@@ -48,6 +58,8 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
   private ByteOrder byteOrder;
   private String encoding;
   private byte delimiter;
+  private volatile boolean asyncReceive;
+  private int frameLength;
   protected boolean disconnectOnError;
   protected boolean secure;
 
@@ -56,6 +68,54 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
   private OutputStream outputStream;
   private final int sdkLevel;
 
+  // The following are used once AsyncReceive has been set to true. The receive thread then reads
+  // the input stream until the connection is closed, and the Receive methods read what it
+  // received from receiveBuffer.
+  private Handler androidUIHandler;
+  private volatile Thread receiveThread;
+  private ByteRingBuffer receiveBuffer;
+  // Signalled when bytes are added to or taken from receiveBuffer, and when receiving ends.
+  private final Object receiveLock = new Object();
+  // Set, under receiveLock, when the receive thread reaches the end of the stream or fails.
+  private boolean receiveEnded;
+  private IOException receiveFailure;
+  private final InputStream receivedInput = new InputStream() {
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      return takeReceived(b, offset, length);
+    }
+  };
+  private final AtomicBoolean framesPending = new AtomicBoolean();
+  private final ByteArrayOutputStream partialFrame = new ByteArrayOutputStream();
+  // True while the bytes up to the next delimiter are dropped because their frame is too long.
+  private boolean discardingFrame;
+  private final byte[] receiveChunk = new byte[4096];
+  private final Runnable deliverFrames = new Runnable() {
+    public void run() {
+      // Clear the flag before draining so that bytes arriving while we drain cause another post.
+      framesPending.set(false);
+      ByteRingBuffer buffer = receiveBuffer;
+      if (buffer != null && asyncReceive) {
+        List<byte[]> frames = takeFrames(buffer);
+        synchronized (receiveLock) {
+          receiveLock.notifyAll();  // There is room for the receive thread again
+        }
+        if (!frames.isEmpty()) {
+          DataReceived(toYailFrames(frames));
+        }
+      }
+    }
+  };
+
   /**
    * Creates a new BluetoothConnectionBase.
    */
@@ -171,6 +231,9 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
         BluetoothReflection.getInputStream(connectedBluetoothSocket));
     outputStream = new BufferedOutputStream(
         BluetoothReflection.getOutputStream(connectedBluetoothSocket));
+    if (asyncReceive) {
+      startReceiving();
+    }
     fireAfterConnectEvent();
   }
 
@@ -179,6 +242,9 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
    */
   @SimpleFunction(description = "Disconnect from the connected Bluetooth device.")
   public final void Disconnect() {
+    // Detach the receive thread first so that closing the socket, which ends its read, isn't
+    // reported as a read error.
+    stopReceiving();
     if (connectedBluetoothSocket != null) {
       fireBeforeDisconnectEvent();
       try {
@@ -325,6 +391,92 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
     return delimiter;
   }
 
+  /**
+   * Specifies whether incoming data is received in the background and delivered through the
+   * {@link #DataReceived(YailList)} event. When `true`{:.logic.block}, the incoming bytes are split
+   * into frames, either at each DelimiterByte or every FrameLength bytes, and the Receive methods
+   * must not be used.
+   *
+   * @param asyncReceive {@code true} to receive data in the background
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty
+  public void AsyncReceive(boolean asyncReceive) {
+    if (this.asyncReceive == asyncReceive) {
+      return;
+    }
+    this.asyncReceive = asyncReceive;
+    if (asyncReceive) {
+      if (inputStream != null) {
+        startReceiving();
+      }
+    } else {
+      pauseReceiving();
+    }
+  }
+
+  /**
+   * Returns whether incoming data is received in the background and delivered through the
+   * DataReceived event.
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "Whether incoming data is received in the background and delivered, split " +
+      "into frames, through the DataReceived event. Set this to true when a device streams data " +
+      "continuously, instead of calling the Receive methods from a Clock.")
+  public boolean AsyncReceive() {
+    return asyncReceive;
+  }
+
+  /**
+   * Sets the number of bytes in each frame delivered by the {@link #DataReceived(YailList)} event.
+   * If 0, the default, frames end at each DelimiterByte instead. Frames are at most 65536 bytes.
+   *
+   * @param frameLength the number of bytes in each frame, or 0 to split at the delimiter byte
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void FrameLength(int frameLength) {
+    if (frameLength < 0) {
+      frameLength = 0;
+    } else if (frameLength > MAX_FRAME_LENGTH) {
+      Log.w(logTag, "FrameLength " + frameLength + " is limited to " + MAX_FRAME_LENGTH);
+      frameLength = MAX_FRAME_LENGTH;
+    }
+    if (this.frameLength != frameLength) {
+      this.frameLength = frameLength;
+      resetFrame();
+    }
+  }
+
+  /**
+   * Returns the number of bytes in each frame delivered by the DataReceived event, or 0 if frames
+   * end at the delimiter byte.
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of bytes in each frame delivered by the DataReceived event. " +
+      "If 0, frames end at each DelimiterByte instead.")
+  public int FrameLength() {
+    return frameLength;
+  }
+
+  /**
+   * Indicates that one or more frames have been received while AsyncReceive is
+   * `true`{:.logic.block}. Frames that arrive close together are delivered in a single event,
+   * oldest first. If FrameLength is 0, each frame is the text before a DelimiterByte, decoded
+   * using the CharacterEncoding. Otherwise each frame is a list of FrameLength unsigned byte
+   * values.
+   *
+   * @param frames the list of frames received
+   */
+  @SimpleEvent(description = "Indicates that one or more frames have been received while " +
+      "AsyncReceive is true. If FrameLength is 0, each frame is the text before a DelimiterByte. " +
+      "Otherwise each frame is a list of FrameLength unsigned byte values.")
+  public void DataReceived(YailList frames) {
+    EventDispatcher.dispatchEvent(this, "DataReceived", frames);
+  }
+
   /**
    * Converts the given text to bytes and writes them to the output stream.
    *
@@ -569,6 +721,11 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
       return 0;
     }
 
+    ByteRingBuffer buffer = receiveBuffer;
+    if (buffer != null) {
+      return buffer.size();
+    }
+
     try {
       return inputStream.available();
     } catch (IOException e) {
@@ -781,6 +938,13 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
           ErrorMessages.ERROR_BLUETOOTH_NOT_CONNECTED_TO_DEVICE);
       return new byte[0];
     }
+    if (asyncReceive) {
+      bluetoothError(functionName,
+          ErrorMessages.ERROR_BLUETOOTH_RECEIVING_ASYNCHRONOUSLY);
+      return new byte[0];
+    }
+    // Once a receive thread has been started, it is the only reader of the input stream.
+    InputStream in = receiveThread != null ? receivedInput : inputStream;
 
     ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
@@ -790,7 +954,7 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
       int totalBytesRead = 0;
       while (totalBytesRead < numberOfBytes) {
         try {
-          int numBytesRead = inputStream.read(bytes, totalBytesRead, bytes.length - totalBytesRead);
+          int numBytesRead = in.read(bytes, totalBytesRead, bytes.length - totalBytesRead);
           if (numBytesRead == -1) {
             bluetoothError(functionName,
                 ErrorMessages.ERROR_BLUETOOTH_END_OF_STREAM);
@@ -812,7 +976,7 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
       // Read one byte at a time until a delimiter byte is read.
       while (true) {
         try {
-          int value = inputStream.read();
+          int value = in.read();
           if (value == -1) {
             bluetoothError(functionName,
                 ErrorMessages.ERROR_BLUETOOTH_END_OF_STREAM);
@@ -837,6 +1001,266 @@ public abstract class BluetoothConnectionBase extends AndroidNonvisibleComponent
     return buffer.toByteArray();
   }
 
+  /**
+   * Starts the thread that moves incoming bytes into the receive buffer, or resumes delivering
+   * the bytes it receives if it is already running. Must be called on the UI thread.
+   */
+  private void startReceiving() {
+    if (androidUIHandler == null) {
+      androidUIHandler = new Handler();
+    }
+    Thread running = receiveThread;
+    if (running != null && running.isAlive()) {
+      if (receiveBuffer.size() > 0 && framesPending.compareAndSet(false, true)) {
+        androidUIHandler.post(deliverFrames);
+      }
+      return;
+    }
+    final InputStream in = inputStream;
+    final ByteRingBuffer buffer = new ByteRingBuffer(RECEIVE_BUFFER_SIZE);
+    resetFrame();
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        receive(in, buffer);
+      }
+    }, logTag + " receiver");
+    synchronized (receiveLock) {
+      receiveBuffer = buffer;
+      receiveEnded = false;
+      receiveFailure = null;
+      receiveThread = thread;
+    }
+    thread.start();
+  }
+
+  /**
+   * Stops delivering received bytes through the DataReceived event, so that the Receive methods
+   * can be used. The receive thread can't be stopped without closing the connection, so it keeps
+   * reading, and the Receive methods take the bytes from it. Bytes that have been received but
+   * not yet delivered are dropped.
+   */
+  private void pauseReceiving() {
+    if (receiveThread == null) {
+      return;
+    }
+    androidUIHandler.removeCallbacks(deliverFrames);
+    framesPending.set(false);
+    receiveBuffer.clear();
+    resetFrame();
+    synchronized (receiveLock) {
+      receiveLock.notifyAll();  // There is room for the receive thread again
+    }
+  }
+
+  /**
+   * Detaches the receive thread, if any, before the connection is closed. Closing the socket ends
+   * the thread's read, after which the thread finishes on its own, so nothing waits for it here.
+   * Bytes that have been received but not yet delivered are dropped.
+   */
+  private void stopReceiving() {
+    if (receiveThread == null) {
+      return;
+    }
+    synchronized (receiveLock) {
+      receiveThread = null;
+      receiveBuffer = null;
+      receiveLock.notifyAll();  // Wakes the thread if it is waiting for room
+    }
+    androidUIHandler.removeCallbacks(deliverFrames);
+    framesPending.set(false);
+    resetFrame();
+  }
+
+  /**
+   * The body of the receive thread. Each read blocks until bytes arrive and goes straight into the
+   * ring buffer, and at most one delivery is queued on the UI thread at a time, so a fast sender
+   * results in fewer, larger DataReceived events rather than a flood of small ones. The thread
+   * never polls: it waits in the read, or for room in the buffer, until the connection is closed.
+   */
+  private void receive(InputStream in, ByteRingBuffer buffer) {
+    Thread self = Thread.currentThread();
+    try {
+      while (receiveThread == self) {
+        int count = buffer.fill(in);
+        if (count < 0) {
+          endReceiving(self, null, ErrorMessages.ERROR_BLUETOOTH_END_OF_STREAM);
+          return;
+        }
+        synchronized (receiveLock) {
+          if (count == 0) {
+            // The buffer is full. Wait for it to be drained rather than drop data.
+            while (receiveThread == self && buffer.remaining() == 0) {
+              receiveLock.wait();
+            }
+          } else {
+            receiveLock.notifyAll();  // Wakes a Receive method waiting for bytes
+          }
+        }
+        if (count > 0 && asyncReceive && framesPending.compareAndSet(false, true)) {
+          androidUIHandler.post(deliverFrames);
+        }
+      }
+    } catch (IOException e) {
+      if (receiveThread == self) {
+        Log.e(logTag, "IO Exception during Reading " + e.getMessage());
+        endReceiving(self, e, ErrorMessages.ERROR_BLUETOOTH_UNABLE_TO_READ, e.getMessage());
+      }
+    } catch (InterruptedException e) {
+      // Nothing interrupts the receive thread, but end it if something does.
+    }
+  }
+
+  /*
+   * Records that the receive thread has stopped, so that the Receive methods see the end of the
+   * stream or the failure once they have taken the bytes received before it. While AsyncReceive
+   * is true, the error is reported through ErrorOccurred instead.
+   */
+  private void endReceiving(Thread thread, IOException failure, int errorNumber,
+      Object... messageArgs) {
+    synchronized (receiveLock) {
+      if (receiveThread != thread) {
+        return;  // Already disconnected or restarted.
+      }
+      receiveEnded = true;
+      receiveFailure = failure;
+      receiveLock.notifyAll();
+    }
+    if (asyncReceive) {
+      postReceiveError(thread, errorNumber, messageArgs);
+    }
+  }
+
+  /*
+   * Takes up to length received bytes for the Receive methods, waiting until at least one has
+   * been received. Returns -1, or throws the read failure, once receiving has ended and every
+   * byte received before has been taken.
+   */
+  private int takeReceived(byte[] b, int offset, int length) throws IOException {
+    synchronized (receiveLock) {
+      while (true) {
+        ByteRingBuffer buffer = receiveBuffer;
+        if (buffer == null) {
+          return -1;  // Disconnected
+        }
+        int count = buffer.drain(b, offset, length);
+        if (count > 0) {
+          receiveLock.notifyAll();  // There is room for the receive thread again
+          return count;
+        }
+        if (receiveEnded) {
+          if (receiveFailure != null) {
+            throw receiveFailure;
+          }
+          return -1;
+        }
+        try {
+          receiveLock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+    }
+  }
+
+  private void postReceiveError(final Thread thread, final int errorNumber,
+      final Object... messageArgs) {
+    androidUIHandler.post(new Runnable() {
+      public void run() {
+        if (receiveThread != thread) {
+          return;  // Already disconnected or restarted.
+        }
+        stopReceiving();
+        if (disconnectOnError) {
+          Disconnect();
+        }
+        bluetoothError("DataReceived", errorNumber, messageArgs);
+      }
+    });
+  }
+
+  /**
+   * Drains the receive buffer and splits the bytes into complete frames, either at the delimiter
+   * byte (which is not included) or every {@code frameLength} bytes. Bytes of an incomplete frame
+   * are kept until the rest of the frame arrives. A frame longer than {@link #MAX_FRAME_LENGTH}
+   * is dropped, up to its delimiter, and reported as an error.
+   */
+  List<byte[]> takeFrames(ByteRingBuffer buffer) {
+    List<byte[]> frames = new ArrayList<byte[]>();
+    int count;
+    while ((count = buffer.drain(receiveChunk, 0, receiveChunk.length)) > 0) {
+      int start = 0;
+      if (frameLength > 0) {
+        while (start < count) {
+          int n = Math.min(frameLength - partialFrame.size(), count - start);
+          partialFrame.write(receiveChunk, start, n);
+          start += n;
+          if (partialFrame.size() == frameLength) {
+            frames.add(partialFrame.toByteArray());
+            partialFrame.reset();
+          }
+        }
+      } else {
+        for (int i = 0; i < count; i++) {
+          if (receiveChunk[i] == delimiter) {
+            if (appendToFrame(start, i)) {
+              frames.add(partialFrame.toByteArray());
+            }
+            resetFrame();
+            start = i + 1;
+          }
+        }
+        appendToFrame(start, count);
+      }
+    }
+    return frames;
+  }
+
+  /*
+   * Adds receiveChunk[start..end) to the frame being received. Returns false if the frame is
+   * being dropped because it is too long.
+   */
+  private boolean appendToFrame(int start, int end) {
+    if (discardingFrame) {
+      return false;
+    }
+    if (partialFrame.size() + end - start > MAX_FRAME_LENGTH) {
+      partialFrame.reset();
+      discardingFrame = true;
+      bluetoothError("DataReceived", ErrorMessages.ERROR_BLUETOOTH_FRAME_TOO_LONG,
+          MAX_FRAME_LENGTH);
+      return false;
+    }
+    partialFrame.write(receiveChunk, start, end - start);
+    return true;
+  }
+
+  private void resetFrame() {
+    partialFrame.reset();
+    discardingFrame = false;
+  }
+
+  private YailList toYailFrames(List<byte[]> frames) {
+    List<Object> values = new ArrayList<Object>(frames.size());
+    for (byte[] frame : frames) {
+      if (frameLength > 0) {
+        List<Integer> list = new ArrayList<Integer>(frame.length);
+        for (byte b : frame) {
+          list.add(b & 0xFF);
+        }
+        values.add(YailList.makeList(list));
+      } else {
+        try {
+          values.add(new String(frame, encoding));
+        } catch (UnsupportedEncodingException e) {
+          Log.w(logTag, "UnsupportedEncodingException: " + e.getMessage());
+          values.add(new String(frame));
+        }
+      }
+    }
+    return YailList.makeList(values);
+  }
+
   // OnDestroyListener implementation
 
   @Override
@@ -115,7 +115,7 @@ public final class BluetoothServer extends BluetoothConnectionBase {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("BluetoothServer.accept", new Runnable() {
       public void run() {
         Object acceptedBluetoothSocket = null;
 
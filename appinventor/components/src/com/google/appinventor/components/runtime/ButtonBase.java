@@ -17,6 +17,7 @@ import com.google.appinventor.components.annotations.SimpleObject;
 import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.annotations.UsesPermissions;
 import com.google.appinventor.components.common.PropertyTypeConstants;
+import com.google.appinventor.components.runtime.util.AsyncCallbackPair;
 import com.google.appinventor.components.runtime.util.IceCreamSandwichUtil;
 import com.google.appinventor.components.runtime.util.KitkatUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
@@ -25,6 +26,7 @@ import com.google.appinventor.components.runtime.util.ViewUtil;
 import android.view.MotionEvent;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.OvalShape;
@@ -37,8 +39,6 @@ import android.view.View.OnClickListener;
 import android.view.View.OnFocusChangeListener;
 import android.view.View.OnLongClickListener;
 
-import java.io.IOException;
-
 /**
  * Underlying base class for click-based components, not directly accessible to Simple programmers.
  *
@@ -355,13 +355,28 @@ public abstract class ButtonBase extends AndroidViewComponent
     backgroundImageDrawable = null;
     // Load image from file.
     if (imagePath.length() > 0) {
-      try {
-        backgroundImageDrawable = MediaUtil.getBitmapDrawable(container.$form(), imagePath);
-      } catch (IOException ioe) {
-        // TODO(user): Maybe raise Form.ErrorOccurred.
-        Log.e(LOG_TAG, "Unable to load " + imagePath);
-        // Fall through with a value of null for backgroundImageDrawable.
-      }
+      final String requestedPath = imagePath;
+      loadImageWhenShown("Image", imagePath,
+          new AsyncCallbackPair<BitmapDrawable>() {
+            @Override
+            public void onFailure(String message) {
+              // TODO(user): Maybe raise Form.ErrorOccurred.
+              Log.e(LOG_TAG, "Unable to load " + requestedPath);
+              // Fall through with a value of null for backgroundImageDrawable.
+              onSuccess(null);
+            }
+
+            @Override
+            public void onSuccess(BitmapDrawable result) {
+              // Ignore the image if another one was set while it was loading.
+              if (requestedPath.equals(imagePath)) {
+                backgroundImageDrawable = result;
+                // Update the appearance based on the new value of backgroundImageDrawable.
+                updateAppearance();
+              }
+            }
+          });
+      return;
     }
 
     // Update the appearance based on the new value of backgroundImageDrawable.
@@ -17,6 +17,7 @@ import android.graphics.BitmapFactory;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.Picture;
 import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.graphics.RectF;
@@ -64,6 +65,7 @@ import com.google.appinventor.components.runtime.util.FileUtil;
 import com.google.appinventor.components.runtime.util.FileWriteOperation;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.PaintUtil;
+import com.google.appinventor.components.runtime.util.PixelUtil;
 import com.google.appinventor.components.runtime.util.ScopedFile;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import com.google.appinventor.components.runtime.util.Synchronizer;
@@ -152,6 +154,7 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
   private String backgroundImagePath = "";
   private int textAlignment;
   private boolean extendMovesOutsideCanvas = false;
+  private boolean batchDrawing = false;
   
   /**
    * The number of pixels right, left, up, or down, a sequence of drags must
@@ -421,6 +424,11 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     // when the Canvas is saved to a file.
     private Bitmap completeCache;
 
+    // When batchDrawing is true, draw calls are recorded into pendingDrawing and rasterized into
+    // bitmap by flushDrawing() the next time the view is drawn or the bitmap is read.
+    private Picture pendingDrawing;
+    private android.graphics.Canvas recordingCanvas;
+
     public CanvasView(Context context) {
       super(context);
       bitmap = Bitmap.createBitmap(ComponentConstants.CANVAS_PREFERRED_WIDTH,
@@ -451,9 +459,49 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
       return cache;
     }
 
+    /*
+     * Returns the canvas that the drawing functions should draw on.
+     */
+    android.graphics.Canvas drawingCanvas() {
+      if (!batchDrawing) {
+        return canvas;
+      }
+      if (recordingCanvas == null) {
+        pendingDrawing = new Picture();
+        recordingCanvas = pendingDrawing.beginRecording(bitmap.getWidth(), bitmap.getHeight());
+        // The next onDraw() flushes everything recorded until then.
+        invalidate();
+      }
+      return recordingCanvas;
+    }
+
+    /*
+     * Redraws the view after a draw call. Calls recorded in a batch don't need to, since the
+     * view was invalidated when the recording began.
+     */
+    void invalidateDrawing() {
+      if (recordingCanvas == null) {
+        invalidate();
+      }
+    }
+
+    /*
+     * Rasterizes the draw calls recorded since the last flush into the drawing layer.
+     */
+    void flushDrawing() {
+      if (recordingCanvas != null) {
+        pendingDrawing.endRecording();
+        canvas.drawPicture(pendingDrawing);
+        pendingDrawing = null;
+        recordingCanvas = null;
+        completeCache = null;
+      }
+    }
+
     @Override
     public void onDraw(android.graphics.Canvas canvas0) {
       completeCache = null;
+      flushDrawing();
 
       // This will draw the background image and color, if present.
       super.onDraw(canvas0);
@@ -472,6 +520,7 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
 
     @Override
     protected void onSizeChanged(int w, int h, int oldW, int oldH) {
+      flushDrawing();
       int oldBitmapWidth = bitmap.getWidth();
       int oldBitmapHeight = bitmap.getHeight();
       if (w != oldBitmapWidth || h != oldBitmapHeight) {
@@ -647,6 +696,12 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     }
 
     private void clearDrawingLayer() {
+      if (recordingCanvas != null) {
+        // Nothing recorded so far would survive the clear.
+        pendingDrawing.endRecording();
+        pendingDrawing = null;
+        recordingCanvas = null;
+      }
       canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
       invalidate();
     }
@@ -665,15 +720,17 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
 
     // These methods support SimpleFunctions.
     private void drawTextAtAngle(String text, int x, int y, float angle) {
-      canvas.save();
-      canvas.rotate(-angle, x, y);
-      canvas.drawText(text, x, y, paint);
-      canvas.restore();
-      invalidate();
+      android.graphics.Canvas target = drawingCanvas();
+      target.save();
+      target.rotate(-angle, x, y);
+      target.drawText(text, x, y, paint);
+      target.restore();
+      invalidateDrawing();
     }
 
     // This intentionally ignores sprites.
     private int getBackgroundPixelColor(int x, int y) {
+      flushDrawing();
       // If the request is out of bounds, return COLOR_NONE.
       if (x < 0 || x >= bitmap.getWidth() ||
           y < 0 || y >= bitmap.getHeight()) {
@@ -691,13 +748,7 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
         // If nothing has been drawn on the bitmap at that location,
         // check if there is a background image.
         if (backgroundDrawable != null) {
-          if (scaledBackgroundBitmap == null) {
-            scaledBackgroundBitmap = Bitmap.createScaledBitmap(
-                backgroundDrawable.getBitmap(),
-                bitmap.getWidth(), bitmap.getHeight(),
-                false);  // false argument indicates not to filter
-          }
-          color = scaledBackgroundBitmap.getPixel(x, y);
+          color = getScaledBackgroundBitmap().getPixel(x, y);
           return color;
         }
 
@@ -714,7 +765,54 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
       }
     }
 
+    private Bitmap getScaledBackgroundBitmap() {
+      if (scaledBackgroundBitmap == null) {
+        scaledBackgroundBitmap = Bitmap.createScaledBitmap(
+            backgroundDrawable.getBitmap(),
+            bitmap.getWidth(), bitmap.getHeight(),
+            false);  // false argument indicates not to filter
+      }
+      return scaledBackgroundBitmap;
+    }
+
+    /*
+     * Returns the colors that getBackgroundPixelColor() would return for each pixel of the given
+     * rectangle, row by row. The rectangle must lie within the bitmap.
+     */
+    private int[] getBackgroundPixels(int left, int top, int width, int height) {
+      flushDrawing();
+      int[] pixels = new int[width * height];
+      if (pixels.length == 0) {
+        return pixels;
+      }
+      bitmap.getPixels(pixels, 0, width, left, top, width, height);
+      int[] background = null;
+      if (backgroundDrawable != null) {
+        background = new int[pixels.length];
+        getScaledBackgroundBitmap().getPixels(background, 0, width, left, top, width, height);
+      }
+      int fill = Color.alpha(backgroundColor) != 0 ? backgroundColor : Component.COLOR_NONE;
+      for (int i = 0; i < pixels.length; i++) {
+        if (pixels[i] == Color.TRANSPARENT) {
+          pixels[i] = background != null ? background[i] : fill;
+        }
+      }
+      return pixels;
+    }
+
+    /*
+     * Replaces the pixels of the drawing layer within the given rectangle.
+     */
+    private void setDrawingPixels(int[] pixels, int left, int top, int width, int height) {
+      flushDrawing();
+      if (pixels.length > 0) {
+        bitmap.setPixels(pixels, 0, width, left, top, width, height);
+      }
+      invalidate();
+    }
+
     private int getPixelColor(int x, int y) {
+      flushDrawing();
       // If the request is out of bounds, return COLOR_NONE.
       if (x < 0 || x >= bitmap.getWidth() ||
           y < 0 || y >= bitmap.getHeight()) {
@@ -1279,6 +1377,35 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     extendMovesOutsideCanvas = extend;   
   }
 
+  /**
+   * Determines whether drawing is batched. If true, the draw blocks record what to draw and the
+   * recorded drawing is rendered into the Canvas once per screen refresh, which is much faster
+   * when drawing many shapes at a time. The drawing is also rendered before any pixel color is
+   * read or the Canvas is saved, so the results of the other blocks are unchanged.
+   *
+   * @return true if drawing is batched
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public boolean BatchDrawing() {
+    return batchDrawing;
+  }
+
+  /**
+   * Specifies whether drawing is batched.
+   *
+   * @param batch true to batch drawing
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty
+  public void BatchDrawing(boolean batch) {
+    if (batchDrawing && !batch) {
+      view.flushDrawing();
+      view.invalidate();
+    }
+    batchDrawing = batch;
+  }
+
   // Methods supporting event handling
 
   /**
@@ -1392,8 +1519,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
   public void DrawPoint(int x, int y) {
     float correctedX = x * $form().deviceDensity();
     float correctedY = y * $form().deviceDensity();
-    view.canvas.drawPoint(correctedX, correctedY, paint);
-    view.invalidate();
+    view.drawingCanvas().drawPoint(correctedX, correctedY, paint);
+    view.invalidateDrawing();
   }
 
  /**
@@ -1412,8 +1539,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     float correctedR = radius * $form().deviceDensity();
     Paint p = new Paint(paint);
     p.setStyle(fill ? Paint.Style.FILL : Paint.Style.STROKE);
-    view.canvas.drawCircle(correctedX, correctedY, correctedR, p);
-    view.invalidate();
+    view.drawingCanvas().drawCircle(correctedX, correctedY, correctedR, p);
+    view.invalidateDrawing();
   }
 
   /**
@@ -1430,8 +1557,59 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     float correctedY1 = y1 * $form().deviceDensity();
     float correctedX2 = x2 * $form().deviceDensity();
     float correctedY2 = y2 * $form().deviceDensity();
-    view.canvas.drawLine(correctedX1, correctedY1, correctedX2, correctedY2, paint);
-    view.invalidate();
+    view.drawingCanvas().drawLine(correctedX1, correctedY1, correctedX2, correctedY2, paint);
+    view.invalidateDrawing();
+  }
+
+  /**
+   * Draws a point at each of the given coordinates on the canvas. This is equivalent to calling
+   * {@link #DrawPoint(int, int)} for each point, but much faster for a large number of points.
+   *
+   * @param pointList a list of points, each a list of two numbers, e.g. ((x1 y1) (x2 y2))
+   */
+  @SimpleFunction(description = "Draws a point at each of the given coordinates on the canvas. "
+      + "pointList should be a list of sub-lists with two numbers, e.g. ((x1 y1) (x2 y2)).")
+  public void DrawPoints(YailList pointList) {
+    float[][] points;
+    try {
+      points = parsePointList(pointList);
+    } catch (IllegalArgumentException e) {
+      $form().dispatchErrorOccurredEvent(this, "DrawPoints",
+          ErrorMessages.ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT);
+      return;
+    }
+    float scalingFactor = $form().deviceDensity();
+    float[] pts = new float[points.length * 2];
+    for (int i = 0; i < points.length; i++) {
+      pts[2 * i] = points[i][0] * scalingFactor;
+      pts[2 * i + 1] = points[i][1] * scalingFactor;
+    }
+    view.drawingCanvas().drawPoints(pts, paint);
+    view.invalidateDrawing();
+  }
+
+  /**
+   * Draws connected lines through the given coordinates on the canvas. Unlike
+   * {@link #DrawShape(YailList, boolean)}, the last point is not joined to the first.
+   *
+   * @param pointList a list of points, each a list of two numbers, e.g. ((x1 y1) (x2 y2))
+   */
+  @SimpleFunction(description = "Draws connected lines through the given coordinates on the "
+      + "canvas. pointList should be a list of sub-lists with two numbers, e.g. ((x1 y1) (x2 y2)). "
+      + "Unlike DrawShape, the last point is not joined to the first.")
+  public void DrawPolyline(YailList pointList) {
+    Path path;
+    try {
+      path = parsePath(parsePointList(pointList));
+    } catch (IllegalArgumentException e) {
+      $form().dispatchErrorOccurredEvent(this, "DrawPolyline",
+          ErrorMessages.ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT);
+      return;
+    }
+    Paint p = new Paint(paint);
+    p.setStyle(Paint.Style.STROKE);
+    view.drawingCanvas().drawPath(path, p);
+    view.invalidateDrawing();
   }
 
   /**
@@ -1460,8 +1638,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     path.close();
     Paint p = new Paint(paint);
     p.setStyle(fill ? Paint.Style.FILL : Paint.Style.STROKE);
-    view.canvas.drawPath(path, p);
-    view.invalidate();
+    view.drawingCanvas().drawPath(path, p);
+    view.invalidateDrawing();
   }
 
   private Path parsePath(float[][] points) throws IllegalArgumentException {
@@ -1491,8 +1669,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
         pointYailList = (YailList) pointObject;
         if (pointYailList.size() == 2) {
           try {
-            points[index][0] = Float.parseFloat(pointYailList.getString(0));
-            points[index][1] = Float.parseFloat(pointYailList.getString(1));
+            points[index][0] = toFloat(pointYailList.getObject(0));
+            points[index][1] = toFloat(pointYailList.getObject(1));
             index++;
           } catch (NullPointerException e) {
             throw new IllegalArgumentException(e.fillInStackTrace());
@@ -1509,6 +1687,14 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     return points;
   }
 
+  private static float toFloat(Object value) {
+    if (value instanceof Number) {
+      // Avoid formatting and reparsing numbers, which dominates the cost of long point lists.
+      return ((Number) value).floatValue();
+    }
+    return Float.parseFloat(value.toString());
+  }
+
   /**
    * Draw an arc on Canvas, by drawing an arc from a specified oval (specified by left, top, right & bottom).
    * Start angle is 0 when heading to the right, and increase when rotate clockwise.
@@ -1534,11 +1720,11 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     float scalingFactor = $form().deviceDensity();
     Paint p = new Paint(paint);
     p.setStyle(fill ? Paint.Style.FILL : Paint.Style.STROKE);
-    view.canvas.drawArc(
+    view.drawingCanvas().drawArc(
       new RectF(scalingFactor * left, scalingFactor * top,
                 scalingFactor * right, scalingFactor * bottom),
       startAngle, sweepAngle, useCenter, p);
-    view.invalidate();
+    view.invalidateDrawing();
   }
 
   /**
@@ -1556,8 +1742,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     float fontScalingFactor = $form().deviceDensity();
     float correctedX = x * fontScalingFactor;
     float correctedY = y * fontScalingFactor;
-    view.canvas.drawText(text, correctedX, correctedY, paint);
-    view.invalidate();
+    view.drawingCanvas().drawText(text, correctedX, correctedY, paint);
+    view.invalidateDrawing();
   }
 
   /**
@@ -1611,8 +1797,229 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     PaintUtil.changePaint(pixelPaint, color);
     int correctedX = (int) (x * $form().deviceDensity());
     int correctedY = (int) (y * $form().deviceDensity());
-    view.canvas.drawPoint(correctedX, correctedY, pixelPaint);
-    view.invalidate();
+    view.drawingCanvas().drawPoint(correctedX, correctedY, pixelPaint);
+    view.invalidateDrawing();
+  }
+
+  /**
+   * Gets the colors of a rectangle of points, ignoring sprites. The colors are returned row by
+   * row, as a list of `width`{:.variable.block} times `height`{:.variable.block} numbers. Points
+   * that are not on the Canvas are returned as None. The rectangle can't be larger than the
+   * Canvas.
+   *
+   * @param x the x-coordinate of the top left corner
+   * @param y the y-coordinate of the top left corner
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   * @return the colors of the points, row by row
+   */
+  @SimpleFunction(description = "Gets the colors of a rectangle of points as a list, row by row. "
+      + "This includes the background and any drawn points, lines, or circles but not sprites.")
+  public YailList GetBackgroundPixels(int x, int y, int width, int height) {
+    float density = $form().deviceDensity();
+    // Check the size before allocating the list, so that a huge rectangle can't run us out of
+    // memory (or overflow width * height).
+    if (width < 0 || height < 0 || width > Math.ceil(view.bitmap.getWidth() / density)
+        || height > Math.ceil(view.bitmap.getHeight() / density)) {
+      $form().dispatchErrorOccurredEvent(this, "GetBackgroundPixels",
+          ErrorMessages.ERROR_CANVAS_BAD_PIXEL_AREA, width, height);
+      return YailList.makeEmptyList();
+    }
+    // The device pixels covering the requested points, clipped to the Canvas.
+    int left = clip((int) (x * density), view.bitmap.getWidth());
+    int top = clip((int) (y * density), view.bitmap.getHeight());
+    int right = clip((int) (((long) x + width) * density), view.bitmap.getWidth());
+    int bottom = clip((int) (((long) y + height) * density), view.bitmap.getHeight());
+    int regionWidth = right - left;
+    int[] pixels = view.getBackgroundPixels(left, top, regionWidth, bottom - top);
+
+    List<Integer> colors = new ArrayList<Integer>(width * height);
+    for (int j = 0; j < height; j++) {
+      int py = (int) (((long) y + j) * density) - top;
+      for (int i = 0; i < width; i++) {
+        int px = (int) (((long) x + i) * density) - left;
+        if (px >= 0 && px < regionWidth && py >= 0 && py < bottom - top) {
+          colors.add(pixels[py * regionWidth + px]);
+        } else {
+          colors.add(Component.COLOR_NONE);
+        }
+      }
+    }
+    return YailList.makeList(colors);
+  }
+
+  /**
+   * Sets the colors of a rectangle of points, `width`{:.variable.block} points wide, from a list
+   * of colors given row by row. The rectangle is as many rows high as needed for all the colors.
+   * Points that are not on the Canvas are ignored. This is equivalent to calling
+   * [`SetBackgroundPixelColor`](#Canvas.SetBackgroundPixelColor) for each point, but much faster.
+   *
+   * @param x the x-coordinate of the top left corner
+   * @param y the y-coordinate of the top left corner
+   * @param width the width of the rectangle
+   * @param colors the colors of the points, row by row
+   */
+  @SimpleFunction(description = "Sets the colors of a rectangle of points, width points wide, "
+      + "from a list of colors given row by row.")
+  public void SetBackgroundPixels(int x, int y, int width, YailList colors) {
+    int[] values;
+    try {
+      values = toColorArray(colors);
+    } catch (IllegalArgumentException e) {
+      $form().dispatchErrorOccurredEvent(this, "SetBackgroundPixels",
+          ErrorMessages.ERROR_CANVAS_BAD_PIXEL_ARGUMENT);
+      return;
+    }
+    if (width <= 0 || values.length == 0) {
+      return;
+    }
+    int height = (values.length + width - 1) / width;
+    float density = $form().deviceDensity();
+    int left = clip((int) (x * density), view.bitmap.getWidth());
+    int top = clip((int) (y * density), view.bitmap.getHeight());
+    int right = clip((int) ((x + width) * density), view.bitmap.getWidth());
+    int bottom = clip((int) ((y + height) * density), view.bitmap.getHeight());
+    int regionWidth = right - left;
+    int regionHeight = bottom - top;
+    if (regionWidth == 0 || regionHeight == 0) {
+      return;
+    }
+
+    // Start from the current drawing layer so that a short last row leaves the rest alone.
+    int[] pixels = new int[regionWidth * regionHeight];
+    view.flushDrawing();
+    view.bitmap.getPixels(pixels, 0, regionWidth, left, top, regionWidth, regionHeight);
+    for (int py = 0; py < regionHeight; py++) {
+      int j = Math.min(height - 1, (int) ((top + py) / density) - y);
+      for (int px = 0; px < regionWidth; px++) {
+        int i = Math.min(width - 1, (int) ((left + px) / density) - x);
+        int index = j * width + i;
+        if (i >= 0 && j >= 0 && index < values.length) {
+          pixels[py * regionWidth + px] = values[index];
+        }
+      }
+    }
+    view.setDrawingPixels(pixels, left, top, regionWidth, regionHeight);
+  }
+
+  /**
+   * Converts the background and everything drawn on the Canvas to shades of gray.
+   */
+  @SimpleFunction(description = "Converts the background and everything drawn on the Canvas "
+      + "to shades of gray.")
+  public void ApplyGrayscale() {
+    int[] pixels = getAllBackgroundPixels();
+    PixelUtil.grayscale(pixels);
+    setAllDrawingPixels(pixels);
+  }
+
+  /**
+   * Converts the background and everything drawn on the Canvas to black and white. Points whose
+   * brightness, from 0 to 255, is at least `level`{:.variable.block} become white and all other
+   * points become black.
+   *
+   * @param level the lowest brightness that becomes white
+   */
+  @SimpleFunction(description = "Converts the background and everything drawn on the Canvas to "
+      + "black and white. Points whose brightness, from 0 to 255, is at least level become white.")
+  public void ApplyThreshold(int level) {
+    int[] pixels = getAllBackgroundPixels();
+    PixelUtil.threshold(pixels, level);
+    setAllDrawingPixels(pixels);
+  }
+
+  /**
+   * Applies a convolution filter, such as a blur or edge detector, to the background and
+   * everything drawn on the Canvas. The `kernel`{:.variable.block} is a list of rows of weights
+   * with an odd number of rows, each as long as the number of rows. For example,
+   * ((0 -1 0) (-1 5 -1) (0 -1 0)) sharpens the image.
+   *
+   * @param kernel the weights, as a list of rows
+   */
+  @SimpleFunction(description = "Applies a convolution filter to the background and everything "
+      + "drawn on the Canvas. kernel is a square list of rows of weights with an odd number of "
+      + "rows, e.g. ((0 -1 0) (-1 5 -1) (0 -1 0)).")
+  public void ApplyConvolution(YailList kernel) {
+    float[] weights;
+    try {
+      weights = toKernel(kernel);
+    } catch (IllegalArgumentException e) {
+      $form().dispatchErrorOccurredEvent(this, "ApplyConvolution",
+          ErrorMessages.ERROR_CANVAS_BAD_PIXEL_ARGUMENT);
+      return;
+    }
+    int width = view.bitmap.getWidth();
+    int height = view.bitmap.getHeight();
+    setAllDrawingPixels(PixelUtil.convolve(getAllBackgroundPixels(), width, height, weights,
+        kernel.size()));
+  }
+
+  /**
+   * Counts the points of the background and everything drawn on the Canvas by brightness. The
+   * result is a list of 256 numbers, where the first is the number of points with brightness 0
+   * (black) and the last is the number of points with brightness 255 (white). Sprites are
+   * ignored.
+   *
+   * @return the number of points at each brightness
+   */
+  @SimpleFunction(description = "Returns a list of 256 numbers counting the points on the "
+      + "Canvas at each brightness from 0 to 255, ignoring sprites.")
+  public YailList BackgroundHistogram() {
+    int[] counts = PixelUtil.histogram(getAllBackgroundPixels());
+    List<Integer> result = new ArrayList<Integer>(counts.length);
+    for (int count : counts) {
+      result.add(count);
+    }
+    return YailList.makeList(result);
+  }
+
+  private int[] getAllBackgroundPixels() {
+    return view.getBackgroundPixels(0, 0, view.bitmap.getWidth(), view.bitmap.getHeight());
+  }
+
+  private void setAllDrawingPixels(int[] pixels) {
+    view.setDrawingPixels(pixels, 0, 0, view.bitmap.getWidth(), view.bitmap.getHeight());
+  }
+
+  private static int clip(int value, int max) {
+    return Math.max(0, Math.min(value, max));
+  }
+
+  private static int[] toColorArray(YailList colors) throws IllegalArgumentException {
+    if (colors == null) {
+      throw new IllegalArgumentException();
+    }
+    int[] values = new int[colors.size()];
+    for (int i = 0; i < values.length; i++) {
+      Object color = colors.getObject(i);
+      if (!(color instanceof Number)) {
+        throw new IllegalArgumentException("item(" + i + ") is not a color");
+      }
+      values[i] = ((Number) color).intValue();
+    }
+    return values;
+  }
+
+  private static float[] toKernel(YailList rows) throws IllegalArgumentException {
+    int size = rows == null ? 0 : rows.size();
+    if (size % 2 == 0) {
+      throw new IllegalArgumentException("kernel must have an odd number of rows");
+    }
+    float[] weights = new float[size * size];
+    for (int j = 0; j < size; j++) {
+      Object row = rows.getObject(j);
+      if (!(row instanceof YailList) || ((YailList) row).size() != size) {
+        throw new IllegalArgumentException("row(" + j + ") is not " + size + " long");
+      }
+      for (int i = 0; i < size; i++) {
+        Object weight = ((YailList) row).getObject(i);
+        if (!(weight instanceof Number)) {
+          throw new IllegalArgumentException("weight(" + j + ", " + i + ") is not a number");
+        }
+        weights[j * size + i] = ((Number) weight).floatValue();
+      }
+    }
+    return weights;
   }
 
   /**
@@ -1695,6 +2102,7 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     new FileWriteOperation(form, this, method, scopedFile, false, false) {
       @Override
       protected boolean process(OutputStream stream) {
+        view.flushDrawing();
         Bitmap bitmap = view.completeCache == null ? view.buildCache() : view.completeCache;
         result.wakeup(bitmap.compress(format, 100, stream));
         return true;
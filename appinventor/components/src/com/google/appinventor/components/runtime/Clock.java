@@ -136,7 +136,8 @@ public class Clock extends AndroidNonvisibleComponent
    * Specifies the interval between subsequent {@link #Timer()} events.
    *
    *   **Note**: Drift may occur over time and that the system may not honor the
-   * timing specified here if the app or another process on the phone is busy.
+   * timing specified here if the app or another process on the phone is busy. Set
+   * [`TimerFixedRate`](#Clock.TimerFixedRate) to avoid drift.
    *
    * @param interval timer interval in ms
    */
@@ -202,6 +203,101 @@ public class Clock extends AndroidNonvisibleComponent
     timerAlwaysFires = always;
   }
 
+  /**
+   * TimerFixedRate property getter method.
+   *
+   * @return {@code true} if timer events are scheduled at a fixed rate
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public boolean TimerFixedRate() {
+    return timerInternal.FixedRate();
+  }
+
+  /**
+   * Specifies whether the {@link #Timer()} event should run at a fixed rate. If true, the Timer
+   * event is scheduled at exact multiples of the [`TimerInterval`](#Clock.TimerInterval), so the
+   * time spent running the event does not accumulate as drift. If false, each Timer event is
+   * scheduled [`TimerInterval`](#Clock.TimerInterval) ms after the previous one finished.
+   *
+   * @param fixedRate {@code true} to schedule timer events at a fixed rate
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty
+  public void TimerFixedRate(boolean fixedRate) {
+    timerInternal.FixedRate(fixedRate);
+  }
+
+  /**
+   * TimerCatchUp property getter method.
+   *
+   * @return {@code true} if missed timer events run late rather than being skipped
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public boolean TimerCatchUp() {
+    return timerInternal.CatchUp();
+  }
+
+  /**
+   * Specifies what a fixed-rate timer does when the app is too busy to run the {@link #Timer()}
+   * event on time. If true, the missed Timer events run one after another until the timer is back
+   * on schedule. If false, the missed events are skipped and counted in
+   * [`TimerMissedTicks`](#Clock.TimerMissedTicks). This property has no effect unless
+   * [`TimerFixedRate`](#Clock.TimerFixedRate) is true.
+   *
+   * @param catchUp {@code true} to run missed timer events
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty
+  public void TimerCatchUp(boolean catchUp) {
+    timerInternal.CatchUp(catchUp);
+  }
+
+  /**
+   * The average number of milliseconds by which {@link #Timer()} events ran later than scheduled
+   * since the timer was enabled or the statistics were reset.
+   *
+   * @return the average lateness in ms
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public double TimerAverageLateness() {
+    return timerInternal.AverageLateness();
+  }
+
+  /**
+   * The largest number of milliseconds by which a {@link #Timer()} event ran later than scheduled
+   * since the timer was enabled or the statistics were reset.
+   *
+   * @return the maximum lateness in ms
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public long TimerMaxLateness() {
+    return timerInternal.MaxLateness();
+  }
+
+  /**
+   * The number of {@link #Timer()} events skipped by a fixed-rate timer that fell behind since
+   * the timer was enabled or the statistics were reset.
+   *
+   * @return the number of skipped timer events
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int TimerMissedTicks() {
+    return timerInternal.MissedTicks();
+  }
+
+  /**
+   * Resets [`TimerAverageLateness`](#Clock.TimerAverageLateness),
+   * [`TimerMaxLateness`](#Clock.TimerMaxLateness) and
+   * [`TimerMissedTicks`](#Clock.TimerMissedTicks) to 0.
+   */
+  @SimpleFunction(description = "Resets TimerAverageLateness, TimerMaxLateness and "
+      + "TimerMissedTicks to 0.")
+  public void ResetTimerStatistics() {
+    timerInternal.ResetStatistics();
+  }
+
   // AlarmHandler implementation
 
   @Override
@@ -8,6 +8,8 @@ package com.google.appinventor.components.runtime;
 
 import android.util.Log;
 
+import com.google.appinventor.components.runtime.util.Profiler;
+
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -219,10 +221,22 @@ public class EventDispatcher {
     // event.  This should only be true for one (or zero) of the closures.
     boolean dispatched = false;
     for (EventClosure eventClosure : eventClosures) {
-      if (dispatchDelegate.dispatchEvent(component,
-                                         eventClosure.componentId,
-                                         eventClosure.eventName,
-                                         args)) {
+      boolean handled = false;
+      int token = Profiler.enter(eventClosure.componentId, eventClosure.eventName);
+      try {
+        handled = dispatchDelegate.dispatchEvent(component,
+                                                 eventClosure.componentId,
+                                                 eventClosure.eventName,
+                                                 args);
+      } finally {
+        // Only the closure registered for this component is profiled.
+        if (handled) {
+          Profiler.exit(token);
+        } else {
+          Profiler.discard(token);
+        }
+      }
+      if (handled) {
         if (DEBUG) {
           Log.i("EventDispatcher", "Successfully dispatched event " +
               eventClosure.componentId + "." + eventClosure.eventName);
@@ -35,6 +35,7 @@ import com.google.appinventor.components.runtime.util.Continuation;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileAccessMode;
 import com.google.appinventor.components.runtime.util.FileOperation;
+import com.google.appinventor.components.runtime.util.FileReadOperation;
 import com.google.appinventor.components.runtime.util.FileStreamReadOperation;
 import com.google.appinventor.components.runtime.util.FileStreamWriteOperation;
 import com.google.appinventor.components.runtime.util.FileUtil;
@@ -43,16 +44,22 @@ import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.ScopedFile;
 import com.google.appinventor.components.runtime.util.SingleFileOperation;
 import com.google.appinventor.components.runtime.util.Synchronizer;
+import com.google.appinventor.components.runtime.util.YailList;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 /**
  * Non-visible component for storing and retrieving files. Use this component to write or read files
@@ -108,6 +115,8 @@ import java.util.List;
 @SuppressLint({"InlinedApi", "SdCardPath"})
 public class File extends AndroidNonvisibleComponent implements Component {
   private static final String LOG_TAG = "FileComponent";
+  // Largest number of bytes read by ReadRange
+  private static final int MAX_RANGE_LENGTH = 8 * 1024 * 1024;
   private FileScope scope = FileScope.App;
 
   /**
@@ -579,22 +588,168 @@ public class File extends AndroidNonvisibleComponent implements Component {
 
         @Override
         public void onError(IOException e) {
-          if (e instanceof FileNotFoundException) {
-            Log.e(LOG_TAG, "FileNotFoundException", e);
-            form.dispatchErrorOccurredEvent(File.this, "ReadFrom",
-                ErrorMessages.ERROR_CANNOT_FIND_FILE, fileName);
-          } else {
-            Log.e(LOG_TAG, "IOException", e);
-            form.dispatchErrorOccurredEvent(File.this, "ReadFrom",
-                ErrorMessages.ERROR_CANNOT_READ_FILE, fileName);
+          reportReadError("ReadFrom", fileName, e);
+        }
+      }.run();
+    } catch (StopBlocksExecution e) {
+      // This is okay because the block is designed to be asynchronous.
+    }
+  }
+
+  /**
+   * Reads a text file in batches of lines. The {@link #GotLines(YailList, int, boolean)} event
+   * runs once per batch with at most `batchSize`{:.variable.block} lines, so large files can be
+   * processed without holding the whole file in memory. The next batch is read once the previous
+   * GotLines event has run. The `fileName`{:.text.block} is interpreted in the same way as for
+   * [`ReadFrom`](#File.ReadFrom).
+   *
+   * @param fileName the file from which the lines are read
+   * @param batchSize the largest number of lines passed to each GotLines event
+   */
+  @SimpleFunction(description = "Reads a text file in batches of lines. The GotLines event runs "
+      + "once per batch with at most batchSize lines. The filename is interpreted in the same way "
+      + "as for ReadFrom.")
+  public void ReadLines(final String fileName, int batchSize) {
+    final int size = Math.max(1, batchSize);
+    try {
+      new FileStreamReadOperation(form, this, "ReadLines", fileName, scope, true) {
+        @Override
+        protected boolean process(InputStreamReader reader) throws IOException {
+          BufferedReader in = new BufferedReader(reader);
+          // Only one batch is queued on the UI thread at a time, so a large file neither floods
+          // the queue nor is held in memory. The operation runs on the UI thread only when it was
+          // called from it synchronously, in which case the batches can't be waited for.
+          final Semaphore delivered = AsynchUtil.isUiThread() ? null : new Semaphore(1);
+          int firstLine = 1;
+          // Read one line ahead so that the last batch can be flagged as such.
+          String line = in.readLine();
+          while (true) {
+            final List<String> batch = new ArrayList<>(Math.min(size, 1024));
+            while (line != null && batch.size() < size) {
+              batch.add(line);
+              line = in.readLine();
+            }
+            final int first = firstLine;
+            final boolean last = line == null;
+            if (delivered != null) {
+              try {
+                delivered.acquire();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+              }
+            }
+            form.runOnUiThread(new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  GotLines(YailList.makeList(batch), first, last);
+                } finally {
+                  if (delivered != null) {
+                    delivered.release();
+                  }
+                }
+              }
+            });
+            if (last) {
+              return true;
+            }
+            firstLine += batch.size();
           }
         }
+
+        @Override
+        protected boolean process(String contents) {
+          // Not used; lines are read directly from the stream.
+          return true;
+        }
+
+        @Override
+        public void onError(IOException e) {
+          reportReadError("ReadLines", fileName, e);
+        }
       }.run();
     } catch (StopBlocksExecution e) {
       // This is okay because the block is designed to be asynchronous.
     }
   }
 
+  /**
+   * Reads up to `length`{:.variable.block} bytes of text starting `offset`{:.variable.block}
+   * bytes into the file. The {@link #GotRange(int, String)} event runs with the text that was
+   * read, which is shorter than requested if the end of the file is reached. Only the requested
+   * part of the file is read, and at most 8 MiB of it. The text is decoded as UTF-8, and a
+   * character cut by either end of the range is replaced by U+FFFD. The `fileName`{:.text.block}
+   * is interpreted in the same way as for [`ReadFrom`](#File.ReadFrom).
+   *
+   * @param fileName the file from which the text is read
+   * @param offset the number of bytes to skip from the start of the file
+   * @param length the largest number of bytes to read
+   */
+  @SimpleFunction(description = "Reads up to length bytes of text, and at most 8 MiB, starting "
+      + "offset bytes into the file. The GotRange event runs with the text that was read. The "
+      + "filename is interpreted in the same way as for ReadFrom.")
+  public void ReadRange(final String fileName, final int offset, int length) {
+    final int count = Math.min(Math.max(0, length), MAX_RANGE_LENGTH);
+    try {
+      new FileReadOperation(form, this, "ReadRange", fileName, scope, true) {
+        @Override
+        protected boolean process(InputStream in) throws IOException {
+          // For files, skip seeks rather than reading the skipped bytes.
+          long toSkip = Math.max(0, offset);
+          while (toSkip > 0) {
+            long skipped = in.skip(toSkip);
+            if (skipped <= 0) {
+              if (in.read() == -1) {
+                break;
+              }
+              skipped = 1;
+            }
+            toSkip -= skipped;
+          }
+          // Grow the buffer as bytes are read, so that it is never larger than the rest of the file
+          ByteArrayOutputStream bytes =
+              new ByteArrayOutputStream(Math.min(count, Math.max(in.available(), 8192)));
+          byte[] chunk = new byte[Math.min(count, 8192)];
+          int total = 0;
+          int read;
+          while (total < count
+              && (read = in.read(chunk, 0, Math.min(chunk.length, count - total))) != -1) {
+            bytes.write(chunk, 0, read);
+            total += read;
+          }
+          final String text = IOUtils.normalizeNewLines(bytes.toString("UTF-8"));
+          form.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              GotRange(offset, text);
+            }
+          });
+          return true;
+        }
+
+        @Override
+        public void onError(IOException e) {
+          reportReadError("ReadRange", fileName, e);
+        }
+      }.run();
+    } catch (StopBlocksExecution e) {
+      // This is okay because the block is designed to be asynchronous.
+    }
+  }
+
+  private void reportReadError(String method, String fileName, IOException e) {
+    if (e instanceof FileNotFoundException) {
+      Log.e(LOG_TAG, "FileNotFoundException", e);
+      form.dispatchErrorOccurredEvent(this, method, ErrorMessages.ERROR_CANNOT_FIND_FILE,
+          fileName);
+    } else {
+      Log.e(LOG_TAG, "IOException", e);
+      form.dispatchErrorOccurredEvent(this, method, ErrorMessages.ERROR_CANNOT_READ_FILE,
+          fileName);
+    }
+  }
+
 
   /**
    * Deletes a file from storage. Prefix the `fileName`{:.text.block} with `/` to delete a specific
@@ -709,6 +864,33 @@ public class File extends AndroidNonvisibleComponent implements Component {
     EventDispatcher.dispatchEvent(this, "GotText", text);
   }
 
+  /**
+   * Event indicating that a batch of lines requested by
+   * {@link #ReadLines(String, int)} has been read.
+   *
+   * @param lines the lines in this batch, without line terminators
+   * @param firstLine the line number of the first line in the batch, starting at 1
+   * @param lastBatch true if this is the final batch for the file
+   */
+  @SimpleEvent(description = "Event indicating that a batch of lines requested by ReadLines "
+      + "has been read.")
+  public void GotLines(YailList lines, int firstLine, boolean lastBatch) {
+    EventDispatcher.dispatchEvent(this, "GotLines", lines, firstLine, lastBatch);
+  }
+
+  /**
+   * Event indicating that the text requested by {@link #ReadRange(String, int, int)} has been
+   * read.
+   *
+   * @param offset the offset, in bytes, at which the text starts
+   * @param text the text read from the file
+   */
+  @SimpleEvent(description = "Event indicating that the text requested by ReadRange has been "
+      + "read.")
+  public void GotRange(int offset, String text) {
+    EventDispatcher.dispatchEvent(this, "GotRange", offset, text);
+  }
+
   /**
    * Event indicating that the contents of the file have been written.
    *
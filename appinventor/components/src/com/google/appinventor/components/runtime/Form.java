@@ -74,17 +74,23 @@ import com.google.appinventor.components.runtime.util.AnimationUtil;
 import com.google.appinventor.components.runtime.util.BulkPermissionRequest;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
+import com.google.appinventor.components.runtime.util.FrameMonitor;
 import com.google.appinventor.components.runtime.util.FullScreenVideoUtil;
+import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.JsonUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.OnInitializeListener;
+import com.google.appinventor.components.runtime.util.Profiler;
+import com.google.appinventor.components.runtime.util.RetValManager;
 import com.google.appinventor.components.runtime.util.ScreenDensityUtil;
+import com.google.appinventor.components.runtime.util.ScopedFile;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import com.google.appinventor.components.runtime.util.ViewUtil;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
@@ -164,10 +170,32 @@ public class Form extends AppInventorCompatActivity
 
   protected final Handler androidUIHandler = new Handler();
 
+  // How often the profile is sent to the blocks editor while profiling in the Companion.
+  private static final long PROFILE_REPORT_INTERVAL_MS = 1000;
+
+  private final Runnable profileReporter = new Runnable() {
+    @Override
+    public void run() {
+      if (Profiler.isEnabled()) {
+        RetValManager.sendProfile(Profiler.toJSONString());
+        androidUIHandler.postDelayed(this, PROFILE_REPORT_INTERVAL_MS);
+      }
+    }
+  };
+
   protected String formName;
 
   private boolean screenInitialized;
 
+  // The number of nested layout batches, and whether a layout change was deferred by them.
+  private int layoutBatchDepth;
+  private boolean layoutPending;
+
+  // True while the designer properties are applied, and the number of images they named that
+  // are still loading in the background.
+  private boolean applyingDesignerProperties;
+  private int pendingImageLoads;
+
   private static final int SWITCH_FORM_REQUEST_CODE = 1;
   private static int nextRequestCode = SWITCH_FORM_REQUEST_CODE + 1;
 
@@ -374,25 +402,48 @@ public class Form extends AppInventorCompatActivity
 
     populatePermissions();
 
-    defaultPropertyValues();
-
-    // Get startup text if any before adding components
-    Intent startIntent = getIntent();
-    if (startIntent != null && startIntent.hasExtra(ARGUMENT_NAME)) {
-      startupValue = startIntent.getStringExtra(ARGUMENT_NAME);
-    }
-
-    fullScreenVideoUtil = new FullScreenVideoUtil(this, androidUIHandler);
+    // Apply the default and designer properties with a single layout pass.
+    beginLayoutBatch();
+    try {
+      defaultPropertyValues();
 
-    // Set soft keyboard to not cover the focused UI element, e.g., when you are typing
-    // into a textbox near the bottom of the screen.
-    WindowManager.LayoutParams params = getWindow().getAttributes();
-    int softInputMode = params.softInputMode;
-    getWindow().setSoftInputMode(
-        softInputMode | WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE);
+      // Get startup text if any before adding components
+      Intent startIntent = getIntent();
+      if (startIntent != null && startIntent.hasExtra(ARGUMENT_NAME)) {
+        startupValue = startIntent.getStringExtra(ARGUMENT_NAME);
+      }
 
-    // Add application components to the form
-    $define();
+      fullScreenVideoUtil = new FullScreenVideoUtil(this, androidUIHandler);
+
+      // Set soft keyboard to not cover the focused UI element, e.g., when you are typing
+      // into a textbox near the bottom of the screen.
+      WindowManager.LayoutParams params = getWindow().getAttributes();
+      int softInputMode = params.softInputMode;
+      getWindow().setSoftInputMode(
+          softInputMode | WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE);
+
+      // Add application components to the form. Their views are configured off screen and only
+      // attached once the designer properties have been applied, and images named by the
+      // properties are loaded in parallel in the background.
+      ViewGroup components = viewLayout.getLayoutManager();
+      frameLayout.removeView(components);
+      applyingDesignerProperties = true;
+      try {
+        $define();
+      } finally {
+        applyingDesignerProperties = false;
+      }
+      if (pendingImageLoads > 0) {
+        components.setVisibility(View.INVISIBLE);
+      }
+      if (components.getParent() == null) {
+        frameLayout.addView(components, new ViewGroup.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.MATCH_PARENT));
+      }
+    } finally {
+      endLayoutBatch();
+    }
 
     // Special case for Event.Initialize(): all other initialize events are triggered after
     // completing the constructor. This doesn't work for Android apps though because this method
@@ -515,6 +566,7 @@ public class Form extends AppInventorCompatActivity
 
   @Override
   public void onGlobalLayout() {
+    FrameMonitor.layoutPassed();
     int totalHeight = scaleLayout.getRootView().getHeight();
     int scaledHeight = scaleLayout.getHeight();
     int heightDiff = totalHeight - scaledHeight;
@@ -786,6 +838,8 @@ public class Form extends AppInventorCompatActivity
 
     // Unregister events for components in this form.
     EventDispatcher.removeDispatchDelegate(this);
+    androidUIHandler.removeCallbacks(profileReporter);
+    FrameMonitor.stop();
 
     for (OnDestroyListener onDestroyListener : onDestroyListeners) {
       onDestroyListener.onDestroy();
@@ -881,7 +935,8 @@ public class Form extends AppInventorCompatActivity
     // Dispatch the Initialize event only after the screen's width and height are no longer zero.
     androidUIHandler.post(new Runnable() {
       public void run() {
-        if (frameLayout != null && frameLayout.getWidth() != 0 && frameLayout.getHeight() != 0) {
+        if (frameLayout != null && frameLayout.getWidth() != 0 && frameLayout.getHeight() != 0
+            && pendingImageLoads == 0) {
           EventDispatcher.dispatchEvent(Form.this, "Initialize");
           if (sCompatibilityMode) { // Make sure call to setLayout happens
             Sizing("Fixed");
@@ -1127,7 +1182,7 @@ public class Form extends AppInventorCompatActivity
     //this.scrollable = scrollable;
     this.highContrast=highContrast;
     setHighContrastRecursive(this, highContrast);
-    recomputeLayout();
+    requestRecomputeLayout();
   }
 
   private static void setHighContrastRecursive(ComponentContainer container, boolean enabled) {
@@ -1165,7 +1220,7 @@ public class Form extends AppInventorCompatActivity
     //this.scrollable = scrollable;
     this.bigDefaultText=bigDefaultText;
     setBigDefaultTextRecursive(this, bigDefaultText);
-    recomputeLayout();
+    requestRecomputeLayout();
   }
 
 
@@ -1219,7 +1274,63 @@ public class Form extends AppInventorCompatActivity
     }
 
     this.scrollable = scrollable;
-    recomputeLayout();
+    requestRecomputeLayout();
+  }
+
+  /**
+   * Defers layout changes until the matching {@link #endLayoutBatch()}, so that the default and
+   * designer properties set during initialization cause at most one layout pass. Batches can be
+   * nested. Must be called on the UI thread.
+   */
+  void beginLayoutBatch() {
+    layoutBatchDepth++;
+  }
+
+  /**
+   * Ends a batch started by {@link #beginLayoutBatch()}, and performs the layout change deferred
+   * during the batch, if any.
+   */
+  void endLayoutBatch() {
+    if (layoutBatchDepth > 0 && --layoutBatchDepth == 0 && layoutPending) {
+      layoutPending = false;
+      recomputeLayout();
+    }
+  }
+
+  /**
+   * Returns true while the designer properties of the components are being applied. Property
+   * setters can then start loading images in the background, using
+   * {@link #imageLoadStarted()} and {@link #imageLoadFinished()}.
+   */
+  public boolean isApplyingDesignerProperties() {
+    return applyingDesignerProperties;
+  }
+
+  /**
+   * Notes that an image named by a designer property started loading in the background. The
+   * components are hidden, and the Initialize event is held back, until it has finished.
+   */
+  public void imageLoadStarted() {
+    pendingImageLoads++;
+  }
+
+  /**
+   * Notes that an image started with {@link #imageLoadStarted()} has been loaded and applied,
+   * or failed to load. Must be called on the UI thread.
+   */
+  public void imageLoadFinished() {
+    if (pendingImageLoads > 0 && --pendingImageLoads == 0) {
+      viewLayout.getLayoutManager().setVisibility(View.VISIBLE);
+    }
+  }
+
+  private void requestRecomputeLayout() {
+    // The first layout is never deferred because it creates the frameLayout.
+    if (layoutBatchDepth > 0 && frameLayout != null) {
+      layoutPending = true;
+    } else {
+      recomputeLayout();
+    }
   }
 
   private void recomputeLayout() {
@@ -2731,6 +2842,67 @@ public class Form extends AppInventorCompatActivity
     imm.hideSoftInputFromWindow(view.getWindowToken(), 0);
   }
 
+  /**
+   * Starts recording how often and for how long each event handler, component method and
+   * background task runs, along with the time between display frames and the number of layout
+   * passes that follow each property change. In the Companion, the statistics are sent to the
+   * blocks editor once a second so that the busiest blocks can be highlighted. Use
+   * {@link #SaveProfile(String)} to keep the statistics of a built app.
+   */
+  @SimpleFunction(description = "Starts recording how often and for how long each event "
+      + "handler and component method runs. While testing in the Companion, the busiest blocks "
+      + "are highlighted in the blocks editor.")
+  public void StartProfiling() {
+    Profiler.setEnabled(true);
+    FrameMonitor.start(formName);
+    if (isRepl()) {
+      androidUIHandler.removeCallbacks(profileReporter);
+      androidUIHandler.postDelayed(profileReporter, PROFILE_REPORT_INTERVAL_MS);
+    }
+  }
+
+  /**
+   * Stops recording the profile started by {@link #StartProfiling()}. The statistics collected
+   * so far are kept until profiling starts again.
+   */
+  @SimpleFunction(description = "Stops recording the profile. The statistics collected so far "
+      + "can still be saved with SaveProfile.")
+  public void StopProfiling() {
+    if (Profiler.isEnabled() && isRepl()) {
+      RetValManager.sendProfile(Profiler.toJSONString());
+    }
+    androidUIHandler.removeCallbacks(profileReporter);
+    FrameMonitor.stop();
+    Profiler.setEnabled(false);
+  }
+
+  /**
+   * Saves the profile as JSON to the given file, using the {@link #DefaultFileScope(FileScope)}.
+   * Each entry gives the name of a block, the number of calls, the total and maximum time in
+   * milliseconds and the number of objects allocated.
+   *
+   * @param fileName the file to write
+   * @return the full path of the file written, or the empty text if it couldn't be written
+   */
+  @SimpleFunction(description = "Saves the recorded profile as JSON to the given file and "
+      + "returns the full path of the file.")
+  public String SaveProfile(String fileName) {
+    ScopedFile file = new ScopedFile(DefaultFileScope(), fileName);
+    OutputStream out = null;
+    try {
+      out = FileUtil.openForWriting(this, file);
+      out.write(Profiler.toJSONString().getBytes("UTF-8"));
+      return FileUtil.resolveFileName(this, file);
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to save profile", e);
+      dispatchErrorOccurredEvent(this, "SaveProfile", ErrorMessages.ERROR_CANNOT_WRITE_TO_FILE,
+          fileName);
+      return "";
+    } finally {
+      IOUtils.closeQuietly(LOG_TAG, out);
+    }
+  }
+
   protected void updateTitle() {
     themeHelper.setTitle(title);
   }
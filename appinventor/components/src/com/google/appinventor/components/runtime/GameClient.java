@@ -621,7 +621,7 @@ public class GameClient extends AndroidNonvisibleComponent
                 "InstancesInvited lists. This procedure can be called " +
                 "before setting the InstanceId.")
   public void GetInstanceLists() {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.GetInstanceLists", new Runnable() {
         public void run() { postGetInstanceLists(); }});
   }
 
@@ -705,7 +705,7 @@ public class GameClient extends AndroidNonvisibleComponent
   @SimpleFunction(
       description = "Retrieves messages of the specified type.")
   public void GetMessages(final String type, final int count) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.GetMessages", new Runnable() {
       public void run() { postGetMessages(type, count); }});
   }
 
@@ -774,7 +774,7 @@ public class GameClient extends AndroidNonvisibleComponent
   @SimpleFunction(
       description = "Invites a player to this game instance.")
   public void Invite(final String playerEmail) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.Invite", new Runnable() {
       public void run() { postInvite(playerEmail); }});
   }
 
@@ -830,7 +830,7 @@ public class GameClient extends AndroidNonvisibleComponent
    */
   @SimpleFunction(description = "Leaves the current instance.")
   public void LeaveInstance() {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.LeaveInstance", new Runnable() {
       public void run() {
         postLeaveInstance();
       }
@@ -881,7 +881,7 @@ public class GameClient extends AndroidNonvisibleComponent
   @SimpleFunction(description = "Asks the server to create a new " +
                 "instance of this game.")
   public void MakeNewInstance(final String instanceId, final boolean makePublic) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.MakeNewInstance", new Runnable() {
       public void run() { postMakeNewInstance(instanceId, makePublic); }});
   }
 
@@ -928,7 +928,7 @@ public class GameClient extends AndroidNonvisibleComponent
                 "recipients in the recipients list. The message will " +
                 "consist of the contents list.")
   public void SendMessage(final String type, final YailList recipients, final YailList contents) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.SendMessage", new Runnable() {
       public void run() { postNewMessage(type, recipients, contents); }});
   }
 
@@ -976,7 +976,7 @@ public class GameClient extends AndroidNonvisibleComponent
   @SimpleFunction(description = "Sends the specified command to " +
                 "the game server.")
   public void ServerCommand(final String command, final YailList arguments) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.ServerCommand", new Runnable() {
       public void run() { postServerCommand(command, arguments); }});
   }
 
@@ -1019,7 +1019,7 @@ public class GameClient extends AndroidNonvisibleComponent
   @SimpleFunction(description = "Sets InstanceId and joins the " +
                 "specified instance.")
   public void SetInstance(final String instanceId) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.SetInstance", new Runnable() {
       public void run() {
         if (instanceId.equals("")) {
           Log.d(LOG_TAG, "Instance id set to empty string.");
@@ -1072,7 +1072,7 @@ public class GameClient extends AndroidNonvisibleComponent
                 "leader to playerId. Only the current leader may " +
                 "successfully set a new leader.")
   public void SetLeader(final String playerEmail) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("GameClient.SetLeader", new Runnable() {
       public void run() { postSetLeader(playerEmail); }});
   }
 
@@ -15,6 +15,8 @@ import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.common.ComponentCategory;
 import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.common.YaVersion;
+import com.google.appinventor.components.runtime.util.SensorPipeline;
+import com.google.appinventor.components.runtime.util.YailList;
 
 import android.content.Context;
 import android.hardware.Sensor;
@@ -36,7 +38,8 @@ import android.hardware.SensorManager;
 
 @SimpleObject
 public class GyroscopeSensor extends AndroidNonvisibleComponent
-    implements SensorEventListener, Deleteable, OnPauseListener, OnResumeListener {
+    implements SensorEventListener, Deleteable, OnPauseListener, OnResumeListener,
+    SensorComponent, SensorPipeline.Callback {
 
   // Properties
   private boolean enabled;
@@ -47,6 +50,7 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
   // Sensor information
   private final SensorManager sensorManager;
   private final Sensor gyroSensor;
+  private final SensorPipeline pipeline;
   private boolean listening;
 
   /**
@@ -58,6 +62,8 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
     // Get sensors, and start listening.
     sensorManager = (SensorManager) form.getSystemService(Context.SENSOR_SERVICE);
     gyroSensor = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+    pipeline = new SensorPipeline(sensorManager, gyroSensor, this,
+        SensorManager.SENSOR_DELAY_FASTEST, this);
 
     // Begin listening in onResume() and stop listening in onPause().
     form.registerForOnResume(this);
@@ -69,14 +75,14 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
 
   private void startListening() {
     if (!listening) {
-      sensorManager.registerListener(this, gyroSensor, SensorManager.SENSOR_DELAY_FASTEST);
+      pipeline.start();
       listening = true;
     }
   }
 
   private void stopListening() {
     if (listening) {
-      sensorManager.unregisterListener(this);
+      pipeline.stop();
       listening = false;
 
       // Throw out sensor information that will go stale.
@@ -93,13 +99,28 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
    * @suppressdoc
    */
   @SimpleEvent(description = "Indicates that the gyroscope sensor data has changed. The " +
-      "timestamp parameter is the time in nanoseconds at which the event occurred.")
+      "timestamp parameter is the time in nanoseconds at which the event occurred. The event " +
+      "is raised at most once per screen refresh, with the latest data.")
   public void GyroscopeChanged(
       float xAngularVelocity, float yAngularVelocity, float zAngularVelocity, long timestamp) {
     EventDispatcher.dispatchEvent(this, "GyroscopeChanged",
         xAngularVelocity, yAngularVelocity, zAngularVelocity, timestamp);
   }
 
+  /**
+   * SamplesReceived event handler.
+   * @suppressdoc
+   */
+  @SimpleEvent(description = "Indicates that gyroscope samples have been received while " +
+      "ReportLatency is greater than 0. Each parameter is a list with one entry per sample, " +
+      "oldest first: the angular velocities around the X, Y and Z axes in degrees per second, " +
+      "and the times in nanoseconds at which the samples were taken.")
+  public void SamplesReceived(YailList xAngularVelocities, YailList yAngularVelocities,
+      YailList zAngularVelocities, YailList timestamps) {
+    EventDispatcher.dispatchEvent(this, "SamplesReceived",
+        xAngularVelocities, yAngularVelocities, zAngularVelocities, timestamps);
+  }
+
   // Properties
 
   /**
@@ -150,6 +171,59 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
     }
   }
 
+  /**
+   * SampleRate property getter method.
+   *
+   * @return the requested number of samples per second, or 0 for as fast as possible
+   * @suppressdoc
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int SampleRate() {
+    return pipeline.getSampleRate();
+  }
+
+  /**
+   * SampleRate property setter method.
+   *
+   * @param sampleRate the requested number of samples per second, or 0 for as fast as possible
+   * @suppressdoc
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty(description = "The number of samples per second to request from the " +
+      "gyroscope, or 0 for as fast as possible. The device may deliver samples faster or " +
+      "slower than requested.")
+  public void SampleRate(int sampleRate) {
+    pipeline.setSampleRate(sampleRate);
+  }
+
+  /**
+   * ReportLatency property getter method.
+   *
+   * @return how long, in milliseconds, samples may be held before they are reported
+   * @suppressdoc
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR)
+  public int ReportLatency() {
+    return pipeline.getReportLatency();
+  }
+
+  /**
+   * ReportLatency property setter method.
+   *
+   * @param reportLatency how long, in milliseconds, samples may be held before they are reported
+   * @suppressdoc
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty(description = "How long, in milliseconds, samples may be held before they " +
+      "are reported. If greater than 0, every sample is delivered through the SamplesReceived " +
+      "event and, on devices that support it, the sensor collects samples in hardware while " +
+      "the processor sleeps, which saves battery.")
+  public void ReportLatency(int reportLatency) {
+    pipeline.setReportLatency(reportLatency);
+  }
+
   /**
    * XAngularVelocity property getter method (read-only property).
    *
@@ -207,9 +281,8 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
       yAngularVelocity = (float) Math.toDegrees(sensorEvent.values[1]);
       zAngularVelocity = (float) Math.toDegrees(sensorEvent.values[2]);
 
-      // Raise event.
-      GyroscopeChanged(xAngularVelocity, yAngularVelocity, zAngularVelocity,
-          sensorEvent.timestamp);
+      // Events are raised from flush.
+      pipeline.add(xAngularVelocity, yAngularVelocity, zAngularVelocity, sensorEvent.timestamp);
     }
   }
 
@@ -217,6 +290,18 @@ public class GyroscopeSensor extends AndroidNonvisibleComponent
   public void onAccuracyChanged(Sensor sensor, int accuracy) {
   }
 
+  // SensorPipeline.Callback implementation
+
+  @Override
+  public void flush(SensorPipeline pipeline) {
+    if (pipeline.size() > 0) {
+      SamplesReceived(pipeline.xValues(), pipeline.yValues(), pipeline.zValues(),
+          pipeline.timestamps());
+    }
+    GyroscopeChanged(pipeline.lastX(), pipeline.lastY(), pipeline.lastZ(),
+        pipeline.lastTimestamp());
+  }
+
   // Deleteable implementation
 
   @Override
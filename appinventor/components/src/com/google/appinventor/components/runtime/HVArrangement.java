@@ -8,6 +8,7 @@ package com.google.appinventor.components.runtime;
 
 import android.app.Activity;
 
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 
 import android.os.Handler;
@@ -34,11 +35,10 @@ import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.common.VerticalAlignment;
 
 import com.google.appinventor.components.runtime.util.AlignmentUtil;
+import com.google.appinventor.components.runtime.util.AsyncCallbackPair;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
-import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.ViewUtil;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -401,11 +401,26 @@ public class HVArrangement extends AndroidViewComponent implements Component, Co
 
         // Load image from file.
         if (imagePath.length() > 0) {
-            try {
-                backgroundImageDrawable = MediaUtil.getBitmapDrawable(container.$form(), imagePath);
-            } catch (IOException ioe) {
-                // Fall through with a value of null for backgroundImageDrawable.
-            }
+            final String requestedPath = imagePath;
+            loadImageWhenShown("Image", imagePath,
+                new AsyncCallbackPair<BitmapDrawable>() {
+                    @Override
+                    public void onFailure(String message) {
+                        // Fall through with a value of null for backgroundImageDrawable.
+                        onSuccess(null);
+                    }
+
+                    @Override
+                    public void onSuccess(BitmapDrawable result) {
+                        // Ignore the image if another one was set while it was loading.
+                        if (requestedPath.equals(imagePath)) {
+                            backgroundImageDrawable = result;
+                            // Update the appearance based on the new backgroundImageDrawable.
+                            updateAppearance();
+                        }
+                    }
+                });
+            return;
         }
 
         // Update the appearance based on the new value of backgroundImageDrawable.
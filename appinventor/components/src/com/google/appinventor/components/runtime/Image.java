@@ -22,20 +22,20 @@ import com.google.appinventor.components.common.YaVersion;
 import com.google.appinventor.components.runtime.EventDispatcher;
 import com.google.appinventor.components.runtime.errors.IllegalArgumentError;
 import com.google.appinventor.components.runtime.util.AnimationUtil;
+import com.google.appinventor.components.runtime.util.AsyncCallbackPair;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.HoneycombUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.SdkLevel;
 import com.google.appinventor.components.runtime.util.ViewUtil;
 
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.ImageView;
 
-import java.io.IOException;
-
 /**
  * Component for displaying images and basic animations.
  *
@@ -164,15 +164,23 @@ public final class Image extends AndroidViewComponent {
     }
     picturePath = (path == null) ? "" : path;
 
-    Drawable drawable;
-    try {
-      drawable = MediaUtil.getBitmapDrawable(container.$form(), picturePath);
-    } catch (IOException ioe) {
-      Log.e("Image", "Unable to load " + picturePath);
-      drawable = null;
-    }
+    final String requestedPath = picturePath;
+    loadImageWhenShown("Picture", picturePath,
+        new AsyncCallbackPair<BitmapDrawable>() {
+          @Override
+          public void onFailure(String message) {
+            Log.e("Image", "Unable to load " + requestedPath);
+            onSuccess(null);
+          }
 
-    ViewUtil.setImage(view, drawable);
+          @Override
+          public void onSuccess(BitmapDrawable drawable) {
+            // Ignore the picture if another one was set while it was loading.
+            if (requestedPath.equals(picturePath)) {
+              ViewUtil.setImage(view, drawable);
+            }
+          }
+        });
   }
 
   /**
@@ -613,7 +613,7 @@ public class Map extends MapFeatureContainerBase implements MapEventListener {
     if (path.startsWith("/") || path.startsWith("file:/")) {
       final java.io.File target = path.startsWith("file:") ? new java.io.File(URI.create(path))
           : new java.io.File(path);
-      AsynchUtil.runAsynchronously(new Runnable() {
+      AsynchUtil.runAsynchronously("Map.Save", new Runnable() {
         @Override
         public void run() {
           doSave(featuresToSave, target);
@@ -229,7 +229,7 @@ public abstract class MapFeatureContainerBase extends AndroidViewComponent imple
       "LoadError event will be raised with any applicable HTTP response code and error " +
       "message.</p>")
   public void LoadFromURL(final String url) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("MapFeatureContainerBase.LoadFromURL", new Runnable() {
       public void run() {
         performGet(url);
       }
@@ -98,7 +98,7 @@ public class Navigation extends AndroidNonvisibleComponent implements Component
     final GeoPoint startLocation = this.startLocation;
     final GeoPoint endLocation = this.endLocation;
     final TransportMethod method = this.method;
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Navigation.RequestDirections", new Runnable() {
       @SuppressWarnings("TryWithIdenticalCatches")
       @Override
       public void run() {
@@ -156,7 +156,7 @@ public class TinyWebDB extends AndroidNonvisibleComponent implements Component {
   public void StoreValue(final String tag, final Object valueToStore) {
     final Runnable call = new Runnable() {
       public void run() { postStoreValue(tag, valueToStore); }};
-      AsynchUtil.runAsynchronously(call);
+      AsynchUtil.runAsynchronously("TinyWebDB.StoreValue", call);
   }
 
   // Here's part (b): The actual communication, which runs
@@ -265,7 +265,7 @@ public class TinyWebDB extends AndroidNonvisibleComponent implements Component {
       + "under the tag. This component accepts whatever is returned.")
   public void GetValue(final String tag) {
     final Runnable call = new Runnable() { public void run() { postGetValue(tag); }};
-    AsynchUtil.runAsynchronously(call);
+    AsynchUtil.runAsynchronously("TinyWebDB.GetValue", call);
   }
 
   private void postGetValue(final String tag) {
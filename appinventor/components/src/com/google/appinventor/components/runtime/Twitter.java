@@ -309,7 +309,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
     }
     final String myConsumerKey = consumerKey;
     final String myConsumerSecret = consumerSecret;
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.Authorize", new Runnable() {
       public void run() {
         if (checkAccessToken(myConsumerKey, myConsumerSecret)) {
           handler.post(new Runnable() {
@@ -363,7 +363,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
   public void CheckAuthorized() {
     final String myConsumerKey = consumerKey;
     final String myConsumerSecret = consumerSecret;
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.CheckAuthorized", new Runnable() {
       public void run() {
         if (checkAccessToken(myConsumerKey, myConsumerSecret)) {
           handler.post(new Runnable() {
@@ -397,7 +397,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
         }
         if (requestToken != null && oauthVerifier != null
             && oauthVerifier.length() != 0) {
-          AsynchUtil.runAsynchronously(new Runnable() {
+          AsynchUtil.runAsynchronously("Twitter.Authorize", new Runnable() {
             public void run() {
               try {
                 AccessToken resultAccessToken;
@@ -511,7 +511,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
     // and invalidate the authorization credentials for myTwitter, causing
     // the call below to fail. If we want to prevent this we could consider
     // using an ExecutorService object to serialize calls to Twitter.
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.Tweet", new Runnable() {
       public void run() {
         try {
           twitter.updateStatus(status);
@@ -545,7 +545,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.TweetWithImage", new Runnable() {
       public void run() {
         try {
           String cleanImagePath = imagePath;
@@ -595,7 +595,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           ErrorMessages.ERROR_TWITTER_REQUEST_MENTIONS_FAILED, "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.RequestMentions", new Runnable() {
       List<Status> replies = Collections.emptyList();
 
       public void run() {
@@ -671,7 +671,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.RequestFollowers", new Runnable() {
       List<User> friends = new ArrayList<User>();
 
       public void run() {
@@ -764,7 +764,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.RequestDirectMessages", new Runnable() {
       List<DirectMessage> messages = Collections.emptyList();
 
       @Override
@@ -855,7 +855,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           ErrorMessages.ERROR_TWITTER_DIRECT_MESSAGE_FAILED, "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.DirectMessage", new Runnable() {
       public void run() {
         try {
           twitter.sendDirectMessage(user, message);
@@ -877,7 +877,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           ErrorMessages.ERROR_TWITTER_FOLLOW_FAILED, "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.Follow", new Runnable() {
       public void run() {
         try {
           twitter.createFriendship(user);
@@ -899,7 +899,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           ErrorMessages.ERROR_TWITTER_STOP_FOLLOWING_FAILED, "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.StopFollowing", new Runnable() {
       public void run() {
         try {
           twitter.destroyFriendship(user);
@@ -922,7 +922,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.RequestFriendTimeline", new Runnable() {
       List<Status> messages = Collections.emptyList();
 
       public void run() {
@@ -1012,7 +1012,7 @@ public final class Twitter extends AndroidNonvisibleComponent implements
           ErrorMessages.ERROR_TWITTER_SEARCH_FAILED, "Need to login?");
       return;
     }
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Twitter.SearchTwitter", new Runnable() {
       List<Status> tweets = Collections.emptyList();
 
       public void run() {
@@ -261,7 +261,7 @@ public class Voting extends AndroidNonvisibleComponent implements Component {
   public void RequestBallot() {
     final Runnable call = new Runnable() {
       public void run() { postRequestBallot(); }};
-      AsynchUtil.runAsynchronously(call);
+      AsynchUtil.runAsynchronously("Voting.RequestBallot", call);
   }
 
   private void postRequestBallot(){
@@ -380,7 +380,7 @@ public class Voting extends AndroidNonvisibleComponent implements Component {
   public void SendBallot() {
     final Runnable call = new Runnable() {
       public void run() { postSendBallot(userChoice, userId); }};
-      AsynchUtil.runAsynchronously(call);
+      AsynchUtil.runAsynchronously("Voting.SendBallot", call);
   }
 
   private void postSendBallot(String userChoice, String userId){
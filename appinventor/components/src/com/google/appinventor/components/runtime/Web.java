@@ -425,7 +425,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web.Get", new Runnable() {
       @Override
       public void run() {
         performRequest(webProps, null, null, "GET", METHOD);
@@ -509,7 +509,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web.PostFile", new Runnable() {
       @Override
       public void run() {
         performRequest(webProps, null, path, "POST", METHOD);
@@ -593,7 +593,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web.PatchFile", new Runnable() {
       @Override
       public void run() {
         performRequest(webProps, null, path, "PATCH", METHOD);
@@ -677,7 +677,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web.PutFile", new Runnable() {
       @Override
       public void run() {
         performRequest(webProps, null, path, "PUT", METHOD);
@@ -706,7 +706,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web.Delete", new Runnable() {
       @Override
       public void run() {
         performRequest(webProps, null, null, "DELETE", METHOD);
@@ -739,7 +739,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("Web." + functionName, new Runnable() {
       @Override
       public void run() {
         // Convert text to bytes using the encoding.
@@ -1171,7 +1171,7 @@ public class Web extends AndroidNonvisibleComponent implements Component {
             }
             // onGranted is running on the UI thread, and we are about to do network i/o, so
             // we have to run this asynchronously to get off the UI thread!
-            AsynchUtil.runAsynchronously(new Runnable() {
+            AsynchUtil.runAsynchronously("Web." + method, new Runnable() {
                 @Override
                 public void run() {
                   me.performRequest(webProps, postData, postFile, httpVerb, method);
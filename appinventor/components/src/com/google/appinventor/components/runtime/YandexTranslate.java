@@ -123,7 +123,7 @@ public final class YandexTranslate extends AndroidNonvisibleComponent {
       return;
     }
 
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("YandexTranslate.RequestTranslation", new Runnable() {
       @Override
       public void run() {
         try {
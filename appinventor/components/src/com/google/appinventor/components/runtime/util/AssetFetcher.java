@@ -12,20 +12,33 @@ import com.google.appinventor.components.runtime.ReplForm;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 
 /**
@@ -51,8 +64,22 @@ public class AssetFetcher {
 
   private static final String LOG_TAG = AssetFetcher.class.getSimpleName();
 
-  // We use a single threaded executor so we only load one asset at a time!
-  private static ExecutorService background = Executors.newSingleThreadExecutor();
+  // Assets are fetched a few at a time, so that small assets don't wait behind
+  // large ones, over connections that are kept alive between requests.
+  private static final int MAX_PARALLEL_FETCHES = 4;
+  private static ExecutorService background = Executors.newFixedThreadPool(MAX_PARALLEL_FETCHES);
+
+  // Changed assets no larger than this are fetched together, up to
+  // BATCH_MAX_FILES in one zip, rather than with one request each.
+  private static final long BATCH_MAX_FILE_SIZE = 64 * 1024;
+  private static final int BATCH_MAX_FILES = 32;
+
+  // Records the ETag of each asset fetched into the REPL asset directory, so
+  // that unchanged assets aren't fetched again.
+  private static final String MANIFEST_FILE_NAME = ".asset-manifest.json";
+  private static JSONObject manifest;
+
+  private static final int BUFFER_SIZE = 0x4000;
 
   private static volatile boolean inError = false; // true means we are displaying the "End Application" Error dialog already
   private static final Object semaphore = new Object();
@@ -74,6 +101,59 @@ public class AssetFetcher {
       });
   }
 
+  /**
+   * Fetches the given assets of a project, skipping those that the Companion
+   * already has. The server's asset manifest gives the ETag and size of each
+   * asset; assets whose ETag matches the one recorded when they were last
+   * fetched are reported as transferred at once, small changed assets are
+   * fetched in zips and the others are fetched one by one in parallel.
+   *
+   * @param cookieValue the user's authentication cookie
+   * @param projectId the id of the project
+   * @param uri the base URI of the App Inventor server
+   * @param assetsJson a JSON array of the file ids of the assets
+   */
+  public static void fetchAllAssets(final String cookieValue,
+    final String projectId, final String uri, final String assetsJson) {
+    background.submit(new Runnable() {
+        @Override
+        public void run() {
+          List<String> assets = new ArrayList<String>();
+          try {
+            JSONArray array = new JSONArray(assetsJson);
+            for (int i = 0; i < array.length(); i++) {
+              assets.add(array.getString(i));
+            }
+          } catch (JSONException e) {
+            Log.e(LOG_TAG, "JSON Exception parsing asset list", e);
+            return;
+          }
+          JSONObject remote = getRemoteManifest(cookieValue, projectId, uri);
+          List<String> batch = new ArrayList<String>();
+          for (String asset : assets) {
+            JSONObject info = remote == null ? null : remote.optJSONObject(asset);
+            if (info == null) {
+              // Without a manifest, fall back to conditional requests
+              fetchAssets(cookieValue, projectId, uri, asset);
+            } else if (isCached(asset, info)) {
+              RetValManager.assetTransferred(asset);
+            } else if (info.optLong("size") <= BATCH_MAX_FILE_SIZE) {
+              batch.add(asset);
+              if (batch.size() == BATCH_MAX_FILES) {
+                fetchBatch(cookieValue, projectId, uri, batch, remote);
+                batch = new ArrayList<String>();
+              }
+            } else {
+              fetchAssets(cookieValue, projectId, uri, asset);
+            }
+          }
+          if (!batch.isEmpty()) {
+            fetchBatch(cookieValue, projectId, uri, batch, remote);
+          }
+        }
+      });
+  }
+
   public static void upgradeCompanion(final String cookieValue, final String inputUri) {
     // The code below is commented out because of issues with the Google Play Store
     //
@@ -133,6 +213,234 @@ public class AssetFetcher {
     }
   }
 
+  /*
+   * Returns the server's manifest of the project's assets, or null if it
+   * can't be fetched, e.g., from an older server.
+   */
+  private static JSONObject getRemoteManifest(String cookieValue, String projectId, String uri) {
+    try {
+      HttpURLConnection connection = openConnection(
+          uri + "/ode/download/asset-manifest/" + projectId, cookieValue);
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        Log.w(LOG_TAG, "asset manifest responseCode = " + connection.getResponseCode());
+        return null;
+      }
+      InputStream in = connection.getInputStream();
+      try {
+        return new JSONObject(new String(readFully(in), "UTF-8"));
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      Log.w(LOG_TAG, "Unable to fetch asset manifest", e);
+    } catch (JSONException e) {
+      Log.w(LOG_TAG, "Unable to parse asset manifest", e);
+    }
+    return null;
+  }
+
+  /*
+   * Fetches several small assets in one zip. If that fails, whatever is left
+   * of the batch is fetched one by one, which retries and reports errors.
+   */
+  private static void fetchBatch(final String cookieValue, final String projectId,
+      final String uri, final List<String> batch, final JSONObject remote) {
+    background.submit(new Runnable() {
+        @Override
+        public void run() {
+          Set<String> pending = new HashSet<String>(batch);
+          try {
+            StringBuilder sb = new StringBuilder(uri + "/ode/download/assets/" + projectId);
+            char separator = '?';
+            for (String asset : batch) {
+              sb.append(separator).append("file=").append(URLEncoder.encode(asset, "UTF-8"));
+              separator = '&';
+            }
+            HttpURLConnection connection = openConnection(sb.toString(), cookieValue);
+            Log.d(LOG_TAG, "asset batch of " + batch.size() + " responseCode = "
+                + connection.getResponseCode());
+            ZipInputStream zip = new ZipInputStream(
+                new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE));
+            try {
+              ZipEntry entry;
+              while ((entry = zip.getNextEntry()) != null) {
+                String asset = entry.getName();
+                if (!pending.contains(asset)) {
+                  throw new IOException("Unexpected asset in batch: " + asset);
+                }
+                JSONObject info = remote.getJSONObject(asset);
+                String eTag = info.getString("etag");
+                writeAsset(zip, asset, info.getLong("size"), eTag);
+                setCachedETag(asset, eTag);
+                pending.remove(asset);
+                RetValManager.assetTransferred(asset);
+              }
+            } finally {
+              zip.close();
+            }
+          } catch (IOException e) {
+            Log.e(LOG_TAG, "Exception while fetching asset batch", e);
+          } catch (JSONException e) {
+            Log.e(LOG_TAG, "Exception while fetching asset batch", e);
+          }
+          for (String asset : pending) {
+            fetchAssets(cookieValue, projectId, uri, asset);
+          }
+        }
+      });
+  }
+
+  private static HttpURLConnection openConnection(String url, String cookieValue)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod("GET");
+    connection.addRequestProperty("Cookie",  "AppInventor = " + cookieValue);
+    return connection;
+  }
+
+  private static File getAssetFile(String asset) {
+    return new File(QUtil.getReplAssetPath(Form.getActiveForm(), true),
+        asset.substring("assets/".length()));
+  }
+
+  /*
+   * Copies an asset to a temporary file, checks its size and, for ETags
+   * that are MD5 digests, its content, and only then replaces the asset, so
+   * that an interrupted transfer never leaves a truncated asset behind.
+   *
+   * @param size the expected size, or -1 if unknown
+   */
+  private static File writeAsset(InputStream in, String asset, long size, String eTag)
+      throws IOException {
+    File outFile = getAssetFile(asset);
+    Log.d(LOG_TAG, "target file = " + outFile);
+    File parentOutFile = outFile.getParentFile();
+    if (!parentOutFile.exists() && !parentOutFile.mkdirs()) {
+      throw new IOException("Unable to create assets directory " + parentOutFile);
+    }
+    MessageDigest digest = null;
+    String expectedDigest = null;
+    if (eTag != null && eTag.startsWith("\"md5-")) {
+      expectedDigest = eTag.substring("\"md5-".length(), eTag.length() - 1);
+      try {
+        digest = MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+        Log.w(LOG_TAG, "MD5 not available, content not verified");
+      }
+    }
+    File tempFile = new File(parentOutFile, outFile.getName() + ".part");
+    long written = 0;
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE);
+    try {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+        if (digest != null) {
+          digest.update(buffer, 0, count);
+        }
+        written += count;
+      }
+    } finally {
+      out.close();
+    }
+    if (size >= 0 && written != size) {
+      tempFile.delete();
+      throw new IOException("Expected " + size + " bytes for " + asset + " but got " + written);
+    }
+    if (digest != null && !expectedDigest.equals(toHex(digest.digest()))) {
+      tempFile.delete();
+      throw new IOException("Content of " + asset + " doesn't match its digest");
+    }
+    if (!tempFile.renameTo(outFile)) {
+      outFile.delete();
+      if (!tempFile.renameTo(outFile)) {
+        throw new IOException("Unable to replace " + outFile);
+      }
+    }
+    return outFile;
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int count;
+    while ((count = in.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return out.toByteArray();
+  }
+
+  /*
+   * Returns true if the asset was already fetched with the same ETag and is
+   * still there.
+   */
+  private static boolean isCached(String asset, JSONObject info) {
+    String eTag = info.optString("etag", null);
+    File file = getAssetFile(asset);
+    return eTag != null && eTag.equals(getCachedETag(asset)) && file.exists()
+        && file.length() == info.optLong("size", -1);
+  }
+
+  private static synchronized String getCachedETag(String asset) {
+    return getManifest().optString(asset, null);
+  }
+
+  private static synchronized void setCachedETag(String asset, String eTag) {
+    JSONObject tags = getManifest();
+    try {
+      if (eTag == null) {
+        tags.remove(asset);
+      } else {
+        tags.put(asset, eTag);
+      }
+      OutputStream out = new FileOutputStream(getManifestFile());
+      try {
+        out.write(tags.toString().getBytes("UTF-8"));
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      Log.w(LOG_TAG, "Unable to save asset manifest", e);
+    } catch (JSONException e) {
+      Log.w(LOG_TAG, "Unable to update asset manifest", e);
+    }
+  }
+
+  private static File getManifestFile() {
+    return new File(QUtil.getReplAssetPath(Form.getActiveForm(), true), MANIFEST_FILE_NAME);
+  }
+
+  private static JSONObject getManifest() {
+    if (manifest == null) {
+      manifest = new JSONObject();
+      File file = getManifestFile();
+      if (file.exists()) {
+        try {
+          InputStream in = new FileInputStream(file);
+          try {
+            manifest = new JSONObject(new String(readFully(in), "UTF-8"));
+          } finally {
+            in.close();
+          }
+        } catch (IOException e) {
+          Log.w(LOG_TAG, "Unable to read asset manifest", e);
+        } catch (JSONException e) {
+          Log.w(LOG_TAG, "Unable to parse asset manifest", e);
+        }
+      }
+    }
+    return manifest;
+  }
+
   private static File getFile(final String fileName, String cookieValue, String asset, int depth) {
     Form form = Form.getActiveForm();
     if (depth > 1) {
@@ -152,45 +460,28 @@ public class AssetFetcher {
       }
     }
     try {
-      boolean error = false;
-      File outFile = null;
-      URL url = new URL(fileName);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      if (connection != null) {
-        connection.setRequestMethod("GET");
-        connection.addRequestProperty("Cookie",  "AppInventor = " + cookieValue);
-        int responseCode = connection.getResponseCode();
-        Log.d(LOG_TAG, "asset = " + asset + " responseCode = " + responseCode);
-        outFile = new File(QUtil.getReplAssetPath(form, true), asset.substring("assets/".length()));
-        Log.d(LOG_TAG, "target file = " + outFile);
-        File parentOutFile = outFile.getParentFile();
-        if (!parentOutFile.exists() && !parentOutFile.mkdirs()) {
-          throw new IOException("Unable to create assets directory " + parentOutFile);
-        }
-        BufferedInputStream in = new BufferedInputStream(connection.getInputStream(), 0x1000);
-        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outFile), 0x1000);
-        try {
-          while (true) {
-            int b = in.read();
-            if (b == -1) {
-              break;
-            }
-            out.write(b);
-          }
-          out.flush();
-        } catch (IOException e) {
-          Log.e(LOG_TAG, "copying assets", e);
-          error = true;
-        } finally {
-          out.close();
-        }
-        connection.disconnect();
-      } else {
-        error = true;           // Connection was null, failed to open?
+      HttpURLConnection connection = openConnection(fileName, cookieValue);
+      File outFile = getAssetFile(asset);
+      // Revalidate the copy we have, if any, instead of fetching it again
+      String cachedETag = outFile.exists() ? getCachedETag(asset) : null;
+      if (cachedETag != null) {
+        connection.addRequestProperty("If-None-Match", cachedETag);
       }
-      if (error) {              // Try again recursively
-        return getFile(fileName, cookieValue, asset, depth + 1);
+      int responseCode = connection.getResponseCode();
+      Log.d(LOG_TAG, "asset = " + asset + " responseCode = " + responseCode);
+      if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        return outFile;
+      }
+      String eTag = connection.getHeaderField("ETag");
+      // The connection isn't disconnected, so that it is kept alive for the
+      // next asset once the response has been read and closed.
+      InputStream in = connection.getInputStream();
+      try {
+        outFile = writeAsset(in, asset, connection.getContentLength(), eTag);
+      } finally {
+        in.close();
       }
+      setCachedETag(asset, eTag);
       return outFile;
     } catch (Exception e) {
       Log.e(LOG_TAG, "Exception while fetching " + fileName, e);
@@ -24,26 +24,54 @@ public class AsynchUtil {
   private static final String LOG_TAG = AsynchUtil.class.getSimpleName();
 
   /**
-   * Make an asynchronous call in a separate thread.
+   * Make an asynchronous call in a separate thread. The {@link Profiler} records the call under
+   * its class name; prefer {@link #runAsynchronously(String, Runnable)}.
    * @param call a {@link Runnable} to run in the thread.
    */
   public static void runAsynchronously(final Runnable call) {
-    Thread thread = new Thread(call);
+    runAsynchronously(call.getClass().getName(), call);
+  }
+
+  /**
+   * Make an asynchronous call in a separate thread.
+   * @param name the name under which the {@link Profiler} records the call, e.g. "Web.Get"
+   * @param call a {@link Runnable} to run in the thread.
+   */
+  public static void runAsynchronously(String name, final Runnable call) {
+    Thread thread = new Thread(profiled(name, call));
     thread.start();
   }
+
+  /**
+   * Make an asynchronous call in a separate thread, with a callback that's run on the current
+   * Android UI thread. The {@link Profiler} records the call under its class name; prefer
+   * {@link #runAsynchronously(Handler, String, Runnable, Runnable)}.
+   * @param androidUIHandler  the Handler from the current Android context
+   * @param call a {@link Runnable} to run in the thread.
+   * @param callback a {@link Runnable} to run in the Android UI thread when the call above returns
+   */
+  public static void runAsynchronously(final Handler androidUIHandler,
+                                       final Runnable call,
+                                       final Runnable callback) {
+    runAsynchronously(androidUIHandler, call.getClass().getName(), call, callback);
+  }
+
   /**
    * Make an asynchronous call in a separate thread, with a callback that's run on the current
    * Android UI thread.
    * @param androidUIHandler  the Handler from the current Android context
+   * @param name the name under which the {@link Profiler} records the call, e.g. "Web.Get"
    * @param call a {@link Runnable} to run in the thread.
    * @param callback a {@link Runnable} to run in the Android UI thread when the call above returns
    */
   public static void runAsynchronously(final Handler androidUIHandler,
+                                       String name,
                                        final Runnable call,
                                        final Runnable callback) {
+    final Runnable profiledCall = profiled(name, call);
     Runnable runnable = new Runnable() {
       public void run() {
-        call.run();
+        profiledCall.run();
         if (callback != null) {
           androidUIHandler.post(new Runnable() {
             public void run() {
@@ -57,6 +85,26 @@ public class AsynchUtil {
     thread.start();
   }
 
+  /**
+   * Wraps the given call so that its running time is recorded under the given name while the
+   * {@link Profiler} is enabled.
+   */
+  private static Runnable profiled(final String name, final Runnable call) {
+    if (!Profiler.isEnabled()) {
+      return call;
+    }
+    return new Runnable() {
+      public void run() {
+        int token = Profiler.enter("async", name);
+        try {
+          call.run();
+        } finally {
+          Profiler.exit(token);
+        }
+      }
+    };
+  }
+
   public static boolean isUiThread() {
     return Looper.getMainLooper().equals(Looper.myLooper());
   }
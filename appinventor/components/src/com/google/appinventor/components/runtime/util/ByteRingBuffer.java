@@ -0,0 +1,131 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size byte queue for handing data from exactly one producer thread
+ * to exactly one consumer thread without locking.
+ *
+ * The producer only ever advances the tail and the consumer only ever
+ * advances the head, so each counter has a single writer and the atomic
+ * reads and writes are enough to publish the bytes in between. Neither side
+ * blocks: {@link #fill(InputStream)} reads only as much as there is room for
+ * and {@link #drain(byte[], int, int)} takes only what has been written.
+ */
+public final class ByteRingBuffer {
+  private final byte[] buffer;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();  // next byte to read
+  private final AtomicLong tail = new AtomicLong();  // next byte to write
+
+  /**
+   * Creates a ring buffer holding at least {@code minCapacity} bytes. The
+   * capacity is rounded up to a power of two.
+   *
+   * @param minCapacity the smallest number of bytes the buffer must hold
+   */
+  public ByteRingBuffer(int minCapacity) {
+    if (minCapacity <= 0 || minCapacity > (1 << 30)) {
+      throw new IllegalArgumentException("Invalid capacity " + minCapacity);
+    }
+    int capacity = Integer.highestOneBit(minCapacity);
+    if (capacity < minCapacity) {
+      capacity <<= 1;
+    }
+    buffer = new byte[capacity];
+    mask = capacity - 1;
+  }
+
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * Returns the number of bytes that can currently be drained.
+   */
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+
+  /**
+   * Returns the number of bytes that can currently be written.
+   */
+  public int remaining() {
+    return buffer.length - size();
+  }
+
+  /**
+   * Producer side: performs a single read from {@code in} directly into the
+   * free space of the buffer.
+   *
+   * @param in the stream to read from
+   * @return the number of bytes read, 0 if the buffer is full, or -1 at end
+   *         of stream
+   * @throws IOException if reading from the stream fails
+   */
+  public int fill(InputStream in) throws IOException {
+    long t = tail.get();
+    int free = buffer.length - (int) (t - head.get());
+    if (free == 0) {
+      return 0;
+    }
+    int offset = (int) (t & mask);
+    // Only read up to the end of the array; the next call wraps around.
+    int count = in.read(buffer, offset, Math.min(free, buffer.length - offset));
+    if (count > 0) {
+      tail.lazySet(t + count);
+    }
+    return count;
+  }
+
+  /**
+   * Producer side: copies as many of the given bytes as fit.
+   *
+   * @return the number of bytes copied
+   */
+  public int write(byte[] bytes, int offset, int length) {
+    long t = tail.get();
+    int count = Math.min(length, buffer.length - (int) (t - head.get()));
+    copy(bytes, offset, (int) (t & mask), count, true);
+    tail.lazySet(t + count);
+    return count;
+  }
+
+  /**
+   * Consumer side: moves up to {@code length} bytes into {@code dest}.
+   *
+   * @return the number of bytes moved
+   */
+  public int drain(byte[] dest, int offset, int length) {
+    long h = head.get();
+    int count = Math.min(length, (int) (tail.get() - h));
+    copy(dest, offset, (int) (h & mask), count, false);
+    head.lazySet(h + count);
+    return count;
+  }
+
+  /**
+   * Consumer side: discards everything written so far.
+   */
+  public void clear() {
+    head.lazySet(tail.get());
+  }
+
+  private void copy(byte[] other, int offset, int position, int count, boolean in) {
+    int first = Math.min(count, buffer.length - position);
+    if (in) {
+      System.arraycopy(other, offset, buffer, position, first);
+      System.arraycopy(other, offset + first, buffer, 0, count - first);
+    } else {
+      System.arraycopy(buffer, position, other, offset, first);
+      System.arraycopy(buffer, 0, other, offset + first, count - first);
+    }
+  }
+}
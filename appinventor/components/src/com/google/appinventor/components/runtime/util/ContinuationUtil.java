@@ -49,7 +49,7 @@ public final class ContinuationUtil {
    */
   public static <T> void callWithContinuation(final Callable<T> block,
       final Continuation<T> continuation) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("ContinuationUtil.callWithContinuation", new Runnable() {
       @Override
       public void run() {
         try {
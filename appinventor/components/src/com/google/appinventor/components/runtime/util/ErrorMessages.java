@@ -90,6 +90,8 @@ public final class ErrorMessages {
   public static final int ERROR_BLUETOOTH_UNABLE_TO_READ = 517;
   public static final int ERROR_BLUETOOTH_END_OF_STREAM = 518;
   public static final int ERROR_BLUETOOTH_UNSUPPORTED_ENCODING = 519;
+  public static final int ERROR_BLUETOOTH_RECEIVING_ASYNCHRONOUSLY = 520;
+  public static final int ERROR_BLUETOOTH_FRAME_TOO_LONG = 521;
   // ActivityStarter errors
   public static final int ERROR_ACTIVITY_STARTER_NO_CORRESPONDING_ACTIVITY = 601;
   public static final int ERROR_ACTIVITY_STARTER_NO_ACTION_INFO = 602;
@@ -127,6 +129,8 @@ public final class ErrorMessages {
   public static final int ERROR_CANVAS_WIDTH_ERROR = 1002;
   public static final int ERROR_CANVAS_HEIGHT_ERROR = 1003;
   public static final int ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT = 1004;
+  public static final int ERROR_CANVAS_BAD_PIXEL_ARGUMENT = 1005;
+  public static final int ERROR_CANVAS_BAD_PIXEL_AREA = 1006;
   // Web errors
   public static final int ERROR_WEB_UNABLE_TO_GET = 1101;
   public static final int ERROR_WEB_UNSUPPORTED_ENCODING = 1102;
@@ -458,6 +462,10 @@ public final class ErrorMessages {
         "End of stream has been reached.");
     errorMessages.put(ERROR_BLUETOOTH_UNSUPPORTED_ENCODING,
         "The encoding %s is not supported.");
+    errorMessages.put(ERROR_BLUETOOTH_RECEIVING_ASYNCHRONOUSLY,
+        "Data is being received through the DataReceived event because AsyncReceive is true.");
+    errorMessages.put(ERROR_BLUETOOTH_FRAME_TOO_LONG,
+        "A frame longer than %d bytes was received and dropped.");
     // ActivityStarter errors
     errorMessages.put(ERROR_ACTIVITY_STARTER_NO_CORRESPONDING_ACTIVITY,
         "No corresponding activity was found.");
@@ -512,6 +520,11 @@ public final class ErrorMessages {
     errorMessages.put(ERROR_CANVAS_WIDTH_ERROR, "Canvas width cannot be set to non-positive number");
     errorMessages.put(ERROR_CANVAS_HEIGHT_ERROR, "Canvas height cannot be set to non-positive number");
     errorMessages.put(ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT, "Canvas cannot draw the shape with a bad point list");
+    errorMessages.put(ERROR_CANVAS_BAD_PIXEL_ARGUMENT,
+        "Canvas cannot process the pixels with a bad color or kernel list");
+    errorMessages.put(ERROR_CANVAS_BAD_PIXEL_AREA,
+        "Canvas cannot get the pixels of a %d by %d rectangle, which is negative or larger "
+        + "than the Canvas");
     // Web errors
     errorMessages.put(ERROR_WEB_UNABLE_TO_GET,
         "Unable to get a response with the specified URL: %s");
@@ -67,7 +67,7 @@ public abstract class FileOperation implements Runnable, PermissionResultHandler
    *    - If permission is denied, we dispatch an error
    *    - If permission is granted:
    *      - If async is true, we run the operation using
-   *        {@link AsynchUtil#runAsynchronously(Runnable)}
+   *        {@link AsynchUtil#runAsynchronously(String, Runnable)}
    *      - If async is false, we proceed to do the file operation on the UI thread
    * 2. When called not on the UI thread:
    *    - If we need permissions but they haven't been granted, schedule the operation to run on
@@ -103,7 +103,7 @@ public abstract class FileOperation implements Runnable, PermissionResultHandler
           // main thread by Android runtime.
           throw new StopBlocksExecution();
         } else if (async) {
-          AsynchUtil.runAsynchronously(this);
+          AsynchUtil.runAsynchronously(getProfilerName(), this);
         } else {
           performOperation();
         }
@@ -114,7 +114,7 @@ public abstract class FileOperation implements Runnable, PermissionResultHandler
         hasPermission = true;
       }
       if (async) {
-        AsynchUtil.runAsynchronously(this);
+        AsynchUtil.runAsynchronously(getProfilerName(), this);
       } else {
         performOperation();
       }
@@ -188,6 +188,11 @@ public abstract class FileOperation implements Runnable, PermissionResultHandler
     });
   }
 
+  // The name under which the operation's running time is profiled, e.g. File.ReadFrom
+  private String getProfilerName() {
+    return component.getClass().getSimpleName() + "." + method;
+  }
+
   private List<String> getNeededPermissions() {
     if (hasPermission) {  // we've already gotten all permissions previously
       return Collections.emptyList();
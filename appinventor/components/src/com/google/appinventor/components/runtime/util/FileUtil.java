@@ -37,8 +37,6 @@ import com.google.appinventor.components.runtime.Form;
 import com.google.appinventor.components.runtime.errors.PermissionException;
 import com.google.appinventor.components.runtime.errors.RuntimeError;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -51,6 +49,8 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 
+import java.nio.channels.FileChannel;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -100,6 +100,9 @@ public class FileUtil {
 
   private static final String DIRECTORY_DOWNLOADS = "Downloads";
 
+  // Size of the buffer used by copy() when the streams aren't both backed by files.
+  private static final int COPY_BUFFER_SIZE = 0x2000;
+
   static {
     //noinspection ConstantConditions
     if (MIN_SDK_FOR_APP_SPECIFIC_DIRS < Build.VERSION_CODES.FROYO) {
@@ -387,12 +390,8 @@ public class FileUtil {
       OutputStream out = null;
       try {
         in = openForReading(form, src);
-        out = openForWriting(form, src);
-        byte[] buffer = new byte[4096];
-        int read;
-        while ((read = in.read(buffer)) > 0) {
-          out.write(buffer, 0, read);
-        }
+        out = openForWriting(form, dest);
+        copy(in, out);
       } finally {
         IOUtils.closeQuietly(LOG_TAG, in);
         IOUtils.closeQuietly(LOG_TAG, out);
@@ -434,18 +433,49 @@ public class FileUtil {
    * @throws IOException when the stream(s) cannot be accessed
    */
   public static void copy(InputStream in, OutputStream out) throws IOException {
-    out = new BufferedOutputStream(out, 0x1000);
-    in = new BufferedInputStream(in, 0x1000);
+    // Both ends are plain files, so let the kernel move the bytes without copying them through
+    // the Java heap. Subclasses such as ParcelFileDescriptor.AutoCloseInputStream may be backed
+    // by a pipe, or by a section of a larger file, so they take the buffered path below.
+    if (in.getClass() == FileInputStream.class && out.getClass() == FileOutputStream.class
+        && transfer(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel())) {
+      return;
+    }
 
     // Copy the contents from the input stream to the output stream.
-    while (true) {
-      int b = in.read();
-      if (b == -1) {
+    byte[] buffer = new byte[COPY_BUFFER_SIZE];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    out.flush();
+  }
+
+  /**
+   * Transfers the remaining contents of {@code src} to {@code dest}, starting at the current
+   * position of each channel. Both positions are advanced past the transferred bytes.
+   *
+   * @param src the channel to read
+   * @param dest the channel to write
+   * @return {@code false} if {@code src} reports no remaining content, in which case nothing was
+   *     transferred and the caller should read the stream instead
+   * @throws IOException when the channel(s) cannot be accessed
+   */
+  private static boolean transfer(FileChannel src, FileChannel dest) throws IOException {
+    long position = src.position();
+    long size = src.size();
+    if (size <= position) {
+      return false;
+    }
+    // transferTo may move fewer bytes than requested, e.g., in chunks of 2 GB on some kernels.
+    while (position < size) {
+      long count = src.transferTo(position, size - position, dest);
+      if (count <= 0) {
         break;
       }
-      out.write(b);
+      position += count;
     }
-    out.flush();
+    src.position(position);
+    return true;
   }
 
   /**
@@ -1044,16 +1074,12 @@ public class FileUtil {
       return true;
     } else {
       // Old style. Copy the file and then delete the original.
-      byte[] buffer = new byte[4096];
-      int read;
       InputStream in = null;
       OutputStream out = null;
       try {
         in = openForReading(form, src);
         out = openForWriting(form, dest);
-        while ((read = in.read(buffer)) > 0) {
-          out.write(buffer, 0, read);
-        }
+        copy(in, out);
       } finally {
         IOUtils.closeQuietly(LOG_TAG, in);
         IOUtils.closeQuietly(LOG_TAG, out);
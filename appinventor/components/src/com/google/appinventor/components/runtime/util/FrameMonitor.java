@@ -0,0 +1,129 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import android.view.Choreographer;
+
+import com.google.appinventor.components.runtime.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Measures frame timing and layout passes while the {@link Profiler} is enabled, and adds them to
+ * the profile:
+ *
+ * <ul>
+ *   <li>"frame.<i>Screen</i>" records the time between consecutive frames.</li>
+ *   <li>"jank.<i>Screen</i>" records the frames that took longer than
+ *       {@link #JANK_THRESHOLD_NANOS}, i.e., that missed at least one display refresh.</li>
+ *   <li>"layout.<i>Screen</i>" counts the layout passes of the screen.</li>
+ *   <li>"layout.<i>Type</i>.<i>Property</i>" counts the layout passes that followed a change of
+ *       that property of a component of that type, so a property that is set many times but
+ *       causes few layout passes has a count much lower than its number of changes.</li>
+ * </ul>
+ *
+ * All methods must be called on the UI thread.
+ */
+public final class FrameMonitor {
+
+  // A frame at 60 Hz, plus half a frame of slack.
+  private static final long JANK_THRESHOLD_NANOS = 25000000L;
+
+  private static final Set<String> changedProperties = new LinkedHashSet<String>();
+
+  private static String screenName;
+  private static FrameCallback frameCallback;
+
+  private FrameMonitor() {
+  }
+
+  /**
+   * Registers for frame callbacks on behalf of the given screen. Frame timing is only available
+   * on Jellybean and later; layout passes are counted on all versions.
+   */
+  public static void start(String screen) {
+    stop();
+    screenName = screen;
+    if (SdkLevel.getLevel() >= SdkLevel.LEVEL_JELLYBEAN) {
+      frameCallback = new FrameCallback();
+      frameCallback.start();
+    }
+  }
+
+  public static void stop() {
+    if (frameCallback != null) {
+      frameCallback.stop();
+      frameCallback = null;
+    }
+    changedProperties.clear();
+    screenName = null;
+  }
+
+  /**
+   * Notes that a property was set, so that the next layout pass is attributed to it. Called from
+   * runtime.scm for every property set in the blocks.
+   *
+   * @param component the component
+   * @param property the name of the property
+   */
+  public static void propertyChanged(Component component, Object property) {
+    if (screenName == null || !Profiler.isEnabled()) {
+      return;
+    }
+    changedProperties.add(component.getClass().getSimpleName() + "." + property);
+  }
+
+  /**
+   * Notes that the screen's view hierarchy was laid out.
+   */
+  public static void layoutPassed() {
+    if (screenName == null || !Profiler.isEnabled()) {
+      return;
+    }
+    Profiler.record("layout", screenName, 0);
+    for (String property : changedProperties) {
+      Profiler.record("layout", property, 0);
+    }
+    changedProperties.clear();
+  }
+
+  /**
+   * Receives a callback for each display frame. This is a separate class so that
+   * {@link Choreographer} is only loaded on devices that have it.
+   */
+  private static final class FrameCallback implements Choreographer.FrameCallback {
+    private boolean running;
+    private long lastFrameNanos;
+
+    void start() {
+      running = true;
+      lastFrameNanos = 0;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+      running = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      if (!running || !Profiler.isEnabled()) {
+        return;
+      }
+      if (lastFrameNanos != 0) {
+        long elapsed = frameTimeNanos - lastFrameNanos;
+        Profiler.record("frame", screenName, elapsed);
+        if (elapsed > JANK_THRESHOLD_NANOS) {
+          Profiler.record("jank", screenName, elapsed);
+        }
+      }
+      lastFrameNanos = frameTimeNanos;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+}
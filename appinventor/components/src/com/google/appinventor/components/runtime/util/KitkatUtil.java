@@ -10,6 +10,9 @@ import java.util.Collections;
 import java.util.List;
 
 import android.content.Intent;
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
 import android.os.Build;
 import android.provider.Telephony.Sms.Intents;
 import android.telephony.SmsMessage;
@@ -69,4 +72,13 @@ public final class KitkatUtil {
       return view.getHeight();
     }
   }
+
+  /**
+   * Registers a sensor listener that allows the sensor to batch events in its hardware FIFO for
+   * up to {@code maxReportLatencyUs} microseconds.
+   */
+  public static boolean registerListener(SensorManager sensorManager,
+      SensorEventListener listener, Sensor sensor, int samplingPeriodUs, int maxReportLatencyUs) {
+    return sensorManager.registerListener(listener, sensor, samplingPeriodUs, maxReportLatencyUs);
+  }
 }
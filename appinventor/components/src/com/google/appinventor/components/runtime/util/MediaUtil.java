@@ -20,6 +20,8 @@ import android.media.MediaPlayer;
 import android.media.SoundPool;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Contacts;
 import android.util.Log;
 import android.view.Display;
@@ -46,6 +48,7 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Utilities for loading media.
@@ -58,6 +61,9 @@ public class MediaUtil {
 
   private static final String LOG_TAG = "MediaUtil";
 
+  // How long the form waits for an image loaded by loadBitmapDrawable before giving up.
+  private static final long IMAGE_LOAD_TIMEOUT_MS = 10000;
+
   // tempFileMap maps cached media (assets, etc) to their respective temp files.
   private static final Map<String, File> tempFileMap = new HashMap<String, File>();
 
@@ -418,6 +424,83 @@ public class MediaUtil {
     }
   }
 
+  /**
+   * Loads the image specified by mediaPath for a property setter.
+   *
+   * <p/>While the form applies the designer properties, an image from the app's assets is loaded
+   * in the background: this returns immediately and calls the continuation on the UI thread once
+   * the image has loaded, so that the images of all the
+   * components load in parallel. The form holds back its Initialize event until then. At any
+   * other time, the image is loaded as by {@link #getBitmapDrawable(Form, String)} and the
+   * continuation is called before returning.
+   *
+   * @param form the Form
+   * @param mediaPath the path to the media
+   * @param continuation An AsyncCallbackPair that will receive a BitmapDrawable on success.
+   *                     On exception or failure the appropriate handler will be triggered.
+   */
+  public static void loadBitmapDrawable(final Form form, String mediaPath,
+      final AsyncCallbackPair<BitmapDrawable> continuation) {
+    if (!form.isApplyingDesignerProperties() || mediaPath == null || mediaPath.length() == 0
+        || determineMediaSource(form, mediaPath) != MediaSource.ASSET) {
+      BitmapDrawable result;
+      try {
+        result = getBitmapDrawable(form, mediaPath);
+      } catch (IOException e) {
+        continuation.onFailure(e.getMessage());
+        return;
+      }
+      continuation.onSuccess(result);
+      return;
+    }
+    final AtomicBoolean finished = new AtomicBoolean();
+    final Handler handler = new Handler(Looper.getMainLooper());
+    // Don't hold back the form forever if the loader dies without calling back.
+    final Runnable timeout = new Runnable() {
+      @Override
+      public void run() {
+        if (finished.compareAndSet(false, true)) {
+          continuation.onFailure("Timed out");
+          form.imageLoadFinished();
+        }
+      }
+    };
+    form.imageLoadStarted();
+    handler.postDelayed(timeout, IMAGE_LOAD_TIMEOUT_MS);
+    getBitmapDrawableAsync(form, mediaPath, new AsyncCallbackPair<BitmapDrawable>() {
+      @Override
+      public void onFailure(final String message) {
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (finished.compareAndSet(false, true)) {
+              handler.removeCallbacks(timeout);
+              continuation.onFailure(message);
+              form.imageLoadFinished();
+            }
+          }
+        });
+      }
+
+      @Override
+      public void onSuccess(final BitmapDrawable result) {
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (finished.compareAndSet(false, true)) {
+              handler.removeCallbacks(timeout);
+              try {
+                continuation.onSuccess(result);
+              } finally {
+                form.imageLoadFinished();
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+
   /**
    * Loads the image specified by mediaPath and returns a {@link Drawable}.
    *
@@ -567,7 +650,7 @@ public class MediaUtil {
         }
       }
     };
-    AsynchUtil.runAsynchronously(loadImage);
+    AsynchUtil.runAsynchronously("MediaUtil.decodeStream", loadImage);
   }
 
   private static Bitmap decodeStream(InputStream is, Rect outPadding, BitmapFactory.Options opts) {
@@ -0,0 +1,277 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import android.os.Debug;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Opt-in profiler for the runtime. When enabled, event handlers, component method calls and
+ * asynchronous tasks are timed and counted per name, e.g., "Button1.Click".
+ *
+ * Callers bracket the work with {@link #enter(Object, Object)} and {@link #exit(int)}:
+ *
+ * <pre>
+ *   int token = Profiler.enter(componentName, methodName);
+ *   try {
+ *     ...
+ *   } finally {
+ *     Profiler.exit(token);
+ *   }
+ * </pre>
+ *
+ * When the profiler is disabled, both calls return immediately without allocating. When it is
+ * enabled, each thread keeps its open calls in preallocated arrays, and finished calls are added
+ * to a fixed record per name, so the cost of profiling doesn't grow with the number of calls.
+ */
+public final class Profiler {
+
+  private static final String LOG_TAG = Profiler.class.getSimpleName();
+
+  // Returned by enter() when nothing was recorded.
+  private static final int NOT_PROFILING = -1;
+
+  private static final int INITIAL_DEPTH = 16;
+
+  /**
+   * The accumulated statistics for one name.
+   */
+  private static final class Record {
+    final String name;
+    int count;
+    long totalNanos;
+    long maxNanos;
+    long allocations;
+
+    Record(String name) {
+      this.name = name;
+    }
+  }
+
+  /**
+   * The calls that are open on one thread, as a stack.
+   */
+  private static final class Frames {
+    int generation;
+    int depth;
+    String[] names = new String[INITIAL_DEPTH];
+    long[] starts = new long[INITIAL_DEPTH];
+    int[] allocations = new int[INITIAL_DEPTH];
+
+    void grow() {
+      int capacity = names.length * 2;
+      String[] newNames = new String[capacity];
+      long[] newStarts = new long[capacity];
+      int[] newAllocations = new int[capacity];
+      System.arraycopy(names, 0, newNames, 0, depth);
+      System.arraycopy(starts, 0, newStarts, 0, depth);
+      System.arraycopy(allocations, 0, newAllocations, 0, depth);
+      names = newNames;
+      starts = newStarts;
+      allocations = newAllocations;
+    }
+  }
+
+  private static final ThreadLocal<Frames> FRAMES = new ThreadLocal<Frames>() {
+    @Override
+    protected Frames initialValue() {
+      return new Frames();
+    }
+  };
+
+  private static final Map<String, Record> records = new HashMap<String, Record>();
+
+  private static volatile boolean enabled;
+
+  // Incremented whenever profiling starts so that calls opened in an earlier session are ignored.
+  private static volatile int generation;
+
+  private Profiler() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts or stops profiling. Starting discards the statistics of any earlier session.
+   */
+  @SuppressWarnings("deprecation")
+  public static void setEnabled(boolean enable) {
+    if (enable == enabled) {
+      return;
+    }
+    if (enable) {
+      reset();
+      generation++;
+      // Counts allocations per thread where the VM supports it.
+      Debug.startAllocCounting();
+    } else {
+      Debug.stopAllocCounting();
+    }
+    enabled = enable;
+  }
+
+  /**
+   * Discards the statistics collected so far.
+   */
+  public static void reset() {
+    synchronized (records) {
+      records.clear();
+    }
+  }
+
+  /**
+   * Opens a call to be profiled under the name "{@code owner}.{@code name}".
+   *
+   * @param owner the component or other owner of the call
+   * @param name the event, method or task being called
+   * @return a token to pass to {@link #exit(int)}
+   */
+  @SuppressWarnings("deprecation")
+  public static int enter(Object owner, Object name) {
+    if (!enabled) {
+      return NOT_PROFILING;
+    }
+    Frames frames = FRAMES.get();
+    if (frames.generation != generation) {
+      frames.generation = generation;
+      frames.depth = 0;
+    }
+    if (frames.depth == frames.names.length) {
+      frames.grow();
+    }
+    int depth = frames.depth++;
+    frames.names[depth] = owner + "." + name;
+    frames.allocations[depth] = Debug.getThreadAllocCount();
+    frames.starts[depth] = System.nanoTime();
+    return generation;
+  }
+
+  /**
+   * Closes the most recently opened call on this thread and records how long it took.
+   *
+   * @param token the value returned by the matching {@link #enter(Object, Object)}
+   */
+  @SuppressWarnings("deprecation")
+  public static void exit(int token) {
+    if (token == NOT_PROFILING) {
+      return;
+    }
+    long end = System.nanoTime();
+    int allocationsEnd = Debug.getThreadAllocCount();
+    Frames frames = FRAMES.get();
+    if (!isOpen(frames, token)) {
+      return;
+    }
+    int depth = --frames.depth;
+    String name = frames.names[depth];
+    frames.names[depth] = null;
+    int allocations = Math.max(0, allocationsEnd - frames.allocations[depth]);
+    add(name, end - frames.starts[depth], allocations);
+  }
+
+  private static void add(String name, long elapsed, int allocations) {
+    synchronized (records) {
+      Record record = records.get(name);
+      if (record == null) {
+        record = new Record(name);
+        records.put(name, record);
+      }
+      record.count++;
+      record.totalNanos += elapsed;
+      record.maxNanos = Math.max(record.maxNanos, elapsed);
+      record.allocations += allocations;
+    }
+  }
+
+  /**
+   * Records a call that was timed elsewhere, e.g., a display frame, under the name
+   * "{@code owner}.{@code name}".
+   *
+   * @param owner the component or other owner of the call
+   * @param name the event, method or task that was called
+   * @param nanos how long the call took, in nanoseconds
+   */
+  public static void record(Object owner, Object name, long nanos) {
+    if (enabled) {
+      add(owner + "." + name, nanos, 0);
+    }
+  }
+
+  /**
+   * Closes the most recently opened call on this thread without recording it, e.g., because the
+   * call turned out not to handle the event.
+   *
+   * @param token the value returned by the matching {@link #enter(Object, Object)}
+   */
+  public static void discard(int token) {
+    if (token == NOT_PROFILING) {
+      return;
+    }
+    Frames frames = FRAMES.get();
+    if (isOpen(frames, token)) {
+      frames.names[--frames.depth] = null;
+    }
+  }
+
+  private static boolean isOpen(Frames frames, int token) {
+    // False if profiling was stopped or restarted while the call was running.
+    return enabled && token == generation && frames.generation == token && frames.depth > 0;
+  }
+
+  /**
+   * Returns the statistics collected so far as a JSON array with one object per name, holding
+   * the number of calls, the total and maximum time in milliseconds and the number of objects
+   * allocated, sorted by decreasing total time.
+   */
+  public static String toJSONString() {
+    List<Record> snapshot;
+    synchronized (records) {
+      snapshot = new ArrayList<Record>(records.size());
+      for (Record record : records.values()) {
+        Record copy = new Record(record.name);
+        copy.count = record.count;
+        copy.totalNanos = record.totalNanos;
+        copy.maxNanos = record.maxNanos;
+        copy.allocations = record.allocations;
+        snapshot.add(copy);
+      }
+    }
+    Collections.sort(snapshot, new Comparator<Record>() {
+      @Override
+      public int compare(Record a, Record b) {
+        return a.totalNanos < b.totalNanos ? 1 : (a.totalNanos > b.totalNanos ? -1 : 0);
+      }
+    });
+    JSONArray result = new JSONArray();
+    try {
+      for (Record record : snapshot) {
+        JSONObject item = new JSONObject();
+        item.put("name", record.name);
+        item.put("count", record.count);
+        item.put("totalMs", record.totalNanos / 1e6);
+        item.put("maxMs", record.maxNanos / 1e6);
+        item.put("allocations", record.allocations);
+        result.put(item);
+      }
+    } catch (JSONException e) {
+      Log.e(LOG_TAG, "Unable to encode profile", e);
+    }
+    return result.toString();
+  }
+}
@@ -91,6 +91,32 @@ public class RetValManager {
     }
   }
 
+  /*
+   * sendProfile -- Send the runtime profile to the blocks editor
+   *
+   * @param profile the statistics, as returned by Profiler.toJSONString()
+   */
+  public static void sendProfile(String profile) {
+    synchronized (semaphore) {
+      JSONObject retval = new JSONObject();
+      try {
+        retval.put("status", "OK");
+        retval.put("type", "profile");
+        retval.put("value", profile);
+      } catch (JSONException e) {
+        Log.e(LOG_TAG, "Error building retval", e);
+        return;
+      }
+      boolean sendNotify = currentArray.isEmpty();
+      currentArray.add(retval);
+      if (PhoneStatus.getUseWebRTC()) {
+        webRTCsendCurrent();
+      } else if (sendNotify) {
+        semaphore.notifyAll();
+      }
+    }
+  }
+
   /*
    * pushScreen -- Push to a new Screen
    *
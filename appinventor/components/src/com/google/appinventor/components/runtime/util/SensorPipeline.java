@@ -0,0 +1,266 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers a sensor listener at a configurable rate and collects its three-axis samples so that
+ * the owning component raises at most one event per display frame.
+ *
+ * High rate sensors deliver hundreds of samples per second on the UI thread. Rather than raise a
+ * YAIL event for each of them, the component passes every sample to {@link #add} and is called
+ * back through {@link Callback#flush} once per frame. When a report latency is set, the samples
+ * are also kept so that they can be delivered in bulk, and the hardware is allowed to hold them in
+ * its FIFO for that long before waking the processor.
+ */
+public final class SensorPipeline {
+
+  /**
+   * Receives the samples collected since the previous flush.
+   */
+  public interface Callback {
+    /**
+     * Called on the UI thread after one or more samples have been added. The latest sample is
+     * always available through {@link SensorPipeline#lastX()} and friends; the individual samples
+     * are only kept when {@link SensorPipeline#isBatching()}.
+     */
+    void flush(SensorPipeline pipeline);
+  }
+
+  // About one display frame at 60 Hz, for devices without a Choreographer.
+  private static final long FRAME_INTERVAL_MS = 16;
+  // registerListener reads sampling periods of 0 to 3 microseconds as the SENSOR_DELAY_ constants.
+  private static final int MIN_SAMPLING_PERIOD_US = 4;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final SensorManager sensorManager;
+  private final Sensor sensor;
+  private final SensorEventListener listener;
+  private final int defaultDelay;
+  private final Handler handler;
+  private final Callback callback;
+
+  private int sampleRate;  // samples per second, or 0 for defaultDelay
+  private int reportLatency;  // milliseconds
+  private boolean listening;
+
+  private boolean flushPending;
+  private float lastX;
+  private float lastY;
+  private float lastZ;
+  private long lastTimestamp;
+  private int count;
+  private float[] xs = new float[INITIAL_CAPACITY];
+  private float[] ys = new float[INITIAL_CAPACITY];
+  private float[] zs = new float[INITIAL_CAPACITY];
+  private long[] timestamps = new long[INITIAL_CAPACITY];
+
+  private final Runnable flusher = new Runnable() {
+    @Override
+    public void run() {
+      if (!flushPending) {
+        return;  // stop() was called after the flush was scheduled
+      }
+      flushPending = false;
+      callback.flush(SensorPipeline.this);
+      count = 0;
+    }
+  };
+
+  /**
+   * Creates a new pipeline.
+   *
+   * @param sensorManager the sensor manager used to register the listener
+   * @param sensor the sensor to listen to, possibly null if the device doesn't have one
+   * @param listener the listener that will call {@link #add}
+   * @param defaultDelay one of the SensorManager.SENSOR_DELAY_ constants, used when the sample
+   *     rate is 0
+   * @param callback the callback that raises the component's events
+   */
+  public SensorPipeline(SensorManager sensorManager, Sensor sensor, SensorEventListener listener,
+      int defaultDelay, Callback callback) {
+    this.sensorManager = sensorManager;
+    this.sensor = sensor;
+    this.listener = listener;
+    this.defaultDelay = defaultDelay;
+    this.callback = callback;
+    this.handler = new Handler();
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Sets the requested number of samples per second. 0 uses the default delay. The sensor may
+   * deliver samples faster or slower than requested.
+   */
+  public void setSampleRate(int sampleRate) {
+    this.sampleRate = Math.max(0, sampleRate);
+    restart();
+  }
+
+  public int getReportLatency() {
+    return reportLatency;
+  }
+
+  /**
+   * Sets how long, in milliseconds, samples may be held before they are reported. A value greater
+   * than 0 also keeps the individual samples for {@link Callback#flush}.
+   */
+  public void setReportLatency(int reportLatency) {
+    this.reportLatency = Math.max(0, reportLatency);
+    restart();
+  }
+
+  public boolean isBatching() {
+    return reportLatency > 0;
+  }
+
+  public void start() {
+    if (listening || sensor == null) {
+      return;
+    }
+    int samplingPeriod = sampleRate > 0
+        ? Math.max(MIN_SAMPLING_PERIOD_US, 1000000 / sampleRate)
+        : defaultDelay;
+    if (reportLatency > 0 && SdkLevel.getLevel() >= SdkLevel.LEVEL_KITKAT) {
+      KitkatUtil.registerListener(sensorManager, listener, sensor, samplingPeriod,
+          reportLatency * 1000);
+    } else {
+      sensorManager.registerListener(listener, sensor, samplingPeriod);
+    }
+    listening = true;
+  }
+
+  /**
+   * Unregisters the listener and drops any samples that haven't been flushed yet.
+   */
+  public void stop() {
+    if (listening) {
+      sensorManager.unregisterListener(listener);
+      listening = false;
+    }
+    handler.removeCallbacks(flusher);
+    flushPending = false;
+    count = 0;
+  }
+
+  private void restart() {
+    if (listening) {
+      stop();
+      start();
+    }
+  }
+
+  /**
+   * Adds a sample and schedules a flush for the next display frame, unless one is already
+   * scheduled. Must be called on the UI thread, which is where sensor events are delivered by
+   * default.
+   */
+  public void add(float x, float y, float z, long timestamp) {
+    lastX = x;
+    lastY = y;
+    lastZ = z;
+    lastTimestamp = timestamp;
+    if (isBatching()) {
+      if (count == xs.length) {
+        grow();
+      }
+      xs[count] = x;
+      ys[count] = y;
+      zs[count] = z;
+      timestamps[count] = timestamp;
+      count++;
+    }
+    if (!flushPending) {
+      flushPending = true;
+      if (SdkLevel.getLevel() >= SdkLevel.LEVEL_JELLYBEAN) {
+        JellybeanUtil.postFrameCallback(flusher);
+      } else {
+        handler.postAtTime(flusher, SystemClock.uptimeMillis() + FRAME_INTERVAL_MS);
+      }
+    }
+  }
+
+  private void grow() {
+    int capacity = count * 2;
+    float[] newXs = new float[capacity];
+    float[] newYs = new float[capacity];
+    float[] newZs = new float[capacity];
+    long[] newTimestamps = new long[capacity];
+    System.arraycopy(xs, 0, newXs, 0, count);
+    System.arraycopy(ys, 0, newYs, 0, count);
+    System.arraycopy(zs, 0, newZs, 0, count);
+    System.arraycopy(timestamps, 0, newTimestamps, 0, count);
+    xs = newXs;
+    ys = newYs;
+    zs = newZs;
+    timestamps = newTimestamps;
+  }
+
+  public float lastX() {
+    return lastX;
+  }
+
+  public float lastY() {
+    return lastY;
+  }
+
+  public float lastZ() {
+    return lastZ;
+  }
+
+  public long lastTimestamp() {
+    return lastTimestamp;
+  }
+
+  /**
+   * Returns the number of samples kept since the last flush.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the kept X values as a list suitable for passing to an event.
+   */
+  public YailList xValues() {
+    return toList(xs);
+  }
+
+  public YailList yValues() {
+    return toList(ys);
+  }
+
+  public YailList zValues() {
+    return toList(zs);
+  }
+
+  public YailList timestamps() {
+    List<Long> list = new ArrayList<Long>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(timestamps[i]);
+    }
+    return YailList.makeList(list);
+  }
+
+  private YailList toList(float[] values) {
+    List<Float> list = new ArrayList<Float>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(values[i]);
+    }
+    return YailList.makeList(list);
+  }
+}
@@ -9,10 +9,20 @@ package com.google.appinventor.components.runtime.util;
 import com.google.appinventor.components.runtime.AlarmHandler;
 
 import android.os.Handler;
+import android.os.SystemClock;
 
 /**
  * Helper class for components containing timers, such as Timer and Sprite.
  *
+ * By default the next tick is posted {@link #Interval()} ms after the previous one finished, so
+ * the time spent handling each tick adds up as drift. In fixed-rate mode the ticks are instead
+ * scheduled against {@link SystemClock#uptimeMillis()} deadlines that are a whole number of
+ * intervals after the timer was started. If a tick is so late that one or more deadlines have
+ * already passed, the timer either runs the missed ticks back to back (catch-up) or skips ahead
+ * to the next deadline in the future.
+ *
+ * The timer runs on the thread of the Handler given to the constructor. Timers that only do
+ * non-UI work can pass a Handler for the Looper of a background thread.
  */
 public final class TimerInternal implements Runnable {
 
@@ -28,6 +38,21 @@ public final class TimerInternal implements Runnable {
   // Component that should be called by timer
   private AlarmHandler component;
 
+  // Whether ticks are scheduled against fixed deadlines rather than after the previous tick
+  private boolean fixedRate;
+
+  // Whether a fixed-rate timer runs missed ticks rather than skipping them
+  private boolean catchUp;
+
+  // Uptime in ms at which the pending tick should run
+  private long deadline;
+
+  // Statistics since the timer was last enabled or the statistics were reset
+  private int ticks;
+  private int missedTicks;
+  private long totalLateness;  // ms
+  private long maxLateness;  // ms
+
   /**
    * Timer constructor
    *
@@ -48,7 +73,7 @@ public final class TimerInternal implements Runnable {
    * @param enabled whether it is initially enabled
    * @param interval time in ms
    * @param handler the handler whose {@link
-   *        android.os.Handler#postDelayed(Runnable, long)}
+   *        android.os.Handler#postAtTime(Runnable, long)}
    *        method is called to request calls of this after the delay
    *        specified via {@link #Interval(int)}
    */
@@ -60,7 +85,7 @@ public final class TimerInternal implements Runnable {
     this.enabled = enabled;
     this.interval = interval;
     if (enabled) {
-      handler.postDelayed(this, interval);
+      schedule(SystemClock.uptimeMillis() + interval);
     }
   }
 
@@ -82,7 +107,7 @@ public final class TimerInternal implements Runnable {
     this.interval = interval;
     if (enabled) {
       handler.removeCallbacks(this);
-      handler.postDelayed(this, interval);
+      schedule(SystemClock.uptimeMillis() + interval);
     }
   }
 
@@ -109,20 +134,116 @@ public final class TimerInternal implements Runnable {
     this.enabled = enabled;
 
     if (enabled) {
-      handler.postDelayed(this, interval);
+      ResetStatistics();
+      schedule(SystemClock.uptimeMillis() + interval);
     }
   }
 
+  /**
+   * FixedRate property getter method.
+   *
+   * @return {@code true} if ticks are scheduled at fixed deadlines
+   */
+  public boolean FixedRate() {
+    return fixedRate;
+  }
+
+  /**
+   * FixedRate property setter method: chooses between scheduling each tick relative to the end
+   * of the previous one ({@code false}) or at fixed deadlines ({@code true}). Changing the mode
+   * does not move the pending tick.
+   *
+   * @param fixedRate {@code true} to schedule ticks at fixed deadlines
+   */
+  public void FixedRate(boolean fixedRate) {
+    this.fixedRate = fixedRate;
+  }
+
+  /**
+   * CatchUp property getter method.
+   *
+   * @return {@code true} if a fixed-rate timer runs missed ticks
+   */
+  public boolean CatchUp() {
+    return catchUp;
+  }
+
+  /**
+   * CatchUp property setter method: chooses what a fixed-rate timer does when it falls behind by
+   * more than one interval. If {@code true}, the missed ticks run back to back until the timer is
+   * on schedule again. If {@code false}, they are counted in {@link #MissedTicks()} and the timer
+   * waits for the next deadline.
+   *
+   * @param catchUp {@code true} to run missed ticks
+   */
+  public void CatchUp(boolean catchUp) {
+    this.catchUp = catchUp;
+  }
+
+  /**
+   * Returns the average number of ms by which ticks ran later than scheduled.
+   */
+  public double AverageLateness() {
+    return ticks == 0 ? 0 : (double) totalLateness / ticks;
+  }
+
+  /**
+   * Returns the largest number of ms by which a tick ran later than scheduled.
+   */
+  public long MaxLateness() {
+    return maxLateness;
+  }
+
+  /**
+   * Returns the number of fixed-rate ticks that were skipped because the timer fell behind.
+   */
+  public int MissedTicks() {
+    return missedTicks;
+  }
+
+  /**
+   * Clears the lateness and missed tick statistics.
+   */
+  public void ResetStatistics() {
+    ticks = 0;
+    missedTicks = 0;
+    totalLateness = 0;
+    maxLateness = 0;
+  }
+
+  private void schedule(long when) {
+    deadline = when;
+    handler.postAtTime(this, when);
+  }
+
   // Runnable implementation
 
   public void run() {
     if (enabled) {
+      long now = SystemClock.uptimeMillis();
+      long lateness = Math.max(0, now - deadline);
+      ticks++;
+      totalLateness += lateness;
+      maxLateness = Math.max(maxLateness, lateness);
+
       component.alarm();
 
       // During the call to component.alarm, the enabled field may have changed.
-      // We need to make sure that enabled is still true before we call handler.postDelayed.
+      // We need to make sure that enabled is still true before we schedule the next tick.
       if (enabled) {
-        handler.postDelayed(this, interval);
+        if (fixedRate && interval > 0) {
+          long next = deadline + interval;
+          now = SystemClock.uptimeMillis();
+          if (next < now && !catchUp) {
+            long missed = (now - next) / interval + 1;
+            missedTicks += missed;
+            next += missed * interval;
+          }
+          // A deadline in the past makes the handler run the tick as soon as possible.
+          schedule(next);
+        } else {
+          schedule(SystemClock.uptimeMillis() + interval);
+        }
       }
     }
   }
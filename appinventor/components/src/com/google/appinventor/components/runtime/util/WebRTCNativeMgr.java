@@ -434,7 +434,7 @@ public class WebRTCNativeMgr {
   }
 
   private void sendRendezvous(final JSONObject data) {
-    AsynchUtil.runAsynchronously(new Runnable() {
+    AsynchUtil.runAsynchronously("WebRTCNativeMgr.sendRendezvous", new Runnable() {
         @Override
         public void run() {
           try {
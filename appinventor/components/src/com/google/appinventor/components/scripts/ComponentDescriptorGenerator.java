@@ -118,8 +118,19 @@ public final class ComponentDescriptorGenerator extends ComponentProcessor {
   // Where to write results.
   private static final String OUTPUT_FILE_NAME = "simple_components.json";
 
-  private void outputComponent(ComponentInfo component, StringBuilder sb) {
-    sb.append("{ \"type\": \"");
+  // Where to write the index of the results. For each component, the index
+  // holds the fields needed for the palette, in the same format as in the
+  // descriptor, and the "start" and "end" offsets of its descriptor within
+  // OUTPUT_FILE_NAME. This lets the designer list the components and defer
+  // parsing each descriptor until its definitions are needed.
+  private static final String INDEX_FILE_NAME = "simple_components_index.json";
+
+  /*
+   * Outputs the fields the palette needs, shared by the descriptor and the
+   * index so that the two cannot drift apart.
+   */
+  private void outputPaletteFields(ComponentInfo component, StringBuilder sb) {
+    sb.append("\"type\": \"");
     sb.append(component.type);
     sb.append("\",\n  \"name\": \"");
     sb.append(component.name);
@@ -147,7 +158,13 @@ public final class ComponentDescriptorGenerator extends ComponentProcessor {
     sb.append(component.getIconName());
     sb.append("\",\n  \"licenseName\": \"");
     sb.append(component.getLicenseName());
-    sb.append("\",\n  \"androidMinSdk\": ");
+    sb.append("\"");
+  }
+
+  private void outputComponent(ComponentInfo component, StringBuilder sb) {
+    sb.append("{ ");
+    outputPaletteFields(component, sb);
+    sb.append(",\n  \"androidMinSdk\": ");
     sb.append(component.getAndroidMinSdk());
     outputConditionalAnnotations(component, sb);
     sb.append(",\n  \"properties\": [");
@@ -494,26 +511,52 @@ public final class ComponentDescriptorGenerator extends ComponentProcessor {
     sb.append(" ]\n");
   }
 
+  /*
+   * Outputs the palette fields of a component and the offsets of its
+   * descriptor to the index.
+   */
+  private void outputIndexEntry(ComponentInfo component, int start, int end,
+      StringBuilder sb) {
+    sb.append("{ ");
+    outputPaletteFields(component, sb);
+    sb.append(", \"start\": \"");
+    sb.append(start);
+    sb.append("\", \"end\": \"");
+    sb.append(end);
+    sb.append("\"}");
+  }
+
   @Override
   protected void outputResults() throws IOException {
     StringBuilder sb = new StringBuilder();
+    StringBuilder index = new StringBuilder();
 
     sb.append('[');
+    index.append('[');
     String separator = "";
 
     // Components are already sorted.
     for (Map.Entry<String, ComponentInfo> entry : components.entrySet()) {
       ComponentInfo component = entry.getValue();
       sb.append(separator);
+      int start = sb.length();
       outputComponent(component, sb);
+      index.append(separator);
+      outputIndexEntry(component, start, sb.length(), index);
       separator = ",\n";
     }
 
     sb.append(']');
+    index.append(']');
+
+    writeOutputFile(OUTPUT_FILE_NAME, sb);
+    writeOutputFile(INDEX_FILE_NAME, index);
+  }
 
-    FileObject src = createOutputFileObject(OUTPUT_FILE_NAME);
+  private void writeOutputFile(String fileName, CharSequence content) throws IOException {
+    FileObject src = createOutputFileObject(fileName);
     Writer writer = src.openWriter();
-    writer.write(sb.toString());
+    writer.write(content.toString());
     writer.flush();
     writer.close();
     messager.printMessage(Diagnostic.Kind.NOTE, "Wrote file " + src.toUri());
@@ -6,6 +6,7 @@
 
 package com.google.appinventor.components.runtime;
 
+import com.google.appinventor.components.runtime.util.ByteRingBuffer;
 import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.YailList;
 
@@ -16,6 +17,7 @@ import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -111,6 +113,56 @@ public class BluetoothConnectionBaseTest extends TestCase {
     assertEquals((byte)  10, bytes[i++]);  // line feed
   }
 
+  public void testTakeFramesAtDelimiter() {
+    ByteRingBuffer buffer = new ByteRingBuffer(16);
+    connection.DelimiterByte(10);
+    buffer.write(new byte[] { 'a', 'b', 10, 'c' }, 0, 4);
+    List<byte[]> frames = connection.takeFrames(buffer);
+    assertEquals(1, frames.size());
+    assertTrue(Arrays.equals(new byte[] { 'a', 'b' }, frames.get(0)));
+
+    // The incomplete frame is kept until its delimiter arrives.
+    buffer.write(new byte[] { 'd', 10, 10 }, 0, 3);
+    frames = connection.takeFrames(buffer);
+    assertEquals(2, frames.size());
+    assertTrue(Arrays.equals(new byte[] { 'c', 'd' }, frames.get(0)));
+    assertEquals(0, frames.get(1).length);
+    assertEquals(0, connection.takeFrames(buffer).size());
+  }
+
+  public void testTakeFramesOfFixedLength() {
+    ByteRingBuffer buffer = new ByteRingBuffer(16);
+    connection.FrameLength(3);
+    buffer.write(new byte[] { 1, 2, 3, 4, 5, 6, 7 }, 0, 7);
+    List<byte[]> frames = connection.takeFrames(buffer);
+    assertEquals(2, frames.size());
+    assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, frames.get(0)));
+    assertTrue(Arrays.equals(new byte[] { 4, 5, 6 }, frames.get(1)));
+
+    buffer.write(new byte[] { 8, 9 }, 0, 2);
+    frames = connection.takeFrames(buffer);
+    assertEquals(1, frames.size());
+    assertTrue(Arrays.equals(new byte[] { 7, 8, 9 }, frames.get(0)));
+  }
+
+  public void testTakeFramesTooLong() {
+    ByteRingBuffer buffer = new ByteRingBuffer(BluetoothConnectionBase.MAX_FRAME_LENGTH * 2);
+    connection.DelimiterByte(10);
+    byte[] bytes = new byte[BluetoothConnectionBase.MAX_FRAME_LENGTH + 1];
+    buffer.write(bytes, 0, bytes.length);
+    assertEquals(0, connection.takeFrames(buffer).size());
+    assertEquals(ErrorMessages.ERROR_BLUETOOTH_FRAME_TOO_LONG, recordedErrorNumber);
+
+    // The rest of the long frame is dropped, and the next frame is delivered.
+    buffer.write(new byte[] { 'a', 10, 'b', 10 }, 0, 4);
+    List<byte[]> frames = connection.takeFrames(buffer);
+    assertEquals(1, frames.size());
+    assertTrue(Arrays.equals(new byte[] { 'b' }, frames.get(0)));
+
+    connection.FrameLength(Integer.MAX_VALUE);
+    assertEquals(BluetoothConnectionBase.MAX_FRAME_LENGTH, connection.FrameLength());
+  }
+
   public void testSendandReceive1ByteNumber() {
     connection.Send1ByteNumber("0");
     assertEquals(0, connection.ReceiveUnsigned1ByteNumber());
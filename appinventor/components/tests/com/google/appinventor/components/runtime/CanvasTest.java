@@ -0,0 +1,169 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.view.View;
+import com.google.appinventor.components.common.ComponentConstants;
+import com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher;
+import com.google.appinventor.components.runtime.util.ErrorMessages;
+import com.google.appinventor.components.runtime.util.YailList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowView;
+
+/**
+ * Tests for the {@link Canvas} component.
+ */
+public class CanvasTest extends RobolectricTestBase {
+
+  private Canvas canvas;
+
+  @Before
+  public void setUp() {
+    super.setUp();
+    canvas = new Canvas(getForm());
+  }
+
+  @Test
+  public void testGetBackgroundPixelsOffCanvas() {
+    YailList colors = canvas.GetBackgroundPixels(-2, -2, 3, 3);
+    assertEquals(9, colors.size());
+    // Only the bottom right point is on the Canvas
+    for (int i = 0; i < 8; i++) {
+      assertEquals(Component.COLOR_NONE, colors.getObject(i));
+    }
+  }
+
+  @Test
+  public void testGetBackgroundPixelsNegativeSize() {
+    YailList colors = canvas.GetBackgroundPixels(0, 0, -1, 10);
+    assertEquals(0, colors.size());
+    ShadowEventDispatcher.assertErrorOccurred(ErrorMessages.ERROR_CANVAS_BAD_PIXEL_AREA);
+  }
+
+  @Test
+  public void testGetBackgroundPixelsLargerThanCanvas() {
+    // Would need a list of 2^31 colors if we didn't check
+    YailList colors = canvas.GetBackgroundPixels(0, 0, 65536, 32768);
+    assertEquals(0, colors.size());
+    ShadowEventDispatcher.assertErrorOccurred(ErrorMessages.ERROR_CANVAS_BAD_PIXEL_AREA);
+  }
+
+  @Test
+  public void testGetBackgroundPixelsWholeCanvas() {
+    YailList colors = canvas.GetBackgroundPixels(0, 0, ComponentConstants.CANVAS_PREFERRED_WIDTH,
+        ComponentConstants.CANVAS_PREFERRED_HEIGHT);
+    assertEquals(ComponentConstants.CANVAS_PREFERRED_WIDTH
+        * ComponentConstants.CANVAS_PREFERRED_HEIGHT, colors.size());
+  }
+
+  @Test
+  public void testDrawPoints() {
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.DrawPoints(points(10, 20, 30, 40, 50, 60));
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+    ShadowEventDispatcher.assertEventNotFired(getForm(), "ErrorOccurred");
+  }
+
+  @Test
+  public void testDrawPointsBadArgument() {
+    canvas.DrawPoints(YailList.makeList(Arrays.asList(YailList.makeList(Arrays.asList(1)))));
+    ShadowEventDispatcher.assertErrorOccurred(ErrorMessages.ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT);
+  }
+
+  @Test
+  public void testDrawPointsEmpty() {
+    canvas.DrawPoints(YailList.makeEmptyList());
+    ShadowEventDispatcher.assertErrorOccurred(ErrorMessages.ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT);
+  }
+
+  @Test
+  public void testDrawPolyline() {
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.DrawPolyline(points(10, 20, 30, 40, 50, 20));
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+    ShadowEventDispatcher.assertEventNotFired(getForm(), "ErrorOccurred");
+  }
+
+  @Test
+  public void testDrawPolylineBadArgument() {
+    canvas.DrawPolyline(YailList.makeList(Arrays.asList("10 20")));
+    ShadowEventDispatcher.assertErrorOccurred(ErrorMessages.ERROR_CANVAS_DRAW_SHAPE_BAD_ARGUMENT);
+  }
+
+  @Test
+  public void testBatchDrawingInvalidatesOnce() {
+    canvas.BatchDrawing(true);
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.DrawPoint(10, 10);
+    // Starting a batch schedules the redraw that flushes it
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.DrawLine(0, 0, 10, 10);
+    canvas.DrawCircle(20, 20, 5, true);
+    canvas.DrawPoints(points(1, 2, 3, 4));
+    canvas.DrawPolyline(points(1, 2, 3, 4));
+    canvas.DrawTextAtAngle("text", 10, 10, 45);
+    assertFalse(shadowOf(canvas.getView()).wasInvalidated());
+  }
+
+  @Test
+  public void testBatchReplayedWhenDrawn() {
+    canvas.BatchDrawing(true);
+    canvas.DrawPoint(10, 10);
+    canvas.getView().draw(new android.graphics.Canvas());
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    // The batch was replayed, so the next draw call starts a new one
+    canvas.DrawPoint(20, 20);
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+  }
+
+  @Test
+  public void testBatchReplayedWhenRead() {
+    canvas.BatchDrawing(true);
+    canvas.DrawPoint(10, 10);
+    canvas.GetBackgroundPixelColor(10, 10);
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.DrawPoint(20, 20);
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+  }
+
+  @Test
+  public void testBatchReplayedWhenTurnedOff() {
+    canvas.BatchDrawing(true);
+    canvas.DrawPoint(10, 10);
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    canvas.BatchDrawing(false);
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+    shadowOf(canvas.getView()).clearWasInvalidated();
+    // Without batching, every draw call redraws the view
+    canvas.DrawPoint(20, 20);
+    assertTrue(shadowOf(canvas.getView()).wasInvalidated());
+  }
+
+  /**
+   * Makes a list of points from pairs of coordinates.
+   */
+  private static YailList points(int... coordinates) {
+    List<YailList> points = new ArrayList<YailList>();
+    for (int i = 0; i < coordinates.length; i += 2) {
+      points.add(YailList.makeList(Arrays.asList(coordinates[i], coordinates[i + 1])));
+    }
+    return YailList.makeList(points);
+  }
+
+  private static ShadowView shadowOf(View view) {
+    return (ShadowView) Shadow.extract(view);
+  }
+}
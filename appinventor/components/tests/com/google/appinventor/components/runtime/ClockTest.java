@@ -6,9 +6,12 @@
 
 package com.google.appinventor.components.runtime;
 
-import junit.framework.TestCase;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Calendar;
 import java.util.TimeZone;
+import org.junit.Test;
 
 
 /**
@@ -16,139 +19,257 @@ import java.util.TimeZone;
  *
  */
 
-public class ClockTest extends TestCase {
+public class ClockTest extends RobolectricTestBase {
 
 
   private final Calendar tc1 = Clock.MakeInstant("10/11/1941 09:30:00");
   private final Calendar tc2 = Clock.MakeInstant("10/25/1941 09:30:00"); // t1 + 14days
   private final Calendar tc3 = Clock.MakeInstant("10/11/1941 12:30:00"); // t1 + 3hours
 
+  @Test
   public void testNow() throws Exception {
     assertTrue(0 > Clock.Duration(Clock.Now(), tc1));
   }
 
+  @Test
   public void testDurationToDays() throws Exception {
     assertEquals(14, Clock.DurationToDays(Clock.Duration(tc1,tc2)));
   }
 
+  @Test
   public void testDurationToWeeks() throws Exception {
         assertEquals(2, Clock.DurationToWeeks(Clock.Duration(tc1,tc2)));
   }
 
+  @Test
   public void testDurationToHours() throws Exception {
         assertEquals(3, Clock.DurationToHours(Clock.Duration(tc1,tc3)));
   }
 
+  @Test
   public void testDurationToMinutes() throws Exception {
         assertEquals(180, Clock.DurationToMinutes(Clock.Duration(tc1,tc3)));
   }
 
+  @Test
   public void testMakeInstant() throws Exception {
     assertEquals("Oct 11, 1941 09:30:00 AM", Clock.FormatDateTime(tc1,""));
   }
 
+  @Test
   public void testMakeInstantFromMillis() throws Exception {
     assertEquals("Jan 1, 1970 12:00:00 AM",
         Clock.FormatDateTime(Clock.MakeInstantFromMillis(0
                                       - TimeZone.getDefault().getRawOffset()),""));
   }
 
+  @Test
   public void testGetMillis() throws Exception {
     assertEquals(-TimeZone.getDefault().getRawOffset(),
         Clock.GetMillis(Clock.MakeInstant("1/1/1970 00:00:00")));
   }
 
+  @Test
   public void testAddYears() throws Exception {
     assertEquals("Oct 11, 1943", Clock.FormatDate(Clock.AddYears(tc1, 2), "MMM d, yyyy"));
   }
 
+  @Test
   public void testAddYears2() throws Exception {
     assertEquals("10/11/1931 09:30 AM", Clock.FormatDateTime(Clock.AddYears(tc1, -10), "MM/dd/yyyy HH:mm a"));
   }
 
+  @Test
   public void testAddMonths() throws Exception {
     assertEquals("1941/12/11", Clock.FormatDate(Clock.AddMonths(tc1, 2), "yyyy/MM/dd"));
   }
 
+  @Test
   public void testAddMonths2() throws Exception {
     assertEquals("11/10/1942 09:30:00 AM", Clock.FormatDateTime(Clock.AddMonths(tc1, 12), "dd/MM/yyyy HH:mm:ss a"));
   }
 
+  @Test
   public void testAddWeeks() throws Exception {
     assertEquals("Sep 10, 2002 12:00:00 AM", Clock.FormatDateTime(
         Clock.AddWeeks(Clock.MakeInstant("9/11/2001 00:00:00"), 52), ""));
   }
 
+  @Test
   public void testAddWeeks2() throws Exception {
     assertEquals("Sep 18, 2001 12:00:00 AM", Clock.FormatDateTime(
         Clock.AddWeeks(Clock.MakeInstant("9/11/2001 00:00:00"), 1), ""));
   }
 
+  @Test
   public void testAddDays() throws Exception {
     assertEquals("Oct 9, 1941", Clock.FormatDate(Clock.AddDays(tc1, -2), ""));
   }
 
+  @Test
   public void testAddDays2() throws Exception {
     assertEquals("11/01/41", Clock.FormatDate(Clock.AddDays(tc1, 21), "MM/dd/yy"));
   }
 
+  @Test
   public void testAddHours() throws Exception {
     assertEquals("Oct 11, 1941 07:30:00 AM", Clock.FormatDateTime(Clock.AddHours(tc1, -2),""));
   }
 
+  @Test
   public void testAddHours2() throws Exception {
     assertEquals("10-12-1941 09:30:00 AM", Clock.FormatDateTime(Clock.AddHours(tc1, 24),"MM-dd-yyyy HH:mm:ss a"));
   }
 
+  @Test
   public void testAddMinutes() throws Exception {
     assertEquals("Oct 11, 1941 09:32:00 AM", Clock.FormatDateTime(Clock.AddMinutes(tc1, 2),""));
   }
 
+  @Test
   public void testAddSeconds() throws Exception {
     assertEquals("9:31:01 AM", Clock.FormatTime(Clock.AddSeconds(tc1, 61)));
   }
 
+  @Test
   public void testAddDuration() throws Exception {
         assertEquals("Oct 11, 1941 09:30:05 AM", Clock.FormatDateTime(Clock.AddDuration(tc1, 5000), "")); //5000ms = 5s
   }
 
+  @Test
   public void testAddDuration2() throws Exception {
         assertEquals("Oct 25, 1941", Clock.FormatDate(Clock.AddDuration(tc1, Clock.Duration(tc1, tc2)),""));
   }
 
+  @Test
   public void testSecond() throws Exception {
     assertEquals(0, Clock.Second(tc1));
   }
 
+  @Test
   public void testMinute() throws Exception {
     assertEquals(30, Clock.Minute(tc1));
   }
 
+  @Test
   public void testHour() throws Exception {
     assertEquals(9, Clock.Hour(tc1));
   }
 
+  @Test
   public void testWeekday() throws Exception {
     assertEquals(2, Clock.Weekday(Clock.MakeInstant("11/2/2009")));
   }
 
+  @Test
   public void testWeekdayName() throws Exception {
     assertEquals("Monday", Clock.WeekdayName(Clock.MakeInstant("11/2/2009")));
   }
 
+  @Test
   public void testDayOfMonth() throws Exception {
     assertEquals(11, Clock.DayOfMonth(tc1));
   }
 
+  @Test
   public void testMonth() throws Exception {
     assertEquals(10, Clock.Month(tc1));
   }
 
+  @Test
   public void testMonthName() throws Exception {
     assertEquals("October", Clock.MonthName(tc1));
   }
 
+  @Test
   public void testYear() throws Exception {
     assertEquals(1941, Clock.Year(tc1));
   }
+
+  private static final int INTERVAL = 100;  // ms
+
+  /*
+   * A Clock whose Timer events take busyMillis of (simulated) time, or firstBusyMillis for the
+   * first one.
+   */
+  private class BusyClock extends Clock {
+    private final int firstBusyMillis;
+    private final int busyMillis;
+    private int ticks;
+
+    BusyClock(int firstBusyMillis, int busyMillis) {
+      super(getForm());
+      this.firstBusyMillis = firstBusyMillis;
+      this.busyMillis = busyMillis;
+      TimerInterval(INTERVAL);  // Restarts the timer INTERVAL ms from now
+    }
+
+    @Override
+    public void Timer() {
+      ticks++;
+      advance(ticks == 1 ? firstBusyMillis : busyMillis);
+    }
+  }
+
+  @Test
+  public void testTimerDrifts() {
+    BusyClock clock = new BusyClock(30, 30);
+    advance(950);
+    // Each tick is scheduled 100 ms after the previous one finished: 100, 230, ..., 880
+    assertEquals(7, clock.ticks);
+  }
+
+  @Test
+  public void testTimerFixedRate() {
+    BusyClock clock = new BusyClock(30, 30);
+    clock.TimerFixedRate(true);
+    advance(950);
+    // The ticks stay on the 100 ms grid
+    assertEquals(9, clock.ticks);
+    assertEquals(0, clock.TimerMissedTicks());
+    assertEquals(0, clock.TimerMaxLateness());
+    assertEquals(0, clock.TimerAverageLateness(), 0);
+  }
+
+  @Test
+  public void testTimerSkipsMissedTicks() {
+    BusyClock clock = new BusyClock(350, 0);
+    clock.TimerFixedRate(true);
+    advance(650);
+    // The first tick runs until 450, so those due at 200, 300 and 400 are skipped. The timer
+    // carries on at 500 and 600.
+    assertEquals(3, clock.ticks);
+    assertEquals(3, clock.TimerMissedTicks());
+    assertEquals(0, clock.TimerMaxLateness());
+    assertEquals(0, clock.TimerAverageLateness(), 0);
+  }
+
+  @Test
+  public void testTimerCatchesUp() {
+    BusyClock clock = new BusyClock(350, 0);
+    clock.TimerFixedRate(true);
+    clock.TimerCatchUp(true);
+    advance(650);
+    // The ticks due at 200, 300 and 400 all run at 450, 250, 150 and 50 ms late. The timer is
+    // back on schedule at 500 and 600.
+    assertEquals(6, clock.ticks);
+    assertEquals(0, clock.TimerMissedTicks());
+    assertEquals(250, clock.TimerMaxLateness());
+    assertEquals((250 + 150 + 50) / 6.0, clock.TimerAverageLateness(), 0.001);
+  }
+
+  @Test
+  public void testResetTimerStatistics() {
+    BusyClock clock = new BusyClock(350, 0);
+    clock.TimerFixedRate(true);
+    clock.TimerCatchUp(true);
+    advance(650);
+    clock.ResetTimerStatistics();
+    assertEquals(0, clock.TimerMissedTicks());
+    assertEquals(0, clock.TimerMaxLateness());
+    assertEquals(0, clock.TimerAverageLateness(), 0);
+    advance(INTERVAL);
+    assertEquals(7, clock.ticks);
+    assertEquals(0, clock.TimerMaxLateness());
+  }
 }
@@ -7,6 +7,7 @@ package com.google.appinventor.components.runtime;
 
 import static com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher.assertErrorOccurred;
 import static com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher.assertEventFired;
+import static com.google.appinventor.components.runtime.shadows.ShadowEventDispatcher.assertEventNotFired;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -30,6 +31,7 @@ import com.google.appinventor.components.runtime.util.ErrorMessages;
 import com.google.appinventor.components.runtime.util.FileUtil;
 import com.google.appinventor.components.runtime.util.IOUtils;
 import com.google.appinventor.components.runtime.util.QUtil;
+import com.google.appinventor.components.runtime.util.YailList;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -39,6 +41,7 @@ import java.net.URI;
 
 import java.nio.charset.StandardCharsets;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
@@ -562,6 +565,75 @@ public class FileTest extends RobolectricTestBase {
     }
   }
 
+  @Test
+  public void testReadLines() {
+    file.Scope(FileScope.App);
+    writeFileForTest(FileScope.App, "lines.txt", "a\nb\nc\nd\ne");
+    file.ReadLines("lines.txt", 2);
+    runAllAsynchronousCommandsAndEvents();
+    assertEventFired(file, "GotLines", YailList.makeList(Arrays.asList("a", "b")), 1, false);
+    assertEventFired(file, "GotLines", YailList.makeList(Arrays.asList("c", "d")), 3, false);
+    assertEventFired(file, "GotLines", YailList.makeList(Arrays.asList("e")), 5, true);
+  }
+
+  @Test
+  public void testReadLinesFullLastBatch() {
+    file.Scope(FileScope.App);
+    writeFileForTest(FileScope.App, "lines.txt", "a\nb\nc\nd\n");
+    file.ReadLines("lines.txt", 2);
+    runAllAsynchronousCommandsAndEvents();
+    assertEventFired(file, "GotLines", YailList.makeList(Arrays.asList("a", "b")), 1, false);
+    // The batch that ends the file is flagged, rather than followed by an empty batch
+    assertEventFired(file, "GotLines", YailList.makeList(Arrays.asList("c", "d")), 3, true);
+    assertEventNotFired(file, "ErrorOccurred");
+  }
+
+  @Test
+  public void testReadLinesEmptyFile() {
+    file.Scope(FileScope.App);
+    writeFileForTest(FileScope.App, "lines.txt", "");
+    file.ReadLines("lines.txt", 10);
+    runAllAsynchronousCommandsAndEvents();
+    assertEventFired(file, "GotLines", YailList.makeEmptyList(), 1, true);
+  }
+
+  @Test
+  public void testReadRange() {
+    file.Scope(FileScope.App);
+    writeFileForTest(FileScope.App, "range.txt", "hello world");
+    file.ReadRange("range.txt", 6, 3);
+    file.ReadRange("range.txt", 9, 100);
+    runAllAsynchronousCommandsAndEvents();
+    assertEventFired(file, "GotRange", 6, "wor");
+    // The text is shorter than requested at the end of the file
+    assertEventFired(file, "GotRange", 9, "ld");
+  }
+
+  @Test
+  public void testReadRangeIsCapped() {
+    file.Scope(FileScope.App);
+    char[] content = new char[8 * 1024 * 1024 + 10];
+    Arrays.fill(content, 'x');
+    writeFileForTest(FileScope.App, "range.txt", new String(content));
+    file.ReadRange("range.txt", 0, Integer.MAX_VALUE);
+    runAllAsynchronousCommandsAndEvents();
+    Object[] args = ShadowEventDispatcher.getArgumentsForEventFired(file, "GotRange");
+    assertEquals(8 * 1024 * 1024, ((String) args[1]).length());
+  }
+
+  @Test
+  public void testReadRangeSplitsCharacter() {
+    file.Scope(FileScope.App);
+    // The \u00e9 is encoded as the two bytes at offsets 1 and 2
+    writeFileForTest(FileScope.App, "range.txt", "a\u00e9 b");
+    file.ReadRange("range.txt", 0, 2);
+    file.ReadRange("range.txt", 2, 3);
+    runAllAsynchronousCommandsAndEvents();
+    // Each half of the split character is decoded as the replacement character
+    assertEventFired(file, "GotRange", 0, "a\ufffd");
+    assertEventFired(file, "GotRange", 2, "\ufffd b");
+  }
+
   private void testReadFile(String filename, String expectedData) {
     file.ReadFrom(filename);
     ShadowAsynchUtil.runAllPendingRunnables();
@@ -5,6 +5,8 @@
 
 package com.google.appinventor.components.runtime;
 
+import android.view.ViewParent;
+import android.widget.ScrollView;
 import com.google.appinventor.components.runtime.test.TestExtension;
 import com.google.appinventor.components.runtime.util.IOUtils;
 import org.junit.Test;
@@ -14,6 +16,8 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for the Form component.
@@ -58,8 +62,55 @@ public class FormTest extends RobolectricTestBase {
     }
   }
 
+  /**
+   * Tests that Scrollable only rebuilds the layout at the end of a layout batch, as when the
+   * designer properties are applied.
+   */
+  @Test
+  public void testLayoutBatch() {
+    Label label = new Label(getForm());
+    ViewParent frame = frameOf(label);
+    getForm().beginLayoutBatch();
+    getForm().Scrollable(true);
+    getForm().HighContrast(true);
+    assertSame(frame, frameOf(label));
+    getForm().endLayoutBatch();
+    assertTrue(frameOf(label) instanceof ScrollView);
+  }
+
+  /**
+   * Tests that nested layout batches only rebuild the layout when the outermost one ends.
+   */
+  @Test
+  public void testNestedLayoutBatch() {
+    Label label = new Label(getForm());
+    ViewParent frame = frameOf(label);
+    getForm().beginLayoutBatch();
+    getForm().beginLayoutBatch();
+    getForm().Scrollable(true);
+    getForm().endLayoutBatch();
+    assertSame(frame, frameOf(label));
+    getForm().endLayoutBatch();
+    assertTrue(frameOf(label) instanceof ScrollView);
+  }
+
+  /**
+   * Tests that Scrollable rebuilds the layout right away outside of a layout batch.
+   */
+  @Test
+  public void testScrollableWithoutBatch() {
+    Label label = new Label(getForm());
+    getForm().Scrollable(true);
+    assertTrue(frameOf(label) instanceof ScrollView);
+  }
+
   /// Helper functions
 
+  // The Screen's frame layout, which is replaced when the layout is rebuilt.
+  private static ViewParent frameOf(AndroidViewComponent component) {
+    return component.getView().getParent().getParent();
+  }
+
   /**
    * Read the contents of a stream as a string.
    *
@@ -49,8 +49,22 @@ public class ShadowAsynchUtil {
     runnables.add(call);
   }
 
+  @Implementation
+  public static void runAsynchronously(String name, final Runnable call) {
+    runnables.add(call);
+  }
+
+  @Implementation
+  public static void runAsynchronously(final Handler androidUIHandler,
+                                       final Runnable call,
+                                       final Runnable callback) {
+    runnables.add(call);
+    runnables.add(callback);
+  }
+
   @Implementation
   public static void runAsynchronously(final Handler androidUIHandler,
+                                       String name,
                                        final Runnable call,
                                        final Runnable callback) {
     runnables.add(call);
@@ -0,0 +1,58 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+/**
+ * Tests ByteRingBuffer.java.
+ */
+public class ByteRingBufferTest extends TestCase {
+
+  public void testCapacityIsRoundedUpToPowerOfTwo() {
+    assertEquals(8, new ByteRingBuffer(5).capacity());
+    assertEquals(8, new ByteRingBuffer(8).capacity());
+    assertEquals(1, new ByteRingBuffer(1).capacity());
+  }
+
+  public void testWriteAndDrainWrapAround() {
+    ByteRingBuffer buffer = new ByteRingBuffer(8);
+    byte[] out = new byte[8];
+    assertEquals(6, buffer.write(new byte[] { 1, 2, 3, 4, 5, 6 }, 0, 6));
+    assertEquals(4, buffer.drain(out, 0, 4));
+    // The next write wraps around the end of the array.
+    assertEquals(6, buffer.write(new byte[] { 7, 8, 9, 10, 11, 12 }, 0, 6));
+    assertEquals(8, buffer.size());
+    assertEquals(0, buffer.write(new byte[] { 13 }, 0, 1));
+    assertEquals(8, buffer.drain(out, 0, 8));
+    assertTrue(Arrays.equals(new byte[] { 5, 6, 7, 8, 9, 10, 11, 12 }, out));
+    assertEquals(0, buffer.size());
+  }
+
+  public void testFill() throws Exception {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    ByteArrayInputStream in = new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 });
+    assertEquals(4, buffer.fill(in));
+    assertEquals(0, buffer.fill(in));  // full
+    byte[] out = new byte[3];
+    assertEquals(3, buffer.drain(out, 0, 3));
+    assertEquals(2, buffer.fill(in));  // reads only what is left in the stream
+    assertEquals(-1, buffer.fill(in));
+    assertEquals(3, buffer.drain(out, 0, 3));
+    assertTrue(Arrays.equals(new byte[] { 4, 5, 6 }, out));
+  }
+
+  public void testClear() {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+    buffer.clear();
+    assertEquals(0, buffer.size());
+    assertEquals(4, buffer.remaining());
+  }
+}
@@ -5,6 +5,7 @@
 
 package com.google.appinventor.components.runtime.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -16,6 +17,11 @@ import android.os.Environment;
 import com.google.appinventor.components.common.FileScope;
 import com.google.appinventor.components.runtime.RobolectricTestBase;
 import com.google.appinventor.components.runtime.errors.PermissionException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
@@ -239,4 +245,46 @@ public class FileUtilTest extends RobolectricTestBase {
     assertTrue(FileUtil.needsExternalStorage(getForm(),
         new ScopedFile(FileScope.Shared, "test.txt")));
   }
+
+  @Test
+  public void testCopyStreams() throws IOException {
+    byte[] content = makeContent(20000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FileUtil.copy(new ByteArrayInputStream(content), out);
+    assertArrayEquals(content, out.toByteArray());
+  }
+
+  @Test
+  public void testCopyFileChannels() throws IOException {
+    byte[] content = makeContent(20000);
+    File source = File.createTempFile("source", ".bin");
+    File target = File.createTempFile("target", ".bin");
+    try {
+      FileUtil.writeFile(content, source.getAbsolutePath());
+      FileUtil.copyFile(source.getAbsolutePath(), target.getAbsolutePath());
+      assertArrayEquals(content, readFile(target));
+    } finally {
+      source.delete();
+      target.delete();
+    }
+  }
+
+  private static byte[] makeContent(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileUtil.copy(in, out);
+    } finally {
+      in.close();
+    }
+    return out.toByteArray();
+  }
 }
@@ -0,0 +1,60 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+/**
+ * Tests PixelUtil.java.
+ */
+public class PixelUtilTest extends TestCase {
+
+  public void testGrayscaleKeepsAlpha() {
+    int[] pixels = { 0x80FF0000, 0xFFFFFFFF, 0xFF000000 };
+    PixelUtil.grayscale(pixels);
+    assertEquals(0x804C4C4C, pixels[0]);
+    assertEquals(0xFFFFFFFF, pixels[1]);
+    assertEquals(0xFF000000, pixels[2]);
+  }
+
+  public void testThreshold() {
+    int[] pixels = { 0xFF808080, 0xFF7F7F7F, 0x00FFFFFF };
+    PixelUtil.threshold(pixels, 128);
+    assertTrue(Arrays.equals(new int[] { 0xFFFFFFFF, 0xFF000000, 0x00FFFFFF }, pixels));
+  }
+
+  public void testHistogram() {
+    int[] counts = PixelUtil.histogram(new int[] { 0xFF000000, 0xFF000000, 0xFF808080 });
+    assertEquals(256, counts.length);
+    assertEquals(2, counts[0]);
+    assertEquals(1, counts[PixelUtil.luminance(0xFF808080)]);
+  }
+
+  public void testConvolveIdentityAndBlur() {
+    int[] pixels = { 0xFF000000, 0xFF000000, 0xFF000000,
+                     0xFF000000, 0xFF090909, 0xFF000000,
+                     0xFF000000, 0xFF000000, 0xFF000000 };
+    float[] identity = { 0, 0, 0, 0, 1, 0, 0, 0, 0 };
+    assertTrue(Arrays.equals(pixels, PixelUtil.convolve(pixels, 3, 3, identity, 3)));
+    float[] box = new float[9];
+    Arrays.fill(box, 1f / 9);
+    int[] blurred = PixelUtil.convolve(pixels, 3, 3, box, 3);
+    assertEquals(0xFF010101, blurred[4]);
+    // The corner sees the center pixel once, with the clamped edges filling the rest.
+    assertEquals(0xFF010101, blurred[0]);
+  }
+
+  public void testConvolveRejectsEvenKernel() {
+    try {
+      PixelUtil.convolve(new int[4], 2, 2, new float[4], 2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // Kernels must have a center
+    }
+  }
+}
@@ -0,0 +1,132 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.appinventor.components.runtime.RobolectricTestBase;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Profiler}.
+ */
+public class ProfilerTest extends RobolectricTestBase {
+
+  @Before
+  public void setUp() {
+    super.setUp();
+    Profiler.setEnabled(true);
+  }
+
+  @After
+  public void tearDown() {
+    Profiler.setEnabled(false);
+  }
+
+  /**
+   * Returns the profile entries by name.
+   */
+  private static Map<String, JSONObject> profile() throws JSONException {
+    JSONArray entries = new JSONArray(Profiler.toJSONString());
+    Map<String, JSONObject> result = new HashMap<String, JSONObject>();
+    for (int i = 0; i < entries.length(); i++) {
+      JSONObject entry = entries.getJSONObject(i);
+      result.put(entry.getString("name"), entry);
+    }
+    return result;
+  }
+
+  @Test
+  public void testNestedCalls() throws JSONException {
+    int outer = Profiler.enter("Button1", "Click");
+    for (int i = 0; i < 3; i++) {
+      int inner = Profiler.enter("Label1", "Text");
+      Profiler.exit(inner);
+    }
+    Profiler.exit(outer);
+    Map<String, JSONObject> profile = profile();
+    assertEquals(2, profile.size());
+    assertEquals(1, profile.get("Button1.Click").getInt("count"));
+    assertEquals(3, profile.get("Label1.Text").getInt("count"));
+    // The outer call includes the time spent in the inner ones
+    assertTrue(profile.get("Button1.Click").getDouble("totalMs")
+        >= profile.get("Label1.Text").getDouble("totalMs"));
+  }
+
+  @Test
+  public void testDiscardOnException() throws JSONException {
+    int outer = Profiler.enter("Button1", "Click");
+    try {
+      int inner = Profiler.enter("Web1", "Get");
+      try {
+        throw new IllegalStateException();
+      } catch (IllegalStateException e) {
+        Profiler.discard(inner);
+      }
+    } finally {
+      Profiler.exit(outer);
+    }
+    Map<String, JSONObject> profile = profile();
+    assertEquals(1, profile.size());
+    // Discarding the inner call closed it, so exit() recorded the outer one
+    assertEquals(1, profile.get("Button1.Click").getInt("count"));
+  }
+
+  @Test
+  public void testDisabled() {
+    Profiler.setEnabled(false);
+    assertFalse(Profiler.isEnabled());
+    Profiler.exit(Profiler.enter("Button1", "Click"));
+    Profiler.record("Form", "Frame", 1000000);
+    assertEquals("[]", Profiler.toJSONString());
+  }
+
+  @Test
+  public void testRestartDropsOpenCalls() {
+    int token = Profiler.enter("Button1", "Click");
+    Profiler.setEnabled(false);
+    Profiler.setEnabled(true);
+    Profiler.exit(token);
+    assertEquals("[]", Profiler.toJSONString());
+  }
+
+  @Test
+  public void testReportFormat() throws JSONException {
+    Profiler.record("Form", "Frame", 2000000);
+    Profiler.record("Clock1", "Timer", 1000000);
+    Profiler.record("Form", "Frame", 5000000);
+    JSONArray entries = new JSONArray(Profiler.toJSONString());
+    assertEquals(2, entries.length());
+    // Sorted by decreasing total time
+    JSONObject frame = entries.getJSONObject(0);
+    assertEquals("Form.Frame", frame.getString("name"));
+    assertEquals(2, frame.getInt("count"));
+    assertEquals(7.0, frame.getDouble("totalMs"), 0);
+    assertEquals(5.0, frame.getDouble("maxMs"), 0);
+    assertEquals(0, frame.getLong("allocations"));
+    JSONObject timer = entries.getJSONObject(1);
+    assertEquals("Clock1.Timer", timer.getString("name"));
+    assertEquals(1, timer.getInt("count"));
+    assertEquals(1.0, timer.getDouble("totalMs"), 0);
+  }
+
+  @Test
+  public void testEnablingResets() {
+    Profiler.record("Form", "Frame", 1000000);
+    Profiler.setEnabled(false);
+    Profiler.setEnabled(true);
+    assertEquals("[]", Profiler.toJSONString());
+  }
+}
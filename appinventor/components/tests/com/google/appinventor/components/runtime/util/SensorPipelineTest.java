@@ -0,0 +1,142 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import com.google.appinventor.components.runtime.RobolectricTestBase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests for {@link SensorPipeline}.
+ */
+public class SensorPipelineTest extends RobolectricTestBase {
+
+  private final SensorEventListener listener = new SensorEventListener() {
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    }
+  };
+
+  // The sizes of the batches seen by each flush, and the X values and timestamps of the last one
+  private final List<Integer> flushes = new ArrayList<Integer>();
+  private YailList xValues;
+  private YailList timestamps;
+  private final SensorPipeline.Callback callback = new SensorPipeline.Callback() {
+    @Override
+    public void flush(SensorPipeline pipeline) {
+      flushes.add(pipeline.size());
+      xValues = pipeline.xValues();
+      timestamps = pipeline.timestamps();
+    }
+  };
+
+  private Sensor sensor;
+
+  @Before
+  public void setUp() {
+    super.setUp();
+    sensor = Shadow.newInstanceOf(Sensor.class);
+  }
+
+  private SensorPipeline newPipeline(SensorManager sensorManager) {
+    return new SensorPipeline(sensorManager, sensor, listener, SensorManager.SENSOR_DELAY_GAME,
+        callback);
+  }
+
+  private void expectSamplingPeriod(int sampleRate, int samplingPeriod) {
+    SensorManager sensorManager = createMock(SensorManager.class);
+    expect(sensorManager.registerListener(same(listener), same(sensor), eq(samplingPeriod)))
+        .andReturn(true);
+    replay(sensorManager);
+    SensorPipeline pipeline = newPipeline(sensorManager);
+    pipeline.setSampleRate(sampleRate);
+    pipeline.start();
+    verify(sensorManager);
+  }
+
+  @Test
+  public void testSamplingPeriod() {
+    expectSamplingPeriod(0, SensorManager.SENSOR_DELAY_GAME);
+    expectSamplingPeriod(100, 10000);
+  }
+
+  @Test
+  public void testSamplingPeriodIsNotADelayConstant() {
+    // 1000000 / 500000 = 2 would be read as SENSOR_DELAY_UI
+    expectSamplingPeriod(500000, 4);
+    expectSamplingPeriod(Integer.MAX_VALUE, 4);
+  }
+
+  @Test
+  public void testOneFlushPerFrame() {
+    SensorPipeline pipeline = newPipeline(null);
+    pipeline.add(1, 2, 3, 10);
+    pipeline.add(4, 5, 6, 20);
+    assertEquals(0, flushes.size());
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(Arrays.asList(0), flushes);  // Not batching, so only the latest sample is kept
+    assertEquals(4, pipeline.lastX(), 0);
+    assertEquals(5, pipeline.lastY(), 0);
+    assertEquals(6, pipeline.lastZ(), 0);
+    assertEquals(20, pipeline.lastTimestamp());
+    pipeline.add(7, 8, 9, 30);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(Arrays.asList(0, 0), flushes);
+  }
+
+  @Test
+  public void testBatching() {
+    SensorPipeline pipeline = newPipeline(null);
+    pipeline.setReportLatency(100);
+    List<Float> expectedXValues = new ArrayList<Float>();
+    List<Long> expectedTimestamps = new ArrayList<Long>();
+    for (int i = 0; i < 100; i++) {  // More than the initial capacity
+      pipeline.add(i, -i, 2 * i, i * 10L);
+      expectedXValues.add((float) i);
+      expectedTimestamps.add(i * 10L);
+    }
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(Arrays.asList(100), flushes);
+    assertEquals(YailList.makeList(expectedXValues), xValues);
+    assertEquals(YailList.makeList(expectedTimestamps), timestamps);
+    assertEquals(0, pipeline.size());
+    pipeline.add(1, 2, 3, 1000);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(Arrays.asList(100, 1), flushes);
+  }
+
+  @Test
+  public void testStopDropsPendingSamples() {
+    SensorPipeline pipeline = newPipeline(null);
+    pipeline.setReportLatency(100);
+    pipeline.add(1, 2, 3, 10);
+    pipeline.stop();
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(0, flushes.size());
+    assertEquals(0, pipeline.size());
+  }
+}